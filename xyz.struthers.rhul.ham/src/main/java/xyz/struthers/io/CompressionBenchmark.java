@@ -0,0 +1,143 @@
+/**
+ *
+ */
+package xyz.struthers.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the size and speed of sending a month's liability amounts using each
+ * of the Serialization.CompressionType paths against the DeltaVectorCodec.
+ *
+ * The amounts are synthetic: a log-normal vector that is inflated each month,
+ * with a small share of the amounts replaced (e.g. new loans), which is roughly
+ * how the CPV inputs change from one month to the next.
+ *
+ * Usage: CompressionBenchmark [links] [months]
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class CompressionBenchmark {
+
+	public static final int DEFAULT_LINKS = 10000000;
+	public static final int DEFAULT_MONTHS = 6;
+	public static final float MONTHLY_INFLATION = 1.0015f; // about 1.8% p.a.
+	public static final double CHANGED_SHARE = 0.01d; // share of amounts replaced each month
+	public static final int FRAME_BYTES = 1024 * 1024;
+
+	public CompressionBenchmark() {
+		super();
+	}
+
+	/**
+	 * @param args - the number of links and the number of months (both optional)
+	 */
+	public static void main(String[] args) {
+		int links = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINKS;
+		int months = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MONTHS;
+		DecimalFormat formatter = new DecimalFormat("#,##0.00");
+		Random random = new Random(42L);
+
+		float[] amounts = new float[links];
+		for (int i = 0; i < links; i++) {
+			amounts[i] = (float) Math.exp(8d + 2d * random.nextGaussian());
+		}
+		float[] previous = null;
+
+		DeltaVectorCodec writeCodec = new DeltaVectorCodec();
+		DeltaVectorCodec readCodec = new DeltaVectorCodec();
+		float[] received = new float[links];
+		float[] receivedPrevious = new float[links];
+		long[] totalBytes = new long[4];
+		long[] totalNanos = new long[4];
+		String[] names = { "NO_COMPRESSION", "GZIP", "DEFLATER", "DELTA_DEFLATE" };
+
+		try {
+			for (int month = 0; month < months; month++) {
+				if (month > 0) {
+					// inflate last month's amounts, and replace a few of them
+					for (int i = 0; i < links; i++) {
+						amounts[i] *= MONTHLY_INFLATION;
+					}
+					int changed = (int) (links * CHANGED_SHARE);
+					for (int i = 0; i < changed; i++) {
+						amounts[random.nextInt(links)] = (float) Math.exp(8d + 2d * random.nextGaussian());
+					}
+				}
+
+				// the existing Java serialization paths
+				long start = System.nanoTime();
+				byte[] bytes = Serialization.toBytes(amounts, links * Float.BYTES);
+				float[] check = (float[]) Serialization.toObject(bytes);
+				record(totalBytes, totalNanos, Serialization.CompressionType.NO_COMPRESSION.intValue(),
+						bytes.length, start, Arrays.equals(amounts, check));
+
+				start = System.nanoTime();
+				bytes = Serialization.toBytesGZIP(amounts, links);
+				check = (float[]) Serialization.toObjectFromGZIP(bytes);
+				record(totalBytes, totalNanos, Serialization.CompressionType.GZIP.intValue(), bytes.length, start,
+						Arrays.equals(amounts, check));
+
+				start = System.nanoTime();
+				bytes = Serialization.toBytesDeflater(amounts, links);
+				check = (float[]) Serialization.toObjectFromDeflater(bytes);
+				record(totalBytes, totalNanos, Serialization.CompressionType.DEFLATER.intValue(), bytes.length,
+						start, Arrays.equals(amounts, check));
+
+				// the delta codec, XORed with last month's amounts after the first month
+				start = System.nanoTime();
+				ByteArrayOutputStream baos = new ByteArrayOutputStream(links);
+				FramedArrayWriter writer = new FramedArrayWriter(new DataOutputStream(baos), FRAME_BYTES);
+				writeCodec.writeFloats(writer, amounts, links, previous, previous == null ? 0 : links);
+				writer.flush();
+				bytes = baos.toByteArray();
+				FramedArrayReader reader = new FramedArrayReader(
+						new DataInputStream(new ByteArrayInputStream(bytes)));
+				int length = readCodec.readLength(reader);
+				readCodec.readFloats(reader, received, length, previous == null ? null : receivedPrevious, links);
+				record(totalBytes, totalNanos, 3, bytes.length, start, Arrays.equals(amounts, received));
+
+				// both sides keep this month's amounts for next month
+				if (previous == null) {
+					previous = new float[links];
+				}
+				System.arraycopy(amounts, 0, previous, 0, links);
+				System.arraycopy(received, 0, receivedPrevious, 0, links);
+
+				System.out.println("Month " + month + " done.");
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			writeCodec.close();
+			readCodec.close();
+		}
+
+		double rawMegabytes = (double) links * Float.BYTES * months / 1024d / 1024d;
+		System.out.println("RAW FLOATS: " + formatter.format(rawMegabytes) + "MB over " + months + " months");
+		for (int i = 0; i < names.length; i++) {
+			double megabytes = totalBytes[i] / 1024d / 1024d;
+			System.out.println(names[i] + ": " + formatter.format(megabytes) + "MB ("
+					+ formatter.format(100d * megabytes / rawMegabytes) + "% of raw), "
+					+ formatter.format(totalNanos[i] / 1000000d / months) + "ms per month to encode and decode");
+		}
+	}
+
+	private static void record(long[] totalBytes, long[] totalNanos, int type, int bytes, long start,
+			boolean correct) {
+		totalNanos[type] += System.nanoTime() - start;
+		totalBytes[type] += bytes;
+		if (!correct) {
+			System.err.println("Round trip failed for compression type " + type);
+		}
+	}
+
+}
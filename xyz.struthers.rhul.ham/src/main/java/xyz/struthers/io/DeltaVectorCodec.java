@@ -0,0 +1,258 @@
+/**
+ *
+ */
+package xyz.struthers.io;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses float and int vectors that change a little from one month to the
+ * next (e.g. liability amounts that only move by the inflation rate).
+ *
+ * Each value's bits are XORed with the same element of the previous month's
+ * vector, which leaves the sign, exponent and high mantissa bits mostly zero.
+ * The bytes are then split into four planes (all the high bytes, then all the
+ * next bytes, etc.) so the runs of zeroes are contiguous, and each block is
+ * compressed with Deflater at BEST_SPEED. The sender and receiver must both
+ * hold the same previous vector; if there isn't one, pass null and the vector
+ * is only compressed.
+ *
+ * A vector is written as: length, number of elements XORed with the previous
+ * vector, then one framed byte array per block of compressed planes.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class DeltaVectorCodec {
+
+	public static final int BLOCK_ELEMENTS = 1 << 20; // 4MB of planes per block
+
+	private final Deflater deflater;
+	private final Inflater inflater;
+	private byte[] planes; // the four byte planes of one block
+	private byte[] compressed; // one compressed block
+
+	public DeltaVectorCodec() {
+		super();
+		this.deflater = new Deflater(Deflater.BEST_SPEED, true);
+		this.inflater = new Inflater(true);
+		this.planes = null;
+		this.compressed = null;
+	}
+
+	/**
+	 * Writes a float vector.
+	 *
+	 * @param writer         - the writer to send the vector to
+	 * @param values         - the vector to send
+	 * @param length         - the number of elements to send
+	 * @param previous       - the previous vector that the receiver also holds, or
+	 *                       null
+	 * @param previousLength - the number of elements in the previous vector
+	 * @throws IOException
+	 */
+	public void writeFloats(FramedArrayWriter writer, float[] values, int length, float[] previous,
+			int previousLength) throws IOException {
+		int xorLength = previous == null ? 0 : Math.min(length, previousLength);
+		writer.writeInt(length);
+		writer.writeInt(xorLength);
+		for (int start = 0; start < length; start += BLOCK_ELEMENTS) {
+			int n = Math.min(BLOCK_ELEMENTS, length - start);
+			this.ensurePlanes(n);
+			for (int i = 0; i < n; i++) {
+				int bits = Float.floatToRawIntBits(values[start + i]);
+				if (start + i < xorLength) {
+					bits ^= Float.floatToRawIntBits(previous[start + i]);
+				}
+				this.split(bits, i, n);
+			}
+			this.writeBlock(writer, n);
+		}
+	}
+
+	/**
+	 * Writes an int vector.
+	 *
+	 * @param writer         - the writer to send the vector to
+	 * @param values         - the vector to send
+	 * @param length         - the number of elements to send
+	 * @param previous       - the previous vector that the receiver also holds, or
+	 *                       null
+	 * @param previousLength - the number of elements in the previous vector
+	 * @throws IOException
+	 */
+	public void writeInts(FramedArrayWriter writer, int[] values, int length, int[] previous, int previousLength)
+			throws IOException {
+		int xorLength = previous == null ? 0 : Math.min(length, previousLength);
+		writer.writeInt(length);
+		writer.writeInt(xorLength);
+		for (int start = 0; start < length; start += BLOCK_ELEMENTS) {
+			int n = Math.min(BLOCK_ELEMENTS, length - start);
+			this.ensurePlanes(n);
+			for (int i = 0; i < n; i++) {
+				int bits = values[start + i];
+				if (start + i < xorLength) {
+					bits ^= previous[start + i];
+				}
+				this.split(bits, i, n);
+			}
+			this.writeBlock(writer, n);
+		}
+	}
+
+	/**
+	 * Reads the length of the next vector, so the caller can make sure the
+	 * destination is big enough before calling readFloats or readInts.
+	 *
+	 * @param reader - the reader to receive the vector from
+	 * @return the number of elements in the vector
+	 * @throws IOException
+	 */
+	public int readLength(FramedArrayReader reader) throws IOException {
+		return reader.checkedLength(reader.readInt());
+	}
+
+	/**
+	 * Reads a float vector after its length has been read. The destination can be
+	 * the previous vector itself, in which case it is updated in place.
+	 *
+	 * @param reader         - the reader to receive the vector from
+	 * @param values         - the destination, with at least length elements
+	 * @param length         - the length returned by readLength
+	 * @param previous       - the previous vector that the sender also holds, or
+	 *                       null
+	 * @param previousLength - the number of elements in the previous vector
+	 * @throws IOException if the previous vector doesn't match the sender's
+	 */
+	public void readFloats(FramedArrayReader reader, float[] values, int length, float[] previous,
+			int previousLength) throws IOException {
+		int xorLength = this.checkXorLength(reader, length, previous == null ? 0 : previousLength);
+		for (int start = 0; start < length; start += BLOCK_ELEMENTS) {
+			int n = Math.min(BLOCK_ELEMENTS, length - start);
+			this.readBlock(reader, n);
+			for (int i = 0; i < n; i++) {
+				int bits = this.join(i, n);
+				if (start + i < xorLength) {
+					bits ^= Float.floatToRawIntBits(previous[start + i]);
+				}
+				values[start + i] = Float.intBitsToFloat(bits);
+			}
+		}
+	}
+
+	/**
+	 * Reads an int vector after its length has been read. The destination can be
+	 * the previous vector itself, in which case it is updated in place.
+	 *
+	 * @param reader         - the reader to receive the vector from
+	 * @param values         - the destination, with at least length elements
+	 * @param length         - the length returned by readLength
+	 * @param previous       - the previous vector that the sender also holds, or
+	 *                       null
+	 * @param previousLength - the number of elements in the previous vector
+	 * @throws IOException if the previous vector doesn't match the sender's
+	 */
+	public void readInts(FramedArrayReader reader, int[] values, int length, int[] previous, int previousLength)
+			throws IOException {
+		int xorLength = this.checkXorLength(reader, length, previous == null ? 0 : previousLength);
+		for (int start = 0; start < length; start += BLOCK_ELEMENTS) {
+			int n = Math.min(BLOCK_ELEMENTS, length - start);
+			this.readBlock(reader, n);
+			for (int i = 0; i < n; i++) {
+				int bits = this.join(i, n);
+				if (start + i < xorLength) {
+					bits ^= previous[start + i];
+				}
+				values[start + i] = bits;
+			}
+		}
+	}
+
+	/**
+	 * Releases the native memory used by the compressor.
+	 */
+	public void close() {
+		this.deflater.end();
+		this.inflater.end();
+		this.planes = null;
+		this.compressed = null;
+	}
+
+	private int checkXorLength(FramedArrayReader reader, int length, int previousLength) throws IOException {
+		int xorLength = reader.readInt();
+		if (xorLength != Math.min(length, previousLength)) {
+			throw new IOException("The previous vector has " + previousLength
+					+ " elements, which doesn't match the sender's " + xorLength + ".");
+		}
+		return xorLength;
+	}
+
+	private void ensurePlanes(int n) {
+		if (this.planes == null || this.planes.length < n * Integer.BYTES) {
+			int size = Math.min(BLOCK_ELEMENTS, Math.max(n, 1024)) * Integer.BYTES;
+			this.planes = new byte[size];
+			this.compressed = new byte[size + (size >>> 4) + 64];
+		}
+	}
+
+	private void split(int bits, int i, int n) {
+		this.planes[i] = (byte) (bits >>> 24);
+		this.planes[n + i] = (byte) (bits >>> 16);
+		this.planes[2 * n + i] = (byte) (bits >>> 8);
+		this.planes[3 * n + i] = (byte) bits;
+	}
+
+	private int join(int i, int n) {
+		return ((this.planes[i] & 0xFF) << 24) | ((this.planes[n + i] & 0xFF) << 16)
+				| ((this.planes[2 * n + i] & 0xFF) << 8) | (this.planes[3 * n + i] & 0xFF);
+	}
+
+	private void writeBlock(FramedArrayWriter writer, int n) throws IOException {
+		this.deflater.reset();
+		this.deflater.setInput(this.planes, 0, n * Integer.BYTES);
+		this.deflater.finish();
+		int length = 0;
+		while (!this.deflater.finished()) {
+			if (length == this.compressed.length) {
+				byte[] bigger = new byte[this.compressed.length + (this.compressed.length >>> 1)];
+				System.arraycopy(this.compressed, 0, bigger, 0, length);
+				this.compressed = bigger;
+			}
+			length += this.deflater.deflate(this.compressed, length, this.compressed.length - length);
+		}
+		writer.writeByteArray(this.compressed, 0, length);
+	}
+
+	private void readBlock(FramedArrayReader reader, int n) throws IOException {
+		this.ensurePlanes(n);
+		int length = reader.checkedLength(reader.beginArray());
+		if (this.compressed.length < length) {
+			this.compressed = new byte[length];
+		}
+		reader.getBytes(this.compressed, 0, length);
+		reader.endArray();
+
+		this.inflater.reset();
+		this.inflater.setInput(this.compressed, 0, length);
+		try {
+			int expected = n * Integer.BYTES;
+			int done = 0;
+			while (done < expected && !this.inflater.finished()) {
+				int count = this.inflater.inflate(this.planes, done, expected - done);
+				if (count == 0 && (this.inflater.needsInput() || this.inflater.needsDictionary())) {
+					break;
+				}
+				done += count;
+			}
+			if (done != expected) {
+				throw new IOException("Compressed block has " + done + " bytes instead of " + expected + ".");
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Compressed block is corrupt.", e);
+		}
+	}
+
+}
@@ -0,0 +1,274 @@
+/**
+ *
+ */
+package xyz.struthers.io;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads primitive arrays written by a FramedArrayWriter, decoding each frame
+ * straight into the destination array. Only one frame is held in memory at a
+ * time, so arrays larger than 2GB can be sent as long as the destination can
+ * hold them.
+ *
+ * When reading from a channel the frame is a direct buffer, so the bytes are
+ * read by the kernel straight into native memory and only copied once, into
+ * the destination array.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class FramedArrayReader {
+
+	private final DataInputStream dis;
+	private final ReadableByteChannel channel;
+	private final ByteBuffer control; // message type and length when reading from a channel
+	private ByteBuffer frame;
+	private long remaining; // elements still to be read in the current array
+
+	/**
+	 * @param dis - the stream to read from
+	 */
+	public FramedArrayReader(DataInputStream dis) {
+		super();
+		this.dis = dis;
+		this.channel = null;
+		this.control = null;
+		this.frame = ByteBuffer.allocate(FramedArrayWriter.MIN_FRAME_BYTES);
+		this.frame.limit(0);
+		this.remaining = 0L;
+	}
+
+	/**
+	 * @param channel    - the blocking channel to read from
+	 * @param frameBytes - the expected size of each frame (it grows if a bigger
+	 *                   one arrives)
+	 */
+	public FramedArrayReader(ReadableByteChannel channel, int frameBytes) {
+		super();
+		this.dis = null;
+		this.channel = channel;
+		this.control = ByteBuffer.allocateDirect(Long.BYTES);
+		this.frame = ByteBuffer.allocateDirect(Math.max(FramedArrayWriter.MIN_FRAME_BYTES, frameBytes));
+		this.frame.limit(0);
+		this.remaining = 0L;
+	}
+
+	/**
+	 * Reads a single value outside of any array (e.g. a message header).
+	 *
+	 * @return the value that was read
+	 * @throws IOException
+	 */
+	public int readInt() throws IOException {
+		if (this.channel == null) {
+			return this.dis.readInt();
+		}
+		this.readControl(Integer.BYTES);
+		return this.control.getInt();
+	}
+
+	/**
+	 * Reads a single value outside of any array (e.g. a message header).
+	 *
+	 * @return the value that was read
+	 * @throws IOException
+	 */
+	public long readLong() throws IOException {
+		if (this.channel == null) {
+			return this.dis.readLong();
+		}
+		this.readControl(Long.BYTES);
+		return this.control.getLong();
+	}
+
+	/**
+	 * Reads the header of the next array.
+	 *
+	 * @return the number of elements in the array
+	 * @throws IOException
+	 */
+	public long beginArray() throws IOException {
+		int msgType = this.readInt();
+		if (msgType != Serialization.MSG_TYPE_HDR) {
+			throw new IOException("Expected an array header but received message type " + msgType + ".");
+		}
+		this.remaining = this.readLong();
+		this.frame.limit(0);
+		return this.remaining;
+	}
+
+	/**
+	 * Reads the end of array marker.
+	 *
+	 * @throws IOException
+	 */
+	public void endArray() throws IOException {
+		if (this.remaining != 0L || this.frame.hasRemaining()) {
+			throw new IOException("Array ended with " + this.remaining + " elements still to be read.");
+		}
+		int msgType = this.readInt();
+		if (msgType != Serialization.MSG_TYPE_END) {
+			throw new IOException("Expected the end of an array but received message type " + msgType + ".");
+		}
+	}
+
+	public int getInt() throws IOException {
+		this.nextElement(Integer.BYTES);
+		this.remaining--;
+		return this.frame.getInt();
+	}
+
+	public float getFloat() throws IOException {
+		this.nextElement(Float.BYTES);
+		this.remaining--;
+		return this.frame.getFloat();
+	}
+
+	public void getInts(int[] values, int offset, int length) throws IOException {
+		int done = 0;
+		while (done < length) {
+			this.nextElement(Integer.BYTES);
+			int count = Math.min(length - done, this.frame.remaining() / Integer.BYTES);
+			this.frame.asIntBuffer().get(values, offset + done, count);
+			this.frame.position(this.frame.position() + count * Integer.BYTES);
+			done += count;
+		}
+		this.remaining -= length;
+	}
+
+	public void getFloats(float[] values, int offset, int length) throws IOException {
+		int done = 0;
+		while (done < length) {
+			this.nextElement(Float.BYTES);
+			int count = Math.min(length - done, this.frame.remaining() / Float.BYTES);
+			this.frame.asFloatBuffer().get(values, offset + done, count);
+			this.frame.position(this.frame.position() + count * Float.BYTES);
+			done += count;
+		}
+		this.remaining -= length;
+	}
+
+	public void getBytes(byte[] values, int offset, int length) throws IOException {
+		int done = 0;
+		while (done < length) {
+			if (!this.frame.hasRemaining()) {
+				this.readFrame();
+			}
+			int count = Math.min(length - done, this.frame.remaining());
+			this.frame.get(values, offset + done, count);
+			done += count;
+		}
+		this.remaining -= length;
+	}
+
+	/**
+	 * Reads a whole int array, reusing the destination if it is exactly the right
+	 * length.
+	 *
+	 * @param values - the array to reuse, or null
+	 * @return the array that was read
+	 * @throws IOException
+	 */
+	public int[] readIntArray(int[] values) throws IOException {
+		int length = this.checkedLength(this.beginArray());
+		int[] result = (values != null && values.length == length) ? values : new int[length];
+		this.getInts(result, 0, length);
+		this.endArray();
+		return result;
+	}
+
+	/**
+	 * Reads a whole float array, reusing the destination if it is exactly the
+	 * right length.
+	 *
+	 * @param values - the array to reuse, or null
+	 * @return the array that was read
+	 * @throws IOException
+	 */
+	public float[] readFloatArray(float[] values) throws IOException {
+		int length = this.checkedLength(this.beginArray());
+		float[] result = (values != null && values.length == length) ? values : new float[length];
+		this.getFloats(result, 0, length);
+		this.endArray();
+		return result;
+	}
+
+	/**
+	 * Checks that an array can be held in a Java array.
+	 *
+	 * @param length - the number of elements
+	 * @return the length as an int
+	 * @throws IOException if it is too long for a Java array
+	 */
+	public int checkedLength(long length) throws IOException {
+		if (length < 0L || length > Integer.MAX_VALUE - 8) {
+			throw new IOException("Array of " + length + " elements is too long.");
+		}
+		return (int) length;
+	}
+
+	/**
+	 * Reads the next frame if the current one has been used up, and checks that
+	 * it holds at least one more whole element.
+	 *
+	 * @param bytes - the size of an element
+	 * @throws IOException if the frame ends part way through an element
+	 */
+	private void nextElement(int bytes) throws IOException {
+		if (!this.frame.hasRemaining()) {
+			this.readFrame();
+		}
+		if (this.frame.remaining() < bytes) {
+			throw new IOException("Malformed frame: " + this.frame.remaining() + " bytes left is less than one "
+					+ bytes + " byte element.");
+		}
+	}
+
+	private void readFrame() throws IOException {
+		int msgType = this.readInt();
+		if (msgType != Serialization.MSG_TYPE_BODY) {
+			throw new IOException("Expected an array frame but received message type " + msgType + ".");
+		}
+		int msgLength = this.readInt();
+		if (msgLength <= 0) {
+			throw new IOException("Invalid frame length: " + msgLength);
+		}
+		if (this.channel == null) {
+			if (this.frame.capacity() < msgLength) {
+				this.frame = ByteBuffer.allocate(msgLength);
+			}
+			this.frame.clear();
+			this.dis.readFully(this.frame.array(), 0, msgLength);
+			this.frame.limit(msgLength);
+		} else {
+			if (this.frame.capacity() < msgLength) {
+				this.frame = ByteBuffer.allocateDirect(msgLength);
+			}
+			this.frame.clear();
+			this.frame.limit(msgLength);
+			readFully(this.channel, this.frame);
+			this.frame.flip();
+		}
+	}
+
+	private void readControl(int bytes) throws IOException {
+		this.control.clear();
+		this.control.limit(bytes);
+		readFully(this.channel, this.control);
+		this.control.flip();
+	}
+
+	private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException("Channel closed part way through a frame.");
+			}
+		}
+	}
+
+}
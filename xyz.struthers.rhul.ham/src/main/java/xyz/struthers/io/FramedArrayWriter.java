@@ -0,0 +1,271 @@
+/**
+ *
+ */
+package xyz.struthers.io;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Streams primitive arrays over a data output stream in fixed-size frames,
+ * without ever building a byte array for the whole message. Each array is sent
+ * as:<br>
+ * MSG_TYPE_HDR, number of elements (long)<br>
+ * MSG_TYPE_BODY, number of bytes, bytes ... (repeated)<br>
+ * MSG_TYPE_END
+ *
+ * An array can be written from several source arrays (e.g. one row of a
+ * jagged array at a time) between beginArray and endArray. The frame buffer is
+ * reused, so the only memory this needs is one frame.
+ *
+ * When writing to a channel the frame is a direct buffer, so the values are
+ * copied once from the source arrays into native memory and handed straight to
+ * the channel without passing back through the Java heap.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class FramedArrayWriter {
+
+	public static final int MIN_FRAME_BYTES = 1024;
+
+	private final DataOutputStream dos;
+	private final WritableByteChannel channel;
+	private final ByteBuffer control; // message type and length when writing to a channel
+	private final ByteBuffer frame;
+	private long remaining; // elements still to be written in the current array
+
+	/**
+	 * @param dos        - the stream to write to
+	 * @param frameBytes - the maximum size of each frame (rounded down to a
+	 *                   multiple of 8 bytes)
+	 */
+	public FramedArrayWriter(DataOutputStream dos, int frameBytes) {
+		super();
+		this.dos = dos;
+		this.channel = null;
+		this.control = null;
+		this.frame = ByteBuffer.allocate(frameSize(frameBytes));
+		this.remaining = 0L;
+	}
+
+	/**
+	 * @param channel    - the blocking channel to write to
+	 * @param frameBytes - the maximum size of each frame (rounded down to a
+	 *                   multiple of 8 bytes)
+	 */
+	public FramedArrayWriter(WritableByteChannel channel, int frameBytes) {
+		super();
+		this.dos = null;
+		this.channel = channel;
+		this.control = ByteBuffer.allocateDirect(Integer.BYTES + Long.BYTES);
+		this.frame = ByteBuffer.allocateDirect(frameSize(frameBytes));
+		this.remaining = 0L;
+	}
+
+	private static int frameSize(int frameBytes) {
+		return Math.max(MIN_FRAME_BYTES, frameBytes) & ~7;
+	}
+
+	/**
+	 * Writes a single value outside of any array (e.g. a message header).
+	 *
+	 * @param value - the value to write
+	 * @throws IOException
+	 */
+	public void writeInt(int value) throws IOException {
+		if (this.channel == null) {
+			this.dos.writeInt(value);
+		} else {
+			this.control.clear();
+			this.control.putInt(value);
+			this.writeControl();
+		}
+	}
+
+	/**
+	 * Writes a single value outside of any array (e.g. a message header).
+	 *
+	 * @param value - the value to write
+	 * @throws IOException
+	 */
+	public void writeLong(long value) throws IOException {
+		if (this.channel == null) {
+			this.dos.writeLong(value);
+		} else {
+			this.control.clear();
+			this.control.putLong(value);
+			this.writeControl();
+		}
+	}
+
+	/**
+	 * Sends anything still buffered by the underlying stream.
+	 *
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		if (this.channel == null) {
+			this.dos.flush();
+		}
+	}
+
+	/**
+	 * Starts a new array.
+	 *
+	 * @param length - the total number of elements that will be written
+	 * @throws IOException
+	 */
+	public void beginArray(long length) throws IOException {
+		if (this.channel == null) {
+			this.dos.writeInt(Serialization.MSG_TYPE_HDR);
+			this.dos.writeLong(length);
+		} else {
+			this.control.clear();
+			this.control.putInt(Serialization.MSG_TYPE_HDR);
+			this.control.putLong(length);
+			this.writeControl();
+		}
+		this.remaining = length;
+		this.frame.clear();
+	}
+
+	/**
+	 * Sends any buffered elements and the end of array marker.
+	 *
+	 * @throws IOException
+	 */
+	public void endArray() throws IOException {
+		if (this.remaining != 0L) {
+			throw new IOException("Array ended with " + this.remaining + " elements still to be written.");
+		}
+		this.flushFrame();
+		this.writeInt(Serialization.MSG_TYPE_END);
+		this.flush();
+	}
+
+	public void putInt(int value) throws IOException {
+		if (this.frame.remaining() < Integer.BYTES) {
+			this.flushFrame();
+		}
+		this.frame.putInt(value);
+		this.remaining--;
+	}
+
+	public void putFloat(float value) throws IOException {
+		if (this.frame.remaining() < Float.BYTES) {
+			this.flushFrame();
+		}
+		this.frame.putFloat(value);
+		this.remaining--;
+	}
+
+	public void putInts(int[] values, int offset, int length) throws IOException {
+		int done = 0;
+		while (done < length) {
+			if (this.frame.remaining() < Integer.BYTES) {
+				this.flushFrame();
+			}
+			int count = Math.min(length - done, this.frame.remaining() / Integer.BYTES);
+			this.frame.asIntBuffer().put(values, offset + done, count);
+			this.frame.position(this.frame.position() + count * Integer.BYTES);
+			done += count;
+		}
+		this.remaining -= length;
+	}
+
+	public void putFloats(float[] values, int offset, int length) throws IOException {
+		int done = 0;
+		while (done < length) {
+			if (this.frame.remaining() < Float.BYTES) {
+				this.flushFrame();
+			}
+			int count = Math.min(length - done, this.frame.remaining() / Float.BYTES);
+			this.frame.asFloatBuffer().put(values, offset + done, count);
+			this.frame.position(this.frame.position() + count * Float.BYTES);
+			done += count;
+		}
+		this.remaining -= length;
+	}
+
+	public void putBytes(byte[] values, int offset, int length) throws IOException {
+		int done = 0;
+		while (done < length) {
+			if (!this.frame.hasRemaining()) {
+				this.flushFrame();
+			}
+			int count = Math.min(length - done, this.frame.remaining());
+			this.frame.put(values, offset + done, count);
+			done += count;
+		}
+		this.remaining -= length;
+	}
+
+	/**
+	 * Convenience method to write part of a byte array as a whole array.
+	 *
+	 * @param values - the array to write
+	 * @param offset - the first element to write
+	 * @param length - the number of elements to write
+	 * @throws IOException
+	 */
+	public void writeByteArray(byte[] values, int offset, int length) throws IOException {
+		this.beginArray(length);
+		this.putBytes(values, offset, length);
+		this.endArray();
+	}
+
+	/**
+	 * Convenience method to write a whole int array.
+	 *
+	 * @param values - the array to write
+	 * @throws IOException
+	 */
+	public void writeIntArray(int[] values) throws IOException {
+		this.beginArray(values.length);
+		this.putInts(values, 0, values.length);
+		this.endArray();
+	}
+
+	/**
+	 * Convenience method to write a whole float array.
+	 *
+	 * @param values - the array to write
+	 * @throws IOException
+	 */
+	public void writeFloatArray(float[] values) throws IOException {
+		this.beginArray(values.length);
+		this.putFloats(values, 0, values.length);
+		this.endArray();
+	}
+
+	private void flushFrame() throws IOException {
+		if (this.frame.position() > 0) {
+			if (this.channel == null) {
+				this.dos.writeInt(Serialization.MSG_TYPE_BODY);
+				this.dos.writeInt(this.frame.position()); // length of this message
+				this.dos.write(this.frame.array(), 0, this.frame.position());
+			} else {
+				this.control.clear();
+				this.control.putInt(Serialization.MSG_TYPE_BODY);
+				this.control.putInt(this.frame.position()); // length of this message
+				this.writeControl();
+				this.frame.flip();
+				while (this.frame.hasRemaining()) {
+					this.channel.write(this.frame);
+				}
+			}
+			this.frame.clear();
+		}
+	}
+
+	private void writeControl() throws IOException {
+		this.control.flip();
+		while (this.control.hasRemaining()) {
+			this.channel.write(this.control);
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+/**
+ *
+ */
+package xyz.struthers.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A temporary file that a message is spilled into through memory-mapped
+ * windows, then sent to a socket using FileChannel.transferTo so the kernel
+ * copies the bytes from the page cache to the socket without them passing
+ * through the Java heap.
+ *
+ * The file is kept open and overwritten each time it is reset, so it only
+ * grows to the size of the largest message. It is never truncated because a
+ * mapped file can't be truncated on Windows.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class MappedSpillFile implements WritableByteChannel {
+
+	public static final int WINDOW_BYTES = 64 * 1024 * 1024; // 64MB
+
+	private final File file;
+	private final FileChannel fileChannel;
+	private MappedByteBuffer window;
+	private long size; // bytes written since the last reset
+
+	/**
+	 * Creates a new spill file in the given directory.
+	 *
+	 * @param directory - the directory to create the file in, or null or empty to
+	 *                  use the default temporary directory
+	 * @throws IOException
+	 */
+	public MappedSpillFile(String directory) throws IOException {
+		super();
+		File dir = (directory == null || directory.isEmpty()) ? null : new File(directory);
+		this.file = File.createTempFile("cpv-", ".spill", dir);
+		this.file.deleteOnExit();
+		this.fileChannel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.window = null;
+		this.size = 0L;
+	}
+
+	/**
+	 * Discards the previous message so the file can be reused for the next one.
+	 */
+	public void reset() {
+		this.window = null;
+		this.size = 0L;
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		int written = src.remaining();
+		while (src.hasRemaining()) {
+			if (this.window == null || !this.window.hasRemaining()) {
+				// the windows are contiguous, so the next one starts where this one ended
+				this.window = this.fileChannel.map(MapMode.READ_WRITE, this.size, WINDOW_BYTES);
+			}
+			int count = Math.min(src.remaining(), this.window.remaining());
+			ByteBuffer part = src.duplicate();
+			part.limit(part.position() + count);
+			this.window.put(part);
+			src.position(src.position() + count);
+			this.size += count;
+		}
+		return written;
+	}
+
+	/**
+	 * Sends everything written since the last reset to the target channel.
+	 *
+	 * @param target - the channel to send to (usually a SocketChannel)
+	 * @return the number of bytes sent
+	 * @throws IOException
+	 */
+	public long transferTo(WritableByteChannel target) throws IOException {
+		long position = 0L;
+		while (position < this.size) {
+			position += this.fileChannel.transferTo(position, this.size - position, target);
+		}
+		return position;
+	}
+
+	/**
+	 * @return the number of bytes written since the last reset
+	 */
+	public long size() {
+		return this.size;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return this.fileChannel.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.window = null;
+		this.fileChannel.close();
+		if (!this.file.delete()) {
+			// still mapped on Windows until the buffers are garbage collected
+			System.out.println("Couldn't delete spill file yet, it will be deleted on exit: " + this.file);
+		}
+	}
+
+}
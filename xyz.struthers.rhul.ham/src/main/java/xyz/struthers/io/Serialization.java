@@ -8,10 +8,10 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Arrays;
-import java.util.zip.DeflaterInputStream;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * A utility class to make it easier to serialize and deserialize objects.
@@ -118,7 +118,8 @@ public abstract class Serialization {
 		Object object = null;
 		try {
 			ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-			DeflaterInputStream zipIn = new DeflaterInputStream(bais);
+			// DeflaterInputStream would compress the bytes again instead of inflating them
+			InflaterInputStream zipIn = new InflaterInputStream(bais);
 			ObjectInputStream objectIn = new ObjectInputStream(zipIn);
 			object = objectIn.readObject();
 			objectIn.close();
@@ -323,7 +324,7 @@ public abstract class Serialization {
 				objectIn = new ObjectInputStream(zipIn);
 				break;
 			case DEFLATER:
-				DeflaterInputStream deflaterIn = new DeflaterInputStream(bais);
+				InflaterInputStream deflaterIn = new InflaterInputStream(bais);
 				objectIn = new ObjectInputStream(deflaterIn);
 				break;
 			default:
@@ -0,0 +1,434 @@
+/**
+ *
+ */
+package xyz.struthers.lang;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a CSV file one record at a time, splitting it into fields the same way
+ * as opencsv's CSVReader with its default settings, but without creating a
+ * String for every field. The characters of the current record are kept in a
+ * reusable buffer, and numbers can be parsed straight from it, so a wide table
+ * of numbers can be loaded into primitive maps with only the row and column
+ * titles turned into Strings.
+ *
+ * Files on the file system are memory-mapped through a FileChannel. Resources
+ * in a jar are streamed through a small buffer instead. Either way the bytes
+ * are decoded with the platform's default charset, like an InputStreamReader.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class CsvTokenizer implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final char SEPARATOR = ',';
+	private static final char QUOTE = '"';
+	private static final char ESCAPE = '\\';
+	private static final float[] POW10 = { 1f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+	private static final int MAX_EXACT_FLOAT = 1 << 24;
+
+	private final ReadableByteChannel channel; // null if the file is mapped
+	private final ByteBuffer bytes;
+	private final CharBuffer chars;
+	private final CharsetDecoder decoder;
+	private boolean endOfInput;
+	private boolean flushed;
+	private boolean skipLineFeed;
+
+	private char[] line; // the current physical line
+	private int lineLength;
+	private char[] text; // the current record's fields, one after the other
+	private int textLength;
+	private int[] fieldStart;
+	private int[] fieldEnd;
+	private int fieldCount;
+	private boolean inField; // carried between records, like CSVParser
+
+	/**
+	 * @param channel - the channel to stream the file from
+	 */
+	public CsvTokenizer(ReadableByteChannel channel) {
+		this(channel, ByteBuffer.allocate(BUFFER_SIZE).flip());
+	}
+
+	/**
+	 * @param buffer - the whole file, e.g. a mapped FileChannel
+	 */
+	public CsvTokenizer(ByteBuffer buffer) {
+		this(null, buffer);
+	}
+
+	private CsvTokenizer(ReadableByteChannel channel, ByteBuffer bytes) {
+		super();
+		this.channel = channel;
+		this.bytes = bytes;
+		this.endOfInput = channel == null;
+		this.chars = CharBuffer.allocate(BUFFER_SIZE).flip();
+		this.decoder = Charset.defaultCharset().newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.line = new char[1024];
+		this.text = new char[1024];
+		this.fieldStart = new int[64];
+		this.fieldEnd = new int[64];
+	}
+
+	/**
+	 * Opens a resource, mapping it into memory if it's a file on the file system.
+	 *
+	 * @param resourceClass    - the class to load the resource with
+	 * @param resourceLocation - the URI of the resource
+	 * @return a tokenizer positioned before the first record
+	 * @throws IOException if the resource doesn't exist or can't be opened
+	 */
+	public static CsvTokenizer open(Class<?> resourceClass, String resourceLocation) throws IOException {
+		URL url = resourceClass.getResource(resourceLocation);
+		if (url == null) {
+			throw new FileNotFoundException(resourceLocation);
+		}
+		if ("file".equals(url.getProtocol())) {
+			try (FileChannel file = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ)) {
+				if (file.size() <= Integer.MAX_VALUE) {
+					// the mapping stays valid after the channel is closed
+					return new CsvTokenizer(file.map(MapMode.READ_ONLY, 0L, file.size()));
+				}
+			} catch (URISyntaxException e) {
+				// stream it instead
+			}
+		}
+		return new CsvTokenizer(Channels.newChannel(url.openStream()));
+	}
+
+	/**
+	 * Reads the next record, which may span several lines if a quoted field
+	 * contains line breaks.
+	 *
+	 * @return true if a record was read, false at the end of the file
+	 * @throws IOException if the file can't be read or ends inside a quoted field
+	 */
+	public boolean next() throws IOException {
+		this.fieldCount = 0;
+		this.textLength = 0;
+		if (!this.readLine()) {
+			return false;
+		}
+		int start = 0;
+		boolean inQuotes = false;
+		while (true) {
+			for (int i = 0; i < this.lineLength; i++) {
+				char c = this.line[i];
+				if (c == ESCAPE) {
+					// the escape character itself is dropped
+					if ((inQuotes || this.inField) && i + 1 < this.lineLength
+							&& (this.line[i + 1] == QUOTE || this.line[i + 1] == ESCAPE)) {
+						this.append(this.line[++i]);
+					}
+				} else if (c == QUOTE) {
+					if ((inQuotes || this.inField) && i + 1 < this.lineLength && this.line[i + 1] == QUOTE) {
+						this.append(this.line[++i]); // doubled quote
+					} else {
+						inQuotes = !inQuotes;
+						if (i > 2 && this.line[i - 1] != SEPARATOR && i + 1 < this.lineLength
+								&& this.line[i + 1] != SEPARATOR) {
+							// a quote in the middle of a field is kept, unless only spaces precede it
+							if (this.textLength > start && this.isWhitespace(start, this.textLength)) {
+								this.textLength = start;
+							} else {
+								this.append(c);
+							}
+						}
+					}
+					this.inField = !this.inField;
+				} else if (c == SEPARATOR && !inQuotes) {
+					this.addField(start);
+					start = this.textLength;
+					this.inField = false;
+				} else {
+					this.append(c);
+					this.inField = true;
+				}
+			}
+			if (!inQuotes) {
+				this.inField = false;
+				break;
+			}
+			// the quoted field carries on to the next line
+			this.append('\n');
+			if (!this.readLine()) {
+				throw new IOException("Un-terminated quoted field at end of CSV file");
+			}
+		}
+		this.addField(start);
+		return true;
+	}
+
+	/**
+	 * @return the number of fields in the current record
+	 */
+	public int size() {
+		return this.fieldCount;
+	}
+
+	/**
+	 * @param field - the zero-based index of the field
+	 * @return the field as a String
+	 */
+	public String get(int field) {
+		this.checkIndex(field);
+		return new String(this.text, this.fieldStart[field], this.fieldEnd[field] - this.fieldStart[field]);
+	}
+
+	/**
+	 * @return the current record as an array of Strings, like CSVReader.readNext
+	 */
+	public String[] toArray() {
+		String[] fields = new String[this.fieldCount];
+		for (int i = 0; i < this.fieldCount; i++) {
+			fields[i] = this.get(i);
+		}
+		return fields;
+	}
+
+	/**
+	 * @param field - the zero-based index of the field
+	 * @return true if the field has no characters
+	 */
+	public boolean isEmpty(int field) {
+		this.checkIndex(field);
+		return this.fieldEnd[field] == this.fieldStart[field];
+	}
+
+	/**
+	 * @param field - the zero-based index of the field
+	 * @return true if the field is empty or only contains white space
+	 */
+	public boolean isBlank(int field) {
+		this.checkIndex(field);
+		return this.isWhitespace(this.fieldStart[field], this.fieldEnd[field]);
+	}
+
+	/**
+	 * @param field  - the zero-based index of the field
+	 * @param prefix - the characters to look for
+	 * @return true if the field starts with the prefix
+	 */
+	public boolean startsWith(int field, String prefix) {
+		this.checkIndex(field);
+		int start = this.fieldStart[field];
+		if (this.fieldEnd[field] - start < prefix.length()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (this.text[start + i] != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses the field the same way as Float.valueOf(field.replace(",", "")),
+	 * without creating any Strings for ordinary decimal numbers.
+	 *
+	 * @param field        - the zero-based index of the field
+	 * @param defaultValue - the value to return if the field isn't a number
+	 * @return the value of the field
+	 */
+	public float getFloat(int field, float defaultValue) {
+		this.checkIndex(field);
+		int start = this.fieldStart[field];
+		int end = this.fieldEnd[field];
+		while (start < end && this.text[start] <= ' ') {
+			start++;
+		}
+		while (end > start && this.text[end - 1] <= ' ') {
+			end--;
+		}
+		boolean negative = false;
+		if (start < end && (this.text[start] == '-' || this.text[start] == '+')) {
+			negative = this.text[start++] == '-';
+		}
+		// the quotient of two exact floats is correctly rounded, just like parseFloat
+		int mantissa = 0;
+		int digits = 0;
+		int scale = -1;
+		for (int i = start; i < end; i++) {
+			char c = this.text[i];
+			if (c >= '0' && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (scale >= 0) {
+					scale++;
+				}
+				if (mantissa >= MAX_EXACT_FLOAT || scale >= POW10.length) {
+					return this.parseFloat(field, defaultValue);
+				}
+			} else if (c == '.' && scale < 0) {
+				scale = 0;
+			} else if (c != ',') {
+				return this.parseFloat(field, defaultValue); // exponents, NaN, etc.
+			}
+		}
+		if (digits == 0) {
+			return this.parseFloat(field, defaultValue);
+		}
+		float value = scale > 0 ? mantissa / POW10[scale] : mantissa;
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses the field the same way as Integer.valueOf(field).
+	 *
+	 * @param field        - the zero-based index of the field
+	 * @param defaultValue - the value to return if the field isn't an integer
+	 * @return the value of the field
+	 */
+	public int getInt(int field, int defaultValue) {
+		this.checkIndex(field);
+		int start = this.fieldStart[field];
+		int end = this.fieldEnd[field];
+		boolean negative = false;
+		if (start < end && (this.text[start] == '-' || this.text[start] == '+')) {
+			negative = this.text[start++] == '-';
+		}
+		if (start == end || end - start > 9) {
+			return this.parseInt(field, defaultValue); // may overflow, so let Integer decide
+		}
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			char c = this.text[i];
+			if (c < '0' || c > '9') {
+				return this.parseInt(field, defaultValue);
+			}
+			value = value * 10 + (c - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.channel != null) {
+			this.channel.close();
+		}
+	}
+
+	private float parseFloat(int field, float defaultValue) {
+		try {
+			return Float.parseFloat(this.get(field).replace(",", ""));
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	private int parseInt(int field, int defaultValue) {
+		try {
+			return Integer.parseInt(this.get(field));
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	private void checkIndex(int field) {
+		if (field < 0 || field >= this.fieldCount) {
+			throw new ArrayIndexOutOfBoundsException("Index " + field + " out of bounds for length " + this.fieldCount);
+		}
+	}
+
+	private boolean isWhitespace(int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (!Character.isWhitespace(this.text[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void append(char c) {
+		if (this.textLength == this.text.length) {
+			this.text = Arrays.copyOf(this.text, this.text.length * 2);
+		}
+		this.text[this.textLength++] = c;
+	}
+
+	private void addField(int start) {
+		if (this.fieldCount == this.fieldStart.length) {
+			this.fieldStart = Arrays.copyOf(this.fieldStart, this.fieldCount * 2);
+			this.fieldEnd = Arrays.copyOf(this.fieldEnd, this.fieldCount * 2);
+		}
+		this.fieldStart[this.fieldCount] = start;
+		this.fieldEnd[this.fieldCount] = this.textLength;
+		this.fieldCount++;
+	}
+
+	/**
+	 * Reads the next line into the line buffer, ending at \n, \r or \r\n like
+	 * BufferedReader.readLine.
+	 *
+	 * @return false if there are no more lines
+	 */
+	private boolean readLine() throws IOException {
+		this.lineLength = 0;
+		boolean read = false;
+		while (this.chars.hasRemaining() || this.fill()) {
+			char c = this.chars.get();
+			if (this.skipLineFeed) {
+				this.skipLineFeed = false;
+				if (c == '\n') {
+					continue;
+				}
+			}
+			read = true;
+			if (c == '\n') {
+				return true;
+			} else if (c == '\r') {
+				this.skipLineFeed = true;
+				return true;
+			}
+			if (this.lineLength == this.line.length) {
+				this.line = Arrays.copyOf(this.line, this.line.length * 2);
+			}
+			this.line[this.lineLength++] = c;
+		}
+		return read;
+	}
+
+	/**
+	 * Decodes the next block of characters.
+	 *
+	 * @return false if there are no more characters
+	 */
+	private boolean fill() throws IOException {
+		this.chars.clear();
+		while (this.chars.position() == 0 && !this.flushed) {
+			if (this.decoder.decode(this.bytes, this.chars, this.endOfInput).isUnderflow()) {
+				if (this.endOfInput) {
+					this.flushed = this.decoder.flush(this.chars).isUnderflow();
+				} else {
+					this.bytes.compact();
+					this.endOfInput = this.channel.read(this.bytes) < 0;
+					this.bytes.flip();
+				}
+			}
+		}
+		this.chars.flip();
+		return this.chars.hasRemaining();
+	}
+
+}
@@ -0,0 +1,421 @@
+/**
+ *
+ */
+package xyz.struthers.lang;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+/**
+ * A dense n-dimensional table of float or int values, with String keys along
+ * each dimension. Each dimension's keys are interned once into int codes, so a
+ * cell is found with int coordinates and a little arithmetic on one flat array
+ * rather than a String hash lookup per dimension in nested maps. Look the codes
+ * up with index() outside the hot loops, then use offset() and stride() (or
+ * getFloat/getInt) inside them.
+ *
+ * A cube can also record which cells were present in its source data, so a
+ * cell that was missing can be told apart from one that was zero. Missing cells
+ * hold zero, like a missing key in a Trove map.
+ *
+ * Slices are views that share the backing array and dimensions of the cube
+ * they're sliced from, so they're cheap to make. Marginal sums are new cubes.
+ * Cubes are immutable, so they can be shared between threads.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class Cube {
+
+	private static final int NO_CODE = -1;
+
+	private final Dimension[] dimensions;
+	private final int[] strides;
+	private final int offset; // offset of the first cell in the backing arrays
+	private final float[] floats; // the values, if it's a float cube
+	private final int[] ints; // the values, if it's an int cube
+	private final long[] present; // cells present in the source data, or null if they all are
+
+	private Cube(Dimension[] dimensions, int[] strides, int offset, float[] floats, int[] ints, long[] present) {
+		super();
+		this.dimensions = dimensions;
+		this.strides = strides;
+		this.offset = offset;
+		this.floats = floats;
+		this.ints = ints;
+		this.present = present;
+	}
+
+	/**
+	 * @param keys    - the keys along each dimension, in code order
+	 * @param values  - the values, in row-major order of the codes
+	 * @param present - a bitmap of the cells that are present, in the same order
+	 *                as the values, or null if they all are
+	 * @return a float cube backed by the values array
+	 */
+	public static Cube ofFloats(String[][] keys, float[] values, long[] present) {
+		Dimension[] dimensions = dimensions(keys);
+		checkLength(dimensions, values.length, present);
+		return new Cube(dimensions, rowMajorStrides(dimensions), 0, values, null, present);
+	}
+
+	/**
+	 * @param keys    - the keys along each dimension, in code order
+	 * @param values  - the values, in row-major order of the codes
+	 * @param present - a bitmap of the cells that are present, in the same order
+	 *                as the values, or null if they all are
+	 * @return an int cube backed by the values array
+	 */
+	public static Cube ofInts(String[][] keys, int[] values, long[] present) {
+		Dimension[] dimensions = dimensions(keys);
+		checkLength(dimensions, values.length, present);
+		return new Cube(dimensions, rowMajorStrides(dimensions), 0, null, values, present);
+	}
+
+	/**
+	 * @return true if the values are floats, false if they're ints
+	 */
+	public boolean isFloat() {
+		return this.floats != null;
+	}
+
+	/**
+	 * @return the number of dimensions
+	 */
+	public int rank() {
+		return this.dimensions.length;
+	}
+
+	/**
+	 * @param dimension - the dimension
+	 * @return the number of keys along the dimension
+	 */
+	public int size(int dimension) {
+		return this.dimensions[dimension].keys.length;
+	}
+
+	/**
+	 * @return the number of cells
+	 */
+	public int cells() {
+		int cells = 1;
+		for (Dimension dimension : this.dimensions) {
+			cells *= dimension.keys.length;
+		}
+		return cells;
+	}
+
+	/**
+	 * @param dimension - the dimension
+	 * @param index     - the key's code
+	 * @return the key
+	 */
+	public String key(int dimension, int index) {
+		return this.dimensions[dimension].keys[index];
+	}
+
+	/**
+	 * @param dimension - the dimension
+	 * @return the keys along the dimension, in code order
+	 */
+	public List<String> keys(int dimension) {
+		return Arrays.asList(this.dimensions[dimension].keys.clone());
+	}
+
+	/**
+	 * @param dimension - the dimension
+	 * @param key       - the key
+	 * @return the key's code, or -1 if it isn't one of the dimension's keys
+	 */
+	public int index(int dimension, String key) {
+		return this.dimensions[dimension].codes.get(key);
+	}
+
+	/**
+	 * Looks up the codes of several keys at once, e.g. to turn an array of
+	 * category names into coordinates before looping over them.
+	 *
+	 * @param dimension - the dimension
+	 * @param keys      - the keys
+	 * @return the keys' codes, with -1 for any that aren't keys of the dimension
+	 */
+	public int[] indices(int dimension, String... keys) {
+		int[] indices = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			indices[i] = this.index(dimension, keys[i]);
+		}
+		return indices;
+	}
+
+	/**
+	 * @param dimension - the dimension
+	 * @return how far apart neighbouring cells along the dimension are in the
+	 *         backing array
+	 */
+	public int stride(int dimension) {
+		return this.strides[dimension];
+	}
+
+	/**
+	 * @param coordinates - the code of the cell's key along each dimension
+	 * @return the cell's offset in the backing array, which can be passed to
+	 *         floatAt, intAt and isPresentAt
+	 * @throws IndexOutOfBoundsException if a coordinate is out of range
+	 */
+	public int offset(int... coordinates) {
+		if (coordinates.length != this.dimensions.length) {
+			throw new IllegalArgumentException(
+					"Expected " + this.dimensions.length + " coordinates but got " + coordinates.length + ".");
+		}
+		int cell = this.offset;
+		for (int d = 0; d < coordinates.length; d++) {
+			cell += Objects.checkIndex(coordinates[d], this.dimensions[d].keys.length) * this.strides[d];
+		}
+		return cell;
+	}
+
+	/**
+	 * @param coordinates - the code of the cell's key along each dimension
+	 * @return the cell's value
+	 */
+	public float getFloat(int... coordinates) {
+		return this.floatAt(this.offset(coordinates));
+	}
+
+	/**
+	 * @param coordinates - the code of the cell's key along each dimension
+	 * @return the cell's value
+	 * @throws IllegalStateException if it's a float cube
+	 */
+	public int getInt(int... coordinates) {
+		return this.intAt(this.offset(coordinates));
+	}
+
+	/**
+	 * @param offset - the cell's offset, from offset()
+	 * @return the cell's value
+	 */
+	public float floatAt(int offset) {
+		return this.floats != null ? this.floats[offset] : this.ints[offset];
+	}
+
+	/**
+	 * @param offset - the cell's offset, from offset()
+	 * @return the cell's value
+	 * @throws IllegalStateException if it's a float cube
+	 */
+	public int intAt(int offset) {
+		if (this.ints == null) {
+			throw new IllegalStateException("A float cube has no int values.");
+		}
+		return this.ints[offset];
+	}
+
+	/**
+	 * @param coordinates - the code of the cell's key along each dimension
+	 * @return true if the cell was present in the source data, false if it was
+	 *         missing or a coordinate is out of range (e.g. -1 for a key that
+	 *         isn't in the cube)
+	 */
+	public boolean isPresent(int... coordinates) {
+		if (coordinates.length != this.dimensions.length) {
+			return false;
+		}
+		for (int d = 0; d < coordinates.length; d++) {
+			if (coordinates[d] < 0 || coordinates[d] >= this.dimensions[d].keys.length) {
+				return false;
+			}
+		}
+		return this.isPresentAt(this.offset(coordinates));
+	}
+
+	/**
+	 * @param offset - the cell's offset, from offset()
+	 * @return true if the cell was present in the source data
+	 */
+	public boolean isPresentAt(int offset) {
+		return this.present == null || (this.present[offset >>> 6] & (1L << offset)) != 0L;
+	}
+
+	/**
+	 * @param dimension - the dimension
+	 * @return the keys along the dimension that have at least one cell present,
+	 *         in code order
+	 */
+	public List<String> presentKeys(int dimension) {
+		String[] keys = this.dimensions[dimension].keys;
+		List<String> presentKeys = new ArrayList<String>(keys.length);
+		for (int k = 0; k < keys.length; k++) {
+			if (this.present == null ? this.cells() > 0 : this.slice(dimension, k).anyPresent()) {
+				presentKeys.add(keys[k]);
+			}
+		}
+		return presentKeys;
+	}
+
+	/**
+	 * Fixes one dimension at one of its keys. The slice is a view of this cube's
+	 * values, with one less dimension.
+	 *
+	 * @param dimension - the dimension to fix
+	 * @param index     - the code of the key to fix it at
+	 * @return the slice
+	 */
+	public Cube slice(int dimension, int index) {
+		Objects.checkIndex(index, this.dimensions[dimension].keys.length);
+		return new Cube(remove(this.dimensions, dimension), remove(this.strides, dimension),
+				this.offset + index * this.strides[dimension], this.floats, this.ints, this.present);
+	}
+
+	/**
+	 * Sums the cells along one dimension, so the result has one less dimension. A
+	 * cell of the result is present if any of the cells it sums were.
+	 *
+	 * @param dimension - the dimension to sum over
+	 * @return the marginal sums, in a new cube of the same kind
+	 */
+	public Cube sum(int dimension) {
+		Dimension[] dimensions = remove(this.dimensions, dimension);
+		int[] strides = remove(this.strides, dimension);
+		int length = this.dimensions[dimension].keys.length;
+		int stride = this.strides[dimension];
+		Cube marginal = new Cube(dimensions, strides, this.offset, null, null, null);
+		int cells = marginal.cells();
+		float[] floats = this.floats != null ? new float[cells] : null;
+		int[] ints = this.ints != null ? new int[cells] : null;
+		long[] present = this.present != null ? new long[(cells + 63) >>> 6] : null;
+		if (cells > 0) {
+			int[] coordinates = new int[dimensions.length];
+			int cell = this.offset;
+			int i = 0;
+			do {
+				for (int k = 0, source = cell; k < length; k++, source += stride) {
+					if (floats != null) {
+						floats[i] += this.floats[source];
+					} else {
+						ints[i] += this.ints[source];
+					}
+					if (present != null && this.isPresentAt(source)) {
+						present[i >>> 6] |= 1L << i;
+					}
+				}
+				i++;
+			} while ((cell = marginal.next(coordinates, cell)) >= 0);
+		}
+		return new Cube(dimensions, rowMajorStrides(dimensions), 0, floats, ints, present);
+	}
+
+	/**
+	 * @return the sum of every cell
+	 */
+	public double total() {
+		double total = 0d;
+		if (this.cells() > 0) {
+			int[] coordinates = new int[this.dimensions.length];
+			int cell = this.offset;
+			do {
+				total += this.floatAt(cell);
+			} while ((cell = this.next(coordinates, cell)) >= 0);
+		}
+		return total;
+	}
+
+	private boolean anyPresent() {
+		if (this.cells() > 0) {
+			int[] coordinates = new int[this.dimensions.length];
+			int cell = this.offset;
+			do {
+				if (this.isPresentAt(cell)) {
+					return true;
+				}
+			} while ((cell = this.next(coordinates, cell)) >= 0);
+		}
+		return false;
+	}
+
+	/**
+	 * Steps to the next cell in row-major order.
+	 *
+	 * @param coordinates - the current cell's coordinates, which are updated
+	 * @param cell        - the current cell's offset
+	 * @return the next cell's offset, or -1 after the last cell
+	 */
+	private int next(int[] coordinates, int cell) {
+		for (int d = coordinates.length - 1; d >= 0; d--) {
+			coordinates[d]++;
+			cell += this.strides[d];
+			if (coordinates[d] < this.dimensions[d].keys.length) {
+				return cell;
+			}
+			cell -= coordinates[d] * this.strides[d];
+			coordinates[d] = 0;
+		}
+		return -1;
+	}
+
+	private static Dimension[] dimensions(String[][] keys) {
+		Dimension[] dimensions = new Dimension[keys.length];
+		for (int d = 0; d < keys.length; d++) {
+			dimensions[d] = new Dimension(keys[d]);
+		}
+		return dimensions;
+	}
+
+	private static int[] rowMajorStrides(Dimension[] dimensions) {
+		int[] strides = new int[dimensions.length];
+		int stride = 1;
+		for (int d = dimensions.length - 1; d >= 0; d--) {
+			strides[d] = stride;
+			stride *= dimensions[d].keys.length;
+		}
+		return strides;
+	}
+
+	private static void checkLength(Dimension[] dimensions, int length, long[] present) {
+		long cells = 1L;
+		for (Dimension dimension : dimensions) {
+			cells *= dimension.keys.length;
+		}
+		if (cells != length) {
+			throw new IllegalArgumentException("Expected " + cells + " values but got " + length + ".");
+		}
+		if (present != null && present.length < (cells + 63L) >>> 6) {
+			throw new IllegalArgumentException("The presence bitmap is too short for " + cells + " values.");
+		}
+	}
+
+	private static Dimension[] remove(Dimension[] array, int index) {
+		Dimension[] removed = new Dimension[array.length - 1];
+		System.arraycopy(array, 0, removed, 0, index);
+		System.arraycopy(array, index + 1, removed, index, removed.length - index);
+		return removed;
+	}
+
+	private static int[] remove(int[] array, int index) {
+		int[] removed = new int[array.length - 1];
+		System.arraycopy(array, 0, removed, 0, index);
+		System.arraycopy(array, index + 1, removed, index, removed.length - index);
+		return removed;
+	}
+
+	/**
+	 * The keys along one dimension, interned to their codes.
+	 */
+	private static final class Dimension {
+		final String[] keys;
+		final TObjectIntHashMap<String> codes;
+
+		Dimension(String[] keys) {
+			this.keys = keys.clone();
+			this.codes = new TObjectIntHashMap<String>((int) Math.ceil(keys.length / 0.75f) + 1, 0.75f, NO_CODE);
+			for (int k = 0; k < this.keys.length; k++) {
+				this.codes.put(this.keys[k], k);
+			}
+		}
+	}
+
+}
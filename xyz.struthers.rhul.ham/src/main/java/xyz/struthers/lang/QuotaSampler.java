@@ -0,0 +1,152 @@
+/**
+ *
+ */
+package xyz.struthers.lang;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws items without replacement, where each item may be drawn up to its quota
+ * before the sampler refills. It's the same as putting quota copies of each
+ * item in a list, shuffling it and walking through it (wrapping around at the
+ * end), so an item with quota q is drawn exactly q times in every pass, but
+ * without allocating or shuffling a list of every copy.
+ *
+ * The remaining quotas are kept in a Fenwick (binary indexed) tree, so each
+ * draw takes O(log n) time for n items, and memory is three int arrays the size
+ * of the number of items rather than the total of the quotas.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class QuotaSampler {
+
+	private int[] items;
+	private int[] quotas;
+	private int[] tree; // remaining quotas, 1-based
+	private int size;
+	private int remaining;
+	private int total;
+
+	/**
+	 * @param initialCapacity - the expected number of items
+	 */
+	public QuotaSampler(int initialCapacity) {
+		super();
+		this.items = new int[Math.max(1, initialCapacity)];
+		this.quotas = new int[this.items.length];
+		this.tree = null;
+		this.size = 0;
+		this.remaining = 0;
+		this.total = 0;
+	}
+
+	/**
+	 * Adds an item that can be drawn quota times per pass. Items can't be added
+	 * after the first draw.
+	 *
+	 * @param item  - the item (e.g. an index into an array of agents)
+	 * @param quota - the number of times it's drawn in each pass
+	 */
+	public void add(int item, int quota) {
+		if (this.tree != null) {
+			throw new IllegalStateException("Items can't be added after sampling has started.");
+		}
+		if (quota <= 0) {
+			return;
+		}
+		if (this.size == this.items.length) {
+			int capacity = this.items.length * 2;
+			this.items = Arrays.copyOf(this.items, capacity);
+			this.quotas = Arrays.copyOf(this.quotas, capacity);
+		}
+		this.items[this.size] = item;
+		this.quotas[this.size] = quota;
+		this.size++;
+		this.total = Math.addExact(this.total, quota);
+	}
+
+	/**
+	 * Adds an item with a quota proportional to its share of the total, rounded up
+	 * so that at least draws items are available in each pass.
+	 *
+	 * @param item   - the item
+	 * @param weight - the item's weight (e.g. its loan balance)
+	 * @param total  - the total weight of all items
+	 * @param draws  - the number of draws the quotas are scaled to
+	 */
+	public void add(int item, float weight, float total, int draws) {
+		if (weight > 0f) {
+			this.add(item, (int) Math.ceil(weight / total * draws));
+		}
+	}
+
+	/**
+	 * @param random - the random number generator
+	 * @return the next item, chosen with a probability proportional to its
+	 *         remaining quota
+	 */
+	public int next(Random random) {
+		if (this.total == 0) {
+			throw new IllegalStateException("There are no items to sample from.");
+		}
+		if (this.remaining == 0) {
+			this.refill();
+		}
+
+		// find the item whose cumulative quota covers the random number
+		int target = random.nextInt(this.remaining);
+		int position = 0;
+		for (int step = Integer.highestOneBit(this.size); step > 0; step >>= 1) {
+			int next = position + step;
+			if (next <= this.size && this.tree[next] <= target) {
+				position = next;
+				target -= this.tree[next];
+			}
+		}
+
+		// use one of its quota
+		for (int i = position + 1; i <= this.size; i += i & -i) {
+			this.tree[i]--;
+		}
+		this.remaining--;
+		return this.items[position];
+	}
+
+	/**
+	 * @return the number of items with a positive quota
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return the total of the quotas, i.e. the number of draws in each pass
+	 */
+	public int getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * Starts a new pass, building the tree in O(n) time.
+	 */
+	private void refill() {
+		if (this.tree == null) {
+			this.items = Arrays.copyOf(this.items, this.size);
+			this.quotas = Arrays.copyOf(this.quotas, this.size);
+			this.tree = new int[this.size + 1];
+		}
+		for (int i = 1; i <= this.size; i++) {
+			this.tree[i] = this.quotas[i - 1];
+		}
+		for (int i = 1; i <= this.size; i++) {
+			int parent = i + (i & -i);
+			if (parent <= this.size) {
+				this.tree[parent] += this.tree[i];
+			}
+		}
+		this.remaining = this.total;
+	}
+
+}
@@ -0,0 +1,194 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.Date;
+import java.util.Random;
+
+import xyz.struthers.io.FramedArrayReader;
+import xyz.struthers.io.FramedArrayWriter;
+import xyz.struthers.rhul.ham.config.PropertiesXml;
+import xyz.struthers.rhul.ham.process.ClearingPaymentInputs;
+import xyz.struthers.rhul.ham.process.ClearingPaymentOutputs;
+import xyz.struthers.rhul.ham.process.LiabilityGraph;
+
+/**
+ * A persistent connection to the CPV server that stays open for the whole
+ * simulation. The server keeps the network's topology under this session's id,
+ * so after the first month only the rows whose creditors have changed (e.g.
+ * customers reassigned to another ADI) are sent along with the amounts.
+ *
+ * To find the changed rows without keeping a copy of last month's creditors,
+ * the client only keeps a 64-bit hash of each row.
+ *
+ * If the properties ask for the delta codec, the amounts, cash flows and
+ * outputs are compressed in both directions, and XORed with the previous
+ * month's vectors whenever the month is sent as a delta.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class CpvSessionClient {
+
+	private final long sessionId;
+	private final Socket s;
+	private final SocketChannel channel;
+	private final FramedArrayReader reader;
+	private final FramedArrayWriter writer;
+	private int topologyVersion; // how many topologies the server has received in this session
+	private long[] rowHashes; // hash of each row's creditors in the last topology sent
+	private int[] changedRows;
+	private final int codec;
+	private final CpvWireProtocol.VectorHistory history; // null unless the vectors are compressed
+
+	/**
+	 * Connects to the CPV server using the transport in the properties.
+	 *
+	 * @param properties - the properties with the server's host and port
+	 * @throws IOException
+	 */
+	public CpvSessionClient(PropertiesXml properties) throws IOException {
+		super();
+		this.sessionId = new Random().nextLong();
+		InetSocketAddress address = new InetSocketAddress(properties.getCpvServerHost(),
+				properties.getCpvServerPort());
+		if (properties.getCpvTransport() == CpvWireProtocol.TRANSPORT_CHANNEL) {
+			this.channel = SocketChannel.open(address);
+			this.s = this.channel.socket();
+			this.reader = new FramedArrayReader(this.channel, properties.getSocketMessageBytes());
+			this.writer = new FramedArrayWriter(this.channel, properties.getSocketMessageBytes());
+		} else {
+			this.channel = null;
+			this.s = new Socket(address.getAddress(), address.getPort());
+			this.reader = new FramedArrayReader(new DataInputStream(new BufferedInputStream(this.s.getInputStream())));
+			this.writer = new FramedArrayWriter(
+					new DataOutputStream(new BufferedOutputStream(this.s.getOutputStream())),
+					properties.getSocketMessageBytes());
+		}
+		this.codec = properties.getCpvVectorCodec();
+		this.history = this.codec == CpvWireProtocol.CODEC_DELTA_DEFLATE ? new CpvWireProtocol.VectorHistory()
+				: null;
+		this.topologyVersion = 0;
+		this.rowHashes = null;
+		this.changedRows = null;
+		System.out.println(new Date(System.currentTimeMillis()) + ": CPV session " + this.sessionId + " opened.");
+	}
+
+	/**
+	 * Sends one month's inputs to the CPV server and waits for the result. If the
+	 * connection fails, this session can't be used again and should be closed.
+	 *
+	 * @param cpvInputs - the inputs for this month
+	 * @return the CPV outputs
+	 * @throws IOException
+	 */
+	public ClearingPaymentOutputs calculate(ClearingPaymentInputs cpvInputs) throws IOException {
+		LiabilityGraph liabilities = cpvInputs.getLiabilityGraph();
+		int[] rowPtr = liabilities.getRowPtr();
+		int[] col = liabilities.getCol();
+		int nodes = liabilities.getNodeCount();
+
+		// find the rows whose creditors have changed since last month
+		boolean sameNodes = this.rowHashes != null && this.rowHashes.length == nodes;
+		if (!sameNodes) {
+			this.rowHashes = new long[nodes];
+			this.changedRows = new int[nodes];
+		}
+		int changedCount = 0;
+		for (int i = 0; i < nodes; i++) {
+			long hash = rowHash(col, rowPtr[i], rowPtr[i + 1]);
+			if (!sameNodes || hash != this.rowHashes[i]) {
+				this.rowHashes[i] = hash;
+				this.changedRows[changedCount++] = i;
+			}
+		}
+
+		// ask the server whether it still has last month's topology
+		int lastVersion = this.topologyVersion;
+		this.topologyVersion = -1; // in case this month fails part way through
+		CpvWireProtocol.writeSessionRequest(this.writer, this.sessionId, CpvWireProtocol.SESSION_CALCULATE,
+				lastVersion, this.codec);
+		int reply = this.reader.readInt();
+
+		// OUTBOUND
+		boolean isDelta = reply == CpvWireProtocol.SESSION_SEND_DELTA && sameNodes;
+		if (isDelta) {
+			System.out.println(new Date(System.currentTimeMillis()) + ": sending " + changedCount
+					+ " changed rows and the CPV amounts to server.");
+			CpvWireProtocol.writeInputsDelta(this.writer, cpvInputs, this.changedRows, changedCount, this.history);
+		} else {
+			System.out.println(new Date(System.currentTimeMillis()) + ": sending all CPV inputs to server.");
+			CpvWireProtocol.writeInputs(this.writer, cpvInputs, this.history);
+		}
+
+		// INBOUND
+		System.out.println(new Date(System.currentTimeMillis()) + ": receiving CPV outputs from server.");
+		ClearingPaymentOutputs cpvOutputs = CpvWireProtocol.readOutputs(this.reader, this.history, isDelta);
+		this.topologyVersion = lastVersion + 1;
+		return cpvOutputs;
+	}
+
+	/**
+	 * Tells the server it can forget this session's topology, then closes the
+	 * connection.
+	 */
+	public void close() {
+		try {
+			CpvWireProtocol.writeSessionRequest(this.writer, this.sessionId, CpvWireProtocol.SESSION_CLOSE,
+					this.topologyVersion, this.codec);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		if (this.history != null) {
+			this.history.close();
+		}
+		try {
+			System.out.println(new Date(System.currentTimeMillis()) + ": closing CPV session " + this.sessionId + ".");
+			if (this.channel != null) {
+				this.channel.close();
+			} else {
+				this.s.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Hashes the creditors of a row, including how many there are. A collision
+	 * would need two different rows to match all 64 bits, which is far less likely
+	 * than a hardware fault for the number of rows in the economy.
+	 *
+	 * @param col  - the creditors of every node
+	 * @param from - the first link of the row (inclusive)
+	 * @param to   - the last link of the row (exclusive)
+	 * @return the hash of the row
+	 */
+	private static long rowHash(int[] col, int from, int to) {
+		long hash = mix(to - from);
+		for (int link = from; link < to; link++) {
+			hash = mix(hash + col[link]);
+		}
+		return hash;
+	}
+
+	/**
+	 * The finaliser from SplitMix64, so every bit of the input affects every bit
+	 * of the output.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -3,25 +3,33 @@
  */
 package xyz.struthers.rhul.ham;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
 import java.text.DecimalFormat;
 import java.util.Date;
 
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
-import xyz.struthers.io.Serialization;
-import xyz.struthers.io.Serialization.CompressionType;
+import xyz.struthers.io.FramedArrayReader;
+import xyz.struthers.io.FramedArrayWriter;
+import xyz.struthers.io.MappedSpillFile;
 import xyz.struthers.rhul.ham.config.PropertiesXml;
 import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
 import xyz.struthers.rhul.ham.config.SpringConfiguration;
 import xyz.struthers.rhul.ham.process.AustralianEconomy;
 import xyz.struthers.rhul.ham.process.ClearingPaymentInputs;
 import xyz.struthers.rhul.ham.process.ClearingPaymentOutputs;
+import xyz.struthers.rhul.ham.process.EconomyCheckpointer;
+import xyz.struthers.rhul.ham.process.EconomySnapshot;
 
 /**
  * KryonetClient.java contains an example of how to use threads successfully
@@ -39,7 +47,11 @@ public class CpvSocketClient {
 	// public final static int NUM_ITERATIONS = SAVE_ITERATION_SUMMARY.length; //
 	// first iteration is zero
 
+	public static final String RESUME_ARG = "--resume"; // resumes from the last checkpoint
+
 	static Thread t;
+	static MappedSpillFile spill = null; // reused every month by the channel transport
+	static CpvSessionClient session = null; // kept open for the whole simulation
 	// static Client client = null;
 	// static ClearingPaymentInputs cpvInputs = null;
 	// static ClearingPaymentOutputs cpvOutputs = null;
@@ -111,27 +123,15 @@ public class CpvSocketClient {
 			s = new Socket(ip, properties.getCpvServerPort());
 
 			// obtaining input and out streams
-			dis = new DataInputStream(s.getInputStream());
-			dos = new DataOutputStream(s.getOutputStream());
+			dis = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+			dos = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
 
 			// OUTBOUND
 			// send CPV inputs to server for processing
 			System.out.println(new Date(System.currentTimeMillis()) + ": serializing CPV inputs.");
-			//Serialization.writeToDataStream(dos, cpvInputs, properties.getSocketBufferBytes(),
-			//		properties.getSocketMessageBytes(), CompressionType.NO_COMPRESSION);
-			
-			// The above ran into memory/size issues, so split it into its components
-			Serialization.writeToDataStream(dos, cpvInputs.getLiabilitiesAmounts(), properties.getSocketBufferBytes(),
-					properties.getSocketMessageBytes(), CompressionType.NO_COMPRESSION);
-			Serialization.writeToDataStream(dos, cpvInputs.getLiabilitiesIndices(), properties.getSocketBufferBytes(),
-					properties.getSocketMessageBytes(), CompressionType.NO_COMPRESSION);
-			Serialization.writeToDataStream(dos, cpvInputs.getOperatingCashFlow(), properties.getSocketBufferBytes(),
-					properties.getSocketMessageBytes(), CompressionType.NO_COMPRESSION);
-			Serialization.writeToDataStream(dos, cpvInputs.getLiquidAssets(), properties.getSocketBufferBytes(),
-					properties.getSocketMessageBytes(), CompressionType.NO_COMPRESSION);
-			Serialization.writeToDataStream(dos, cpvInputs.getIteration(), properties.getSocketBufferBytes(),
-					properties.getSocketMessageBytes(), CompressionType.NO_COMPRESSION);
-			
+			// stream the primitive arrays in frames, because serializing the inputs hit the 2GB limit
+			CpvWireProtocol.writeInputs(dos, cpvInputs, properties.getSocketMessageBytes());
+
 			/*
 			 * byte[] bytes = null; byte compression = 1; switch (compression) { case 1: //
 			 * GZIP compression bytes = Serialization.toBytesGZIP(cpvInputs,
@@ -150,7 +150,8 @@ public class CpvSocketClient {
 			// INBOUND
 			// receive CPV outputs from server
 			System.out.println(new Date(System.currentTimeMillis()) + ": receiving CPV outputs from server.");
-			cpvOutputs = (ClearingPaymentOutputs) Serialization.readObjectFromStream(dis);
+			// cpvOutputs = (ClearingPaymentOutputs) Serialization.readObjectFromStream(dis);
+			cpvOutputs = CpvWireProtocol.readOutputs(dis);
 			/*
 			 * int size = dis.readInt(); compression = dis.readByte(); bytes = new
 			 * byte[size]; dis.readFully(bytes);
@@ -181,13 +182,100 @@ public class CpvSocketClient {
 		return cpvOutputs;
 	}
 
+	/**
+	 * Sends inputs to the CPV server using NIO channels, and listens for the
+	 * result, then returns control to the main thread.
+	 * 
+	 * The inputs are spilled to a memory-mapped file first, then sent using
+	 * FileChannel.transferTo so the kernel copies them from the page cache to the
+	 * socket. That way tens of GB of liabilities don't need to be copied through
+	 * the Java heap (or a socket buffer on the heap) on their way out.
+	 * 
+	 * @param cpvInputs
+	 * @return cpvOutputs
+	 */
+	private static ClearingPaymentOutputs runCpvOnServerChannel(ClearingPaymentInputs cpvInputs,
+			PropertiesXml properties) {
+		ClearingPaymentOutputs cpvOutputs = null;
+		SocketChannel sc = null;
+		try {
+			// spill CPV inputs to a memory-mapped file
+			System.out.println(new Date(System.currentTimeMillis()) + ": spilling CPV inputs to file.");
+			if (spill == null) {
+				spill = new MappedSpillFile(properties.getCpvSpillDirectory());
+			}
+			spill.reset();
+			CpvWireProtocol.writeInputs(new FramedArrayWriter(spill, properties.getSocketMessageBytes()), cpvInputs);
+
+			// establish the connection with server on the specified port
+			sc = SocketChannel.open(new InetSocketAddress(properties.getCpvServerHost(), properties.getCpvServerPort()));
+
+			// OUTBOUND
+			System.out.println(new Date(System.currentTimeMillis()) + ": sending " + spill.size()
+					+ " bytes of CPV inputs to server.");
+			spill.transferTo(sc);
+			System.out.println(new Date(System.currentTimeMillis()) + ": CPV inputs sent to server.");
+
+			// INBOUND
+			System.out.println(new Date(System.currentTimeMillis()) + ": receiving CPV outputs from server.");
+			cpvOutputs = CpvWireProtocol
+					.readOutputs(new FramedArrayReader(sc, properties.getSocketMessageBytes()));
+		} catch (IOException e) {
+			System.err.println("Error connecting to : " + properties.getCpvServerHost() + " on port: "
+					+ properties.getCpvServerPort());
+			e.printStackTrace();
+		}
+
+		// close resources
+		try {
+			System.out.println(new Date(System.currentTimeMillis()) + ": closing socket channel.");
+			if (sc != null) {
+				sc.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		return cpvOutputs;
+	}
+
+	/**
+	 * Sends inputs to the CPV server over a persistent session, and waits for the
+	 * result. The server keeps the topology between months, so only the rows that
+	 * have changed are sent after the first month. If the session fails it's
+	 * closed, and a new one is opened (sending all the inputs) next month.
+	 * 
+	 * @param cpvInputs
+	 * @return cpvOutputs
+	 */
+	private static ClearingPaymentOutputs runCpvInSession(ClearingPaymentInputs cpvInputs,
+			PropertiesXml properties) {
+		ClearingPaymentOutputs cpvOutputs = null;
+		try {
+			if (session == null) {
+				session = new CpvSessionClient(properties);
+			}
+			cpvOutputs = session.calculate(cpvInputs);
+		} catch (IOException e) {
+			System.err.println("Error in CPV session with : " + properties.getCpvServerHost() + " on port: "
+					+ properties.getCpvServerPort());
+			e.printStackTrace();
+			if (session != null) {
+				session.close();
+				session = null;
+			}
+		}
+		return cpvOutputs;
+	}
+
 	/**
 	 * Runs the simulation in a series of stages, releasing memory as it goes and
 	 * sending CPV calculations to another computer (the Kryonet server) so it will
 	 * run on two computers with 32GB of RAM.
 	 * 
 	 * @param args - the fully qualified filename of the XML file that contains the
-	 *             properties to use for this simulation.
+	 *             properties to use for this simulation, optionally followed by
+	 *             --resume to carry on from the scenario's last checkpoint.
 	 */
 	public static void main(String[] args) {
 
@@ -205,14 +293,48 @@ public class CpvSocketClient {
 		}
 		PropertiesXmlFactory.propertiesXmlFilename = args[0];
 		PropertiesXml props = PropertiesXmlFactory.getProperties();
+		boolean resume = args.length > 1 && RESUME_ARG.equals(args[1]);
 
 		// load Spring context
 		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(SpringConfiguration.class);
-		InitialiseEconomy init = new InitialiseEconomy();
-		init.initialiseEconomy(ctx); // iteration 0
-		AustralianEconomy economy = init.getEconomy();
-		init.close();
-		init = null;
+		AustralianEconomy economy = null;
+		int startIteration = 0;
+		if (resume) {
+			economy = ctx.getBean(AustralianEconomy.class);
+			startIteration = EconomyCheckpointer.resume(economy, props);
+			if (startIteration < 0) {
+				// no checkpoint, so start from the beginning
+				economy = null;
+				startIteration = 0;
+			}
+		}
+		String snapshotFile = props.getEconomySnapshotFile();
+		boolean useSnapshot = snapshotFile != null && !snapshotFile.isEmpty();
+		if (economy == null && useSnapshot && new File(snapshotFile).exists()) {
+			// skip calibration by loading the economy this config calibrated last time
+			economy = ctx.getBean(AustralianEconomy.class);
+			try {
+				EconomySnapshot.load(economy, snapshotFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+				economy = null;
+			}
+		}
+		if (economy == null) {
+			InitialiseEconomy init = new InitialiseEconomy();
+			init.initialiseEconomy(ctx); // iteration 0
+			economy = init.getEconomy();
+			init.close();
+			init = null;
+			if (useSnapshot) {
+				try {
+					EconomySnapshot.save(economy, snapshotFile);
+				} catch (IOException | RuntimeException e) {
+					// the simulation can still run, it just has to calibrate again next time
+					e.printStackTrace();
+				}
+			}
+		}
 		System.gc();
 
 		long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
@@ -224,14 +346,22 @@ public class CpvSocketClient {
 		System.out.println("################################################");
 		memoryBefore = memoryAfter;
 
+		EconomyCheckpointer checkpointer = new EconomyCheckpointer(props);
 		int iteration = 0;
-		for (iteration = 0; iteration < props.getNumberOfIterations(); iteration++) {
+		for (iteration = startIteration; iteration < props.getNumberOfIterations(); iteration++) {
 			// prepare CPV inputs inside loop
 			ClearingPaymentInputs cpvInputs = economy.prepareOneMonth(iteration, props.getScenarioName());
 
 			// send to CpvSocketServer to calculate CPV
 			// new CpvSocketClient();
-			ClearingPaymentOutputs cpvOutputs = runCpvOnServer(cpvInputs, props);
+			ClearingPaymentOutputs cpvOutputs = null;
+			if (props.isCpvPersistentSession()) {
+				cpvOutputs = runCpvInSession(cpvInputs, props);
+			} else if (props.getCpvTransport() == CpvWireProtocol.TRANSPORT_CHANNEL) {
+				cpvOutputs = runCpvOnServerChannel(cpvInputs, props);
+			} else {
+				cpvOutputs = runCpvOnServer(cpvInputs, props);
+			}
 			/*
 			 * try { // wait for CPV listener to terminate before continuing with execution
 			 * t.join(); } catch (InterruptedException e) { // do nothing }
@@ -270,8 +400,25 @@ public class CpvSocketClient {
 			// details after being updated with CPV output
 			// 6.32GB of CSV files (takes 4 minutes to write to disk)
 			// economy.saveDetailsToFile(iteration);
+
+			if (checkpointer.isDue(iteration)) {
+				checkpointer.checkpoint(economy, iteration);
+			}
 		}
+		checkpointer.close();
 
+		if (session != null) {
+			session.close();
+			session = null;
+		}
+		if (spill != null) {
+			try {
+				spill.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			spill = null;
+		}
 		ctx.close();
 	}
 
@@ -2,19 +2,21 @@ package xyz.struthers.rhul.ham;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
 import java.util.Date;
 import java.util.List;
 
 import gnu.trove.list.array.TFloatArrayList;
 import gnu.trove.list.array.TIntArrayList;
-import xyz.struthers.io.Serialization;
-import xyz.struthers.io.Serialization.CompressionType;
+import xyz.struthers.io.FramedArrayReader;
+import xyz.struthers.io.FramedArrayWriter;
 import xyz.struthers.rhul.ham.config.PropertiesXml;
 import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
-import xyz.struthers.rhul.ham.process.ClearingPaymentInputs;
 import xyz.struthers.rhul.ham.process.ClearingPaymentOutputs;
+import xyz.struthers.rhul.ham.process.LiabilityGraph;
 
 /**
  * @author Adam Struthers
@@ -25,113 +27,248 @@ public class CpvSocketClientHandler extends Thread {
 	final DataInputStream dis;
 	final DataOutputStream dos;
 	final Socket s;
+	final SocketChannel channel;
+	final RunSimulation sim;
+	final CpvWireProtocol.InputBuffers buffers;
+	final CpvWireProtocol.SessionCache sessions;
 
 	/**
 	 * Creates CPV client handler for the given socket connection and streams
 	 */
 	public CpvSocketClientHandler(Socket s, DataInputStream dis, DataOutputStream dos) {
+		this(s, dis, dos, new RunSimulation(), new CpvWireProtocol.InputBuffers(),
+				new CpvWireProtocol.SessionCache());
+	}
+
+	/**
+	 * Creates CPV client handler for the given socket connection and streams,
+	 * which reuses the CPV workspace in the given simulation, the input buffers
+	 * and the session topologies. Handlers that share them must share all three,
+	 * because they're all guarded by the lock on the simulation.
+	 */
+	public CpvSocketClientHandler(Socket s, DataInputStream dis, DataOutputStream dos, RunSimulation sim,
+			CpvWireProtocol.InputBuffers buffers, CpvWireProtocol.SessionCache sessions) {
 		this.s = s;
 		this.dis = dis;
 		this.dos = dos;
+		this.channel = null;
+		this.sim = sim;
+		this.buffers = buffers;
+		this.sessions = sessions;
+	}
+
+	/**
+	 * Creates CPV client handler for the given NIO socket channel, which reuses
+	 * the CPV workspace in the given simulation, the input buffers and the session
+	 * topologies.
+	 */
+	public CpvSocketClientHandler(SocketChannel channel, RunSimulation sim, CpvWireProtocol.InputBuffers buffers,
+			CpvWireProtocol.SessionCache sessions) {
+		this.s = channel.socket();
+		this.dis = null;
+		this.dos = null;
+		this.channel = channel;
+		this.sim = sim;
+		this.buffers = buffers;
+		this.sessions = sessions;
 	}
 
 	@Override
 	public void run() {
 		PropertiesXml props = PropertiesXmlFactory.getProperties();
 
-		ClearingPaymentInputs cpvInputs = null;
 		ClearingPaymentOutputs cpvOutputs = null;
-		// byte compression = Byte.valueOf(null); // use the same compression for input
-		// & output
-
-		List<TFloatArrayList> liabilitiesAmounts = null;
-		List<TIntArrayList> liabilitiesIndices = null;
-		TFloatArrayList operatingCashFlow = null;
-		TFloatArrayList liquidAssets = null;
-		int iteration = 0;
-		
-		// receive CPV input from client
-		try {
-			// read stream
-			System.out.println(new Date(System.currentTimeMillis()) + ": receiving CPV inputs.");
-			/*
-			 * int size = this.dis.readInt(); compression = this.dis.readByte(); byte[]
-			 * bytes = new byte[size]; this.dis.readFully(bytes);
-			 * 
-			 * // deserialize bytes to CPV input switch (compression) { case 1: // GZIP
-			 * compression cpvInputs = (ClearingPaymentInputs)
-			 * Serialization.toObjectFromGZIP(bytes); break; case 2: // Deflater compression
-			 * cpvInputs = (ClearingPaymentInputs)
-			 * Serialization.toObjectFromDeflater(bytes); break; default: // no compression
-			 * cpvInputs = (ClearingPaymentInputs) Serialization.toObject(bytes); break; }
-			 */
-			//cpvInputs = (ClearingPaymentInputs) Serialization.readObjectFromStream(dis);
-
-			// The above ran into memory/size issues, so split it into its components
-			liabilitiesAmounts = (List<TFloatArrayList>) Serialization.readObjectFromStream(dis);
-			liabilitiesIndices = (List<TIntArrayList>) Serialization.readObjectFromStream(dis);
-			operatingCashFlow = (TFloatArrayList) Serialization.readObjectFromStream(dis);
-			liquidAssets = (TFloatArrayList) Serialization.readObjectFromStream(dis);
-			iteration = (int) Serialization.readObjectFromStream(dis);
+		FramedArrayReader reader = null;
+		FramedArrayWriter writer = null;
+		if (this.channel == null) {
+			reader = new FramedArrayReader(this.dis);
+			writer = new FramedArrayWriter(this.dos, props.getSocketMessageBytes());
+		} else {
+			// direct buffers, so the frames don't pass through the Java heap
+			reader = new FramedArrayReader(this.channel, props.getSocketMessageBytes());
+			writer = new FramedArrayWriter(this.channel, props.getSocketMessageBytes());
+		}
 
+		int msgType = 0;
+		try {
+			msgType = CpvWireProtocol.readMessageType(reader);
 		} catch (IOException e) {
-			cpvInputs = null;
 			e.printStackTrace();
+			this.close();
+			return;
+		}
+		if (msgType == CpvWireProtocol.MAGIC_SESSION) {
+			// keep the connection open and serve one month at a time
+			this.runSession(reader, writer);
+			this.close();
+			return;
+		} else if (msgType != CpvWireProtocol.MAGIC_INPUTS) {
+			System.err.println("Unexpected CPV message type: " + Integer.toHexString(msgType));
+			this.close();
 			return;
 		}
 
-		// process CPV inputs
-		System.out.println(new Date(System.currentTimeMillis()) + ": CPV inputs unmarshalled.");
-		//List<TFloatArrayList> liabilitiesAmounts = cpvInputs.getLiabilitiesAmounts();
-		//List<TIntArrayList> liabilitiesIndices = cpvInputs.getLiabilitiesIndices();
-		//TFloatArrayList operatingCashFlow = cpvInputs.getOperatingCashFlow();
-		//TFloatArrayList liquidAssets = cpvInputs.getLiquidAssets();
-		//int iteration = cpvInputs.getIteration();
-		//cpvInputs.clear(); // FIXME: make sure this doesn't delete the underlying data (i.e. the above
-							// assignment makes copies rather than just referencing the underlying arrays).
-		cpvInputs = null;
-		System.gc();
-		System.out.println(new Date(System.currentTimeMillis()) + ": CPV inputs split into separate lists.");
-
-		// calculate CPV
-		cpvOutputs = this.calculate(liabilitiesAmounts, liabilitiesIndices, operatingCashFlow, liquidAssets, iteration);
-
-		// write to output stream
-		System.out.println(new Date(System.currentTimeMillis()) + ": compressing CPV outputs.");
+		/*
+		 * The inputs used to be sent as Java serialized Trove lists using
+		 * Serialization.writeToDataStream, which ran into memory/size issues once they
+		 * got near 2GB. They're now streamed as framed primitive arrays (see
+		 * CpvWireProtocol) and decoded into buffers that are shared with the other
+		 * clients, so hold the lock on the simulation from receiving the inputs until
+		 * the outputs (which refer to the shared CPV workspace) have been sent.
+		 */
+		synchronized (this.sim) {
+			// receive CPV input from client
+			try {
+				System.out.println(new Date(System.currentTimeMillis()) + ": receiving CPV inputs.");
+				CpvWireProtocol.readInputsBody(reader, this.buffers, null);
+			} catch (IOException e) {
+				e.printStackTrace();
+				this.close();
+				return;
+			}
+			System.out.println(new Date(System.currentTimeMillis()) + ": CPV inputs unmarshalled.");
+
+			// calculate CPV
+			cpvOutputs = this.calculate(this.buffers.getLiabilityGraph(), this.buffers.getOperatingCashFlow(),
+					this.buffers.getLiquidAssets(), this.buffers.getIteration());
+
+			// write to output stream
+			System.out.println(new Date(System.currentTimeMillis()) + ": sending CPV outputs.");
+			try {
+				CpvWireProtocol.writeOutputs(writer, cpvOutputs);
+				cpvOutputs.close();
+				cpvOutputs = null;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		// close resources
+		this.close();
+	}
+
+	/**
+	 * Serves a persistent session, one month at a time, until the client closes
+	 * it or disconnects. The topology is kept under the session id between months
+	 * so the client only needs to send the rows that have changed.
+	 * 
+	 * @param reader - the reader for the connection, after the first session
+	 *               request's message type has been read
+	 * @param writer - the writer for the connection
+	 */
+	private void runSession(FramedArrayReader reader, FramedArrayWriter writer) {
 		try {
-			// serialize data to byte array
-			/*
-			 * byte[] bytes = null; switch (compression) { case 1: // GZIP compression bytes
-			 * = Serialization.toBytesGZIP(cpvOutputs, Properties.SOCKET_BUFFER_BYTES);
-			 * break; case 2: // Deflater compression bytes =
-			 * Serialization.toBytesDeflater(cpvOutputs, Properties.SOCKET_BUFFER_BYTES);
-			 * break; default: // no compression bytes = Serialization.toBytes(cpvOutputs,
-			 * Properties.SOCKET_BUFFER_BYTES); break; }
-			 * 
-			 * // write to stream System.out.println(new Date(System.currentTimeMillis()) +
-			 * ": writing CPV outputs to stream."); dos.writeInt(bytes.length);
-			 * dos.writeByte(compression); dos.write(bytes); dos.flush(); // don't know if I
-			 * really need this, but it probably can't hurt
-			 */
-			Serialization.writeToDataStream(dos, cpvOutputs, props.getSocketBufferBytes(),
-					props.getSocketMessageBytes(), CompressionType.GZIP);
-			cpvOutputs.close();
-			cpvOutputs = null;
-			System.gc();
+			int msgType = CpvWireProtocol.MAGIC_SESSION;
+			while (msgType == CpvWireProtocol.MAGIC_SESSION) {
+				long sessionId = reader.readLong();
+				int command = reader.readInt();
+				int topologyVersion = reader.readInt();
+				int codec = reader.readInt();
+				if (command == CpvWireProtocol.SESSION_CLOSE) {
+					synchronized (this.sim) {
+						CpvWireProtocol.InputBuffers session = this.sessions.remove(sessionId);
+						if (session != null) {
+							session.releaseHistory();
+						}
+					}
+					System.out.println(new Date(System.currentTimeMillis()) + ": CPV session " + sessionId + " closed.");
+					return;
+				}
+
+				// the session's buffers are guarded by the simulation's lock, like the CPV
+				// workspace, so hold it until the outputs have been sent
+				synchronized (this.sim) {
+					CpvWireProtocol.InputBuffers session = this.sessions.get(sessionId);
+					if (session == null) {
+						session = new CpvWireProtocol.InputBuffers();
+						this.sessions.put(sessionId, session);
+					}
+					boolean canSendDelta = topologyVersion >= 0 && session.getTopologyVersion() == topologyVersion;
+					writer.writeInt(canSendDelta ? CpvWireProtocol.SESSION_SEND_DELTA
+							: CpvWireProtocol.SESSION_SEND_FULL);
+					writer.flush();
+
+					// receive CPV input from client, forgetting the topology until it has all
+					// arrived in case the connection drops part way through
+					session.setTopologyVersion(-1);
+					CpvWireProtocol.VectorHistory history = codec == CpvWireProtocol.CODEC_DELTA_DEFLATE
+							? session.getHistory()
+							: null;
+					int inputType = CpvWireProtocol.readMessageType(reader);
+					boolean isDelta = inputType == CpvWireProtocol.MAGIC_DELTA && canSendDelta;
+					if (isDelta) {
+						System.out.println(
+								new Date(System.currentTimeMillis()) + ": receiving CPV input changes for session "
+										+ sessionId + ".");
+						CpvWireProtocol.readInputsDeltaBody(reader, session, history);
+					} else if (inputType == CpvWireProtocol.MAGIC_INPUTS) {
+						System.out.println(new Date(System.currentTimeMillis()) + ": receiving CPV inputs for session "
+								+ sessionId + ".");
+						CpvWireProtocol.readInputsBody(reader, session, history);
+					} else {
+						throw new IOException("Unexpected CPV message type: " + Integer.toHexString(inputType));
+					}
+					session.setTopologyVersion(topologyVersion + 1);
+
+					// calculate CPV
+					ClearingPaymentOutputs cpvOutputs = this.calculate(session.getLiabilityGraph(),
+							session.getOperatingCashFlow(), session.getLiquidAssets(), session.getIteration());
+
+					// write to output stream
+					System.out.println(new Date(System.currentTimeMillis()) + ": sending CPV outputs.");
+					CpvWireProtocol.writeOutputs(writer, cpvOutputs, history, isDelta);
+					cpvOutputs.close();
+					cpvOutputs = null;
+				}
+
+				// wait for next month
+				msgType = CpvWireProtocol.readMessageType(reader);
+			}
+			System.err.println("Unexpected CPV message type: " + Integer.toHexString(msgType));
+		} catch (EOFException e) {
+			System.out.println(new Date(System.currentTimeMillis()) + ": CPV session client disconnected.");
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+	}
 
-		// close resources
+	private void close() {
 		try {
-			System.out.println(new Date(System.currentTimeMillis()) + ": closing data input and output streams.");
-			this.dis.close();
-			this.dos.close();
+			if (this.channel == null) {
+				System.out.println(new Date(System.currentTimeMillis()) + ": closing data input and output streams.");
+				this.dis.close();
+				this.dos.close();
+			} else {
+				System.out.println(new Date(System.currentTimeMillis()) + ": closing socket channel.");
+				this.channel.close();
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * Calculates the Clearing Payments Vector for the given input.
+	 * 
+	 * @param liabilities
+	 * @param operatingCashFlow
+	 * @param liquidAssets
+	 * @param iteration
+	 * @return
+	 */
+	public ClearingPaymentOutputs calculate(LiabilityGraph liabilities, float[] operatingCashFlow,
+			float[] liquidAssets, int iteration) {
+
+		System.out.println(new Date(System.currentTimeMillis()) + ": CPV calculation invoked.");
+
+		ClearingPaymentOutputs cpvOutputs = this.sim.calculateClearingPaymentVector(liabilities, operatingCashFlow,
+				liquidAssets, iteration);
+
+		System.out.println(new Date(System.currentTimeMillis()) + ": CPV outputs calculated.");
+
+		return cpvOutputs;
+	}
+
 	/**
 	 * Calculates the Clearing Payments Vector for the given input.
 	 * 
@@ -148,8 +285,7 @@ public class CpvSocketClientHandler extends Thread {
 
 		System.out.println(new Date(System.currentTimeMillis()) + ": CPV calculation invoked.");
 
-		RunSimulation sim = new RunSimulation();
-		ClearingPaymentOutputs cpvOutputs = sim.calculateClearingPaymentVector(liabilitiesAmounts, liabilitiesIndices,
+		ClearingPaymentOutputs cpvOutputs = this.sim.calculateClearingPaymentVector(liabilitiesAmounts, liabilitiesIndices,
 				operatingCashFlow, liquidAssets, iteration);
 
 		System.out.println(new Date(System.currentTimeMillis()) + ": CPV outputs calculated.");
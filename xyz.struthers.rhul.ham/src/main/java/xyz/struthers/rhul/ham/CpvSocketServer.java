@@ -3,11 +3,16 @@
  */
 package xyz.struthers.rhul.ham;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Date;
 
 import xyz.struthers.rhul.ham.config.PropertiesXml;
@@ -126,6 +131,10 @@ public class CpvSocketServer {
 		// set properties filename
 		PropertiesXmlFactory.propertiesXmlFilename = args[0];
 		PropertiesXml props = PropertiesXmlFactory.getProperties();
+		if (props.getCpvTransport() == CpvWireProtocol.TRANSPORT_CHANNEL) {
+			runChannelServer(props);
+			return;
+		}
 
 		// server is listening on specified port
 		@SuppressWarnings("resource")
@@ -134,6 +143,12 @@ public class CpvSocketServer {
 		System.out.println(new Date(System.currentTimeMillis()) + ": CPV socket server is listening on port : "
 				+ props.getCpvServerPort());
 
+		// every client shares the same CPV workspace, input buffers and session
+		// topologies, so they're only allocated once
+		RunSimulation sim = new RunSimulation();
+		CpvWireProtocol.InputBuffers buffers = new CpvWireProtocol.InputBuffers();
+		CpvWireProtocol.SessionCache sessions = CpvWireProtocol.SessionCache.forProperties(props);
+
 		// running infinite loop for getting client request
 		while (true) {
 			Socket s = null;
@@ -144,12 +159,12 @@ public class CpvSocketServer {
 				System.out.println(new Date(System.currentTimeMillis()) + ": a new CPV client is connected : " + s);
 
 				// obtaining input and out streams
-				DataInputStream dis = new DataInputStream(s.getInputStream());
-				DataOutputStream dos = new DataOutputStream(s.getOutputStream());
+				DataInputStream dis = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+				DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
 
 				// create a new thread and start the CPV client handler
 				System.out.println("Assigning new thread for this client");
-				Thread t = new CpvSocketClientHandler(s, dis, dos);
+				Thread t = new CpvSocketClientHandler(s, dis, dos, sim, buffers, sessions);
 				t.start();
 			} catch (Exception e) {
 				s.close();
@@ -158,4 +173,51 @@ public class CpvSocketServer {
 		}
 	}
 
+	/**
+	 * Listens for clients using an NIO server socket channel. The handlers read
+	 * and write the frames using direct buffers, so a client that sends its inputs
+	 * from a spill file with transferTo has the bytes moved by the kernel on both
+	 * ends without them being copied through the Java heap more than once.
+	 * 
+	 * @param props - the properties containing the port to listen on
+	 * @throws IOException
+	 */
+	private static void runChannelServer(PropertiesXml props) throws IOException {
+		// server is listening on specified port
+		@SuppressWarnings("resource")
+		ServerSocketChannel ssc = ServerSocketChannel.open();
+		ssc.socket().setReceiveBufferSize(props.getSocketBufferBytes());
+		ssc.bind(new InetSocketAddress(props.getCpvServerPort()));
+
+		System.out.println(new Date(System.currentTimeMillis())
+				+ ": CPV socket channel server is listening on port : " + props.getCpvServerPort());
+
+		// every client shares the same CPV workspace, input buffers and session
+		// topologies, so they're only allocated once
+		RunSimulation sim = new RunSimulation();
+		CpvWireProtocol.InputBuffers buffers = new CpvWireProtocol.InputBuffers();
+		CpvWireProtocol.SessionCache sessions = CpvWireProtocol.SessionCache.forProperties(props);
+
+		// running infinite loop for getting client request
+		while (true) {
+			SocketChannel sc = null;
+
+			try {
+				// blocking channel to receive incoming client requests
+				sc = ssc.accept();
+				System.out.println(new Date(System.currentTimeMillis()) + ": a new CPV client is connected : " + sc);
+
+				// create a new thread and start the CPV client handler
+				System.out.println("Assigning new thread for this client");
+				Thread t = new CpvSocketClientHandler(sc, sim, buffers, sessions);
+				t.start();
+			} catch (Exception e) {
+				if (sc != null) {
+					sc.close();
+				}
+				e.printStackTrace();
+			}
+		}
+	}
+
 }
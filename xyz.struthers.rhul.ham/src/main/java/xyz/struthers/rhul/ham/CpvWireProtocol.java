@@ -0,0 +1,844 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import xyz.struthers.io.DeltaVectorCodec;
+import xyz.struthers.io.FramedArrayReader;
+import xyz.struthers.io.FramedArrayWriter;
+import xyz.struthers.rhul.ham.config.PropertiesXml;
+import xyz.struthers.rhul.ham.process.ClearingPaymentInputs;
+import xyz.struthers.rhul.ham.process.ClearingPaymentOutputs;
+import xyz.struthers.rhul.ham.process.LiabilityGraph;
+
+/**
+ * The binary protocol used between the CPV socket client and server.
+ *
+ * Java serialization writes the whole object into a single byte array before
+ * sending it, which fails once it reaches 2GB and needs several copies of the
+ * data in RAM. This protocol streams the primitive arrays straight into the
+ * socket in fixed-size frames instead, and the server decodes them straight
+ * into buffers that are reused from month to month.
+ *
+ * Inputs are sent as: magic number, version, iteration, number of nodes, then
+ * the CSR row pointers, creditor indices, liability amounts, operating cash
+ * flow and liquid assets as framed arrays. Outputs are sent as: magic number,
+ * version, iteration, then the equity and default order of each node as framed
+ * arrays.
+ *
+ * In a persistent session the client keeps the connection open for the whole
+ * simulation and, once per month, sends a session request: magic number,
+ * version, session id, command and the topology version it last sent. The
+ * server replies whether it still has that topology. If it does, the client
+ * only sends a delta: the rows whose creditors have changed (e.g. customers
+ * reassigned to another ADI) followed by all the amounts, cash flows and liquid
+ * assets. Otherwise it sends the full inputs. The server keeps the topology
+ * and its receivables index between months, so it only rebuilds the index when
+ * some rows have changed.
+ *
+ * A session can also compress the amounts, cash flows and outputs with a
+ * DeltaVectorCodec, in which case months sent as a delta are XORed with the
+ * previous month's vectors before being compressed. Both ends keep the
+ * previous month's vectors in a VectorHistory.
+ *
+ * The session request is: magic number, version, session id, command,
+ * topology version and codec.
+ *
+ * The bytes are the same whichever transport is used, so a client using the
+ * blocking streams can talk to a server using channels and vice versa.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public abstract class CpvWireProtocol {
+
+	public static final int MAGIC_INPUTS = 0x43505649; // "CPVI"
+	public static final int MAGIC_OUTPUTS = 0x4350564F; // "CPVO"
+	public static final int MAGIC_DELTA = 0x43505644; // "CPVD"
+	public static final int MAGIC_SESSION = 0x43505653; // "CPVS"
+	public static final int VERSION = 1;
+
+	// session commands
+	public static final int SESSION_CALCULATE = 0;
+	public static final int SESSION_CLOSE = 1;
+
+	// session replies
+	public static final int SESSION_SEND_FULL = 0;
+	public static final int SESSION_SEND_DELTA = 1;
+
+	// vector codecs used in a session
+	public static final int CODEC_NONE = 0;
+	public static final int CODEC_DELTA_DEFLATE = 1;
+
+	// transports
+	public static final int TRANSPORT_STREAM = 0; // blocking sockets and data streams
+	public static final int TRANSPORT_CHANNEL = 1; // NIO channels, direct buffers and transferTo
+
+	/**
+	 * Streams the CPV inputs to the server.
+	 *
+	 * @param dos        - the socket's output stream
+	 * @param cpvInputs  - the inputs to send
+	 * @param frameBytes - the maximum size of each frame
+	 * @throws IOException
+	 */
+	public static void writeInputs(DataOutputStream dos, ClearingPaymentInputs cpvInputs, int frameBytes)
+			throws IOException {
+		writeInputs(new FramedArrayWriter(dos, frameBytes), cpvInputs);
+	}
+
+	/**
+	 * Writes the CPV inputs.
+	 *
+	 * @param writer    - the writer for the stream, channel or spill file
+	 * @param cpvInputs - the inputs to send
+	 * @throws IOException
+	 */
+	public static void writeInputs(FramedArrayWriter writer, ClearingPaymentInputs cpvInputs) throws IOException {
+		writeInputs(writer, cpvInputs, null);
+	}
+
+	/**
+	 * Writes the CPV inputs from their liabilities graph. If there is a history,
+	 * the amounts and cash flows are compressed (but not XORed with the previous
+	 * month, which the server might not have) and kept in the history for next
+	 * month.
+	 *
+	 * @param writer    - the writer for the stream, channel or spill file
+	 * @param cpvInputs - the inputs to send
+	 * @param history   - the session's history, or null to send raw arrays
+	 * @throws IOException
+	 */
+	public static void writeInputs(FramedArrayWriter writer, ClearingPaymentInputs cpvInputs, VectorHistory history)
+			throws IOException {
+		LiabilityGraph liabilities = cpvInputs.getLiabilityGraph();
+		int nodes = liabilities.getNodeCount();
+		int links = liabilities.getLinkCount();
+
+		writer.writeInt(MAGIC_INPUTS);
+		writer.writeInt(VERSION);
+		writer.writeInt(cpvInputs.getIteration());
+		writer.writeInt(nodes);
+
+		// row pointers
+		writer.beginArray(nodes + 1);
+		writer.putInts(liabilities.getRowPtr(), 0, nodes + 1);
+		writer.endArray();
+
+		// creditor indices
+		writer.beginArray(links);
+		writer.putInts(liabilities.getCol(), 0, links);
+		writer.endArray();
+
+		writeVectors(writer, cpvInputs, history, false);
+	}
+
+	/**
+	 * Writes only the changes to the CPV inputs since the last month, for a
+	 * session where the server still has the previous month's topology.
+	 *
+	 * @param writer       - the writer for the stream or channel
+	 * @param cpvInputs    - the inputs to send
+	 * @param changedRows  - the nodes whose creditors have changed, in ascending
+	 *                     order
+	 * @param changedCount - the number of elements used in changedRows
+	 * @param history      - the session's history, or null to send raw arrays
+	 * @throws IOException
+	 */
+	public static void writeInputsDelta(FramedArrayWriter writer, ClearingPaymentInputs cpvInputs,
+			int[] changedRows, int changedCount, VectorHistory history) throws IOException {
+		LiabilityGraph liabilities = cpvInputs.getLiabilityGraph();
+		int[] rowPtr = liabilities.getRowPtr();
+		int[] col = liabilities.getCol();
+		int nodes = liabilities.getNodeCount();
+
+		writer.writeInt(MAGIC_DELTA);
+		writer.writeInt(VERSION);
+		writer.writeInt(cpvInputs.getIteration());
+		writer.writeInt(nodes);
+
+		// changed rows
+		writer.beginArray(changedCount);
+		writer.putInts(changedRows, 0, changedCount);
+		writer.endArray();
+
+		// row pointers and creditor indices of the changed rows
+		writer.beginArray(changedCount + 1);
+		long changedLinks = 0L;
+		writer.putInt(0);
+		for (int i = 0; i < changedCount; i++) {
+			changedLinks += rowPtr[changedRows[i] + 1] - rowPtr[changedRows[i]];
+			writer.putInt((int) changedLinks);
+		}
+		writer.endArray();
+		writer.beginArray(changedLinks);
+		for (int i = 0; i < changedCount; i++) {
+			int row = changedRows[i];
+			writer.putInts(col, rowPtr[row], rowPtr[row + 1] - rowPtr[row]);
+		}
+		writer.endArray();
+
+		// liability amounts of every row
+		writeVectors(writer, cpvInputs, history, true);
+	}
+
+	/**
+	 * Writes the liability amounts of every row, then the operating cash flows and
+	 * liquid assets.
+	 *
+	 * @param writer    - the writer for the stream or channel
+	 * @param cpvInputs - the inputs to send
+	 * @param history   - the session's history, or null to send raw arrays
+	 * @param xor       - true if the server has the same history (i.e. this is a
+	 *                  delta)
+	 * @throws IOException
+	 */
+	private static void writeVectors(FramedArrayWriter writer, ClearingPaymentInputs cpvInputs,
+			VectorHistory history, boolean xor) throws IOException {
+		LiabilityGraph liabilities = cpvInputs.getLiabilityGraph();
+		int nodes = liabilities.getNodeCount();
+		int length = liabilities.getLinkCount();
+		float[] operatingCashFlow = cpvInputs.getOperatingCashFlowArray();
+		float[] liquidAssets = cpvInputs.getLiquidAssetsArray();
+
+		if (history == null) {
+			writer.beginArray(length);
+			writer.putFloats(liabilities.getAmount(), 0, length);
+			writer.endArray();
+			writer.writeFloatArray(operatingCashFlow);
+			writer.writeFloatArray(liquidAssets);
+		} else {
+			// the history needs its own copy of the amounts, which becomes next month's
+			if (history.amountsScratch == null || history.amountsScratch.length < length) {
+				history.amountsScratch = new float[length + (length >> InputBuffers.LINK_CAPACITY_HEADROOM_SHIFT)];
+			}
+			/*
+			 * The server's solver zeroes the diagonal and makes the amounts non-negative in
+			 * its copy (see ClearingPaymentVector.enforceLiabilityMatrixConstraints), and
+			 * that copy is what next month is XORed with. Apply the same constraints here so
+			 * both sides keep the same history. It doesn't change the result because the
+			 * solver would have applied them anyway.
+			 */
+			int[] rowPtr = liabilities.getRowPtr();
+			int[] col = liabilities.getCol();
+			float[] amount = liabilities.getAmount();
+			float[] amounts = history.amountsScratch;
+			for (int i = 0; i < nodes; i++) {
+				for (int link = rowPtr[i]; link < rowPtr[i + 1]; link++) {
+					amounts[link] = col[link] == i ? 0f : Math.abs(amount[link]);
+				}
+			}
+			history.codec.writeFloats(writer, history.amountsScratch, length, xor ? history.amounts : null,
+					history.amountsLength);
+			history.codec.writeFloats(writer, operatingCashFlow, operatingCashFlow.length,
+					xor ? history.operatingCashFlow : null, lengthOf(history.operatingCashFlow));
+			history.codec.writeFloats(writer, liquidAssets, liquidAssets.length, xor ? history.liquidAssets : null,
+					lengthOf(history.liquidAssets));
+
+			float[] swap = history.amounts;
+			history.amounts = history.amountsScratch;
+			history.amountsScratch = swap;
+			history.amountsLength = length;
+			history.operatingCashFlow = operatingCashFlow;
+			history.liquidAssets = liquidAssets;
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Reads a compressed vector over last month's, reusing its array if it is the
+	 * right length.
+	 */
+	private static float[] readFloats(FramedArrayReader reader, DeltaVectorCodec codec, float[] previous,
+			boolean xor) throws IOException {
+		int length = codec.readLength(reader);
+		float[] values = (previous != null && previous.length == length) ? previous : new float[length];
+		codec.readFloats(reader, values, length, xor ? previous : null, lengthOf(previous));
+		return values;
+	}
+
+	private static int lengthOf(float[] values) {
+		return values == null ? 0 : values.length;
+	}
+
+	private static int lengthOf(int[] values) {
+		return values == null ? 0 : values.length;
+	}
+
+	/**
+	 * Writes a session request.
+	 *
+	 * @param writer          - the writer for the stream or channel
+	 * @param sessionId       - the session's id
+	 * @param command         - SESSION_CALCULATE or SESSION_CLOSE
+	 * @param topologyVersion - the version of the topology the client last sent
+	 * @param codec           - CODEC_NONE or CODEC_DELTA_DEFLATE
+	 * @throws IOException
+	 */
+	public static void writeSessionRequest(FramedArrayWriter writer, long sessionId, int command,
+			int topologyVersion, int codec) throws IOException {
+		writer.writeInt(MAGIC_SESSION);
+		writer.writeInt(VERSION);
+		writer.writeLong(sessionId);
+		writer.writeInt(command);
+		writer.writeInt(topologyVersion);
+		writer.writeInt(codec);
+		writer.flush();
+	}
+
+	/**
+	 * Reads the CPV inputs into the buffers, reusing the buffers' arrays wherever
+	 * they are big enough.
+	 *
+	 * @param dis     - the socket's input stream
+	 * @param buffers - the buffers to read into
+	 * @throws IOException
+	 */
+	public static void readInputs(DataInputStream dis, InputBuffers buffers) throws IOException {
+		readInputs(new FramedArrayReader(dis), buffers);
+	}
+
+	/**
+	 * Reads the CPV inputs into the buffers, reusing the buffers' arrays wherever
+	 * they are big enough.
+	 *
+	 * @param reader  - the reader for the stream or channel
+	 * @param buffers - the buffers to read into
+	 * @throws IOException
+	 */
+	public static void readInputs(FramedArrayReader reader, InputBuffers buffers) throws IOException {
+		checkHeader(reader, MAGIC_INPUTS);
+		readInputsBody(reader, buffers, null);
+	}
+
+	/**
+	 * Reads the CPV inputs into the buffers, after the header has been read by
+	 * readMessageType.
+	 *
+	 * @param reader  - the reader for the stream or channel
+	 * @param buffers - the buffers to read into
+	 * @param history - the session's history if the client is compressing the
+	 *                vectors, otherwise null
+	 * @throws IOException
+	 */
+	public static void readInputsBody(FramedArrayReader reader, InputBuffers buffers, VectorHistory history)
+			throws IOException {
+		buffers.iteration = reader.readInt();
+		int nodes = reader.readInt();
+
+		// row pointers
+		if (reader.checkedLength(reader.beginArray()) != nodes + 1) {
+			throw new IOException("Row pointers don't match the number of nodes.");
+		}
+		if (buffers.rowPtr == null || buffers.rowPtr.length != nodes + 1) {
+			buffers.rowPtr = new int[nodes + 1];
+		}
+		reader.getInts(buffers.rowPtr, 0, nodes + 1);
+		reader.endArray();
+
+		// creditor indices
+		int links = reader.checkedLength(reader.beginArray());
+		if (buffers.col == null || buffers.col.length < links) {
+			buffers.col = new int[links + (links >> InputBuffers.LINK_CAPACITY_HEADROOM_SHIFT)];
+		}
+		reader.getInts(buffers.col, 0, links);
+		reader.endArray();
+
+		// liability amounts
+		if (buffers.amount == null || buffers.amount.length < links) {
+			buffers.amount = new float[links + (links >> InputBuffers.LINK_CAPACITY_HEADROOM_SHIFT)];
+		}
+		buffers.nodeCount = nodes;
+		buffers.topologyChanged = true;
+		readVectors(reader, buffers, links, history, null, 0);
+	}
+
+	/**
+	 * Reads the liability amounts of every row, then the operating cash flows and
+	 * liquid assets. The amount buffer must already be big enough.
+	 *
+	 * @param reader          - the reader for the stream or channel
+	 * @param buffers         - the buffers to read into
+	 * @param links           - the total number of liabilities
+	 * @param history         - the session's history, or null if the vectors are
+	 *                        raw arrays
+	 * @param previousAmounts - last month's amounts if this is a delta, otherwise
+	 *                        null
+	 * @param previousLinks   - the number of links last month
+	 * @throws IOException
+	 */
+	private static void readVectors(FramedArrayReader reader, InputBuffers buffers, int links,
+			VectorHistory history, float[] previousAmounts, int previousLinks) throws IOException {
+		if (history == null) {
+			if (reader.checkedLength(reader.beginArray()) != links) {
+				throw new IOException("Liability amounts don't match the number of links.");
+			}
+			reader.getFloats(buffers.amount, 0, links);
+			reader.endArray();
+			buffers.operatingCashFlow = reader.readFloatArray(buffers.operatingCashFlow);
+			buffers.liquidAssets = reader.readFloatArray(buffers.liquidAssets);
+		} else {
+			boolean xor = previousAmounts != null;
+			if (history.codec.readLength(reader) != links) {
+				throw new IOException("Liability amounts don't match the number of links.");
+			}
+			history.codec.readFloats(reader, buffers.amount, links, previousAmounts, previousLinks);
+
+			// the cash flows are updated in place, so they're their own history
+			buffers.operatingCashFlow = readFloats(reader, history.codec, buffers.operatingCashFlow, xor);
+			buffers.liquidAssets = readFloats(reader, history.codec, buffers.liquidAssets, xor);
+		}
+	}
+
+	/**
+	 * Applies a delta to the inputs already in the buffers, after the header has
+	 * been read by readMessageType. Rows that haven't changed keep their
+	 * creditors from the previous month, so the receivables index is only rebuilt
+	 * if some rows have changed.
+	 *
+	 * @param reader  - the reader for the stream or channel
+	 * @param buffers - the buffers holding the previous month's inputs
+	 * @param history - the session's history if the client is compressing the
+	 *                vectors, otherwise null
+	 * @throws IOException
+	 */
+	public static void readInputsDeltaBody(FramedArrayReader reader, InputBuffers buffers, VectorHistory history)
+			throws IOException {
+		int iteration = reader.readInt();
+		int nodes = reader.readInt();
+		if (buffers.rowPtr == null || nodes != buffers.nodeCount) {
+			throw new IOException("CPV delta doesn't match the number of nodes in the session.");
+		}
+
+		// changed rows
+		int[] changedRows = reader.readIntArray(null);
+		int[] changedPtr = reader.readIntArray(null);
+		int[] changedCol = reader.readIntArray(null);
+		int changedCount = changedRows.length;
+		int previousLinks = buffers.rowPtr[nodes];
+		if (changedPtr.length != changedCount + 1 || changedPtr[changedCount] != changedCol.length) {
+			throw new IOException("CPV delta row pointers don't match the changed rows.");
+		}
+		if (changedCount > 0) {
+			int[] oldRowPtr = buffers.rowPtr;
+			int[] oldCol = buffers.col;
+
+			// work out where each row starts now
+			int[] newRowPtr = new int[nodes + 1];
+			int c = 0;
+			for (int i = 0; i < nodes; i++) {
+				int length = 0;
+				if (c < changedCount && changedRows[c] == i) {
+					length = changedPtr[c + 1] - changedPtr[c];
+					c++;
+				} else {
+					length = oldRowPtr[i + 1] - oldRowPtr[i];
+				}
+				long next = (long) newRowPtr[i] + length;
+				if (length < 0 || next > Integer.MAX_VALUE) {
+					throw new IOException("Invalid CPV delta for row " + i + ".");
+				}
+				newRowPtr[i + 1] = (int) next;
+			}
+			if (c != changedCount) {
+				throw new IOException(
+						"CPV delta rows must be unique, in ascending order and less than the number of nodes.");
+			}
+
+			// copy the unchanged runs of rows, and the changed rows in between them
+			int links = newRowPtr[nodes];
+			int[] newCol = new int[links + (links >> InputBuffers.LINK_CAPACITY_HEADROOM_SHIFT)];
+			int runStart = 0;
+			for (c = 0; c < changedCount; c++) {
+				int row = changedRows[c];
+				System.arraycopy(oldCol, oldRowPtr[runStart], newCol, newRowPtr[runStart],
+						oldRowPtr[row] - oldRowPtr[runStart]);
+				System.arraycopy(changedCol, changedPtr[c], newCol, newRowPtr[row], changedPtr[c + 1] - changedPtr[c]);
+				runStart = row + 1;
+			}
+			System.arraycopy(oldCol, oldRowPtr[runStart], newCol, newRowPtr[runStart],
+					oldRowPtr[nodes] - oldRowPtr[runStart]);
+
+			buffers.rowPtr = newRowPtr;
+			buffers.col = newCol;
+			buffers.topologyChanged = true;
+		}
+
+		// liability amounts, which are XORed with last month's (in place, unless the
+		// buffer has to grow)
+		int links = buffers.rowPtr[nodes];
+		float[] previousAmounts = buffers.amount;
+		if (buffers.amount.length < links) {
+			buffers.amount = new float[links + (links >> InputBuffers.LINK_CAPACITY_HEADROOM_SHIFT)];
+			buffers.topologyChanged = true;
+		}
+		buffers.iteration = iteration;
+		readVectors(reader, buffers, links, history, previousAmounts, previousLinks);
+	}
+
+	/**
+	 * Streams the CPV outputs back to the client.
+	 *
+	 * @param dos        - the socket's output stream
+	 * @param cpvOutputs - the outputs to send
+	 * @param frameBytes - the maximum size of each frame
+	 * @throws IOException
+	 */
+	public static void writeOutputs(DataOutputStream dos, ClearingPaymentOutputs cpvOutputs, int frameBytes)
+			throws IOException {
+		writeOutputs(new FramedArrayWriter(dos, frameBytes), cpvOutputs);
+	}
+
+	/**
+	 * Writes the CPV outputs.
+	 *
+	 * @param writer     - the writer for the stream or channel
+	 * @param cpvOutputs - the outputs to send
+	 * @throws IOException
+	 */
+	public static void writeOutputs(FramedArrayWriter writer, ClearingPaymentOutputs cpvOutputs)
+			throws IOException {
+		writeOutputs(writer, cpvOutputs, null, false);
+	}
+
+	/**
+	 * Writes the CPV outputs, compressing them if there is a history.
+	 *
+	 * @param writer     - the writer for the stream or channel
+	 * @param cpvOutputs - the outputs to send
+	 * @param history    - the session's history, or null to send raw arrays
+	 * @param xor        - true to XOR with last month's outputs (i.e. the month
+	 *                   was sent as a delta, so the client has them too)
+	 * @throws IOException
+	 */
+	public static void writeOutputs(FramedArrayWriter writer, ClearingPaymentOutputs cpvOutputs,
+			VectorHistory history, boolean xor) throws IOException {
+		writer.writeInt(MAGIC_OUTPUTS);
+		writer.writeInt(VERSION);
+		writer.writeInt(cpvOutputs.getIteration());
+		float[] equity = cpvOutputs.getEquityOfNodeArray();
+		int[] defaultOrder = cpvOutputs.getDefaultOrderOfNodeArray();
+		if (history == null) {
+			writer.writeFloatArray(equity);
+			writer.writeIntArray(defaultOrder);
+		} else {
+			history.codec.writeFloats(writer, equity, equity.length, xor ? history.equity : null,
+					lengthOf(history.equity));
+			history.codec.writeInts(writer, defaultOrder, defaultOrder.length, xor ? history.defaultOrder : null,
+					lengthOf(history.defaultOrder));
+
+			// keep copies, because the solver reuses its arrays next month
+			if (history.equity == null || history.equity.length != equity.length) {
+				history.equity = new float[equity.length];
+				history.defaultOrder = new int[defaultOrder.length];
+			}
+			System.arraycopy(equity, 0, history.equity, 0, equity.length);
+			System.arraycopy(defaultOrder, 0, history.defaultOrder, 0, defaultOrder.length);
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Reads the CPV outputs sent back by the server.
+	 *
+	 * @param dis - the socket's input stream
+	 * @return the CPV outputs
+	 * @throws IOException
+	 */
+	public static ClearingPaymentOutputs readOutputs(DataInputStream dis) throws IOException {
+		return readOutputs(new FramedArrayReader(dis));
+	}
+
+	/**
+	 * Reads the CPV outputs sent back by the server.
+	 *
+	 * @param reader - the reader for the stream or channel
+	 * @return the CPV outputs
+	 * @throws IOException
+	 */
+	public static ClearingPaymentOutputs readOutputs(FramedArrayReader reader) throws IOException {
+		return readOutputs(reader, null, false);
+	}
+
+	/**
+	 * Reads the CPV outputs sent back by the server, decompressing them if there
+	 * is a history.
+	 *
+	 * @param reader  - the reader for the stream or channel
+	 * @param history - the session's history, or null if the outputs are raw
+	 *                arrays
+	 * @param xor     - true if they're XORed with last month's outputs
+	 * @return the CPV outputs
+	 * @throws IOException
+	 */
+	public static ClearingPaymentOutputs readOutputs(FramedArrayReader reader, VectorHistory history, boolean xor)
+			throws IOException {
+		checkHeader(reader, MAGIC_OUTPUTS);
+		ClearingPaymentOutputs cpvOutputs = new ClearingPaymentOutputs();
+		cpvOutputs.setIteration(reader.readInt());
+		if (history == null) {
+			cpvOutputs.setEquityOfNode(reader.readFloatArray(null));
+			cpvOutputs.setDefaultOrderOfNode(reader.readIntArray(null));
+		} else {
+			int length = history.codec.readLength(reader);
+			float[] equity = new float[length];
+			history.codec.readFloats(reader, equity, length, xor ? history.equity : null, lengthOf(history.equity));
+			length = history.codec.readLength(reader);
+			int[] defaultOrder = new int[length];
+			history.codec.readInts(reader, defaultOrder, length, xor ? history.defaultOrder : null,
+					lengthOf(history.defaultOrder));
+
+			// the outputs' getters copy the arrays, so they can be kept for next month
+			history.equity = equity;
+			history.defaultOrder = defaultOrder;
+			cpvOutputs.setEquityOfNode(equity);
+			cpvOutputs.setDefaultOrderOfNode(defaultOrder);
+		}
+		return cpvOutputs;
+	}
+
+	/**
+	 * Reads the magic number and version at the start of a message.
+	 *
+	 * @param reader - the reader for the stream or channel
+	 * @return the message type (i.e. its magic number)
+	 * @throws IOException if the version isn't supported
+	 */
+	public static int readMessageType(FramedArrayReader reader) throws IOException {
+		int received = reader.readInt();
+		int version = reader.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported CPV protocol version: " + version);
+		}
+		return received;
+	}
+
+	private static void checkHeader(FramedArrayReader reader, int magic) throws IOException {
+		int received = reader.readInt();
+		if (received != magic) {
+			throw new IOException("Unexpected CPV message type: " + Integer.toHexString(received));
+		}
+		int version = reader.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported CPV protocol version: " + version);
+		}
+	}
+
+	/**
+	 * Arrays that the server decodes the CPV inputs into. They are kept between
+	 * months so the server doesn't need to allocate them again. In a session they
+	 * also keep the topology, and the liabilities graph with its receivables
+	 * index, until the topology changes.
+	 */
+	public static class InputBuffers {
+
+		/**
+		 * Spare capacity allocated for links (as a power of two fraction, so 4 is
+		 * 1/16th) because the number of links varies a little from month to month.
+		 */
+		public static final int LINK_CAPACITY_HEADROOM_SHIFT = 4;
+
+		private int nodeCount;
+		private int[] rowPtr;
+		private int[] col;
+		private float[] amount;
+		private float[] operatingCashFlow;
+		private float[] liquidAssets;
+		private int iteration;
+		private int topologyVersion; // the session's topology version, or -1 if there isn't one
+		private boolean topologyChanged;
+		private LiabilityGraph graph;
+		private int[] receivablePtr;
+		private int[] receivableFrom;
+		private int[] receivableEdge;
+		private VectorHistory history;
+
+		public InputBuffers() {
+			super();
+			this.topologyVersion = -1;
+			this.topologyChanged = true;
+		}
+
+		/**
+		 * Wraps the buffers in a liabilities graph (without copying them). The graph
+		 * and its receivables index are kept until the topology changes, so a month
+		 * that only has new amounts doesn't need to rebuild the index.
+		 * 
+		 * @return the liabilities graph
+		 */
+		public LiabilityGraph getLiabilityGraph() {
+			if (this.graph == null || this.topologyChanged) {
+				this.graph = new LiabilityGraph(this.nodeCount, this.rowPtr, this.col, this.amount);
+				this.graph.buildReceivablesIndex(this.receivablePtr, this.receivableFrom, this.receivableEdge);
+				this.receivablePtr = this.graph.getReceivablePtr();
+				this.receivableFrom = this.graph.getReceivableFrom();
+				this.receivableEdge = this.graph.getReceivableEdge();
+				this.topologyChanged = false;
+			}
+			return this.graph;
+		}
+
+		/**
+		 * @return the operatingCashFlow
+		 */
+		public float[] getOperatingCashFlow() {
+			return operatingCashFlow;
+		}
+
+		/**
+		 * @return the liquidAssets
+		 */
+		public float[] getLiquidAssets() {
+			return liquidAssets;
+		}
+
+		/**
+		 * @return the iteration
+		 */
+		public int getIteration() {
+			return iteration;
+		}
+
+		/**
+		 * @return the session's vector history, creating it if necessary
+		 */
+		public VectorHistory getHistory() {
+			if (this.history == null) {
+				this.history = new VectorHistory();
+			}
+			return this.history;
+		}
+
+		/**
+		 * Releases the session's vector history (e.g. when the session ends).
+		 */
+		public void releaseHistory() {
+			if (this.history != null) {
+				this.history.close();
+				this.history = null;
+			}
+		}
+
+		/**
+		 * @return the topologyVersion
+		 */
+		public int getTopologyVersion() {
+			return topologyVersion;
+		}
+
+		/**
+		 * @param topologyVersion the topologyVersion to set
+		 */
+		public void setTopologyVersion(int topologyVersion) {
+			this.topologyVersion = topologyVersion;
+		}
+	}
+
+	/**
+	 * The previous month's vectors that were sent or received in a session, so the
+	 * next month can be XORed with them, and the codec used to compress them. The
+	 * client keeps everything it sends and receives. The server decodes the
+	 * inputs in place over last month's, so it only needs to keep the outputs.
+	 */
+	public static class VectorHistory {
+
+		private final DeltaVectorCodec codec;
+		private float[] amounts;
+		private int amountsLength;
+		private float[] amountsScratch;
+		private float[] operatingCashFlow;
+		private float[] liquidAssets;
+		private float[] equity;
+		private int[] defaultOrder;
+
+		public VectorHistory() {
+			super();
+			this.codec = new DeltaVectorCodec();
+		}
+
+		/**
+		 * Releases the history and the codec's native memory.
+		 */
+		public void close() {
+			this.codec.close();
+			this.amounts = null;
+			this.amountsLength = 0;
+			this.amountsScratch = null;
+			this.operatingCashFlow = null;
+			this.liquidAssets = null;
+			this.equity = null;
+			this.defaultOrder = null;
+		}
+	}
+
+	/**
+	 * The topologies of the sessions the server knows about, keyed by session id.
+	 * It only keeps the most recently used sessions because each one holds a copy
+	 * of the whole network: about 17 bytes per liability (the CSR columns and
+	 * amounts with their headroom, and the receivables index) plus 24 bytes per
+	 * node (row pointers, cash flows and last month's outputs), and the native
+	 * buffers of its codec. A session that has been evicted has to resend its
+	 * topology, so the cache should hold one session for each scenario that runs
+	 * at the same time. Callers must synchronise access to it.
+	 */
+	public static class SessionCache extends LinkedHashMap<Long, InputBuffers> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int maxSessions;
+
+		public SessionCache() {
+			this(1);
+		}
+
+		/**
+		 * @param maxSessions - the number of session topologies to keep
+		 */
+		public SessionCache(int maxSessions) {
+			super(4, 0.75f, true); // access order, so the eldest is least recently used
+			this.maxSessions = Math.max(1, maxSessions);
+		}
+
+		/**
+		 * Sizes the cache for the scenarios that will use the server at the same
+		 * time: cpvSessionCacheSize if it is set, else scenarioThreadCount, else one
+		 * per processor (the most scenarios that can usefully run at once).
+		 * 
+		 * @param props - the server's properties
+		 * @return a cache with room for every concurrent session
+		 */
+		public static SessionCache forProperties(PropertiesXml props) {
+			int maxSessions = props.getCpvSessionCacheSize();
+			if (maxSessions <= 0) {
+				maxSessions = props.getScenarioThreadCount();
+			}
+			if (maxSessions <= 0) {
+				maxSessions = Runtime.getRuntime().availableProcessors();
+			}
+			return new SessionCache(maxSessions);
+		}
+
+		/**
+		 * @return the number of session topologies the cache keeps
+		 */
+		public int getMaxSessions() {
+			return this.maxSessions;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, InputBuffers> eldest) {
+			boolean evict = this.size() > this.maxSessions;
+			if (evict) {
+				eldest.getValue().releaseHistory();
+			}
+			return evict;
+		}
+	}
+
+}
@@ -13,6 +13,9 @@ import xyz.struthers.rhul.ham.analysis.AnalyseAll;
  * <p>
  * This allows several simulations to be run sequentially without the need for
  * manual intervention.
+ * <p>
+ * Each simulation calibrates the economy again. ScenarioRunner runs several
+ * scenarios from a single calibration instead.
  * 
  * @author Adam Struthers
  * @since 2019-07-23
@@ -9,8 +9,15 @@ import java.util.List;
 
 import gnu.trove.list.array.TFloatArrayList;
 import gnu.trove.list.array.TIntArrayList;
+import xyz.struthers.rhul.ham.config.PropertiesXml;
+import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
+import xyz.struthers.rhul.ham.process.ClearingPaymentInputs;
+import xyz.struthers.rhul.ham.process.ClearingPaymentMetrics;
 import xyz.struthers.rhul.ham.process.ClearingPaymentOutputs;
+import xyz.struthers.rhul.ham.process.ClearingPaymentSolver;
 import xyz.struthers.rhul.ham.process.ClearingPaymentVector;
+import xyz.struthers.rhul.ham.process.GaussSeidelClearingPaymentVector;
+import xyz.struthers.rhul.ham.process.LiabilityGraph;
 
 /**
  * Calculates the Clearing Payments Vector (CPV) fir a single period.
@@ -20,19 +27,39 @@ import xyz.struthers.rhul.ham.process.ClearingPaymentVector;
  * the caller. It has no dependencies on the agents themselves, so can be run
  * without the agents in memory.
  * 
+ * The solver is chosen using the cpvSolver property of the properties it is
+ * given, or the global properties if it isn't given any. The same solver (and
+ * its workspace) is reused every time the CPV is calculated, so one instance of
+ * this class should be shared by every iteration. The outputs refer to that
+ * workspace, so callers that share an instance across threads need to
+ * synchronize on it until they have finished with the outputs.
+ * 
  * @author Adam Struthers
  * @since 10-Apr-2019
  */
 public class RunSimulation {
 
+	private final PropertiesXml properties;
+	private ClearingPaymentSolver payment;
+
 	public RunSimulation() {
+		this(null);
+	}
+
+	/**
+	 * @param properties - the scenario's properties, which choose the CPV solver
+	 *                   (null = the global properties)
+	 */
+	public RunSimulation(PropertiesXml properties) {
 		super();
+		this.properties = properties;
+		this.payment = null;
 	}
 
 	/**
 	 * Runs the Clearing Payment Vector algorithm for a given set of input data.
-	 * Clears as much memory as possible when it's finished, including calling the
-	 * garbage collector.
+	 * Releases the inputs when it's finished, but keeps the CPV's workspace so the
+	 * next iteration doesn't need to allocate it again.
 	 * 
 	 * @param liabilitiesAmounts - amounts owed by every node to the other nodes
 	 *                           they're connected to
@@ -48,7 +75,7 @@ public class RunSimulation {
 	 *         List<Float> NodeEquity, and<br>
 	 *         List<Integer> NodeDefaultOrder.
 	 */
-	public ClearingPaymentOutputs calculateClearingPaymentVector(List<TFloatArrayList> liabilitiesAmounts,
+	public synchronized ClearingPaymentOutputs calculateClearingPaymentVector(List<TFloatArrayList> liabilitiesAmounts,
 			List<TIntArrayList> liabilitiesIndices, TFloatArrayList operatingCashFlow, TFloatArrayList liquidAssets,
 			int iteration) {
 
@@ -58,15 +85,15 @@ public class RunSimulation {
 		System.out.println(new Date(System.currentTimeMillis()) + ": *** MEMORY USAGE BEFORE CALCULATING CPV *** : "
 				+ formatter.format(megabytesBefore) + "MB");
 
-		ClearingPaymentVector payment = new ClearingPaymentVector();
+		if (this.payment == null) {
+			this.payment = this.newSolver();
+		}
 
-		ClearingPaymentOutputs result = payment.calculate(liabilitiesAmounts, liabilitiesIndices, operatingCashFlow,
-				liquidAssets);
+		ClearingPaymentOutputs result = this.payment.calculate(liabilitiesAmounts, liabilitiesIndices,
+				operatingCashFlow, liquidAssets);
 		result.setIteration(iteration);
 
-		payment.clearInputsAndWorking();
-		payment = null;
-		System.gc();
+		this.payment.clearInputsAndWorking();
 
 		long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
 		float megabytesAfter = memoryAfter / 1024f / 1024f;
@@ -79,4 +106,86 @@ public class RunSimulation {
 		return result;
 	}
 
+	/**
+	 * Runs the Clearing Payment Vector algorithm for a liabilities graph that is
+	 * already in CSR form (e.g. decoded straight from the socket).
+	 * 
+	 * @param liabilities       - amounts owed by every node to the other nodes
+	 *                          they're connected to, in CSR form
+	 * @param operatingCashFlow - exogeneous cash inflows to each node
+	 * @param liquidAssets      - cash at bank, etc. of each node
+	 * @param iteration         - the iteration number (i.e. which month this is
+	 *                          being calculated for)
+	 * @return the equity and default order of each node
+	 */
+	public synchronized ClearingPaymentOutputs calculateClearingPaymentVector(LiabilityGraph liabilities,
+			float[] operatingCashFlow, float[] liquidAssets, int iteration) {
+		if (this.payment == null) {
+			this.payment = this.newSolver();
+		}
+
+		ClearingPaymentOutputs result = this.payment.calculate(liabilities, operatingCashFlow, liquidAssets);
+		result.setIteration(iteration);
+
+		this.payment.clearInputsAndWorking();
+		return result;
+	}
+
+	/**
+	 * Runs the Clearing Payment Vector algorithm on the inputs' liabilities graph,
+	 * without copying anything into Trove lists.
+	 * 
+	 * @param cpvInputs - the liabilities, cash flows and liquid assets
+	 * @return the equity and default order of each node
+	 */
+	public synchronized ClearingPaymentOutputs calculateClearingPaymentVector(ClearingPaymentInputs cpvInputs) {
+		if (this.payment == null) {
+			this.payment = this.newSolver();
+		}
+
+		ClearingPaymentOutputs result = this.payment.calculate(cpvInputs);
+
+		this.payment.clearInputsAndWorking();
+		return result;
+	}
+
+	/**
+	 * Creates the CPV solver specified in the properties.
+	 * 
+	 * @return a new CPV solver
+	 */
+	private ClearingPaymentSolver newSolver() {
+		PropertiesXml props = this.properties != null ? this.properties : PropertiesXmlFactory.getProperties();
+		ClearingPaymentSolver solver = null;
+		if (props.getCpvSolver() == ClearingPaymentSolver.GAUSS_SEIDEL) {
+			solver = new GaussSeidelClearingPaymentVector(props.getCpvThreadCount(), props.getCpvSolverTolerance());
+		} else if (props.getCpvSolver() == ClearingPaymentSolver.EISENBERG_NOE_FULL_SWEEP) {
+			ClearingPaymentVector fullSweep = new ClearingPaymentVector(props.getCpvThreadCount());
+			fullSweep.setDirtyFrontier(false);
+			solver = fullSweep;
+		} else {
+			// ClearingPaymentSolver.EISENBERG_NOE
+			solver = new ClearingPaymentVector(props.getCpvThreadCount());
+		}
+		return solver;
+	}
+
+	/**
+	 * @return the convergence metrics for the most recent CPV calculation, or null
+	 *         if it hasn't been calculated yet
+	 */
+	public synchronized ClearingPaymentMetrics getMetrics() {
+		return this.payment == null ? null : this.payment.getMetrics();
+	}
+
+	/**
+	 * Releases the CPV's workspace, e.g. when the simulation has finished.
+	 */
+	public synchronized void releaseWorkspace() {
+		if (this.payment != null) {
+			this.payment.releaseWorkspace();
+			this.payment = null;
+		}
+	}
+
 }
@@ -0,0 +1,383 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import xyz.struthers.rhul.ham.agent.AustralianGovernment;
+import xyz.struthers.rhul.ham.agent.AuthorisedDepositTakingInstitution;
+import xyz.struthers.rhul.ham.agent.Business;
+import xyz.struthers.rhul.ham.agent.Household;
+import xyz.struthers.rhul.ham.agent.Individual;
+import xyz.struthers.rhul.ham.agent.ReserveBankOfAustralia;
+import xyz.struthers.rhul.ham.config.PropertiesXml;
+import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
+import xyz.struthers.rhul.ham.config.SpringConfiguration;
+import xyz.struthers.rhul.ham.process.AustralianEconomy;
+import xyz.struthers.rhul.ham.process.ClearingPaymentInputs;
+import xyz.struthers.rhul.ham.process.ClearingPaymentOutputs;
+import xyz.struthers.rhul.ham.process.EconomyCheckpointer;
+import xyz.struthers.rhul.ham.process.EconomySnapshot;
+
+/**
+ * <h1>Runs several scenarios from a single calibration of the economy.</h1>
+ * <p>
+ * MultiSimCpvSocketClient runs each scenario by calling CpvSocketClient, which
+ * calibrates the whole economy from the CSV files every time, even though every
+ * scenario starts from the same calibrated economy. This calibrates (or loads)
+ * the economy once, using the first properties file, and keeps it as an
+ * EconomySnapshot: a copy of the agents' fields in primitive arrays. Each
+ * scenario gets its own economy restored from the snapshot, with its own
+ * properties, so a sweep of 26 scenarios costs one calibration.
+ * <p>
+ * Scenarios run at the same time, each on its own thread with its own economy
+ * and its own CPV session (or its own CPV solver if the properties don't use a
+ * persistent session). The number that run at once is limited by the
+ * scenarioThreadCount property and by the free memory. The first economy is
+ * restored before any scenarios start, and its size (times
+ * SCENARIO_MEMORY_FACTOR) is used to estimate how much memory each scenario
+ * needs.
+ * <p>
+ * The agents read some parameters (e.g. the FCS limits and the initial cash
+ * rate) from a copy of the properties that every economy shares, so scenarios
+ * are grouped by those parameters, and only scenarios in the same group run at
+ * the same time. The random seed only drives the simulation: every scenario
+ * starts from the economy that was calibrated with the first file's seed.
+ * Subclasses can restore scenarios from other snapshots by overriding
+ * getSnapshot (e.g. SeedSweep calibrates an economy for each seed).
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class ScenarioRunner {
+
+	/**
+	 * A running scenario needs about this many times the memory of its agents, to
+	 * allow for the liabilities graph and the CPV inputs and outputs each month.
+	 */
+	public static final int SCENARIO_MEMORY_FACTOR = 3;
+
+	private final String calibrationFilename;
+	private final PropertiesXml calibrationProperties;
+	private final List<String> scenarioFilenames;
+	private EconomySnapshot snapshot;
+
+	/**
+	 * @param calibrationFilename - the properties file to calibrate the economy
+	 *                            with
+	 * @param scenarioFilenames   - the properties files of the scenarios to run
+	 */
+	public ScenarioRunner(String calibrationFilename, List<String> scenarioFilenames) {
+		super();
+		PropertiesXmlFactory.propertiesXmlFilename = calibrationFilename;
+		this.calibrationFilename = calibrationFilename;
+		this.calibrationProperties = PropertiesXmlFactory.getProperties();
+		this.scenarioFilenames = scenarioFilenames;
+		this.snapshot = null;
+	}
+
+	/**
+	 * @param args - the fully qualified filename of the XML file to calibrate the
+	 *             economy with, followed by the XML files of the scenarios to run.
+	 *             If there are no scenarios, the first file is run by itself.
+	 */
+	public static void main(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			System.out.println("args[" + i + "] = " + args[i]);
+		}
+		List<String> scenarios = Arrays.asList(args).subList(args.length > 1 ? 1 : 0, args.length);
+		ScenarioRunner runner = new ScenarioRunner(args[0], scenarios);
+		runner.calibrate();
+		runner.run();
+	}
+
+	/**
+	 * Calibrates the economy and keeps a snapshot of it. If the calibration
+	 * properties name a snapshot file that exists, it's read instead, and if the
+	 * file doesn't exist yet it's saved for next time.
+	 */
+	public void calibrate() {
+		this.snapshot = this.calibrate(this.calibrationProperties);
+	}
+
+	/**
+	 * Calibrates an economy and takes a snapshot of it, or reads the snapshot file
+	 * the properties name if it exists. The calibration classes read the global
+	 * properties in PropertiesXmlFactory, so they must be the same as props.
+	 *
+	 * @param props - the properties to calibrate the economy with
+	 * @return the snapshot of the calibrated economy
+	 */
+	protected EconomySnapshot calibrate(PropertiesXml props) {
+		EconomySnapshot calibrated = null;
+		String snapshotFile = props.getEconomySnapshotFile();
+		boolean useSnapshot = snapshotFile != null && !snapshotFile.isEmpty();
+		if (useSnapshot && new File(snapshotFile).exists()) {
+			try {
+				// no agents need to be created until the scenarios start
+				calibrated = EconomySnapshot.read(snapshotFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+				calibrated = null;
+			}
+		}
+		if (calibrated == null) {
+			AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(SpringConfiguration.class);
+			InitialiseEconomy init = new InitialiseEconomy();
+			init.initialiseEconomy(ctx); // iteration 0
+			calibrated = EconomySnapshot.capture(init.getEconomy(), 0);
+			init.close();
+			init = null;
+			if (useSnapshot) {
+				try {
+					calibrated.write(snapshotFile);
+				} catch (IOException e) {
+					// the scenarios can still run, they just have to calibrate again next time
+					e.printStackTrace();
+				}
+			}
+			ctx.close(); // the scenarios only need the snapshot, not the calibrated agents
+		}
+		System.gc();
+		return calibrated;
+	}
+
+	/**
+	 * Runs every scenario, restoring a new economy from the snapshot for each one.
+	 */
+	public void run() {
+		List<PropertiesXml> scenarios = new ArrayList<PropertiesXml>(this.scenarioFilenames.size());
+		for (String filename : this.scenarioFilenames) {
+			PropertiesXml props = PropertiesXmlFactory.getProperties(filename);
+			this.checkCalibration(props, filename);
+			scenarios.add(props);
+		}
+		this.run(scenarios);
+	}
+
+	/**
+	 * Runs scenarios, restoring a new economy from the snapshot for each one.
+	 *
+	 * @param scenarios - the properties of each scenario
+	 */
+	public void run(List<PropertiesXml> scenarios) {
+		// scenarios can only run at the same time if the agents' shared parameters are the same
+		Map<String, List<PropertiesXml>> groups = new LinkedHashMap<String, List<PropertiesXml>>();
+		for (PropertiesXml props : scenarios) {
+			groups.computeIfAbsent(agentParameters(props), k -> new ArrayList<PropertiesXml>()).add(props);
+		}
+		System.out.println(new Date(System.currentTimeMillis()) + ": running " + scenarios.size()
+				+ " scenarios in " + groups.size() + " groups.");
+		for (List<PropertiesXml> group : groups.values()) {
+			this.runGroup(group);
+		}
+		System.out.println(new Date(System.currentTimeMillis()) + ": FINISHED all scenarios.");
+	}
+
+	private void runGroup(List<PropertiesXml> group) {
+		setAgentProperties(group.get(0));
+
+		// restore the first economy before starting, to see how much memory each one needs
+		long memoryBefore = usedMemory();
+		AustralianEconomy first = this.restore(group.get(0));
+		long memoryAfter = usedMemory();
+		int threadCount = this.getThreadCount(group.size(), memoryAfter - memoryBefore, memoryAfter);
+		System.out.println(new Date(System.currentTimeMillis()) + ": running " + group.size() + " scenarios, "
+				+ threadCount + " at a time (" + (memoryAfter - memoryBefore) / 1024L / 1024L
+				+ "MB of agents each).");
+
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		List<Future<?>> futures = new ArrayList<Future<?>>(group.size());
+		futures.add(executor.submit(() -> this.simulate(first, group.get(0))));
+		for (int i = 1; i < group.size(); i++) {
+			PropertiesXml props = group.get(i);
+			futures.add(executor.submit(() -> this.simulate(this.restore(props), props)));
+		}
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				// the other scenarios carry on
+				e.printStackTrace();
+			}
+		}
+		executor.shutdown();
+	}
+
+	/**
+	 * @param scenarioCount - the number of scenarios in the group
+	 * @param economyBytes  - the memory used by one economy's agents
+	 * @param usedBytes     - the memory in use, including the first economy
+	 * @return the number of scenarios to run at the same time
+	 */
+	private int getThreadCount(int scenarioCount, long economyBytes, long usedBytes) {
+		int threadCount = scenarioCount;
+		if (this.calibrationProperties.getScenarioThreadCount() > 0) {
+			threadCount = Math.min(threadCount, this.calibrationProperties.getScenarioThreadCount());
+		}
+		if (economyBytes > 0L) {
+			// the first economy's agents are already in memory
+			long available = Runtime.getRuntime().maxMemory() - usedBytes + economyBytes;
+			long fitsInMemory = available / (economyBytes * SCENARIO_MEMORY_FACTOR);
+			threadCount = (int) Math.min(threadCount, Math.max(1L, fitsInMemory));
+		}
+		return threadCount;
+	}
+
+	private AustralianEconomy restore(PropertiesXml props) {
+		AustralianEconomy economy = new AustralianEconomy(props);
+		this.getSnapshot(props).restore(economy);
+		return economy;
+	}
+
+	/**
+	 * @param props - a scenario's properties
+	 * @return the snapshot to restore the scenario's economy from
+	 */
+	protected EconomySnapshot getSnapshot(PropertiesXml props) {
+		return this.snapshot;
+	}
+
+	/**
+	 * Simulates one scenario, then releases its economy.
+	 *
+	 * @param economy - the scenario's economy, restored from the snapshot
+	 * @param props   - the scenario's properties
+	 */
+	private void simulate(AustralianEconomy economy, PropertiesXml props) {
+		String scenarioName = props.getScenarioName();
+		Thread.currentThread().setName(scenarioName);
+		System.out.println(new Date(System.currentTimeMillis()) + ": STARTED scenario " + scenarioName);
+
+		CpvSessionClient session = null;
+		RunSimulation sim = props.isCpvPersistentSession() ? null : new RunSimulation(props);
+		EconomyCheckpointer checkpointer = new EconomyCheckpointer(props);
+		int firstIteration = this.getSnapshot(props).getIteration();
+		try {
+			for (int iteration = firstIteration; iteration < props.getNumberOfIterations(); iteration++) {
+				ClearingPaymentInputs cpvInputs = economy.prepareOneMonth(iteration, scenarioName);
+				ClearingPaymentOutputs cpvOutputs = null;
+				if (sim != null) {
+					cpvOutputs = sim.calculateClearingPaymentVector(cpvInputs);
+				} else {
+					if (session == null) {
+						session = new CpvSessionClient(props);
+					}
+					cpvOutputs = session.calculate(cpvInputs);
+				}
+
+				economy.updateOneMonth(cpvOutputs);
+				cpvInputs.clear();
+				cpvInputs = null;
+				cpvOutputs.close();
+				cpvOutputs = null;
+
+				this.monthSimulated(economy, props, iteration);
+				if (checkpointer.isDue(iteration)) {
+					checkpointer.checkpoint(economy, iteration);
+				}
+			}
+			System.out.println(new Date(System.currentTimeMillis()) + ": FINISHED scenario " + scenarioName);
+		} catch (IOException e) {
+			System.err.println("Error in CPV session for scenario " + scenarioName + " with : "
+					+ props.getCpvServerHost() + " on port: " + props.getCpvServerPort());
+			e.printStackTrace();
+		} finally {
+			checkpointer.close();
+			if (session != null) {
+				session.close();
+			}
+			if (sim != null) {
+				sim.releaseWorkspace();
+			}
+			economy.close();
+		}
+	}
+
+	/**
+	 * Called on the scenario's thread after each month has been simulated. Saves
+	 * the summary files for the months the properties ask for.
+	 *
+	 * @param economy   - the scenario's economy
+	 * @param props     - the scenario's properties
+	 * @param iteration - the month that has just been simulated
+	 */
+	protected void monthSimulated(AustralianEconomy economy, PropertiesXml props, int iteration) {
+		if (props.getSaveIterationSummary(iteration)) {
+			economy.saveSummaryToFile(iteration, props.getScenarioName());
+		}
+	}
+
+	/**
+	 * @return the properties the economy was calibrated with
+	 */
+	public PropertiesXml getCalibrationProperties() {
+		return this.calibrationProperties;
+	}
+
+	/**
+	 * Warns if a scenario would have calibrated the economy differently, because
+	 * it will start from the economy calibrated with the first file.
+	 */
+	private void checkCalibration(PropertiesXml props, String filename) {
+		PropertiesXml calibration = this.calibrationProperties;
+		if (props.getHouseholdMultiplier() != calibration.getHouseholdMultiplier()
+				|| props.getPopulationMultiplier() != calibration.getPopulationMultiplier()
+				|| !Objects.equals(props.getCalibrationDateAbs(), calibration.getCalibrationDateAbs())
+				|| !Objects.equals(props.getCalibrationDateAto(), calibration.getCalibrationDateAto())
+				|| !Objects.equals(props.getCalibrationDateRba(), calibration.getCalibrationDateRba())
+				|| !Objects.equals(props.getAbs1410Year(), calibration.getAbs1410Year())
+				|| !Objects.equals(props.getAbs8155Year(), calibration.getAbs8155Year())
+				|| !Objects.equals(props.getRbaE1DateString(), calibration.getRbaE1DateString())) {
+			System.out.println(new Date(System.currentTimeMillis()) + ": WARNING: " + filename
+					+ " is calibrated differently to " + this.calibrationFilename
+					+ ", but it will start from the same calibrated economy.");
+		}
+	}
+
+	/**
+	 * @param props - a scenario's properties
+	 * @return the parameters that the agents read from their shared copy of the
+	 *         properties, as a key to group the scenarios by
+	 */
+	static String agentParameters(PropertiesXml props) {
+		return Arrays.asList(props.getAdiHqlaProportion(), props.getExogeneousExpenseMultiplier(),
+				props.getFcsLimitPerAdi(), props.getFcsLimitPerDepositor(), props.getForeignInvestmentHaircut(),
+				props.getInitialCashRate(), props.getInvestmentHaircut(), props.getMortgageRentConversionRatio(),
+				props.getSuperannuationGuaranteeRate(), props.getSuperannuationHaircut(),
+				props.getUnemploymentBenefitPerPerson(), props.isAllowNegativerates(), props.isUseActualWages())
+				.toString();
+	}
+
+	private static void setAgentProperties(PropertiesXml props) {
+		Individual.setProperties(props);
+		Household.setProperties(props);
+		Business.setProperties(props);
+		AuthorisedDepositTakingInstitution.setProperties(props);
+		ReserveBankOfAustralia.setProperties(props);
+		AustralianGovernment.setProperties(props);
+	}
+
+	private static long usedMemory() {
+		System.gc();
+		return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+	}
+
+}
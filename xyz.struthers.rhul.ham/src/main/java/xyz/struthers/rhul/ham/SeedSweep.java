@@ -0,0 +1,210 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import xyz.struthers.rhul.ham.analysis.ReplicaMetrics;
+import xyz.struthers.rhul.ham.analysis.ReplicaStatistics;
+import xyz.struthers.rhul.ham.config.PropertiesXml;
+import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
+import xyz.struthers.rhul.ham.process.AustralianEconomy;
+import xyz.struthers.rhul.ham.process.EconomySnapshot;
+
+/**
+ * <h1>Runs one scenario with many random seeds.</h1>
+ * <p>
+ * Each seed is a replica of the base properties file, run on ScenarioRunner's
+ * bounded worker pool (limited by the scenarioThreadCount property and the free
+ * memory). If several CPV server hosts are given, the replicas are spread across
+ * them in turn.
+ * <p>
+ * Most of the randomness is in the calibration (e.g. which Individuals live in
+ * which Household), and the monthly loop only draws random numbers for some FX
+ * rate strategies and when an ADI fails. So each replica starts from an economy
+ * calibrated with its own seed, rather than from the base file's economy, or
+ * the replicas of most scenarios would all be the same. The economies are
+ * calibrated one after another before the replicas start, and their snapshots
+ * are kept until the sweep finishes. If the base file names an
+ * economySnapshotFile, each seed's snapshot is read from (or saved to) that
+ * file with "_seed-" and the seed added to its name, so a sweep only calibrates
+ * each seed once.
+ * <p>
+ * Instead of saving each replica's summary CSV files and parsing them again
+ * with AnalyseAll, each replica's metrics are measured in memory at the end of
+ * every month and added to a running mean, variance and quantiles. Only the
+ * aggregated statistics are written, to SCENARIO_SEED_SWEEP.csv in the output
+ * directory, with a 95% confidence band for the mean of each metric in each
+ * iteration.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class SeedSweep extends ScenarioRunner {
+
+	private final ReplicaStatistics statistics;
+	private final Map<Long, EconomySnapshot> seedSnapshots; // economies calibrated with each replica's seed
+
+	/**
+	 * @param filename - the properties file to calibrate and run the replicas with
+	 */
+	public SeedSweep(String filename) {
+		super(filename, Collections.emptyList());
+		this.statistics = new ReplicaStatistics(ReplicaMetrics.NAMES);
+		this.seedSnapshots = new HashMap<Long, EconomySnapshot>();
+	}
+
+	/**
+	 * @param args - the fully qualified filename of the XML file, then either the
+	 *             number of seeds (which counts up from the file's seed) or a
+	 *             comma-separated list of seeds, then optionally a
+	 *             comma-separated list of CPV server hosts.
+	 */
+	public static void main(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			System.out.println("args[" + i + "] = " + args[i]);
+		}
+		SeedSweep sweep = new SeedSweep(args[0]);
+		long[] seeds = parseSeeds(args.length > 1 ? args[1] : "1", sweep.getCalibrationProperties().getRandomSeed());
+		String[] hosts = args.length > 2 ? args[2].split(",") : null;
+		sweep.calibrate();
+		sweep.sweep(seeds, hosts);
+	}
+
+	/**
+	 * Calibrates an economy for each seed, runs a replica for each seed, then
+	 * writes the aggregated statistics.
+	 *
+	 * @param seeds - the random seed of each replica
+	 * @param hosts - the CPV server hosts to spread the replicas across, or null
+	 *              to use the host in the properties file
+	 */
+	public void sweep(long[] seeds, String[] hosts) {
+		PropertiesXml base = this.getCalibrationProperties();
+		List<PropertiesXml> replicas = new ArrayList<PropertiesXml>(seeds.length);
+		for (int i = 0; i < seeds.length; i++) {
+			PropertiesXml props = base.copy();
+			props.setRandomSeed(seeds[i]);
+			props.setScenarioName(base.getScenarioName() + "-seed-" + seeds[i]);
+			if (hosts != null && hosts.length > 0) {
+				props.setCpvServerHost(hosts[i % hosts.length].trim());
+			}
+			replicas.add(props);
+		}
+		System.out.println(new Date(System.currentTimeMillis()) + ": sweeping " + seeds.length + " seeds of "
+				+ base.getScenarioName());
+		this.calibrateSeeds(seeds);
+		try {
+			this.run(replicas);
+		} finally {
+			this.seedSnapshots.clear();
+		}
+
+		String filename = base.getOutputDirectory() + base.getScenarioName() + "_SEED_SWEEP.csv";
+		this.statistics.writeCsv(filename);
+		System.out.println(new Date(System.currentTimeMillis()) + ": seed sweep statistics saved to " + filename);
+	}
+
+	/**
+	 * Calibrates (or reads the snapshot file of) an economy for each seed other
+	 * than the base file's, which calibrate() has already done.
+	 *
+	 * @param seeds - the random seed of each replica
+	 */
+	private void calibrateSeeds(long[] seeds) {
+		PropertiesXml base = this.getCalibrationProperties();
+		String filename = PropertiesXmlFactory.propertiesXmlFilename;
+		for (long seed : seeds) {
+			if (seed == base.getRandomSeed() || this.seedSnapshots.containsKey(seed)) {
+				continue;
+			}
+			PropertiesXml props = base.copy();
+			props.setRandomSeed(seed);
+			props.setEconomySnapshotFile(seedSnapshotFile(base.getEconomySnapshotFile(), seed));
+			System.out.println(new Date(System.currentTimeMillis()) + ": calibrating the economy with seed " + seed);
+
+			// the calibration classes read the global properties, so they need the seed too
+			String seedName = filename + "#seed-" + seed;
+			PropertiesXmlFactory.setProperties(seedName, props);
+			PropertiesXmlFactory.propertiesXmlFilename = seedName;
+			try {
+				this.seedSnapshots.put(seed, this.calibrate(props));
+			} finally {
+				PropertiesXmlFactory.propertiesXmlFilename = filename;
+				PropertiesXmlFactory.remove(seedName);
+			}
+		}
+	}
+
+	/**
+	 * Restores each replica from the economy calibrated with its own seed.
+	 */
+	@Override
+	protected EconomySnapshot getSnapshot(PropertiesXml props) {
+		EconomySnapshot snapshot = this.seedSnapshots.get(props.getRandomSeed());
+		return snapshot != null ? snapshot : super.getSnapshot(props);
+	}
+
+	/**
+	 * Adds the replica's metrics to the running statistics instead of saving its
+	 * summary files.
+	 */
+	@Override
+	protected void monthSimulated(AustralianEconomy economy, PropertiesXml props, int iteration) {
+		this.statistics.add(iteration, ReplicaMetrics.measure(economy, iteration));
+	}
+
+	/**
+	 * @return the statistics aggregated so far
+	 */
+	public ReplicaStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	/**
+	 * @param filename - the base file's economy snapshot file, or empty for none
+	 * @param seed     - the replica's random seed
+	 * @return the snapshot file of the economy calibrated with the seed, or empty
+	 *         for none
+	 */
+	static String seedSnapshotFile(String filename, long seed) {
+		if (filename == null || filename.isEmpty()) {
+			return filename;
+		}
+		int extension = filename.lastIndexOf('.');
+		if (extension <= Math.max(filename.lastIndexOf('/'), filename.lastIndexOf('\\'))) {
+			extension = filename.length(); // the file name doesn't have an extension
+		}
+		return filename.substring(0, extension) + "_seed-" + seed + filename.substring(extension);
+	}
+
+	/**
+	 * @param arg      - the number of seeds (counting up from, and including, baseSeed),
+	 *                 or a comma-separated list of seeds
+	 * @param baseSeed - the seed in the properties file
+	 * @return the seeds to run
+	 */
+	static long[] parseSeeds(String arg, long baseSeed) {
+		if (arg.contains(",")) {
+			String[] values = arg.split(",");
+			long[] seeds = new long[values.length];
+			for (int i = 0; i < values.length; i++) {
+				seeds[i] = Long.parseLong(values[i].trim());
+			}
+			return seeds;
+		}
+		int count = Integer.parseInt(arg.trim());
+		long[] seeds = new long[count];
+		for (int i = 0; i < count; i++) {
+			seeds[i] = baseSeed + i;
+		}
+		return seeds;
+	}
+
+}
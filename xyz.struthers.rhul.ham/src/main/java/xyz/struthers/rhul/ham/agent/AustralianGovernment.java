@@ -15,7 +15,9 @@ import xyz.struthers.rhul.ham.config.PropertiesXml;
 import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
 import xyz.struthers.rhul.ham.process.Clearable;
 import xyz.struthers.rhul.ham.process.Employer;
+import xyz.struthers.rhul.ham.process.LiabilitySink;
 import xyz.struthers.rhul.ham.process.NodePayment;
+import xyz.struthers.rhul.ham.process.NodePaymentList;
 
 /**
  * Each instance of this class stores 19 floats, so will consume approximately
@@ -29,6 +31,7 @@ public final class AustralianGovernment extends Agent implements Employer {
 	private static final long serialVersionUID = 1L;
 
 	public static final float NUMBER_MONTHS = 12f; // for interest calcs
+	private static PropertiesXml properties = PropertiesXmlFactory.getProperties();
 
 	// Government details
 	protected String name;
@@ -250,7 +253,6 @@ public final class AustralianGovernment extends Agent implements Employer {
 
 	@Override
 	public float getInitialWagesExpense() {
-		PropertiesXml properties = PropertiesXmlFactory.getProperties();
 		return this.pnlPersonnelExpenses / properties.getSuperannuationGuaranteeRate();
 	}
 
@@ -271,22 +273,21 @@ public final class AustralianGovernment extends Agent implements Employer {
 
 	@Override
 	public List<NodePayment> getAmountsPayable(int iteration) {
-		int numberOfCreditors = 0;
-		if (this.welfareRecipients != null) {
-			numberOfCreditors += this.welfareRecipients.size();
-		}
-		if (this.bondInvestors != null) {
-			numberOfCreditors += this.bondInvestors.size();
-		}
-		ArrayList<NodePayment> liabilities = new ArrayList<NodePayment>(numberOfCreditors);
+		NodePaymentList liabilities = new NodePaymentList();
+		this.emitAmountsPayable(iteration, liabilities);
+		liabilities.trimToSize();
+		return liabilities;
+	}
 
+	@Override
+	public void emitAmountsPayable(int iteration, LiabilitySink sink) {
 		// calculate welfare payments due to recipients
 		if (this.welfareRecipients != null) {
 			for (Household recipient : this.welfareRecipients) {
 				int index = recipient.getPaymentClearingIndex();
 				float welfarePayment = recipient.getPnlUnemploymentBenefits()
 						+ recipient.getPnlOtherSocialSecurityIncome();
-				liabilities.add(new NodePayment(index, welfarePayment));
+				sink.addLiability(index, welfarePayment);
 			}
 		}
 
@@ -294,18 +295,15 @@ public final class AustralianGovernment extends Agent implements Employer {
 		for (AuthorisedDepositTakingInstitution adi : this.bondInvestors) {
 			int index = adi.getPaymentClearingIndex();
 			float monthlyInterest = adi.getBsLoansGovernment() * adi.getGovtBondRate(iteration) / NUMBER_MONTHS;
-			liabilities.add(new NodePayment(index, monthlyInterest));
+			sink.addLiability(index, monthlyInterest);
 		}
 
 		// calculate government sales due to Businesses
 		for (Business govtSupplier : this.governmentSuppliers) {
 			int index = govtSupplier.getPaymentClearingIndex();
 			float monthlySpend = govtSupplier.getSalesGovernment();
-			liabilities.add(new NodePayment(index, monthlySpend));
+			sink.addLiability(index, monthlySpend);
 		}
-
-		liabilities.trimToSize();
-		return liabilities;
 	}
 
 	@Override
@@ -815,4 +813,14 @@ public final class AustralianGovernment extends Agent implements Employer {
 		this.bsOtherLiabilities = bsOtherLiabilities;
 	}
 
+	/**
+	 * Sets the properties the government uses (e.g. the superannuation guarantee
+	 * rate), which are otherwise read once when the class is loaded.
+	 * 
+	 * @param props the properties to set
+	 */
+	public static void setProperties(PropertiesXml props) {
+		properties = props;
+	}
+
 }
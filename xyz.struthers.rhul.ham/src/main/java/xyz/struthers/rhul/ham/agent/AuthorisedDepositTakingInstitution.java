@@ -15,7 +15,9 @@ import xyz.struthers.rhul.ham.data.CalibrateEconomy;
 import xyz.struthers.rhul.ham.process.AustralianEconomy;
 import xyz.struthers.rhul.ham.process.Clearable;
 import xyz.struthers.rhul.ham.process.Employer;
+import xyz.struthers.rhul.ham.process.LiabilitySink;
 import xyz.struthers.rhul.ham.process.NodePayment;
+import xyz.struthers.rhul.ham.process.NodePaymentList;
 import xyz.struthers.rhul.ham.process.Tax;
 
 /**
@@ -568,38 +570,25 @@ public abstract class AuthorisedDepositTakingInstitution extends Agent implement
 
 	@Override
 	public List<NodePayment> getAmountsPayable(int iteration) {
+		NodePaymentList liabilities = new NodePaymentList();
+		this.emitAmountsPayable(iteration, liabilities);
+		liabilities.trimToSize();
+		return liabilities;
+	}
+
+	@Override
+	public void emitAmountsPayable(int iteration, LiabilitySink sink) {
 
 		float payable = 0f;
 		float calibratedExpenses = this.getTotalExpensesExcludingTax() + this.getPnlIncomeTaxExpense();
 
-		int numberOfCreditors = 2; // government + exogeneous
-		if (this.employees != null && this.pnlPersonnelExpenses > 0d) {
-			numberOfCreditors += this.employees.size();
-		}
-		if (this.domesticSuppliers != null && this.pnlOtherExpenses > 0d) {
-			numberOfCreditors += this.domesticSuppliers.size();
-		}
-		if (this.retailDepositors != null) {
-			numberOfCreditors += this.retailDepositors.size();
-		}
-		if (this.commercialDepositors != null) {
-			numberOfCreditors += this.commercialDepositors.size();
-		}
-		if (this.adiInvestors != null) {
-			numberOfCreditors += this.adiInvestors.size();
-		}
-		if (this.pnlCommittedLiquidityFacilityFees > 0f) {
-			numberOfCreditors++; // RBA
-		}
-		ArrayList<NodePayment> liabilities = new ArrayList<NodePayment>(numberOfCreditors);
-
 		// calculate wages due to employees (incl. superannuation)
 		if (this.employees != null && this.pnlPersonnelExpenses > 0d) {
 			for (Individual employee : this.employees) {
 				int index = employee.getPaymentClearingIndex();
 				float monthlyWagesIncludingSuper = employee.getPnlWagesSalaries()
 						* (1f + properties.getSuperannuationGuaranteeRate());
-				liabilities.add(new NodePayment(index, monthlyWagesIncludingSuper));
+				sink.addLiability(index, monthlyWagesIncludingSuper);
 				payable += monthlyWagesIncludingSuper;
 			}
 		}
@@ -609,7 +598,7 @@ public abstract class AuthorisedDepositTakingInstitution extends Agent implement
 			for (int busIdx = 0; busIdx < this.domesticSuppliers.size(); busIdx++) {
 				int index = this.domesticSuppliers.get(busIdx).getPaymentClearingIndex();
 				float expense = this.pnlOtherExpenses * this.domesticSupplierRatios.get(busIdx);
-				liabilities.add(new NodePayment(index, expense));
+				sink.addLiability(index, expense);
 				payable += expense;
 			}
 		}
@@ -629,7 +618,7 @@ public abstract class AuthorisedDepositTakingInstitution extends Agent implement
 				}
 			}
 			float monthlyInterest = depositor.getBsBankDeposits() * this.depositRate.get(iteration) / NUMBER_MONTHS;
-			liabilities.add(new NodePayment(index, monthlyInterest));
+			sink.addLiability(index, monthlyInterest);
 			payable += monthlyInterest;
 		}
 
@@ -638,7 +627,7 @@ public abstract class AuthorisedDepositTakingInstitution extends Agent implement
 			for (Business depositor : this.commercialDepositors) {
 				int index = depositor.getPaymentClearingIndex();
 				float monthlyInterest = depositor.getBankDeposits() * this.depositRate.get(iteration) / NUMBER_MONTHS;
-				liabilities.add(new NodePayment(index, monthlyInterest));
+				sink.addLiability(index, monthlyInterest);
 				payable += monthlyInterest;
 			}
 		}
@@ -651,7 +640,7 @@ public abstract class AuthorisedDepositTakingInstitution extends Agent implement
 				int borrowingsRateMonth = Math.max(iteration - 3, 0); // assumes 90-day funding
 				float monthlyInterest = this.adiInvestorAmounts.get(adiIdx)
 						* this.borrowingsRate.get(borrowingsRateMonth) / NUMBER_MONTHS;
-				liabilities.add(new NodePayment(index, monthlyInterest));
+				sink.addLiability(index, monthlyInterest);
 				payable += monthlyInterest;
 			}
 		}
@@ -667,24 +656,19 @@ public abstract class AuthorisedDepositTakingInstitution extends Agent implement
 		}
 		float totalTax = payrollTax + Tax.calculateCompanyTax(this.getTotalIncome(),
 				this.getTotalIncome() - this.getTotalExpensesExcludingTax() - payrollTax);
-		liabilities.add(new NodePayment(this.govt.getPaymentClearingIndex(), totalTax));
+		sink.addLiability(this.govt.getPaymentClearingIndex(), totalTax);
 		payable += totalTax;
 
 		// calculate Committed Liquidity Facility (CLF) fees due to RBA
 		if (this.pnlCommittedLiquidityFacilityFees > 0f) {
-			liabilities
-					.add(new NodePayment(this.rba.getPaymentClearingIndex(), this.pnlCommittedLiquidityFacilityFees));
+			sink.addLiability(this.rba.getPaymentClearingIndex(), this.pnlCommittedLiquidityFacilityFees);
 			payable += this.pnlCommittedLiquidityFacilityFees;
 		}
 
 		// calculate exogeneous expenses
 		float exogeneousExpenseMultiplier = properties.getExogeneousExpenseMultiplier();
 		float exogeneousExpenses = Math.max(0f, calibratedExpenses - payable) * exogeneousExpenseMultiplier;
-		liabilities.add(new NodePayment(AustralianEconomy.getExogeneousExpenseAgent().getPaymentClearingIndex(),
-				exogeneousExpenses));
-
-		liabilities.trimToSize();
-		return liabilities;
+		sink.addLiability(AustralianEconomy.getExogeneousExpenseAgent().getPaymentClearingIndex(), exogeneousExpenses);
 	}
 
 	@Override
@@ -1781,4 +1765,14 @@ public abstract class AuthorisedDepositTakingInstitution extends Agent implement
 		this.capitalCreditRWA = capitalCreditRWA;
 	}
 
+	/**
+	 * Sets the properties shared by every ADI (e.g. the FCS limits), which are
+	 * otherwise read once when the class is loaded.
+	 * 
+	 * @param props the properties to set
+	 */
+	public static void setProperties(PropertiesXml props) {
+		properties = props;
+	}
+
 }
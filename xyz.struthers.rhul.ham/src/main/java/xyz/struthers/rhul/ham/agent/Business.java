@@ -14,7 +14,9 @@ import xyz.struthers.rhul.ham.data.CalibrateEconomy;
 import xyz.struthers.rhul.ham.process.AustralianEconomy;
 import xyz.struthers.rhul.ham.process.Clearable;
 import xyz.struthers.rhul.ham.process.Employer;
+import xyz.struthers.rhul.ham.process.LiabilitySink;
 import xyz.struthers.rhul.ham.process.NodePayment;
+import xyz.struthers.rhul.ham.process.NodePaymentList;
 import xyz.struthers.rhul.ham.process.Tax;
 
 /**
@@ -434,35 +436,25 @@ public class Business extends Agent implements Employer {
 
 	@Override
 	public List<NodePayment> getAmountsPayable(int iteration) {
+		NodePaymentList liabilities = new NodePaymentList();
+		this.emitAmountsPayable(iteration, liabilities);
+		liabilities.trimToSize();
+		return liabilities;
+	}
+
+	@Override
+	public void emitAmountsPayable(int iteration, LiabilitySink sink) {
 
 		float payable = 0f;
 		float calibratedExpenses = this.getTotalExpenses();
 
-		int numberOfCreditors = 2; // government + exogeneous
-		if (this.employees != null && this.wageExpenses > 0d) {
-			numberOfCreditors += this.employees.size();
-		}
-		if (this.domesticSuppliers != null && this.otherExpenses > 0d) {
-			numberOfCreditors += this.domesticSuppliers.size();
-		}
-		if (this.foreignSuppliers != null && this.foreignExpenses > 0d) {
-			numberOfCreditors += this.foreignSuppliers.size();
-		}
-		if (this.landlord != null && this.rentExpense > 0d) {
-			numberOfCreditors++;
-		}
-		if (this.adi != null && this.interestExpense > 0d) {
-			numberOfCreditors++;
-		}
-		ArrayList<NodePayment> liabilities = new ArrayList<NodePayment>(numberOfCreditors);
-
 		// calculate wages due to employees (incl. superannuation)
 		if (this.employees != null && this.wageExpenses > 0d) {
 			for (Individual employee : this.employees) {
 				int index = employee.getPaymentClearingIndex();
 				float monthlyWagesIncludingSuper = employee.getPnlWagesSalaries()
 						* (1f + properties.getSuperannuationGuaranteeRate());
-				liabilities.add(new NodePayment(index, monthlyWagesIncludingSuper));
+				sink.addLiability(index, monthlyWagesIncludingSuper);
 				payable += monthlyWagesIncludingSuper;
 			}
 		}
@@ -472,7 +464,7 @@ public class Business extends Agent implements Employer {
 			for (Business supplier : this.domesticSuppliers) {
 				int index = supplier.getPaymentClearingIndex();
 				float expense = this.otherExpenses / this.domesticSuppliers.size();
-				liabilities.add(new NodePayment(index, expense));
+				sink.addLiability(index, expense);
 				payable += expense;
 			}
 		}
@@ -492,37 +484,33 @@ public class Business extends Agent implements Employer {
 				// adjust in the opposite direction to exports
 				float exchRateAdjustment = currentExchangeRate / exchangeRates.get(0);
 				expense *= exchRateAdjustment;
-				liabilities.add(new NodePayment(index, expense));
+				sink.addLiability(index, expense);
 				payable += expense;
 			}
 		}
 
 		// calculate rent due to landlord
 		if (this.landlord != null && this.rentExpense > 0d) {
-			liabilities.add(new NodePayment(this.landlord.getPaymentClearingIndex(), this.rentExpense));
+			sink.addLiability(this.landlord.getPaymentClearingIndex(), this.rentExpense);
 			payable += this.rentExpense;
 		}
 
 		// calculate interest due to bank
 		if (this.adi != null && this.interestExpense > 0d) {
-			liabilities.add(new NodePayment(this.adi.getPaymentClearingIndex(), this.interestExpense));
+			sink.addLiability(this.adi.getPaymentClearingIndex(), this.interestExpense);
 			payable += this.interestExpense;
 		}
 
 		// calculate tax due to government (payroll & income)
 		float totalTax = this.payrollTaxExpense
 				+ Tax.calculateCompanyTax(this.totalIncome, this.totalIncome - this.totalExpenses);
-		liabilities.add(new NodePayment(govt.getPaymentClearingIndex(), totalTax));
+		sink.addLiability(govt.getPaymentClearingIndex(), totalTax);
 		payable += totalTax;
 
 		// calculate exogeneous expenses
 		float exogeneousExpenseMultiplier = properties.getExogeneousExpenseMultiplier();
 		float exogeneousExpenses = Math.max(0f, calibratedExpenses - payable) * exogeneousExpenseMultiplier;
-		liabilities.add(new NodePayment(AustralianEconomy.getExogeneousExpenseAgent().getPaymentClearingIndex(),
-				exogeneousExpenses));
-
-		liabilities.trimToSize();
-		return liabilities;
+		sink.addLiability(AustralianEconomy.getExogeneousExpenseAgent().getPaymentClearingIndex(), exogeneousExpenses);
 	}
 
 	@Override
@@ -543,6 +531,26 @@ public class Business extends Agent implements Employer {
 
 	@Override
 	public int processClearingPaymentVectorOutput(float nodeEquity, int iteration, int defaultOrder) {
+		return this.processClearingPaymentVectorOutput(nodeEquity, iteration, defaultOrder, true);
+	}
+
+	/**
+	 * Updates the business with its CPV output. When it goes bankrupt, the effects
+	 * on its employees and ADI can be left to the caller, so that businesses can be
+	 * processed in parallel and the other agents updated afterwards in a set order
+	 * (see applyBankruptcyToOtherAgents).
+	 * 
+	 * @param nodeEquity        - the business' net cash flow from the CPV
+	 * @param iteration         - the iteration number
+	 * @param defaultOrder      - the CPV round the business defaulted in (0 = no
+	 *                          default)
+	 * @param updateOtherAgents - true to update the employees and ADI if the
+	 *                          business goes bankrupt
+	 * @return Clearable.BANKRUPT if the business went bankrupt, otherwise
+	 *         Clearable.OK
+	 */
+	public int processClearingPaymentVectorOutput(float nodeEquity, int iteration, int defaultOrder,
+			boolean updateOtherAgents) {
 		int status = Clearable.OK;
 		// update default details
 		if (defaultOrder > 0) {
@@ -551,7 +559,7 @@ public class Business extends Agent implements Employer {
 				// hasn't defaulted in a previous iteration
 				this.defaultIteration = iteration;
 				this.defaultOrder = defaultOrder;
-				status = this.makeBusinessBankrupt(iteration);
+				status = this.makeBusinessBankrupt(iteration, updateOtherAgents);
 			}
 		} else {
 			// update financials
@@ -598,7 +606,7 @@ public class Business extends Agent implements Employer {
 						this.bankDeposits += nodeEquity;
 					}
 				} else {
-					status = this.makeBusinessBankrupt(iteration);
+					status = this.makeBusinessBankrupt(iteration, updateOtherAgents);
 				}
 			}
 		}
@@ -648,28 +656,11 @@ public class Business extends Agent implements Employer {
 		// re-calculate income tax expense during CPV input preparation
 	}
 
-	private int makeBusinessBankrupt(int iteration) {
-		// business is bankrupt, so fire all employees
-		if (this.employees != null) {
-			for (Individual employee : this.employees) {
-				employee.fireEmployee();
-			}
+	private int makeBusinessBankrupt(int iteration, boolean updateOtherAgents) {
+		if (updateOtherAgents) {
+			this.applyBankruptcyToOtherAgents(iteration, this.bankDeposits, this.loans);
 		}
 
-		// remove business deposits from bank's balances
-		float interestAmt = this.adi.getDepositRate(iteration) * this.bankDeposits / YEAR_MONTHS;
-		float newValue = Math.max(0f, this.adi.getPnlInterestExpense() - interestAmt);
-		this.adi.setPnlInterestExpense(newValue);
-		newValue = Math.max(0f, this.adi.getBsDepositsAtCall() - this.bankDeposits);
-		this.adi.setBsDepositsAtCall(newValue);
-
-		// remove business loans from bank's balances
-		interestAmt = this.adi.getLoanRate(iteration) * this.loans / YEAR_MONTHS;
-		newValue = Math.max(0f, this.adi.getPnlInterestIncome() - interestAmt);
-		this.adi.setPnlInterestIncome(newValue);
-		newValue = Math.max(0f, this.adi.getBsLoansBusiness() - this.loans);
-		this.adi.setBsLoansBusiness(newValue);
-
 		// business is bankrupt, so zero out all its financials
 		// it will have no financial impact on any other agent in future iterations
 		this.totalIncome = 0f;
@@ -707,6 +698,37 @@ public class Business extends Agent implements Employer {
 		return Clearable.BANKRUPT;
 	}
 
+	/**
+	 * Fires the employees of a bankrupt business, and removes its deposits and
+	 * loans from its ADI's balances.
+	 * 
+	 * @param iteration    - the iteration number
+	 * @param bankDeposits - the business' bank deposits before it went bankrupt
+	 * @param loans        - the business' loans before it went bankrupt
+	 */
+	public void applyBankruptcyToOtherAgents(int iteration, float bankDeposits, float loans) {
+		// business is bankrupt, so fire all employees
+		if (this.employees != null) {
+			for (Individual employee : this.employees) {
+				employee.fireEmployee();
+			}
+		}
+
+		// remove business deposits from bank's balances
+		float interestAmt = this.adi.getDepositRate(iteration) * bankDeposits / YEAR_MONTHS;
+		float newValue = Math.max(0f, this.adi.getPnlInterestExpense() - interestAmt);
+		this.adi.setPnlInterestExpense(newValue);
+		newValue = Math.max(0f, this.adi.getBsDepositsAtCall() - bankDeposits);
+		this.adi.setBsDepositsAtCall(newValue);
+
+		// remove business loans from bank's balances
+		interestAmt = this.adi.getLoanRate(iteration) * loans / YEAR_MONTHS;
+		newValue = Math.max(0f, this.adi.getPnlInterestIncome() - interestAmt);
+		this.adi.setPnlInterestIncome(newValue);
+		newValue = Math.max(0f, this.adi.getBsLoansBusiness() - loans);
+		this.adi.setBsLoansBusiness(newValue);
+	}
+
 	/**
 	 * @return the industryDivisionCode
 	 */
@@ -1528,4 +1550,14 @@ public class Business extends Agent implements Employer {
 		this.employees = employees;
 	}
 
+	/**
+	 * Sets the properties shared by every Business (e.g. whether to use actual
+	 * wages), which are otherwise read once when the class is loaded.
+	 * 
+	 * @param props the properties to set
+	 */
+	public static void setProperties(PropertiesXml props) {
+		properties = props;
+	}
+
 }
@@ -11,7 +11,9 @@ import gnu.trove.list.array.TFloatArrayList;
 import gnu.trove.map.hash.TObjectFloatHashMap;
 import xyz.struthers.rhul.ham.data.Currency;
 import xyz.struthers.rhul.ham.process.Clearable;
+import xyz.struthers.rhul.ham.process.LiabilitySink;
 import xyz.struthers.rhul.ham.process.NodePayment;
+import xyz.struthers.rhul.ham.process.NodePaymentList;
 
 /**
  * The model does not care about the financial impact on foreign countries -
@@ -359,16 +361,14 @@ public final class ForeignCountry extends Agent {
 
 	@Override
 	public List<NodePayment> getAmountsPayable(int iteration) {
-		int numberOfCreditors = 1;
-		if (this.exporters != null) {
-			numberOfCreditors = this.exporters.size();
-		}
-		if (this.households != null) {
-			numberOfCreditors += this.households.size();
-		}
-
-		ArrayList<NodePayment> liabilities = new ArrayList<NodePayment>(numberOfCreditors);
+		NodePaymentList liabilities = new NodePaymentList();
+		this.emitAmountsPayable(iteration, liabilities);
+		liabilities.trimToSize();
+		return liabilities;
+	}
 
+	@Override
+	public void emitAmountsPayable(int iteration, LiabilitySink sink) {
 		/*
 		 * Assume that Australian businesses export in AUD, but import in the foreign
 		 * country's currency. However, if the value of the AUD increases this will
@@ -383,7 +383,7 @@ public final class ForeignCountry extends Agent {
 			for (int exporterIdx = 0; exporterIdx < this.exporters.size(); exporterIdx++) {
 				int index = this.exporters.get(exporterIdx).getPaymentClearingIndex();
 				float audAmount = this.exporters.get(exporterIdx).getSalesForeign() * exchRateAdjustment;
-				liabilities.add(new NodePayment(index, audAmount));
+				sink.addLiability(index, audAmount);
 			}
 		}
 
@@ -392,12 +392,9 @@ public final class ForeignCountry extends Agent {
 			for (int householdIdx = 0; householdIdx < this.households.size(); householdIdx++) {
 				int index = this.households.get(householdIdx).getPaymentClearingIndex();
 				float audAmount = this.households.get(householdIdx).getPnlForeignIncome() * exchRateAdjustment;
-				liabilities.add(new NodePayment(index, audAmount));
+				sink.addLiability(index, audAmount);
 			}
 		}
-
-		liabilities.trimToSize();
-		return liabilities;
 	}
 
 	@Override
@@ -13,7 +13,9 @@ import xyz.struthers.rhul.ham.config.PropertiesXml;
 import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
 import xyz.struthers.rhul.ham.process.AustralianEconomy;
 import xyz.struthers.rhul.ham.process.Clearable;
+import xyz.struthers.rhul.ham.process.LiabilitySink;
 import xyz.struthers.rhul.ham.process.NodePayment;
+import xyz.struthers.rhul.ham.process.NodePaymentList;
 import xyz.struthers.rhul.ham.process.Tax;
 
 /**
@@ -458,23 +460,19 @@ public class Household extends Agent {
 
 	@Override
 	public List<NodePayment> getAmountsPayable(int iteration) {
+		NodePaymentList liabilities = new NodePaymentList();
+		this.emitAmountsPayable(iteration, liabilities);
+		liabilities.trimToSize();
+		return liabilities;
+	}
+
+	@Override
+	public void emitAmountsPayable(int iteration, LiabilitySink sink) {
 		// MAYBE: donations don't currently go anywhere
 
 		float payable = 0f;
 		float calibratedExpenses = this.getTotalExpenses();
 
-		int numberOfCreditors = 2; // government + exogeneous
-		if (this.suppliers != null && this.pnlLivingExpenses > 0d) {
-			numberOfCreditors += this.suppliers.size();
-		}
-		if (this.landlord != null && this.pnlRentExpense > 0d) {
-			numberOfCreditors++;
-		}
-		if (this.loanAdi != null && this.bsLoans > 0d) {
-			numberOfCreditors++;
-		}
-		ArrayList<NodePayment> liabilities = new ArrayList<NodePayment>(numberOfCreditors);
-
 		// calculate amounts due to domestic suppliers
 		if (this.suppliers != null && this.pnlLivingExpenses > 0d) {
 			float totalExpense = this.pnlLivingExpenses + this.pnlWorkRelatedExpenses
@@ -483,21 +481,21 @@ public class Household extends Agent {
 				int index = this.suppliers.get(supIdx).getPaymentClearingIndex();
 				// split expenses per the ABS 6530.0 ratios
 				float expense = totalExpense * this.supplierRatios.get(supIdx);
-				liabilities.add(new NodePayment(index, expense));
+				sink.addLiability(index, expense);
 				payable += expense;
 			}
 		}
 
 		// calculate rent due to landlord
 		if (this.landlord != null && this.pnlRentExpense > 0d) {
-			liabilities.add(new NodePayment(this.landlord.getPaymentClearingIndex(), this.pnlRentExpense));
+			sink.addLiability(this.landlord.getPaymentClearingIndex(), this.pnlRentExpense);
 			payable += this.pnlRentExpense;
 		}
 
 		// calculate loan repayment due to bank
 		if (this.loanAdi != null && (this.pnlMortgageRepayments > 0d || this.pnlRentInterestExpense > 0d)) {
-			liabilities.add(new NodePayment(this.loanAdi.getPaymentClearingIndex(),
-					this.pnlMortgageRepayments + this.pnlRentInterestExpense));
+			sink.addLiability(this.loanAdi.getPaymentClearingIndex(),
+					this.pnlMortgageRepayments + this.pnlRentInterestExpense);
 			payable += this.pnlMortgageRepayments + this.pnlRentInterestExpense;
 		}
 
@@ -506,17 +504,13 @@ public class Household extends Agent {
 		for (int indivIdx = 0; indivIdx < this.individuals.length; indivIdx++) {
 			incomeTax += Tax.calculateIndividualIncomeTax(individuals[indivIdx].getGrossIncome());
 		}
-		liabilities.add(new NodePayment(this.govt.getPaymentClearingIndex(), incomeTax));
+		sink.addLiability(this.govt.getPaymentClearingIndex(), incomeTax);
 		payable += incomeTax;
 
 		// calculate exogeneous expenses
 		float exogeneousExpenseMultiplier = properties.getExogeneousExpenseMultiplier();
 		float exogeneousExpenses = Math.max(0f, calibratedExpenses - payable) * exogeneousExpenseMultiplier;
-		liabilities.add(new NodePayment(AustralianEconomy.getExogeneousExpenseAgent().getPaymentClearingIndex(),
-				exogeneousExpenses));
-
-		liabilities.trimToSize();
-		return liabilities;
+		sink.addLiability(AustralianEconomy.getExogeneousExpenseAgent().getPaymentClearingIndex(), exogeneousExpenses);
 	}
 
 	@Override
@@ -1303,4 +1297,14 @@ public class Household extends Agent {
 	// this.bsNetWorth = bsNetWorth;
 	// }
 
+	/**
+	 * Sets the properties shared by every Household (e.g. the exogeneous
+	 * expense multiplier), which are otherwise read once when the class is loaded.
+	 * 
+	 * @param props the properties to set
+	 */
+	public static void setProperties(PropertiesXml props) {
+		properties = props;
+	}
+
 }
@@ -645,4 +645,15 @@ public final class Individual extends Agent {
 	// public void setInterestRateStudentLoans(float interestRateStudentLoans) {
 	// this.interestRateStudentLoans = interestRateStudentLoans;
 	// }
+
+	/**
+	 * Sets the properties shared by every Individual (e.g. the unemployment
+	 * benefit), which are otherwise read once when the class is loaded.
+	 * 
+	 * @param props the properties to set
+	 */
+	public static void setProperties(PropertiesXml props) {
+		properties = props;
+	}
+
 }
@@ -14,7 +14,9 @@ import xyz.struthers.rhul.ham.config.PropertiesXml;
 import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
 import xyz.struthers.rhul.ham.process.Clearable;
 import xyz.struthers.rhul.ham.process.Employer;
+import xyz.struthers.rhul.ham.process.LiabilitySink;
 import xyz.struthers.rhul.ham.process.NodePayment;
+import xyz.struthers.rhul.ham.process.NodePaymentList;
 
 /**
  * Each instance of this class stores 21 floats, so will consume approximately
@@ -291,12 +293,14 @@ public final class ReserveBankOfAustralia extends Agent implements Employer {
 
 	@Override
 	public List<NodePayment> getAmountsPayable(int iteration) {
-		int numberOfCreditors = 1;
-		if (this.adiDepositors != null) {
-			numberOfCreditors = this.adiDepositors.size();
-		}
-		ArrayList<NodePayment> liabilities = new ArrayList<NodePayment>(numberOfCreditors);
+		NodePaymentList liabilities = new NodePaymentList();
+		this.emitAmountsPayable(iteration, liabilities);
+		liabilities.trimToSize();
+		return liabilities;
+	}
 
+	@Override
+	public void emitAmountsPayable(int iteration, LiabilitySink sink) {
 		// bank balances of major and other domestic banks, paid at cash rate
 		for (int adiIdx = 0; adiIdx < this.adiDepositors.size(); adiIdx++) {
 			AuthorisedDepositTakingInstitution adi = this.adiDepositors.get(adiIdx);
@@ -306,18 +310,15 @@ public final class ReserveBankOfAustralia extends Agent implements Employer {
 			if (this.cashRate != null && this.cashRate.size() > iteration) {
 				rate = this.cashRate.get(iteration);
 			}
-			liabilities.add(new NodePayment(index, balance * rate / NUMBER_MONTHS));
+			sink.addLiability(index, balance * rate / NUMBER_MONTHS);
 		}
 
 		// RBA pays its net profit to govt annually
 		if (iteration % 12 == 0) {
 			// current year earnings is added to monthly, and paid to the govt annually
-			liabilities.add(new NodePayment(this.govt.getPaymentClearingIndex(), this.bsCurrentYearEarnings));
+			sink.addLiability(this.govt.getPaymentClearingIndex(), this.bsCurrentYearEarnings);
 			this.bsCurrentYearEarnings = 0f;
 		}
-
-		liabilities.trimToSize();
-		return liabilities;
 	}
 
 	@Override
@@ -932,4 +933,14 @@ public final class ReserveBankOfAustralia extends Agent implements Employer {
 		this.bsCurrentYearEarnings = bsCurrentYearEarnings;
 	}
 
+	/**
+	 * Sets the properties the RBA uses (e.g. the initial cash rate), which are
+	 * otherwise read once when the class is loaded.
+	 * 
+	 * @param props the properties to set
+	 */
+	public static void setProperties(PropertiesXml props) {
+		properties = props;
+	}
+
 }
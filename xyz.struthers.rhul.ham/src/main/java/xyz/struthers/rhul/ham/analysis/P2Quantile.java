@@ -0,0 +1,140 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Estimates a quantile of a stream of values without storing them, using the
+ * P-square algorithm (Jain &amp; Chlamtac, 1985). It keeps five markers: the
+ * minimum, the maximum, the quantile itself and the quantiles half way to
+ * each end, and moves them towards their ideal positions with a parabolic
+ * adjustment as each value arrives.
+ *
+ * The first five values are kept exactly, so a quantile of five or fewer values
+ * is interpolated between them the same way as R's default (type 7).
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class P2Quantile {
+
+	private static final int MARKERS = 5;
+
+	private final double p;
+	private final double[] height; // marker heights
+	private final int[] position; // actual marker positions (0-based)
+	private final double[] desired; // desired marker positions
+	private final double[] increment; // how far each desired position moves per value
+	private int count;
+
+	/**
+	 * @param p - the quantile to estimate, between 0 and 1 (e.g. 0.5 for the
+	 *          median)
+	 */
+	public P2Quantile(double p) {
+		super();
+		if (p < 0d || p > 1d) {
+			throw new IllegalArgumentException("Quantile must be between 0 and 1: " + p);
+		}
+		this.p = p;
+		this.height = new double[MARKERS];
+		this.position = new int[MARKERS];
+		this.desired = new double[] { 0d, 2d * p, 4d * p, 2d + 2d * p, 4d };
+		this.increment = new double[] { 0d, p / 2d, p, (1d + p) / 2d, 1d };
+		this.count = 0;
+	}
+
+	/**
+	 * @param value - the next value
+	 */
+	public void add(double value) {
+		if (this.count < MARKERS) {
+			this.height[this.count++] = value;
+			if (this.count == MARKERS) {
+				Arrays.sort(this.height);
+				for (int i = 0; i < MARKERS; i++) {
+					this.position[i] = i;
+				}
+			}
+			return;
+		}
+		this.count++;
+
+		// find the cell the value falls in, stretching the ends if necessary
+		int k;
+		if (value < this.height[0]) {
+			this.height[0] = value;
+			k = 0;
+		} else if (value >= this.height[MARKERS - 1]) {
+			this.height[MARKERS - 1] = value;
+			k = MARKERS - 2;
+		} else {
+			k = 0;
+			while (value >= this.height[k + 1]) {
+				k++;
+			}
+		}
+		for (int i = k + 1; i < MARKERS; i++) {
+			this.position[i]++;
+		}
+		for (int i = 0; i < MARKERS; i++) {
+			this.desired[i] += this.increment[i];
+		}
+
+		// move the middle markers if they're off by one or more
+		for (int i = 1; i < MARKERS - 1; i++) {
+			double offset = this.desired[i] - this.position[i];
+			if ((offset >= 1d && this.position[i + 1] - this.position[i] > 1)
+					|| (offset <= -1d && this.position[i - 1] - this.position[i] < -1)) {
+				int d = offset > 0d ? 1 : -1;
+				double parabolic = this.parabolic(i, d);
+				if (this.height[i - 1] < parabolic && parabolic < this.height[i + 1]) {
+					this.height[i] = parabolic;
+				} else {
+					this.height[i] = this.linear(i, d);
+				}
+				this.position[i] += d;
+			}
+		}
+	}
+
+	private double parabolic(int i, int d) {
+		double below = this.position[i] - this.position[i - 1];
+		double above = this.position[i + 1] - this.position[i];
+		return this.height[i] + d / (double) (this.position[i + 1] - this.position[i - 1])
+				* ((below + d) * (this.height[i + 1] - this.height[i]) / above
+						+ (above - d) * (this.height[i] - this.height[i - 1]) / below);
+	}
+
+	private double linear(int i, int d) {
+		return this.height[i]
+				+ d * (this.height[i + d] - this.height[i]) / (this.position[i + d] - this.position[i]);
+	}
+
+	/**
+	 * @return the estimated quantile, or NaN if there are no values
+	 */
+	public double getQuantile() {
+		if (this.count == 0) {
+			return Double.NaN;
+		} else if (this.count > MARKERS) {
+			return this.height[2];
+		}
+		double[] sorted = Arrays.copyOf(this.height, this.count);
+		Arrays.sort(sorted);
+		double h = (this.count - 1) * this.p;
+		int lower = (int) Math.floor(h);
+		int upper = Math.min(lower + 1, this.count - 1);
+		return sorted[lower] + (h - lower) * (sorted[upper] - sorted[lower]);
+	}
+
+	/**
+	 * @return the number of values
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+}
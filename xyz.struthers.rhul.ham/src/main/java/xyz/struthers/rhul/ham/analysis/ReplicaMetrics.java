@@ -0,0 +1,86 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham.analysis;
+
+import xyz.struthers.rhul.ham.agent.AuthorisedDepositTakingInstitution;
+import xyz.struthers.rhul.ham.agent.Business;
+import xyz.struthers.rhul.ham.agent.Household;
+import xyz.struthers.rhul.ham.process.AustralianEconomy;
+
+/**
+ * The summary metrics that are measured from each replica in a seed sweep,
+ * straight from the agents in memory, so they don't need to be written to the
+ * summary CSV files and parsed again afterwards.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public abstract class ReplicaMetrics {
+
+	public static final String[] NAMES = { "HouseholdDefaults", "BusinessDefaults", "AdiDefaults",
+			"HouseholdMeanGrossIncome", "HouseholdMeanExpenses", "HouseholdMeanNetWorth", "BusinessMeanIncome",
+			"BusinessMeanExpenses", "AdiTotalCash", "GovernmentCash", "CashRate" };
+
+	/**
+	 * Measures the economy after a month has been simulated. Defaults are counted
+	 * the same way as AnalyseDefaults (i.e. agents with a default iteration
+	 * greater than zero).
+	 *
+	 * @param economy   - the replica's economy
+	 * @param iteration - the month that has just been simulated
+	 * @return the value of each metric, in the same order as NAMES
+	 */
+	public static double[] measure(AustralianEconomy economy, int iteration) {
+		double[] metrics = new double[NAMES.length];
+
+		int defaults = 0;
+		double income = 0d;
+		double expenses = 0d;
+		double netWorth = 0d;
+		Household[] households = economy.getHouseholds();
+		for (Household household : households) {
+			if (household.getDefaultIteration() > 0) {
+				defaults++;
+			}
+			income += household.getGrossIncome();
+			expenses += household.getTotalExpenses();
+			netWorth += household.getBsNetWorth();
+		}
+		metrics[0] = defaults;
+		metrics[3] = households.length == 0 ? 0d : income / households.length;
+		metrics[4] = households.length == 0 ? 0d : expenses / households.length;
+		metrics[5] = households.length == 0 ? 0d : netWorth / households.length;
+
+		defaults = 0;
+		income = 0d;
+		expenses = 0d;
+		Business[] businesses = economy.getBusinesses();
+		for (Business business : businesses) {
+			if (business.getDefaultIteration() > 0) {
+				defaults++;
+			}
+			income += business.getTotalIncome();
+			expenses += business.getTotalExpenses();
+		}
+		metrics[1] = defaults;
+		metrics[6] = businesses.length == 0 ? 0d : income / businesses.length;
+		metrics[7] = businesses.length == 0 ? 0d : expenses / businesses.length;
+
+		defaults = 0;
+		double cash = 0d;
+		for (AuthorisedDepositTakingInstitution adi : economy.getAdis()) {
+			if (adi.getDefaultIteration() > 0) {
+				defaults++;
+			}
+			cash += adi.getBsCash();
+		}
+		metrics[2] = defaults;
+		metrics[8] = cash;
+
+		metrics[9] = economy.getGovernment().getBsCash();
+		metrics[10] = economy.getRba().getCashRate(iteration);
+		return metrics;
+	}
+
+}
@@ -0,0 +1,128 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham.analysis;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+
+import com.opencsv.CSVWriterBuilder;
+import com.opencsv.ICSVWriter;
+
+/**
+ * Aggregates the metrics of a seed sweep's replicas as they arrive, keeping a
+ * running mean, variance and the 5th, 50th and 95th percentiles of each metric
+ * in each iteration. Nothing is kept per replica, so the memory used doesn't
+ * grow with the number of seeds.
+ *
+ * Replicas run on several threads, so adding a replica's metrics is
+ * synchronized. The P-square quantiles depend a little on the order the values
+ * arrive in, so they can differ slightly between two sweeps over the same seeds.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class ReplicaStatistics {
+
+	private static final double[] QUANTILES = { 0.05d, 0.5d, 0.95d };
+
+	private final String[] metricNames;
+	private final ArrayList<RunningStatistics[]> moments; // by iteration, then metric
+	private final ArrayList<P2Quantile[][]> quantiles; // by iteration, then metric, then quantile
+
+	/**
+	 * @param metricNames - the names of the metrics, in the order they'll be added
+	 */
+	public ReplicaStatistics(String[] metricNames) {
+		super();
+		this.metricNames = metricNames;
+		this.moments = new ArrayList<RunningStatistics[]>();
+		this.quantiles = new ArrayList<P2Quantile[][]>();
+	}
+
+	/**
+	 * Adds one replica's metrics for an iteration.
+	 *
+	 * @param iteration - the iteration the metrics were measured in
+	 * @param metrics   - the metrics, in the same order as the metric names
+	 */
+	public synchronized void add(int iteration, double[] metrics) {
+		if (metrics.length != this.metricNames.length) {
+			throw new IllegalArgumentException(
+					"Expected " + this.metricNames.length + " metrics but got " + metrics.length);
+		}
+		while (this.moments.size() <= iteration) {
+			RunningStatistics[] iterationMoments = new RunningStatistics[this.metricNames.length];
+			P2Quantile[][] iterationQuantiles = new P2Quantile[this.metricNames.length][QUANTILES.length];
+			for (int metric = 0; metric < this.metricNames.length; metric++) {
+				iterationMoments[metric] = new RunningStatistics();
+				for (int q = 0; q < QUANTILES.length; q++) {
+					iterationQuantiles[metric][q] = new P2Quantile(QUANTILES[q]);
+				}
+			}
+			this.moments.add(iterationMoments);
+			this.quantiles.add(iterationQuantiles);
+		}
+		RunningStatistics[] iterationMoments = this.moments.get(iteration);
+		P2Quantile[][] iterationQuantiles = this.quantiles.get(iteration);
+		for (int metric = 0; metric < metrics.length; metric++) {
+			iterationMoments[metric].add(metrics[metric]);
+			for (int q = 0; q < QUANTILES.length; q++) {
+				iterationQuantiles[metric][q].add(metrics[metric]);
+			}
+		}
+	}
+
+	/**
+	 * @param iteration - the iteration
+	 * @param metric    - the index of the metric
+	 * @return the running statistics of the metric in that iteration, or null if
+	 *         no replica has reached that iteration yet
+	 */
+	public synchronized RunningStatistics getStatistics(int iteration, int metric) {
+		return iteration < this.moments.size() ? this.moments.get(iteration)[metric] : null;
+	}
+
+	/**
+	 * Writes one row per iteration and metric, with the mean and its 95%
+	 * confidence interval across replicas, and the replicas' spread.
+	 *
+	 * @param filename - the CSV file to write (overwrites any existing file)
+	 */
+	public synchronized void writeCsv(String filename) {
+		DecimalFormat decimalFormat = new DecimalFormat("0.########");
+		String[] entries = { "IterationNo", "Metric", "Replicas", "Mean", "StdDev", "CI95Lower", "CI95Upper", "Min",
+				"P05", "Median", "P95", "Max" };
+		Writer writer;
+		try {
+			writer = new FileWriter(filename, false); // overwrites if there's an existing file
+			ICSVWriter csvWriter = new CSVWriterBuilder(writer).build();
+			csvWriter.writeNext(entries); // write header row
+			for (int iteration = 0; iteration < this.moments.size(); iteration++) {
+				for (int metric = 0; metric < this.metricNames.length; metric++) {
+					RunningStatistics stats = this.moments.get(iteration)[metric];
+					P2Quantile[] iterationQuantiles = this.quantiles.get(iteration)[metric];
+					double halfWidth = stats.getConfidenceHalfWidth95();
+					entries = new String[] { String.valueOf(iteration), this.metricNames[metric],
+							String.valueOf(stats.getCount()), decimalFormat.format(stats.getMean()),
+							decimalFormat.format(stats.getStandardDeviation()),
+							decimalFormat.format(stats.getMean() - halfWidth),
+							decimalFormat.format(stats.getMean() + halfWidth), decimalFormat.format(stats.getMin()),
+							decimalFormat.format(iterationQuantiles[0].getQuantile()),
+							decimalFormat.format(iterationQuantiles[1].getQuantile()),
+							decimalFormat.format(iterationQuantiles[2].getQuantile()),
+							decimalFormat.format(stats.getMax()) };
+					csvWriter.writeNext(entries);
+				}
+			}
+			writer.close();
+		} catch (IOException e) {
+			// new FileWriter
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham.analysis;
+
+/**
+ * Keeps the count, mean, variance, minimum and maximum of a stream of values
+ * without storing them, using Welford's online algorithm so the variance
+ * doesn't lose precision when the values are large and close together (e.g.
+ * total net worth across replicas).
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class RunningStatistics {
+
+	/**
+	 * Student's t-distribution critical values for a two-sided 95% confidence
+	 * interval, for 1 to 30 degrees of freedom. The normal value is used above
+	 * that.
+	 */
+	private static final double[] T_95 = { 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+			2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064, 2.060,
+			2.056, 2.052, 2.048, 2.045, 2.042 };
+	private static final double Z_95 = 1.96;
+
+	private long count;
+	private double mean;
+	private double sumSquaredDeviations;
+	private double min;
+	private double max;
+
+	public RunningStatistics() {
+		super();
+		this.count = 0L;
+		this.mean = 0d;
+		this.sumSquaredDeviations = 0d;
+		this.min = Double.NaN;
+		this.max = Double.NaN;
+	}
+
+	/**
+	 * @param value - the next value
+	 */
+	public void add(double value) {
+		this.count++;
+		double delta = value - this.mean;
+		this.mean += delta / this.count;
+		this.sumSquaredDeviations += delta * (value - this.mean);
+		if (this.count == 1L) {
+			this.min = value;
+			this.max = value;
+		} else {
+			this.min = Math.min(this.min, value);
+			this.max = Math.max(this.max, value);
+		}
+	}
+
+	/**
+	 * @return the number of values
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the mean, or NaN if there are no values
+	 */
+	public double getMean() {
+		return this.count == 0L ? Double.NaN : this.mean;
+	}
+
+	/**
+	 * @return the sample variance, or NaN if there are fewer than two values
+	 */
+	public double getVariance() {
+		return this.count < 2L ? Double.NaN : this.sumSquaredDeviations / (this.count - 1L);
+	}
+
+	/**
+	 * @return the sample standard deviation, or NaN if there are fewer than two
+	 *         values
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(this.getVariance());
+	}
+
+	/**
+	 * @return half the width of the 95% confidence interval of the mean, or NaN
+	 *         if there are fewer than two values
+	 */
+	public double getConfidenceHalfWidth95() {
+		if (this.count < 2L) {
+			return Double.NaN;
+		}
+		long degreesOfFreedom = this.count - 1L;
+		double t = degreesOfFreedom <= T_95.length ? T_95[(int) degreesOfFreedom - 1] : Z_95;
+		return t * this.getStandardDeviation() / Math.sqrt(this.count);
+	}
+
+	/**
+	 * @return the smallest value, or NaN if there are no values
+	 */
+	public double getMin() {
+		return this.min;
+	}
+
+	/**
+	 * @return the largest value, or NaN if there are no values
+	 */
+	public double getMax() {
+		return this.max;
+	}
+
+}
@@ -3,8 +3,10 @@ package xyz.struthers.rhul.ham.config;
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -14,6 +16,7 @@ import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 
+import gnu.trove.list.array.TFloatArrayList;
 import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
 
 /**
@@ -29,7 +32,7 @@ import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
 //@Scope(value = "singleton")
 @XmlRootElement
 @XmlAccessorType(XmlAccessType.FIELD)
-public class PropertiesXml implements Serializable {
+public class PropertiesXml implements Serializable, Cloneable {
 
 	private static final long serialVersionUID = 1L;
 
@@ -59,6 +62,24 @@ public class PropertiesXml implements Serializable {
 	private int economyClientPort;// = 1100;
 	private int socketBufferBytes;// = 1000000000; // approx 1GB
 	private int socketMessageBytes;// = 10 * 1024 * 1024; // 10MB
+	private int cpvTransport;// = CpvWireProtocol.TRANSPORT_STREAM;
+	private String cpvSpillDirectory;// = ""; // empty = system temp directory
+	private boolean cpvPersistentSession;// = true; // keep the topology on the server between months
+	private int cpvVectorCodec;// = CpvWireProtocol.CODEC_DELTA_DEFLATE; // only used in a persistent session
+	private int cpvSessionCacheSize;// = 0; // session topologies the server keeps, 0 = scenarioThreadCount
+
+	// Clearing Payments Vector parameters
+	private int cpvThreadCount;// = 0; // 0 = all available processors, 1 = single-threaded
+	private int cpvSolver;// = ClearingPaymentSolver.EISENBERG_NOE;
+	private float cpvSolverTolerance;// = 1e-6f; // only used by the Gauss-Seidel solver
+	private int cpvPrepareThreadCount;// = 0; // threads that prepare the CPV inputs and outputs, 1 = single
+
+	// agent storage parameters
+	private String economySnapshotFile;// = ""; // empty = always calibrate, else load it (or calibrate & save it)
+	private int checkpointInterval;// = 0; // months between checkpoints in the output directory, 0 = never
+	private int scenarioThreadCount;// = 0; // scenarios ScenarioRunner runs at once, 0 = as many as memory allows
+	private int calibrationThreadCount;// = 0; // 0 = all available processors, 1 = single-threaded
+	private String calibrationBundleDirectory;// = ""; // empty = always read the CSVs, else compile & map bundles
 
 	// unchanging simulation parameters
 	private float superannuationGuaranteeRate;// = 0.095f; // 9.5%
@@ -142,6 +163,10 @@ public class PropertiesXml implements Serializable {
 	private String timestamp; // when the properties were created
 	@XmlTransient
 	public Random random;
+	@XmlTransient
+	private Map<String, TFloatArrayList> fxRateArrays; // custom FX rate path of each currency, by iteration
+	@XmlTransient
+	private float[] cashRateArray; // custom interest rate path, by iteration
 
 	public PropertiesXml() {
 		super();
@@ -149,6 +174,68 @@ public class PropertiesXml implements Serializable {
 		timestamp = simpleDateFormat.format(new Date(System.currentTimeMillis()));
 	}
 
+	/**
+	 * Copies the properties, so the copy can be changed without changing these
+	 * ones. The copy has its own random number generator, which starts from the
+	 * random seed, and shares the custom paths that have already been
+	 * precomputed.
+	 * 
+	 * @return the copy
+	 */
+	public PropertiesXml copy() {
+		PropertiesXml copy = null;
+		try {
+			copy = (PropertiesXml) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e); // can't happen because it's Cloneable
+		}
+		copy.saveSummary = this.saveSummary == null ? null : new ArrayList<Boolean>(this.saveSummary);
+		copy.cashRate = this.cashRate == null ? null : new ArrayList<Float>(this.cashRate);
+		copy.file = this.file == null ? null : new HashMap<String, String>(this.file);
+		if (this.fxRate != null) {
+			copy.fxRate = new HashMap<String, ExchangeRateList>(this.fxRate.size());
+			for (Map.Entry<String, ExchangeRateList> entry : this.fxRate.entrySet()) {
+				ArrayList<Float> rates = entry.getValue().getFxRates();
+				copy.fxRate.put(entry.getKey(),
+						new ExchangeRateList(rates == null ? new ArrayList<Float>() : new ArrayList<Float>(rates)));
+			}
+		}
+		copy.random = null;
+		return copy;
+	}
+
+	/**
+	 * Converts the custom FX rate and interest rate paths to arrays indexed by
+	 * iteration, so they don't have to be unboxed every iteration. The arrays are
+	 * shared by every copy of these properties, so they mustn't be changed.
+	 * 
+	 * A path stops at its first missing (i.e. null) rate, so the iterations after
+	 * it use the previous rate, the same as iterations past the end of the path.
+	 */
+	public void precomputeCustomPaths() {
+		Map<String, TFloatArrayList> fxRates = new HashMap<String, TFloatArrayList>();
+		if (this.fxRate != null) {
+			for (Map.Entry<String, ExchangeRateList> entry : this.fxRate.entrySet()) {
+				List<Float> rates = entry.getValue() == null ? null : entry.getValue().getFxRates();
+				TFloatArrayList path = new TFloatArrayList(rates == null ? 0 : rates.size());
+				for (int i = 0; rates != null && i < rates.size() && rates.get(i) != null; i++) {
+					path.add(rates.get(i));
+				}
+				fxRates.put(entry.getKey(), path);
+			}
+		}
+		this.fxRateArrays = Collections.unmodifiableMap(fxRates);
+
+		int length = 0;
+		while (this.cashRate != null && length < this.cashRate.size() && this.cashRate.get(length) != null) {
+			length++;
+		}
+		this.cashRateArray = new float[length];
+		for (int i = 0; i < length; i++) {
+			this.cashRateArray[i] = this.cashRate.get(i);
+		}
+	}
+
 	/**
 	 * @return the scenarioName
 	 */
@@ -357,6 +444,202 @@ public class PropertiesXml implements Serializable {
 		this.socketMessageBytes = socketMessageBytes;
 	}
 
+	/**
+	 * @return the cpvTransport
+	 */
+	public int getCpvTransport() {
+		return cpvTransport;
+	}
+
+	/**
+	 * @param cpvTransport the cpvTransport to set
+	 */
+	public void setCpvTransport(int cpvTransport) {
+		this.cpvTransport = cpvTransport;
+	}
+
+	/**
+	 * @return the cpvSpillDirectory
+	 */
+	public String getCpvSpillDirectory() {
+		return cpvSpillDirectory;
+	}
+
+	/**
+	 * @param cpvSpillDirectory the cpvSpillDirectory to set
+	 */
+	public void setCpvSpillDirectory(String cpvSpillDirectory) {
+		this.cpvSpillDirectory = cpvSpillDirectory;
+	}
+
+	/**
+	 * @return the cpvPersistentSession
+	 */
+	public boolean isCpvPersistentSession() {
+		return cpvPersistentSession;
+	}
+
+	/**
+	 * @param cpvPersistentSession the cpvPersistentSession to set
+	 */
+	public void setCpvPersistentSession(boolean cpvPersistentSession) {
+		this.cpvPersistentSession = cpvPersistentSession;
+	}
+
+	/**
+	 * @return the cpvVectorCodec
+	 */
+	public int getCpvVectorCodec() {
+		return cpvVectorCodec;
+	}
+
+	/**
+	 * @param cpvVectorCodec the cpvVectorCodec to set
+	 */
+	public void setCpvVectorCodec(int cpvVectorCodec) {
+		this.cpvVectorCodec = cpvVectorCodec;
+	}
+
+	/**
+	 * @return the cpvSessionCacheSize
+	 */
+	public int getCpvSessionCacheSize() {
+		return cpvSessionCacheSize;
+	}
+
+	/**
+	 * @param cpvSessionCacheSize the cpvSessionCacheSize to set
+	 */
+	public void setCpvSessionCacheSize(int cpvSessionCacheSize) {
+		this.cpvSessionCacheSize = cpvSessionCacheSize;
+	}
+
+	/**
+	 * @return the cpvThreadCount
+	 */
+	public int getCpvThreadCount() {
+		return cpvThreadCount;
+	}
+
+	/**
+	 * @param cpvThreadCount the cpvThreadCount to set
+	 */
+	public void setCpvThreadCount(int cpvThreadCount) {
+		this.cpvThreadCount = cpvThreadCount;
+	}
+
+	/**
+	 * @return the cpvSolver
+	 */
+	public int getCpvSolver() {
+		return cpvSolver;
+	}
+
+	/**
+	 * @param cpvSolver the cpvSolver to set
+	 */
+	public void setCpvSolver(int cpvSolver) {
+		this.cpvSolver = cpvSolver;
+	}
+
+	/**
+	 * @return the cpvSolverTolerance
+	 */
+	public float getCpvSolverTolerance() {
+		return cpvSolverTolerance;
+	}
+
+	/**
+	 * @param cpvSolverTolerance the cpvSolverTolerance to set
+	 */
+	public void setCpvSolverTolerance(float cpvSolverTolerance) {
+		this.cpvSolverTolerance = cpvSolverTolerance;
+	}
+
+	/**
+	 * @return the cpvPrepareThreadCount
+	 */
+	public int getCpvPrepareThreadCount() {
+		return cpvPrepareThreadCount;
+	}
+
+	/**
+	 * @param cpvPrepareThreadCount the cpvPrepareThreadCount to set
+	 */
+	public void setCpvPrepareThreadCount(int cpvPrepareThreadCount) {
+		this.cpvPrepareThreadCount = cpvPrepareThreadCount;
+	}
+
+	/**
+	 * @return the economySnapshotFile
+	 */
+	public String getEconomySnapshotFile() {
+		return economySnapshotFile;
+	}
+
+	/**
+	 * @param economySnapshotFile the economySnapshotFile to set
+	 */
+	public void setEconomySnapshotFile(String economySnapshotFile) {
+		this.economySnapshotFile = economySnapshotFile;
+	}
+
+	/**
+	 * @return the checkpointInterval
+	 */
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	/**
+	 * @param checkpointInterval the checkpointInterval to set
+	 */
+	public void setCheckpointInterval(int checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	/**
+	 * @return the scenarioThreadCount
+	 */
+	public int getScenarioThreadCount() {
+		return scenarioThreadCount;
+	}
+
+	/**
+	 * @param scenarioThreadCount the scenarioThreadCount to set
+	 */
+	public void setScenarioThreadCount(int scenarioThreadCount) {
+		this.scenarioThreadCount = scenarioThreadCount;
+	}
+
+	/**
+	 * @return the calibrationThreadCount
+	 */
+	public int getCalibrationThreadCount() {
+		return calibrationThreadCount;
+	}
+
+	/**
+	 * @param calibrationThreadCount the calibrationThreadCount to set
+	 */
+	public void setCalibrationThreadCount(int calibrationThreadCount) {
+		this.calibrationThreadCount = calibrationThreadCount;
+	}
+
+	/**
+	 * @return the calibrationBundleDirectory
+	 */
+	public String getCalibrationBundleDirectory() {
+		return calibrationBundleDirectory;
+	}
+
+	/**
+	 * @param calibrationBundleDirectory the calibrationBundleDirectory to set
+	 */
+	public void setCalibrationBundleDirectory(String calibrationBundleDirectory) {
+		this.calibrationBundleDirectory = calibrationBundleDirectory;
+	}
+
 	/**
 	 * @return the superannuationGuaranteeRate
 	 */
@@ -664,6 +947,18 @@ public class PropertiesXml implements Serializable {
 	 */
 	public void setFxRateCustomPath(Map<String, ExchangeRateList> fxRateCustomPath) {
 		this.fxRate = fxRateCustomPath;
+		this.fxRateArrays = null;
+	}
+
+	/**
+	 * @return the custom FX rate path of each currency, indexed by iteration. It
+	 *         is shared, so it mustn't be changed.
+	 */
+	public Map<String, TFloatArrayList> getFxRateCustomPathArrays() {
+		if (this.fxRateArrays == null) {
+			this.precomputeCustomPaths();
+		}
+		return this.fxRateArrays;
 	}
 
 	/**
@@ -672,6 +967,7 @@ public class PropertiesXml implements Serializable {
 	 * @param fxRateCustomPath
 	 */
 	public void addFxRateCustomPath(String currency, float fxRate) {
+		this.fxRateArrays = null;
 		if (this.fxRate == null) {
 			this.fxRate = new HashMap<String, ExchangeRateList>();
 		}
@@ -725,16 +1021,24 @@ public class PropertiesXml implements Serializable {
 		return cashRate;
 	}
 
+	/**
+	 * @return the custom interest rate path, indexed by iteration. It is shared,
+	 *         so it mustn't be changed.
+	 */
 	public float[] getInterestRateCustomPathArray() {
-		float[] rates = new float[cashRate.size()];
-		for (int i = 0; i < cashRate.size(); i++) {
-			rates[i] = cashRate.get(i);
+		/*
+		 * float[] rates = new float[cashRate.size()]; for (int i = 0; i <
+		 * cashRate.size(); i++) { rates[i] = cashRate.get(i); } return rates;
+		 */
+		if (this.cashRateArray == null) {
+			this.precomputeCustomPaths();
 		}
-		return rates;
+		return this.cashRateArray;
 	}
 
 	public void setInterestRateCustomPath(ArrayList<Float> interestRateCustomPath) {
 		this.cashRate = interestRateCustomPath;
+		this.cashRateArray = null;
 	}
 
 	public float getInterestRateCustomPath(int iteration) {
@@ -742,6 +1046,7 @@ public class PropertiesXml implements Serializable {
 	}
 
 	public void setInterestRateCustomPath(int iteration, float rate) {
+		this.cashRateArray = null;
 		if (this.cashRate == null) {
 			this.cashRate = new ArrayList<Float>(iteration);
 		}
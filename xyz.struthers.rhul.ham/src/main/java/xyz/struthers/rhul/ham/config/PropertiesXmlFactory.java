@@ -1,6 +1,20 @@
 package xyz.struthers.rhul.ham.config;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
+ * Reads each properties file once and hands out copies of it, so the many
+ * classes that get the properties in their constructors and static initialisers
+ * don't each parse the XML again.
+ * 
+ * The parsed properties are cached by filename and never handed out, so they
+ * can't be changed by the code that uses them. Each call returns a copy with its
+ * own random number generator, exactly as if the file had just been read, so
+ * the results are the same as when the file was read on every call. Several
+ * scenarios can be used in one JVM because each file is cached separately. A
+ * file that has been edited is only read again when it is reloaded.
+ * 
  * @author Adam Struthers
  * @since 22-Jul-2019
  */
@@ -12,17 +26,97 @@ public class PropertiesXmlFactory {
 	 */
 	public static String propertiesXmlFilename;
 
-	private static PropertiesXml props;
+	// private static PropertiesXml props;
+	private static final Map<String, PropertiesXml> parsed = new ConcurrentHashMap<String, PropertiesXml>();
 
 	private PropertiesXmlFactory() {
 		super();
 	}
 
+	/**
+	 * @return a copy of the properties in propertiesXmlFilename
+	 */
 	public static PropertiesXml getProperties() {
-		//if (props == null) {
-			System.out.println("Loading properties file: " + propertiesXmlFilename);
-			props = PropertiesXmlHandler.readPropertiesFromXmlFile(propertiesXmlFilename);
-		//}
+		return getProperties(propertiesXmlFilename);
+	}
+
+	/**
+	 * @param filename - the properties file
+	 * @return a copy of the properties in the file, which is only read the first
+	 *         time it's asked for
+	 */
+	public static PropertiesXml getProperties(String filename) {
+		/*
+		 * if (props == null) { System.out.println("Loading properties file: " +
+		 * propertiesXmlFilename); props =
+		 * PropertiesXmlHandler.readPropertiesFromXmlFile(propertiesXmlFilename); }
+		 * return props;
+		 */
+		if (filename == null) {
+			// nothing to cache it under
+			return read(filename);
+		}
+		PropertiesXml props = parsed.computeIfAbsent(filename, PropertiesXmlFactory::read);
+		return props == null ? null : props.copy();
+	}
+
+	/**
+	 * Reads propertiesXmlFilename again, e.g. after it has been edited. Copies that
+	 * have already been handed out keep the old values.
+	 * 
+	 * @return a copy of the new properties
+	 */
+	public static PropertiesXml reload() {
+		return reload(propertiesXmlFilename);
+	}
+
+	/**
+	 * Reads a properties file again, e.g. after it has been edited. Copies that
+	 * have already been handed out keep the old values.
+	 * 
+	 * @param filename - the properties file
+	 * @return a copy of the new properties
+	 */
+	public static PropertiesXml reload(String filename) {
+		if (filename != null) {
+			parsed.remove(filename);
+		}
+		return getProperties(filename);
+	}
+
+	/**
+	 * Caches properties that weren't read from a file (e.g. a copy of a file with
+	 * another random seed), so getProperties(name) hands out copies of them.
+	 * 
+	 * @param name  - the name to cache them under
+	 * @param props - the properties, which mustn't be changed afterwards
+	 */
+	public static void setProperties(String name, PropertiesXml props) {
+		parsed.put(name, props);
+	}
+
+	/**
+	 * Forgets a properties file, or properties cached with setProperties.
+	 * 
+	 * @param filename - the properties file
+	 */
+	public static void remove(String filename) {
+		parsed.remove(filename);
+	}
+
+	/**
+	 * Forgets every properties file that has been read.
+	 */
+	public static void clear() {
+		parsed.clear();
+	}
+
+	private static PropertiesXml read(String filename) {
+		System.out.println("Loading properties file: " + filename);
+		PropertiesXml props = PropertiesXmlHandler.readPropertiesFromXmlFile(filename);
+		if (props != null) {
+			props.precomputeCustomPaths();
+		}
 		return props;
 	}
 }
@@ -13,15 +13,24 @@ import javax.xml.bind.Unmarshaller;
  */
 public class PropertiesXmlHandler {
 
+	private static JAXBContext context = null; // expensive to create, but thread-safe once it has been
+
 	private PropertiesXmlHandler() {
 		super();
 	}
 
+	private static synchronized JAXBContext getContext() throws JAXBException {
+		if (context == null) {
+			context = JAXBContext.newInstance(PropertiesXml.class);
+		}
+		return context;
+	}
+
 	public static PropertiesXml readPropertiesFromXmlFile(String inFilename) {
 		JAXBContext jc = null;
 		PropertiesXml propertiesXml = null;
 		try {
-			jc = JAXBContext.newInstance(PropertiesXml.class);
+			jc = getContext();
 			Unmarshaller unmarshaller = jc.createUnmarshaller();
 			File xml = new File(inFilename);
 			propertiesXml = (PropertiesXml) unmarshaller.unmarshal(xml);
@@ -34,7 +43,7 @@ public class PropertiesXmlHandler {
 	public static void writePropertiesToXmlFile(PropertiesXml propertiesXml, String outFilename) {
 		JAXBContext jc = null;
 		try {
-			jc = JAXBContext.newInstance(PropertiesXml.class);
+			jc = getContext();
 			Marshaller marshaller = jc.createMarshaller();
 			marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
 			marshaller.marshal(propertiesXml, new File(outFilename));
@@ -4,8 +4,10 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
+import xyz.struthers.rhul.ham.CpvWireProtocol;
 import xyz.struthers.rhul.ham.agent.ReserveBankOfAustralia;
 import xyz.struthers.rhul.ham.data.Currencies;
+import xyz.struthers.rhul.ham.process.ClearingPaymentSolver;
 
 /**
  * Tested and it both marshalls and unmarshalls correctly
@@ -92,6 +94,24 @@ public class PropertiesXmlTestHarness {
 		props.setEconomyClientPort(1100);
 		props.setSocketBufferBytes(1000000000); // approx 1GB
 		props.setSocketMessageBytes(10 * 1024 * 1024); // 10MB
+		props.setCpvTransport(CpvWireProtocol.TRANSPORT_STREAM);
+		props.setCpvSpillDirectory(""); // system temp directory
+		props.setCpvPersistentSession(true);
+		props.setCpvVectorCodec(CpvWireProtocol.CODEC_DELTA_DEFLATE);
+		props.setCpvSessionCacheSize(0); // one topology per scenario thread
+
+		// Clearing Payments Vector parameters
+		props.setCpvThreadCount(0); // all available processors
+		props.setCpvSolver(ClearingPaymentSolver.EISENBERG_NOE);
+		props.setCpvSolverTolerance(1e-6f); // only used by the Gauss-Seidel solver
+		props.setCpvPrepareThreadCount(0); // all available processors
+
+		// agent storage parameters
+		props.setEconomySnapshotFile(""); // always calibrate the economy
+		props.setCheckpointInterval(0); // never checkpoint the economy
+		props.setScenarioThreadCount(0); // run as many scenarios at once as memory allows
+		props.setCalibrationThreadCount(0); // calibrate regions on all available processors
+		props.setCalibrationBundleDirectory(""); // always read the calibration data from the CSV files
 
 		// unchanging simulation parameters
 		props.setSuperannuationGuaranteeRate(0.095f); // 9.5%
@@ -0,0 +1,75 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham.config;
+
+import java.lang.reflect.Field;
+import java.util.Random;
+
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+/**
+ * Reads and restores the internal state of the XoRoShiRo128PlusRandom number
+ * generator in PropertiesXml, so a saved economy can carry on with exactly the
+ * same random numbers it would have drawn if it hadn't been saved.
+ *
+ * The generator doesn't expose its state, so its two 64-bit words are read and
+ * written by reflection.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public abstract class RandomState {
+
+	private static final String[] STATE_FIELDS = { "s0", "s1" };
+
+	/**
+	 * @param random - the random number generator
+	 * @return the generator's state, or null if it isn't a XoRoShiRo128PlusRandom
+	 *         or its state can't be read
+	 */
+	public static long[] getState(Random random) {
+		if (!(random instanceof XoRoShiRo128PlusRandom)) {
+			return null;
+		}
+		try {
+			long[] state = new long[STATE_FIELDS.length];
+			for (int i = 0; i < STATE_FIELDS.length; i++) {
+				state[i] = stateField(i).getLong(random);
+			}
+			return state;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Restores the state of a generator.
+	 *
+	 * @param random - the random number generator
+	 * @param state  - the state returned by getState
+	 * @return true if the state was restored, false if it couldn't be
+	 */
+	public static boolean setState(Random random, long[] state) {
+		if (!(random instanceof XoRoShiRo128PlusRandom) || state == null || state.length != STATE_FIELDS.length) {
+			return false;
+		}
+		try {
+			for (int i = 0; i < STATE_FIELDS.length; i++) {
+				stateField(i).setLong(random, state[i]);
+			}
+			return true;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	private static Field stateField(int i) throws NoSuchFieldException {
+		Field field = XoRoShiRo128PlusRandom.class.getDeclaredField(STATE_FIELDS[i]);
+		field.setAccessible(true);
+		return field;
+	}
+
+}
@@ -0,0 +1,47 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham.config;
+
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+/**
+ * Splits the random seed into independent streams of random numbers, one per
+ * region, so regions can be calibrated on several threads and still draw
+ * exactly the same numbers as they would on one thread.
+ *
+ * Each stream is a copy of a XoRoShiRo128PlusRandom generator that is jumped
+ * ahead 2^64 draws before the next copy is taken, so the streams of one stage
+ * can't overlap each other (or the first 2^64 draws of that stage's generator).
+ * Each stage of the calibration (e.g. Individuals, then Households) seeds its
+ * own generator from a different seed, as does the shared generator in
+ * PropertiesXml. Those start at unrelated points in the 2^128 period, so the
+ * stages are very unlikely to overlap each other or the shared generator, but
+ * nothing guarantees that they don't.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public abstract class RandomStreams {
+
+	public static final int STAGE_INDIVIDUALS = 1;
+	public static final int STAGE_HOUSEHOLDS = 2;
+
+	/**
+	 * @param seed        - the random seed
+	 * @param stage       - the calibration stage the streams are for
+	 * @param streamCount - the number of streams (e.g. one per region)
+	 * @return the streams, in region order
+	 */
+	public static XoRoShiRo128PlusRandom[] split(long seed, int stage, int streamCount) {
+		XoRoShiRo128PlusRandom generator = new XoRoShiRo128PlusRandom(seed + stage * 0x9E3779B97F4A7C15L);
+		generator.jump(); // skip this stage's first 2^64 draws
+		XoRoShiRo128PlusRandom[] streams = new XoRoShiRo128PlusRandom[streamCount];
+		for (int i = 0; i < streamCount; i++) {
+			streams[i] = generator.copy();
+			generator.jump();
+		}
+		return streams;
+	}
+
+}
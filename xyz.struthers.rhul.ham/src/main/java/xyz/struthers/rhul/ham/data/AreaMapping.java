@@ -28,6 +28,7 @@ import com.opencsv.CSVReader;
 
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TObjectIntHashMap;
+import xyz.struthers.lang.CsvTokenizer;
 import xyz.struthers.rhul.ham.MemoryUsageBenchmark;
 import xyz.struthers.rhul.ham.config.PropertiesXml;
 import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
@@ -64,7 +65,7 @@ public class AreaMapping {
 	private static final int INDEX_COUNT_DWELLING = 1;
 
 	// data variables
-	private boolean dataLoaded;
+	private volatile boolean dataLoaded;
 	private Map<String, List<String>> title;
 	private Map<String, List<String>> unitType;
 
@@ -426,10 +427,16 @@ public class AreaMapping {
 	}
 
 	/**
-	 * Generates meshblock mapping between LGA, POA and GCCSA.
+	 * Generates meshblock mapping between LGA, POA and GCCSA. It's synchronized
+	 * because the Census tables are loaded on several threads, and each of them
+	 * looks up LGA codes.
 	 * 
 	 */
-	private void mapMeshblocks() {
+	private synchronized void mapMeshblocks() {
+		if (this.dataLoaded) {
+			// another thread loaded it while this one was waiting
+			return;
+		}
 		this.loadMeshblocks();
 
 		// map LGA to GCCSA
@@ -512,70 +519,58 @@ public class AreaMapping {
 		this.unitType = new HashMap<String, List<String>>();
 		this.lgaMeshblocks = new HashMap<String, Set<String>>();
 		this.poaMeshblocks = new HashMap<String, Set<String>>();
+		this.mapLgaNameToCode = new HashMap<String, String>();
+		this.mapLgaCodeToName = new HashMap<String, String>();
+		this.mapLgaCodeToState = new HashMap<String, String>();
+
+		// read the files concurrently, and combine them in order after they've all
+		// loaded so earlier files take precedence the same way they did when they were
+		// read one at a time
+		LoaderPool loader = new LoaderPool(this.properties.getCalibrationThreadCount());
 
 		// load ABS meshblock data (MB, SA1, SA2, SA3, SA4, GCCSA, State)
 		final boolean[] absLoadColumn = { false, false, false, false, false, false, false, false, false, false, false,
 				true, true, true, true, false };
 		this.absData = new HashMap<String, Map<String, String>>();
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.001_AbsMeshblock") + "_ACT.csv", this.absData,
-				absLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.001_AbsMeshblock") + "_NSW.csv", this.absData,
-				absLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.001_AbsMeshblock") + "_NT.csv", this.absData,
-				absLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.001_AbsMeshblock") + "_OT.csv", this.absData,
-				absLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.001_AbsMeshblock") + "_QLD.csv", this.absData,
-				absLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.001_AbsMeshblock") + "_SA.csv", this.absData,
-				absLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.001_AbsMeshblock") + "_TAS.csv", this.absData,
-				absLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.001_AbsMeshblock") + "_VIC.csv", this.absData,
-				absLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.001_AbsMeshblock") + "_WA.csv", this.absData,
-				absLoadColumn);
+		String[] absStates = { "ACT", "NSW", "NT", "OT", "QLD", "SA", "TAS", "VIC", "WA" };
+		List<MeshblockFile> absFiles = new ArrayList<MeshblockFile>(absStates.length);
+		for (String state : absStates) {
+			MeshblockFile file = new MeshblockFile();
+			loader.submit(() -> this.readMeshblockCsvData(
+					properties.getFilename("ABS/1270.0.55.001_AbsMeshblock") + "_" + state + ".csv", file,
+					absLoadColumn));
+			absFiles.add(file);
+		}
 
 		// load LGA data
-		this.mapLgaNameToCode = new HashMap<String, String>();
-		this.mapLgaCodeToName = new HashMap<String, String>();
-		this.mapLgaCodeToState = new HashMap<String, String>();
-
 		final boolean[] lgaLoadColumn = { false, true, true, false, true, false };
 		this.lgaData = new HashMap<String, Map<String, String>>();
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/LGA") + "_NSW.csv",
-				this.lgaData, lgaLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/LGA") + "_VIC.csv",
-				this.lgaData, lgaLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/LGA") + "_QLD.csv",
-				this.lgaData, lgaLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/LGA") + "_SA.csv",
-				this.lgaData, lgaLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/LGA") + "_WA.csv",
-				this.lgaData, lgaLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/LGA") + "_TAS.csv",
-				this.lgaData, lgaLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/LGA") + "_NT.csv",
-				this.lgaData, lgaLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/LGA") + "_ACT.csv",
-				this.lgaData, lgaLoadColumn);
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/LGA") + "_OT.csv",
-				this.lgaData, lgaLoadColumn);
+		String[] lgaStates = { "NSW", "VIC", "QLD", "SA", "WA", "TAS", "NT", "ACT", "OT" };
+		List<MeshblockFile> lgaFiles = new ArrayList<MeshblockFile>(lgaStates.length);
+		for (String state : lgaStates) {
+			MeshblockFile file = new MeshblockFile();
+			loader.submit(() -> this.readMeshblockCsvData(
+					properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/LGA") + "_" + state + ".csv", file,
+					lgaLoadColumn));
+			lgaFiles.add(file);
+		}
 
 		// load POA data
 		final boolean[] poaLoadColumn = { false, true, false, false };
 		this.poaData = new HashMap<String, Map<String, String>>();
-		this.readMeshblockCsvData(properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/POA") + "_AUST.csv",
-				this.poaData, poaLoadColumn);
+		MeshblockFile poaFile = new MeshblockFile();
+		loader.submit(() -> this.readMeshblockCsvData(
+				properties.getFilename("ABS/1270.0.55.003_NonAbsMeshblock/POA") + "_AUST.csv", poaFile,
+				poaLoadColumn));
 
 		// load mesh block counts
 		final int[] abs2074_0_Columns = { 3, 4 };
 		this.abs2074_0indexMap = new TObjectIntHashMap<String>();
 		this.abs2074_0dataMatrix = new ArrayList<TIntArrayList>(abs2074_0_Columns.length);
 		this.abs2074_0seriesTitles = new ArrayList<ArrayList<String>>(abs2074_0_Columns.length);
-		this.loadAbsDataCsv_2074_0(
+		loader.submit(() -> this.loadAbsDataCsv_2074_0(
 				properties.getFilename("ABS/2074.0_MeshblockCounts") + " Census Mesh Block Counts.csv",
-				abs2074_0_Columns, this.abs2074_0indexMap, this.abs2074_0dataMatrix, this.abs2074_0seriesTitles);
+				abs2074_0_Columns, this.abs2074_0indexMap, this.abs2074_0dataMatrix, this.abs2074_0seriesTitles));
 
 		// load ABS 3222.0 data
 		System.out.println(new Date(System.currentTimeMillis()) + ": Loading ABS 3222.0 Population projections");
@@ -586,10 +581,19 @@ public class AreaMapping {
 				262, 263, 264, 265, 266, 267, 268, 269, 270, 271, 272, 273, 274, 275, 276, 277, 278, 279, 280, 281, 282,
 				283, 284, 285, 286, 287, 288, 289, 290, 291, 292, 293, 294, 295, 296, 297, 298, 299, 300, 301, 302,
 				303 }; // loads count of Persons 0 - 100
-		this.loadAbsDataCsv_Catalogue(
+		loader.submit(() -> this.loadAbsDataCsv_Catalogue(
 				properties.getFilename("ABS")
 						+ "3222.0_PopnProjections/Table B9. Population projections - Series B.csv",
-				ABS_3222_0, abs3220_0Columns, this.title, this.unitType, this.abs3222_0);
+				ABS_3222_0, abs3220_0Columns, this.title, this.unitType, this.abs3222_0));
+
+		loader.join();
+		for (MeshblockFile file : absFiles) {
+			this.mergeMeshblockData(file, this.absData);
+		}
+		for (MeshblockFile file : lgaFiles) {
+			this.mergeMeshblockData(file, this.lgaData);
+		}
+		this.mergeMeshblockData(poaFile, this.poaData);
 
 		// load postcode latitude and longitude
 		/*
@@ -601,103 +605,119 @@ public class AreaMapping {
 	}
 
 	/**
-	 * Reads in a single Meshblock CSV file.
+	 * Reads in a single Meshblock CSV file. It can run at the same time as other
+	 * files are read, so it only writes to its own maps, which are added to the
+	 * class's maps afterwards by mergeMeshblockData.
 	 * 
 	 * @param fileResourceLocation - the URI to the CSV file
-	 * @param title                - the column titles in the CSV file
-	 * @param data                 - the data rows in the CSV file
+	 * @param file                 - the column titles, data rows and LGA / POA
+	 *                             mappings read from the CSV file
 	 * @param loadColumn           - boolean values to include (true) or exclude
 	 *                             (false) each column in the CSV file when reading
 	 *                             them. It always excludes the first column
 	 *                             regardless of the value in loadColumn[0].
 	 */
-	private void readMeshblockCsvData(String fileResourceLocation, Map<String, Map<String, String>> data,
-			boolean[] loadColumn) {
+	private void readMeshblockCsvData(String fileResourceLocation, MeshblockFile file, boolean[] loadColumn) {
 
-		CSVReader reader = null;
+		CsvTokenizer reader = null;
 		try {
 			// open file
-			InputStream is = this.getClass().getResourceAsStream(fileResourceLocation);
-			reader = new CSVReader(new InputStreamReader(is));
+			reader = CsvTokenizer.open(this.getClass(), fileResourceLocation);
 
 			// read column headings from row 1
-			String[] title = reader.readNext();
+			reader.next();
+			String[] title = reader.toArray();
+			file.titles = title;
+			List<Map<String, String>> columnData = new ArrayList<Map<String, String>>(title.length);
+			columnData.add(null); // the first column is the key
+			int lgaCodeColumn = -1;
+			int poaCodeColumn = -1;
 			for (int i = 1; i < title.length; i++) {
 				// exclude first column because we don't need to store meshblocks separately
 				// because they're the key in each column's data mapping
-				if (loadColumn[i] && !data.containsKey(title[i])) { // only add this if it hasn't been added before - we
-																	// don't want to overwrite the previous files' data
-					data.put(title[i], new HashMap<String, String>()); // store column heading as key
+				if (loadColumn[i] && !file.data.containsKey(title[i])) {
+					file.data.put(title[i], new HashMap<String, String>()); // store column heading as key
+				}
+				columnData.add(loadColumn[i] ? file.data.get(title[i]) : null);
+				if (title[i].equals(LGA_LGA_CODE)) {
+					lgaCodeColumn = i;
+				}
+				if (title[i].equals(AreaMapping.POA_POA_CODE)) {
+					poaCodeColumn = i;
 				}
 			}
 
 			// read data rows, starting at row 2
-			String[] line = null;
-			while ((line = reader.readNext()) != null) {
-				if (!line[0].isEmpty()) {
-					for (int i = 1; i < line.length; i++) {
+			while (reader.next()) {
+				if (!reader.isEmpty(0)) {
+					String meshblock = reader.get(0); // assumes the first column is the Meshblock Code
+					for (int i = 1; i < reader.size(); i++) {
 						// parse the body of the data
 						if (loadColumn[i]) {
-							data.get(title[i]).put(line[0], line[i]); // assumes line[0] is the Meshblock Code
+							columnData.get(i).put(meshblock, reader.get(i));
 						}
-						if (title[i].equals(LGA_LGA_CODE)) {
-							// add faster mapping for LGA: a set of the meshblocks that it comprises of
-							if (!this.lgaMeshblocks.containsKey(line[i])) {
-								this.lgaMeshblocks.put(line[i], new HashSet<String>());
-							}
-							this.lgaMeshblocks.get(line[i]).add(line[0]);
+					}
+					if (lgaCodeColumn > 0 && lgaCodeColumn < reader.size()) {
+						String lgaCode = reader.get(lgaCodeColumn);
 
-							// map LGA code to name
-							if (!this.mapLgaCodeToName.containsKey(line[i])) {
-								this.mapLgaCodeToName.put(line[i], line[LGA_NAME_COL]);
-							}
+						// add faster mapping for LGA: a set of the meshblocks that it comprises of
+						if (!file.lgaMeshblocks.containsKey(lgaCode)) {
+							file.lgaMeshblocks.put(lgaCode, new HashSet<String>());
+						}
+						file.lgaMeshblocks.get(lgaCode).add(meshblock);
 
-							// map LGA code to state
-							if (!this.mapLgaCodeToState.containsKey(line[i])) {
-								String thisState = null;
-								switch (line[LGA_STATE_COL].toUpperCase()) {
-								case "NEW SOUTH WALES":
-									thisState = "NSW";
-									break;
-								case "VICTORIA":
-									thisState = "VIC";
-									break;
-								case "QUEENSLAND":
-									thisState = "QLD";
-									break;
-								case "SOUTH AUSTRALIA":
-									thisState = "SA";
-									break;
-								case "WESTERN AUSTRALIA":
-									thisState = "WA";
-									break;
-								case "TASMANIA":
-									thisState = "TAS";
-									break;
-								case "NORTHERN TERRITORY":
-									thisState = "NT";
-									break;
-								case "AUSTRALIAN CAPITAL TERRITORY":
-									thisState = "ACT";
-									break;
-								default:
-									thisState = "Other";
-								}
-								this.mapLgaCodeToState.put(line[i], thisState);
-							}
+						// map LGA code to name
+						String lgaName = reader.get(LGA_NAME_COL);
+						if (!file.lgaCodeToName.containsKey(lgaCode)) {
+							file.lgaCodeToName.put(lgaCode, lgaName);
+						}
 
-							// map LGA name to code
-							if (!this.mapLgaNameToCode.containsKey(line[LGA_NAME_COL])) {
-								this.mapLgaNameToCode.put(line[LGA_NAME_COL], line[i]);
+						// map LGA code to state
+						if (!file.lgaCodeToState.containsKey(lgaCode)) {
+							String thisState = null;
+							switch (reader.get(LGA_STATE_COL).toUpperCase()) {
+							case "NEW SOUTH WALES":
+								thisState = "NSW";
+								break;
+							case "VICTORIA":
+								thisState = "VIC";
+								break;
+							case "QUEENSLAND":
+								thisState = "QLD";
+								break;
+							case "SOUTH AUSTRALIA":
+								thisState = "SA";
+								break;
+							case "WESTERN AUSTRALIA":
+								thisState = "WA";
+								break;
+							case "TASMANIA":
+								thisState = "TAS";
+								break;
+							case "NORTHERN TERRITORY":
+								thisState = "NT";
+								break;
+							case "AUSTRALIAN CAPITAL TERRITORY":
+								thisState = "ACT";
+								break;
+							default:
+								thisState = "Other";
 							}
+							file.lgaCodeToState.put(lgaCode, thisState);
 						}
-						if (title[i].equals(AreaMapping.POA_POA_CODE)) {
-							// add faster mapping for POA: a set of the meshblocks that it comprises of
-							if (!this.poaMeshblocks.containsKey(line[i])) {
-								this.poaMeshblocks.put(line[i], new HashSet<String>());
-							}
-							this.poaMeshblocks.get(line[i]).add(line[0]);
+
+						// map LGA name to code
+						if (!file.lgaNameToCode.containsKey(lgaName)) {
+							file.lgaNameToCode.put(lgaName, lgaCode);
+						}
+					}
+					if (poaCodeColumn > 0 && poaCodeColumn < reader.size()) {
+						// add faster mapping for POA: a set of the meshblocks that it comprises of
+						String poaCode = reader.get(poaCodeColumn);
+						if (!file.poaMeshblocks.containsKey(poaCode)) {
+							file.poaMeshblocks.put(poaCode, new HashSet<String>());
 						}
+						file.poaMeshblocks.get(poaCode).add(meshblock);
 					}
 				} else {
 					break; // data has finished, so break out of loop before copyright notice, etc.
@@ -715,6 +735,60 @@ public class AreaMapping {
 		}
 	}
 
+	/**
+	 * Adds a Meshblock CSV file's data to the class's maps. Files are merged in the
+	 * order they're listed, and earlier files take precedence, so the result is the
+	 * same as if they had been read one after the other.
+	 * 
+	 * @param file - the data read from one CSV file
+	 * @param data - the data rows of all the files merged so far
+	 */
+	private void mergeMeshblockData(MeshblockFile file, Map<String, Map<String, String>> data) {
+		// uses put rather than computeIfAbsent, which would change the iteration order,
+		// and takes the file's own maps where there isn't one yet rather than copying
+		for (int i = 1; i < file.titles.length; i++) {
+			if (file.data.containsKey(file.titles[i]) && !data.containsKey(file.titles[i])) {
+				// only add this if it hasn't been added before - we don't want to overwrite the
+				// previous files' data
+				data.put(file.titles[i], file.data.get(file.titles[i]));
+			}
+		}
+		for (String column : file.data.keySet()) {
+			if (data.get(column) != file.data.get(column)) {
+				data.get(column).putAll(file.data.get(column));
+			}
+		}
+		for (String lgaCode : file.lgaMeshblocks.keySet()) {
+			if (!this.lgaMeshblocks.containsKey(lgaCode)) {
+				this.lgaMeshblocks.put(lgaCode, file.lgaMeshblocks.get(lgaCode));
+			} else {
+				this.lgaMeshblocks.get(lgaCode).addAll(file.lgaMeshblocks.get(lgaCode));
+			}
+		}
+		for (String poaCode : file.poaMeshblocks.keySet()) {
+			if (!this.poaMeshblocks.containsKey(poaCode)) {
+				this.poaMeshblocks.put(poaCode, file.poaMeshblocks.get(poaCode));
+			} else {
+				this.poaMeshblocks.get(poaCode).addAll(file.poaMeshblocks.get(poaCode));
+			}
+		}
+		for (String lgaCode : file.lgaCodeToName.keySet()) {
+			if (!this.mapLgaCodeToName.containsKey(lgaCode)) {
+				this.mapLgaCodeToName.put(lgaCode, file.lgaCodeToName.get(lgaCode));
+			}
+		}
+		for (String lgaCode : file.lgaCodeToState.keySet()) {
+			if (!this.mapLgaCodeToState.containsKey(lgaCode)) {
+				this.mapLgaCodeToState.put(lgaCode, file.lgaCodeToState.get(lgaCode));
+			}
+		}
+		for (String lgaName : file.lgaNameToCode.keySet()) {
+			if (!this.mapLgaNameToCode.containsKey(lgaName)) {
+				this.mapLgaNameToCode.put(lgaName, file.lgaNameToCode.get(lgaName));
+			}
+		}
+	}
+
 	/*
 	 * Loads a CSV file that contains a list of post codes and their latitudes and
 	 * longitudes.
@@ -935,4 +1009,18 @@ public class AreaMapping {
 		}
 		return abs3222_0;
 	}
+
+	/**
+	 * The data read from one Meshblock CSV file, before it's merged with the
+	 * other files.
+	 */
+	private static class MeshblockFile {
+		String[] titles = new String[0];
+		final Map<String, Map<String, String>> data = new HashMap<String, Map<String, String>>();
+		final Map<String, Set<String>> lgaMeshblocks = new HashMap<String, Set<String>>();
+		final Map<String, Set<String>> poaMeshblocks = new HashMap<String, Set<String>>();
+		final Map<String, String> lgaCodeToName = new HashMap<String, String>();
+		final Map<String, String> lgaCodeToState = new HashMap<String, String>();
+		final Map<String, String> lgaNameToCode = new HashMap<String, String>();
+	}
 }
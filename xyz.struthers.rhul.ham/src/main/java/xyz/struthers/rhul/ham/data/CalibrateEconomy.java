@@ -20,13 +20,11 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import gnu.trove.list.array.TFloatArrayList;
-import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TCharFloatHashMap;
-import gnu.trove.map.hash.TCharIntHashMap;
 import gnu.trove.map.hash.TObjectFloatHashMap;
-import gnu.trove.map.hash.TObjectIntHashMap;
 import gnu.trove.set.hash.TCharHashSet;
-import xyz.struthers.lang.CustomMath;
+import xyz.struthers.lang.AliasSampler;
+import xyz.struthers.lang.QuotaSampler;
 import xyz.struthers.rhul.ham.agent.AustralianGovernment;
 import xyz.struthers.rhul.ham.agent.AuthorisedDepositTakingInstitution;
 import xyz.struthers.rhul.ham.agent.Business;
@@ -278,53 +276,34 @@ public class CalibrateEconomy {
 				industryTotals.put(div, industryTotals.get(div) + this.businesses[i].getSalesDomestic());
 			}
 		}
-		// make a list of businesses in each industry, with relative weights
-		Map<Character, TIntArrayList> businessIndices = new HashMap<Character, TIntArrayList>(
+		// make a sampler of businesses in each industry, with relative weights
+		Map<Character, QuotaSampler> businessSamplers = new HashMap<Character, QuotaSampler>(
 				(int) Math.ceil(spendingDivisions.size() / 0.75f));
 		for (char div : ABS_6530_0_SPEND_DIV_CODE_CHAR) {
-			businessIndices.put(div, new TIntArrayList(this.households.length));
+			businessSamplers.put(div, new QuotaSampler(this.businesses.length / ABS_6530_0_SPEND_DIV_CODE_CHAR.length));
 		}
 		for (int i = 0; i < this.businesses.length; i++) {
 			char div = this.businesses[i].getIndustryDivisionCode();
 			if (spendingDivisions.contains(div)) {
 				float domesticSales = this.businesses[i].getSalesDomestic();
-				int businessCount = (int) Math.ceil(domesticSales / industryTotals.get(div) * this.households.length);
-				businessIndices.get(div).addAll(Collections.nCopies(businessCount, i));
+				businessSamplers.get(div).add(i, domesticSales, industryTotals.get(div), this.households.length);
 			}
 		}
-		// shuffle indices and assign household spending per ABS 6530.0 ratios
-		TCharIntHashMap nextBusinessIndex = new TCharIntHashMap((int) Math.ceil(spendingDivisions.size() / 0.75f));
+		// assign household spending per ABS 6530.0 ratios
 		TFloatArrayList abs6530SpendRatios = this.calcAbs6530SpendRatios();
-		for (char div : ABS_6530_0_SPEND_DIV_CODE_CHAR) {
-			businessIndices.get(div).trimToSize();
-			businessIndices.get(div).shuffle(this.random);
-			nextBusinessIndex.put(div, 0);
-		}
 		for (int i = 0; i < this.households.length; i++) {
 			ArrayList<Business> suppliers = new ArrayList<Business>(ABS_6530_0_SPEND_DIV_CODE_CHAR.length);
 			for (int j = 0; j < ABS_6530_0_SPEND_DIV_CODE_CHAR.length; j++) {
-				// String div = String.valueOf(this.businesses[i].getIndustryDivisionCode());
-				char div = ABS_6530_0_SPEND_DIV_CODE_CHAR[j];
 				// assign next random business for that Division
-				int nextShuffledIndex = nextBusinessIndex.get(div);
-				suppliers.add(this.businesses[businessIndices.get(div).get(nextShuffledIndex)]);
-				// increment the index, but stay within the array bounds
-				nextBusinessIndex.put(div, (nextShuffledIndex + 1) % businessIndices.get(div).size());
+				char div = ABS_6530_0_SPEND_DIV_CODE_CHAR[j];
+				suppliers.add(this.businesses[businessSamplers.get(div).next(this.random)]);
 			}
 			this.households[i].setSuppliers(suppliers);
 			this.households[i].setSupplierRatios(abs6530SpendRatios);
 		}
 		// release memory
-		for (char div : ABS_6530_0_SPEND_DIV_CODE_CHAR) {
-			if (businessIndices.get(div) != null) {
-				businessIndices.get(div).clear();
-				businessIndices.put(div, null);
-			}
-		}
-		businessIndices.clear();
-		businessIndices = null;
-		nextBusinessIndex.clear();
-		nextBusinessIndex = null;
+		businessSamplers.clear();
+		businessSamplers = null;
 		industryTotals.clear();
 		industryTotals = null;
 		spendingDivisions.clear();
@@ -333,59 +312,44 @@ public class CalibrateEconomy {
 
 		// Landlord
 		float totalRent = (float) Arrays.asList(this.households).stream().mapToDouble(o -> o.getPnlRentIncome()).sum();
-		// populate indices with relative amounts of each landlord
-		TIntArrayList shuffledIndices = new TIntArrayList(this.households.length);
+		// populate sampler with relative amounts of each landlord
+		QuotaSampler sampler = new QuotaSampler(this.households.length);
 		for (int i = 0; i < this.households.length; i++) {
-			// calculate ratio of landlord to total
-			float landlordRent = this.households[i].getPnlRentIncome();
-			if (landlordRent > 0f) {
-				// convert to indices, rounding up so we have at least enough
-				int landlordTenantCount = (int) Math.ceil(landlordRent / totalRent * this.households.length);
-				shuffledIndices.addAll(Collections.nCopies(landlordTenantCount, i));
-			}
+			// convert ratio of landlord to total into a quota, rounding up so we have at
+			// least enough
+			sampler.add(i, this.households[i].getPnlRentIncome(), totalRent, this.households.length);
 		}
-		// shuffle indices, and assign landlords to renting Households
-		shuffledIndices.trimToSize();
-		shuffledIndices.shuffle(this.random);
-		int nextShuffledIdx = 0;
+		// assign landlords to renting Households
 		for (int i = 0; i < this.households.length; i++) {
 			if (this.households[i].getPnlRentExpense() > 0f) {
 				// assign landlord to Household
-				this.households[i].setLandlord(this.households[shuffledIndices.get(nextShuffledIdx++)]);
+				this.households[i].setLandlord(this.households[sampler.next(this.random)]);
 			}
 		}
 		// release memory
-		shuffledIndices.clear();
-		shuffledIndices = null;
+		sampler = null;
 
 		// Loan ADI
 		// get total loans for entire ADI industry
 		float totalLoanBal = (float) Arrays.asList(this.adis).stream().mapToDouble(o -> o.getBsLoansHome()).sum();
 		totalLoanBal += (float) Arrays.asList(this.adis).stream().mapToDouble(o -> o.getBsLoansPersonal()).sum();
-		// populate indices with relative amounts of each ADI
-		shuffledIndices = new TIntArrayList(this.households.length);
+		// populate sampler with relative amounts of each ADI
+		sampler = new QuotaSampler(this.adis.length);
 		for (int i = 0; i < this.adis.length; i++) {
-			// calculate ratio of ADI to total
+			// convert ratio of ADI to total into a quota, rounding up so we have at least
+			// enough
 			float adiLoanBal = this.adis[i].getBsLoansHome() + this.adis[i].getBsLoansPersonal();
-			if (adiLoanBal > 0f) {
-				// convert to indices, rounding up so we have at least enough
-				int adiCustomerCount = (int) Math.ceil(adiLoanBal / totalLoanBal * this.households.length);
-				shuffledIndices.addAll(Collections.nCopies(adiCustomerCount, i));
-			}
+			sampler.add(i, adiLoanBal, totalLoanBal, this.households.length);
 		}
-		// shuffle indices, and assign ADIs to Households
-		shuffledIndices.trimToSize();
-		shuffledIndices.shuffle(this.random);
-		nextShuffledIdx = 0;
+		// assign ADIs to Households
 		for (int i = 0; i < this.households.length; i++) {
 			if (this.households[i].getBsLoans() > 0f) {
 				// assign loan ADI to Household
-				this.households[i].setLoanAdi(this.adis[shuffledIndices.get(nextShuffledIdx++)]);
+				this.households[i].setLoanAdi(this.adis[sampler.next(this.random)]);
 			}
 		}
 		// release memory
-		shuffledIndices.clear();
-		shuffledIndices = null;
+		sampler = null;
 
 		// Australian Government
 		for (int i = 0; i < this.households.length; i++) {
@@ -618,7 +582,7 @@ public class CalibrateEconomy {
 		// for each division, calculate employer ratio and multiply by employee count
 		System.out.println(new Date(System.currentTimeMillis())
 				+ ": for each division, calculate employer ratio and multiply by employee count");
-		Map<Character, TIntArrayList> shuffledEmployerIndicesByDiv = new HashMap<Character, TIntArrayList>(
+		Map<Character, QuotaSampler> employerSamplersByDiv = new HashMap<Character, QuotaSampler>(
 				(int) Math.ceil(totalWagesExpenseByDiv.size() / 0.75f));
 		if (DEBUG_LINK_EMPLOYEES) {
 			System.out.println(new Date(System.currentTimeMillis()) + ": DEBUG: map created" + ", employers.size() = "
@@ -651,26 +615,25 @@ public class CalibrateEconomy {
 			if (DEBUG_LINK_EMPLOYEES) {
 				System.out.println(new Date(System.currentTimeMillis()) + ": DEBUG: employeeCount = " + employeeCount);
 				System.out.println(new Date(System.currentTimeMillis())
-						+ ": DEBUG: !shuffledEmployerIndicesByDiv.containsKey(div) = "
-						+ !shuffledEmployerIndicesByDiv.containsKey(div));
+						+ ": DEBUG: !employerSamplersByDiv.containsKey(div) = "
+						+ !employerSamplersByDiv.containsKey(div));
 			}
-			if (!shuffledEmployerIndicesByDiv.containsKey(div)) {
+			if (!employerSamplersByDiv.containsKey(div)) {
 				if (DEBUG_LINK_EMPLOYEES) {
 					System.out.println(
 							new Date(System.currentTimeMillis()) + ": DEBUG: inside the IF statement for div " + div);
 				}
-				shuffledEmployerIndicesByDiv.put(div, new TIntArrayList(
-						(int) Math.ceil(employees.size() / DIVISION_CODE_INDICES.length * 2f / 0.75f)));
+				employerSamplersByDiv.put(div, new QuotaSampler(employers.size() / DIVISION_CODE_INDICES.length));
 				if (DEBUG_LINK_EMPLOYEES) {
-					System.out.println(new Date(System.currentTimeMillis()) + ": added TIntArrayList for " + div
-							+ " to shuffledEmployerIndicesByDiv");
+					System.out.println(new Date(System.currentTimeMillis()) + ": added QuotaSampler for " + div
+							+ " to employerSamplersByDiv");
 				}
 			}
 			if (DEBUG_LINK_EMPLOYEES) {
 				System.out.println(
-						new Date(System.currentTimeMillis()) + ": DEBUG: adding employee count to shuffled index");
+						new Date(System.currentTimeMillis()) + ": DEBUG: adding employee count to sampler");
 			}
-			shuffledEmployerIndicesByDiv.get(div).addAll(Collections.nCopies(employeeCount, employerIdx));
+			employerSamplersByDiv.get(div).add(employerIdx, employeeCount);
 			if (DEBUG_LINK_EMPLOYEES) {
 				System.out.println(new Date(System.currentTimeMillis())
 						+ ": DEBUG: at the bottom of the employer loop for employerIdx = " + employerIdx);
@@ -684,14 +647,6 @@ public class CalibrateEconomy {
 		 * @@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@@
 		 */
 
-		// shuffle indices and initialise next index map
-		System.out.println(new Date(System.currentTimeMillis()) + ": shuffle indices and initialise next index map");
-		TCharIntHashMap nextDivIdx = new TCharIntHashMap((int) Math.ceil(shuffledEmployerIndicesByDiv.size() / 0.75f));
-		for (Character div : shuffledEmployerIndicesByDiv.keySet()) {
-			shuffledEmployerIndicesByDiv.get(div).trimToSize();
-			shuffledEmployerIndicesByDiv.get(div).shuffle(this.random);
-			nextDivIdx.put(div, 0);
-		}
 		// assign employees to employers (takes about 31 minutes)
 		System.out.println(new Date(System.currentTimeMillis()) + ": assign employees to employers");
 		for (int employeeIdx = 0; employeeIdx < employees.size(); employeeIdx++) {
@@ -700,11 +655,8 @@ public class CalibrateEconomy {
 			}
 			Individual employee = employees.get(employeeIdx);
 			char div = employee.getEmploymentIndustry();
-			int nextIdx = nextDivIdx.get(div);
-			Employer employer = employers.get(shuffledEmployerIndicesByDiv.get(div).get(nextIdx));
+			Employer employer = employers.get(employerSamplersByDiv.get(div).next(this.random));
 			employer.addEmployee(employee);
-			nextIdx = (nextIdx + 1) % shuffledEmployerIndicesByDiv.get(div).size();
-			nextDivIdx.put(div, nextIdx);
 		}
 		// release memory
 		System.out.println(new Date(System.currentTimeMillis()) + ": Releasing memory");
@@ -730,14 +682,8 @@ public class CalibrateEconomy {
 		}
 		employeesByDiv.clear();
 		employeesByDiv = null;
-		for (Character div : shuffledEmployerIndicesByDiv.keySet()) {
-			shuffledEmployerIndicesByDiv.get(div).clear();
-			shuffledEmployerIndicesByDiv.put(div, null);
-		}
-		shuffledEmployerIndicesByDiv.clear();
-		shuffledEmployerIndicesByDiv = null;
-		nextDivIdx.clear();
-		nextDivIdx = null;
+		employerSamplersByDiv.clear();
+		employerSamplersByDiv = null;
 	}
 
 	/**
@@ -766,31 +712,22 @@ public class CalibrateEconomy {
 		// assume all businesses have some domestic expenses
 		// get businesses with domestic revenue, by division (for specified divisions)
 		Set<String> domesticSupplierDivs = new HashSet<String>(Arrays.asList(BUSINESS_SUPPLIER_DIV_CODE));
-		// make a list of suppliers in each industry, with relative weights
-		Map<String, ArrayList<Integer>> shuffledSupplierIndicesByDiv = new HashMap<String, ArrayList<Integer>>(
+		// make a sampler of suppliers in each industry, with relative weights
+		Map<String, QuotaSampler> supplierSamplersByDiv = new HashMap<String, QuotaSampler>(
 				(int) Math.ceil(BUSINESS_SUPPLIER_DIV_CODE.length / 0.75f));
 		for (String div : BUSINESS_SUPPLIER_DIV_CODE) {
-			shuffledSupplierIndicesByDiv.put(div, new ArrayList<Integer>(
-					(int) Math.ceil(this.businesses.length / BUSINESS_SUPPLIER_DIV_CODE.length * 2f / 0.75f)));
+			supplierSamplersByDiv.put(div,
+					new QuotaSampler(this.businesses.length / BUSINESS_SUPPLIER_DIV_CODE.length));
 		}
 		for (int i = 0; i < this.businesses.length; i++) {
 			// String div = this.businesses[i].getIndustryCode();
 			String div = String.valueOf(this.businesses[i].getIndustryDivisionCode());
 			if (domesticSupplierDivs.contains(div)) {
 				float domesticSales = this.businesses[i].getSalesDomestic();
-				int businessCount = (int) Math
-						.ceil(domesticSales / totalDomesticRevenueByDiv.get(div) * this.businesses.length);
-				shuffledSupplierIndicesByDiv.get(div).addAll(Collections.nCopies(businessCount, i));
+				supplierSamplersByDiv.get(div).add(i, domesticSales, totalDomesticRevenueByDiv.get(div),
+						this.businesses.length);
 			}
 		}
-		// shuffle indices and initialise next index map
-		TObjectIntHashMap<String> nextDivIdx = new TObjectIntHashMap<String>(
-				(int) Math.ceil(shuffledSupplierIndicesByDiv.size() / 0.75f));
-		for (String div : BUSINESS_SUPPLIER_DIV_CODE) {
-			shuffledSupplierIndicesByDiv.get(div).trimToSize();
-			Collections.shuffle(shuffledSupplierIndicesByDiv.get(div), this.random);
-			nextDivIdx.put(div, 0);
-		}
 		// assign suppliers to customers
 		for (int customerIdx = 0; customerIdx < this.businesses.length; customerIdx++) {
 			Business customer = this.businesses[customerIdx];
@@ -799,11 +736,8 @@ public class CalibrateEconomy {
 			for (int supDivIdx = 0; supDivIdx < BUSINESS_SUPPLIER_DIV_CODE.length; supDivIdx++) {
 				// assign suppliers
 				String div = BUSINESS_SUPPLIER_DIV_CODE[supDivIdx];
-				int nextIdx = nextDivIdx.get(div);
-				Business supplier = this.businesses[shuffledSupplierIndicesByDiv.get(div).get(nextIdx)];
+				Business supplier = this.businesses[supplierSamplersByDiv.get(div).next(this.random)];
 				customer.addDomesticSupplier(supplier);
-				nextIdx = (nextIdx + 1) % shuffledSupplierIndicesByDiv.get(div).size();
-				nextDivIdx.put(div, nextIdx);
 
 				// calculate random numbers (not ratios yet)
 				float rand = this.random.nextFloat();
@@ -824,13 +758,8 @@ public class CalibrateEconomy {
 		totalDomesticRevenueByDiv = null;
 		domesticSupplierDivs.clear();
 		domesticSupplierDivs = null;
-		for (String div : shuffledSupplierIndicesByDiv.keySet()) {
-			shuffledSupplierIndicesByDiv.put(div, null);
-		}
-		shuffledSupplierIndicesByDiv.clear();
-		shuffledSupplierIndicesByDiv = null;
-		nextDivIdx.clear();
-		nextDivIdx = null;
+		supplierSamplersByDiv.clear();
+		supplierSamplersByDiv = null;
 
 		// link to foreign suppliers (i.e. foreign countries)
 		/**
@@ -839,7 +768,7 @@ public class CalibrateEconomy {
 		 */
 		Map<String, List<ForeignCountry>> stateCountries = new HashMap<String, List<ForeignCountry>>(
 				(int) Math.ceil(ForeignCountry.STATES.length / 0.75f));
-		Map<String, TFloatArrayList> stateCountryImportRatios = new HashMap<String, TFloatArrayList>(
+		Map<String, AliasSampler> stateCountrySamplers = new HashMap<String, AliasSampler>(
 				(int) Math.ceil(ForeignCountry.STATES.length / 0.75f));
 		TObjectFloatHashMap<String> stateImportTotal = new TObjectFloatHashMap<String>(
 				(int) Math.ceil(ForeignCountry.STATES.length / 0.75));
@@ -862,8 +791,9 @@ public class CalibrateEconomy {
 				float countryAmt = country.getAbsImportsToAustraliaForState(state);
 				ratios.add(countryAmt / stateTotal);
 			}
-			ratios.trimToSize();
-			stateCountryImportRatios.put(state, ratios);
+			if (!ratios.isEmpty()) {
+				stateCountrySamplers.put(state, new AliasSampler(ratios));
+			}
 		}
 		for (int importerIdx = 0; importerIdx < this.businesses.length; importerIdx++) {
 			// calculate country ratios within each state
@@ -873,8 +803,8 @@ public class CalibrateEconomy {
 				ArrayList<ForeignCountry> foreignSuppliers = new ArrayList<ForeignCountry>(numCountries);
 				TFloatArrayList foreignSupplierRatios = new TFloatArrayList(numCountries);
 				for (int i = 0; i < numCountries; i++) {
-					if (stateCountryImportRatios.get(state) != null) {
-						int countryIdx = CustomMath.sample(stateCountryImportRatios.get(state), this.random);
+					if (stateCountrySamplers.get(state) != null) {
+						int countryIdx = stateCountrySamplers.get(state).next(this.random);
 						foreignSuppliers.add(stateCountries.get(state).get(countryIdx));
 						foreignSupplierRatios.add(1f / numCountries);
 					}
@@ -891,11 +821,8 @@ public class CalibrateEconomy {
 		}
 		stateCountries.clear();
 		stateCountries = null;
-		for (String state : stateCountryImportRatios.keySet()) {
-			stateCountryImportRatios.get(state).clear();
-		}
-		stateCountryImportRatios.clear();
-		stateCountryImportRatios = null;
+		stateCountrySamplers.clear();
+		stateCountrySamplers = null;
 		stateImportTotal.clear();
 		stateImportTotal = null;
 
@@ -907,48 +834,36 @@ public class CalibrateEconomy {
 				.collect(Collectors.toList());
 		List<Business> renters = Arrays.asList(this.businesses).stream().filter(o -> o.getRentExpense() > 0f)
 				.collect(Collectors.toList());
-		ArrayList<Integer> shuffledIndices = new ArrayList<Integer>(renters.size());
+		QuotaSampler sampler = new QuotaSampler(landlords.size());
 		for (int i = 0; i < landlords.size(); i++) {
-			// calculate ratio of landlord to total rent
-			float landlordRentIncome = landlords.get(i).getRentIncome();
-			int landlordRenterCount = (int) Math.ceil(landlordRentIncome / totalRentIncome * renters.size());
-			shuffledIndices.addAll(Collections.nCopies(landlordRenterCount, i));
-		}
-		// shuffle indices, and assign landlords to renters
-		Collections.shuffle(shuffledIndices, this.random);
-		int nextShuffledIdx = 0;
+			// convert ratio of landlord to total rent into a quota
+			sampler.add(i, landlords.get(i).getRentIncome(), totalRentIncome, renters.size());
+		}
+		// assign landlords to renters
 		for (int i = 0; i < renters.size(); i++) {
-			renters.get(i).setLandlord(landlords.get(shuffledIndices.get(nextShuffledIdx++)));
+			renters.get(i).setLandlord(landlords.get(sampler.next(this.random)));
 		}
 		// release memory
-		shuffledIndices.clear();
-		shuffledIndices = null;
+		sampler = null;
 
 		// link to ADI (loans & deposits with same ADI)
 		// get total business loans for entire ADI industry
 		float totalLoanBal = (float) Arrays.asList(this.adis).stream().mapToDouble(o -> o.getBsLoansBusiness()).sum();
-		// populate indices with relative amounts of each ADI
-		shuffledIndices = new ArrayList<Integer>(this.businesses.length);
+		// populate sampler with relative amounts of each ADI
+		sampler = new QuotaSampler(this.adis.length);
 		for (int i = 0; i < this.adis.length; i++) {
-			// calculate ratio of ADI to total
-			float adiLoanBal = this.adis[i].getBsLoansBusiness();
-			if (adiLoanBal > 0f) {
-				// convert to indices, rounding up so we have at least enough
-				int adiCustomerCount = (int) Math.ceil(adiLoanBal / totalLoanBal * this.businesses.length);
-				shuffledIndices.addAll(Collections.nCopies(adiCustomerCount, i));
-			}
+			// convert ratio of ADI to total into a quota, rounding up so we have at least
+			// enough
+			sampler.add(i, this.adis[i].getBsLoansBusiness(), totalLoanBal, this.businesses.length);
 		}
-		// shuffle indices, and assign ADIs to Businesses
-		Collections.shuffle(shuffledIndices, this.random);
-		nextShuffledIdx = 0;
+		// assign ADIs to Businesses
 		for (int i = 0; i < this.businesses.length; i++) {
 			// Assign loan ADI to Business. It doesn't matter if the Business doesn't have a
 			// loan. We assume businesses only bank with ADIs who have business loans.
-			this.businesses[i].setAdi(this.adis[shuffledIndices.get(nextShuffledIdx++)]);
+			this.businesses[i].setAdi(this.adis[sampler.next(this.random)]);
 		}
 		// release memory
-		shuffledIndices.clear();
-		shuffledIndices = null;
+		sampler = null;
 
 		// link to Australian Government (payroll & income tax)
 		for (int i = 0; i < this.businesses.length; i++) {
@@ -987,12 +902,12 @@ public class CalibrateEconomy {
 		// make a PDF of suppliers in each industry, with relative weights
 		Map<String, ArrayList<Integer>> pdfSupplierIndicesByDiv = new HashMap<String, ArrayList<Integer>>(
 				(int) Math.ceil(ADI_SUPPLIER_DIV_CODE.length / 0.75f));
-		Map<String, ArrayList<Float>> pdfSupplierRatiosByDiv = new HashMap<String, ArrayList<Float>>(
+		Map<String, TFloatArrayList> pdfSupplierRatiosByDiv = new HashMap<String, TFloatArrayList>(
 				(int) Math.ceil(ADI_SUPPLIER_DIV_CODE.length / 0.75f));
 		for (String div : ADI_SUPPLIER_DIV_CODE) {
 			pdfSupplierIndicesByDiv.put(div, new ArrayList<Integer>(
 					(int) Math.ceil(this.businesses.length / ADI_SUPPLIER_DIV_CODE.length * 2f / 0.75f)));
-			pdfSupplierRatiosByDiv.put(div, new ArrayList<Float>(
+			pdfSupplierRatiosByDiv.put(div, new TFloatArrayList(
 					(int) Math.ceil(this.businesses.length / ADI_SUPPLIER_DIV_CODE.length * 2f / 0.75f)));
 		}
 		for (int i = 0; i < this.businesses.length; i++) {
@@ -1005,6 +920,12 @@ public class CalibrateEconomy {
 				pdfSupplierRatiosByDiv.get(div).add(businessRatio);
 			}
 		}
+		// build an alias table for each PDF, so each draw doesn't scan the whole PDF
+		Map<String, AliasSampler> supplierSamplersByDiv = new HashMap<String, AliasSampler>(
+				(int) Math.ceil(ADI_SUPPLIER_DIV_CODE.length / 0.75f));
+		for (String div : ADI_SUPPLIER_DIV_CODE) {
+			supplierSamplersByDiv.put(div, new AliasSampler(pdfSupplierRatiosByDiv.get(div)));
+		}
 		// randomly assign suppliers to ADIs
 		for (int customerIdx = 0; customerIdx < this.adis.length; customerIdx++) {
 			AuthorisedDepositTakingInstitution customer = this.adis[customerIdx];
@@ -1013,7 +934,7 @@ public class CalibrateEconomy {
 			for (int supDivIdx = 0; supDivIdx < ADI_SUPPLIER_DIV_CODE.length; supDivIdx++) {
 				String div = ADI_SUPPLIER_DIV_CODE[supDivIdx];
 				// get index within Division from PDF
-				int nextIdx = CustomMath.sample(pdfSupplierRatiosByDiv.get(div), this.random);
+				int nextIdx = supplierSamplersByDiv.get(div).next(this.random);
 				// convert to the corresponding business index
 				Business supplier = this.businesses[pdfSupplierIndicesByDiv.get(div).get(nextIdx)];
 				customer.addDomesticSupplier(supplier);
@@ -1050,37 +971,31 @@ public class CalibrateEconomy {
 		}
 		pdfSupplierRatiosByDiv.clear();
 		pdfSupplierRatiosByDiv = null;
+		supplierSamplersByDiv.clear();
+		supplierSamplersByDiv = null;
 
 		// link to retail depositors (Households)
 		// get total deposits for entire ADI industry
 		float totalDepositBal = (float) Arrays.asList(this.adis).stream().mapToDouble(o -> o.getBsDepositsAtCall())
 				.sum();
 		totalDepositBal += (float) Arrays.asList(this.adis).stream().mapToDouble(o -> o.getBsDepositsTerm()).sum();
-		// populate indices with relative amounts of each ADI
-		ArrayList<Integer> shuffledIndices = new ArrayList<Integer>(this.households.length);
+		// populate sampler with relative amounts of each ADI
+		QuotaSampler sampler = new QuotaSampler(this.adis.length);
 		for (int i = 0; i < this.adis.length; i++) {
-			// calculate ratio of ADI to total
+			// convert ratio of ADI to total into a quota, rounding up so we have at least
+			// enough
 			float adiDepositBal = this.adis[i].getBsDepositsAtCall() + this.adis[i].getBsDepositsTerm();
-			if (adiDepositBal > 0f) {
-				// convert to indices, rounding up so we have at least enough
-				int adiCustomerCount = (int) Math.ceil(adiDepositBal / totalDepositBal * this.households.length);
-				shuffledIndices.addAll(Collections.nCopies(adiCustomerCount, i));
-			}
+			sampler.add(i, adiDepositBal, totalDepositBal, this.households.length);
 		}
-		// shuffle indices, and assign ADIs to Households
-		shuffledIndices.trimToSize();
-		Collections.shuffle(shuffledIndices, this.random);
-		int nextShuffledIdx = 0;
+		// assign ADIs to Households
 		for (int i = 0; i < this.households.length; i++) {
 			if (this.households[i].getBsLoans() > 0f) {
 				// assign depositor Household to ADI
-				this.adis[shuffledIndices.get(nextShuffledIdx++)].addRetailDepositor(this.households[i]);
-				nextShuffledIdx = (nextShuffledIdx + 1) % shuffledIndices.size();
+				this.adis[sampler.next(this.random)].addRetailDepositor(this.households[i]);
 			}
 		}
 		// release memory
-		shuffledIndices.clear();
-		shuffledIndices = null;
+		sampler = null;
 
 		// link to commercial depositors (Businesses)
 		for (Business business : this.businesses) {
@@ -1261,7 +1176,7 @@ public class CalibrateEconomy {
 		 */
 		Map<String, List<ForeignCountry>> stateCountries = new HashMap<String, List<ForeignCountry>>(
 				(int) Math.ceil(ForeignCountry.STATES.length / 0.75f));
-		Map<String, List<Float>> stateCountryExportRatios = new HashMap<String, List<Float>>(
+		Map<String, AliasSampler> stateCountrySamplers = new HashMap<String, AliasSampler>(
 				(int) Math.ceil(ForeignCountry.STATES.length / 0.75f));
 		Map<String, Float> stateExportTotal = new HashMap<String, Float>(
 				(int) Math.ceil(ForeignCountry.STATES.length / 0.75));
@@ -1279,13 +1194,14 @@ public class CalibrateEconomy {
 			// calculate PDF from country ratios
 			String state = ForeignCountry.STATES[stateIdx];
 			float stateTotal = stateExportTotal.get(state);
-			ArrayList<Float> ratios = new ArrayList<Float>(stateCountries.get(state).size());
+			TFloatArrayList ratios = new TFloatArrayList(stateCountries.get(state).size());
 			for (ForeignCountry country : stateCountries.get(state)) {
 				float countryAmt = country.getAbsExportsFromAustraliaForState(state);
 				ratios.add(countryAmt / stateTotal);
 			}
-			ratios.trimToSize();
-			stateCountryExportRatios.put(state, ratios);
+			if (!ratios.isEmpty()) {
+				stateCountrySamplers.put(state, new AliasSampler(ratios));
+			}
 		}
 		for (int exporterIdx = 0; exporterIdx < this.businesses.length; exporterIdx++) {
 			// calculate country ratios within each state
@@ -1295,7 +1211,7 @@ public class CalibrateEconomy {
 				ArrayList<ForeignCountry> foreignCustomers = new ArrayList<ForeignCountry>(numCountries);
 				TFloatArrayList foreignCustomerRatios = new TFloatArrayList(numCountries);
 				for (int i = 0; i < numCountries; i++) {
-					int countryIdx = CustomMath.sample(stateCountryExportRatios.get(state), this.random);
+					int countryIdx = stateCountrySamplers.get(state).next(this.random);
 					ForeignCountry country = stateCountries.get(state).get(countryIdx);
 					foreignCustomers.add(country);
 					foreignCustomerRatios.add(1f / numCountries);
@@ -1325,7 +1241,7 @@ public class CalibrateEconomy {
 				String state = this.households[householdIdx].getState();
 
 				// assume foreign income is from a single country (e.g. a job or a pension)
-				int countryIdx = CustomMath.sample(stateCountryExportRatios.get(state), this.random);
+				int countryIdx = stateCountrySamplers.get(state).next(this.random);
 				ForeignCountry foreignIncomeSource = stateCountries.get(state).get(countryIdx);
 
 				// link household and country
@@ -1341,11 +1257,8 @@ public class CalibrateEconomy {
 		}
 		stateCountries.clear();
 		stateCountries = null;
-		for (String state : stateCountryExportRatios.keySet()) {
-			stateCountryExportRatios.get(state).clear();
-		}
-		stateCountryExportRatios.clear();
-		stateCountryExportRatios = null;
+		stateCountrySamplers.clear();
+		stateCountrySamplers = null;
 	}
 
 	/**
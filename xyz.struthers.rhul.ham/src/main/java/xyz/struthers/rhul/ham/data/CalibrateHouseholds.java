@@ -17,6 +17,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -25,12 +27,13 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import gnu.trove.map.hash.TObjectFloatHashMap;
-import gnu.trove.map.hash.TObjectIntHashMap;
+import xyz.struthers.lang.Cube;
 import xyz.struthers.lang.CustomMath;
 import xyz.struthers.rhul.ham.agent.Household;
 import xyz.struthers.rhul.ham.agent.Individual;
 import xyz.struthers.rhul.ham.config.PropertiesXml;
 import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
+import xyz.struthers.rhul.ham.config.RandomStreams;
 import xyz.struthers.rhul.ham.process.AustralianEconomy;
 import xyz.struthers.rhul.ham.process.Tax;
 
@@ -193,6 +196,16 @@ public class CalibrateHouseholds {
 	// private Map<String, Integer> lgaPeopleCount; // adjusted to 2018
 	// private Map<String, Integer> lgaDwellingsCount; // adjusted to 2018
 	private Map<String, Integer> poaIndexMap; // from Individual agent data
+	// household Bal Sht ratios from the RBA E1 & E2 data, used to calibrate each LGA
+	private float debtToIncomeRatioRbaE2;
+	private float assetsToIncomeRatioRbaE2;
+	private float cashToAssetsRbaE1;
+	private float superToAssetsRbaE1;
+	private float equitiesToAssetsRbaE1;
+	private float otherFinAssetsToAssetsRbaE1;
+	private float dwellingsToAssetsRbaE1;
+	private float otherNonFinAssetsToAssetsRbaE1;
+	private float totalLiabilitiesToAssetsRbaE1;
 	// private Map<String, Integer> lgaIndexMap;
 
 	// private static int agentNo = 0;
@@ -262,29 +275,31 @@ public class CalibrateHouseholds {
 	 * HCFMD by LGA by HIND and RNTRD<br>
 	 * Rent by household income and composition.
 	 * 
-	 * Keys: Household Income, Rent Range, LGA, Household Composition Dwelling<br>
+	 * Dimensions: Household Income, Rent Range, LGA, Household Composition
+	 * Dwelling<br>
 	 * Values: Number of dwellings
 	 */
-	private Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> censusHCFMD_LGA_HIND_RNTRD;
+	private Cube censusHCFMD_LGA_HIND_RNTRD;
 	/**
 	 * ABS Census Table Builder data:<br>
 	 * HCFMD by LGA by HIND and MRERD<br>
 	 * Mortgage payments by household income and composition.
 	 * 
-	 * Keys: Household Income, Rent Range, LGA, Household Composition Dwelling<br>
+	 * Dimensions: Household Income, Rent Range, LGA, Household Composition
+	 * Dwelling<br>
 	 * Values: Number of dwellings
 	 */
-	private Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> censusHCFMD_LGA_HIND_MRERD;
+	private Cube censusHCFMD_LGA_HIND_MRERD;
 	/**
 	 * ABS Census Table Builder data:<br>
 	 * HCFMF by LGA by FINF and CDCF<br>
 	 * Parents & children by family income and composition.
 	 * 
-	 * Keys: Family Income, Parents & Children (CDCF), LGA, Family Composition
-	 * Dwelling<br>
+	 * Dimensions: Family Income, Parents & Children (CDCF), LGA, Family
+	 * Composition Dwelling<br>
 	 * Values: Number of dwellings
 	 */
-	private Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> censusHCFMF_LGA_FINF_CDCF;
+	private Cube censusHCFMF_LGA_FINF_CDCF;
 
 	/**
 	 * Default constructor
@@ -348,14 +363,14 @@ public class CalibrateHouseholds {
 		for (String poa : poaCodes) {
 			lgaCodesIndividual.add(this.area.getLgaCodeFromPoa(poa));
 		}
-		// Keys: HIND, RNTRD, LGA, HCFMD
-		Set<String> lgaCodesRNTRD = this.censusHCFMD_LGA_HIND_RNTRD.get(ABS_HIND_RANGES[0]).get(ABS_RNTRD_RANGES[0])
-				.keySet();
-		// Keys: HIND, MRERD, LGA, HCFMD
-		Set<String> lgaCodesMRERD = this.censusHCFMD_LGA_HIND_MRERD.get(ABS_HIND_RANGES[0]).get(ABS_MRERD_RANGES[0])
-				.keySet();
-		// Keys: FINF, CDCF, LGA, HCFMD
-		Set<String> lgaCodesCDCF = this.censusHCFMF_LGA_FINF_CDCF.get(ABS_FINF_RANGES[0]).get(ABS_CDCF[0]).keySet();
+		// Dimensions: HIND, RNTRD, LGA, HCFMD
+		Set<String> lgaCodesRNTRD = this.lgaCodes(this.censusHCFMD_LGA_HIND_RNTRD, ABS_HIND_RANGES[0],
+				ABS_RNTRD_RANGES[0]);
+		// Dimensions: HIND, MRERD, LGA, HCFMD
+		Set<String> lgaCodesMRERD = this.lgaCodes(this.censusHCFMD_LGA_HIND_MRERD, ABS_HIND_RANGES[0],
+				ABS_MRERD_RANGES[0]);
+		// Dimensions: FINF, CDCF, LGA, HCFMD
+		Set<String> lgaCodesCDCF = this.lgaCodes(this.censusHCFMF_LGA_FINF_CDCF, ABS_FINF_RANGES[0], ABS_CDCF[0]);
 
 		// find intersection of LGA codes for household and individual data
 		Set<String> lgaCodesIntersection = new HashSet<String>(lgaCodesIndividual);
@@ -402,9 +417,9 @@ public class CalibrateHouseholds {
 		 */
 
 		// RBA E2 Keys: Series Name, Date
-		float debtToIncomeRatioRbaE2 = Float
+		this.debtToIncomeRatioRbaE2 = Float
 				.valueOf(this.rbaE2.get(RBA_E2_SERIESID_DEBT_TO_INCOME).get(this.calibrationDateRba)) * PERCENT;
-		float assetsToIncomeRatioRbaE2 = Float
+		this.assetsToIncomeRatioRbaE2 = Float
 				.valueOf(this.rbaE2.get(RBA_E2_SERIESID_ASSETS_TO_INCOME).get(this.calibrationDateRba)) * PERCENT;
 
 		/*
@@ -428,13 +443,13 @@ public class CalibrateHouseholds {
 		float totalLiabilitiesRbaE1 = this.rbaE1.get(RBA_E1_SERIESID_TOTAL_LIABILITIES).get(this.calibrationDateRba);
 
 		// calculate ratios within balance sheet
-		float cashToAssetsRbaE1 = cashRbaE1 / totalAssetsRbaE1;
-		float superToAssetsRbaE1 = superRbaE1 / totalAssetsRbaE1;
-		float equitiesToAssetsRbaE1 = equitiesRbaE1 / totalAssetsRbaE1;
-		float otherFinAssetsToAssetsRbaE1 = otherFinAssetsRbaE1 / totalAssetsRbaE1;
-		float dwellingsToAssetsRbaE1 = dwellingsRbaE1 / totalAssetsRbaE1;
-		float otherNonFinAssetsToAssetsRbaE1 = otherNonFinancialAssetsRbaE1 / totalAssetsRbaE1;
-		float totalLiabilitiesToAssetsRbaE1 = totalLiabilitiesRbaE1 / totalAssetsRbaE1;
+		this.cashToAssetsRbaE1 = cashRbaE1 / totalAssetsRbaE1;
+		this.superToAssetsRbaE1 = superRbaE1 / totalAssetsRbaE1;
+		this.equitiesToAssetsRbaE1 = equitiesRbaE1 / totalAssetsRbaE1;
+		this.otherFinAssetsToAssetsRbaE1 = otherFinAssetsRbaE1 / totalAssetsRbaE1;
+		this.dwellingsToAssetsRbaE1 = dwellingsRbaE1 / totalAssetsRbaE1;
+		this.otherNonFinAssetsToAssetsRbaE1 = otherNonFinancialAssetsRbaE1 / totalAssetsRbaE1;
+		this.totalLiabilitiesToAssetsRbaE1 = totalLiabilitiesRbaE1 / totalAssetsRbaE1;
 		// use debt-to-income ratio to determine total debt, then subtract from total
 		// liabilities to get other liabilities
 
@@ -468,516 +483,678 @@ public class CalibrateHouseholds {
 		// Keys: LGA, AGE5P, INCP
 		this.individualMap = this.calibrateIndividuals.getIndividualMap();
 
-		// PDF Keys: LGA, HCFMD, HIND, RNTRD/MRERD midpoints
-		float[][][][] pdfRntrd = new float[lgaCodesIntersection.size()][ABS_HCFMF.length
-				+ 1][ABS_HIND_RANGES.length][ABS_RNTRD_MIDPOINT.length];
-		float[][][][] pdfMrerd = new float[lgaCodesIntersection.size()][ABS_HCFMF.length
-				+ 1][ABS_HIND_RANGES.length][ABS_MRERD_MIDPOINT.length];
 		// Map<String, Integer> lgaIndexMap = new HashMap<String, Integer>(
 		// (int) Math.ceil(lgaCodesIntersection.size() / MAP_LOAD_FACTOR) + 1);
 		System.out.println(new Date(System.currentTimeMillis()) + ": Creating households for each LGA");
+		// each LGA draws from its own random stream, so the households don't depend on
+		// how many threads create them
+		Random[] streams = RandomStreams.split(this.properties.getRandomSeed(), RandomStreams.STAGE_HOUSEHOLDS,
+				lgaCodes.length);
+		int threadCount = this.properties.getCalibrationThreadCount();
+		ForkJoinPool pool = new ForkJoinPool(
+				threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors());
+		List<ForkJoinTask<LgaHouseholds>> tasks = new ArrayList<ForkJoinTask<LgaHouseholds>>(lgaCodes.length);
 		for (int lgaIdx = 0; lgaIdx < lgaCodes.length; lgaIdx++) {
+			int lga = lgaIdx;
+			tasks.add(pool.submit(() -> this.createHouseholdAgents(lga, lgaCodes[lga], streams[lga])));
+			// lgaIndexMap.put(lgaCodes[lgaIdx], lgaIdx);
+
+			lgaIdx++;
+		} // end for LGA
+
+		// add the households to the agent lists in LGA order
+		for (ForkJoinTask<LgaHouseholds> task : tasks) {
 			System.out.print(".");
-			String lgaCode = lgaCodes[lgaIdx];
-			// lgaIndexMap.put(lgaCode, lgaIdx);
-
-			// family members must live in the same LGA, so these must be within LGA loop
-			// create count-weighted probability density functions (PDF)
-
-			// children are <20 years old (indexes 0 to 3)
-			float[] pdfAgeChild = new float[4];
-			float[][] pdfIncpGivenAgeChild = new float[4][CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length];
-			int divisor = 0;
-			for (int ageIdx = 0; ageIdx < 4; ageIdx++) {
-				// initialise PDF for INCP given AGE5P
-				for (int incpIdx = 0; incpIdx < CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length; incpIdx++) {
-					pdfIncpGivenAgeChild[ageIdx][incpIdx] = 0f;
-				}
-				// calculate values
-				int numInAge = 0;
-				for (int incpIdx = 0; incpIdx < CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length; incpIdx++) {
-					String incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx];
-					if (this.individualMap.get(lgaCode).containsKey(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
-							&& this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
-									.containsKey(incp)) {
-						// add the number of people in this cell, if this cell contains data
-						int numInCell = this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
-								.get(incp).size();
-						pdfIncpGivenAgeChild[ageIdx][incpIdx] = Float.valueOf(numInCell);
-						numInAge += numInCell;
-					}
-				}
-				for (int incpIdx = 0; incpIdx < CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length; incpIdx++) {
-					if (numInAge == 0) {
-						pdfIncpGivenAgeChild[ageIdx][incpIdx] = 0f;
-					} else {
-						pdfIncpGivenAgeChild[ageIdx][incpIdx] = pdfIncpGivenAgeChild[ageIdx][incpIdx]
-								/ Float.valueOf(numInAge);
-					}
-				}
-				pdfAgeChild[ageIdx] = Float.valueOf(numInAge);
-				divisor += numInAge;
-			}
-			for (int ageIdx = 0; ageIdx < 3; ageIdx++) {
-				// there should always be people under 20 years old in every LGA, so no need to
-				// check that divisor != 0
-				pdfAgeChild[ageIdx] = pdfAgeChild[ageIdx] / (float) divisor;
+			LgaHouseholds lgaHouseholds = task.join();
+			this.householdAgents.addAll(lgaHouseholds.households);
+			this.individualAgents.addAll(lgaHouseholds.individuals);
+			agentId += lgaHouseholds.households.size();
+			rawFamilyCount += lgaHouseholds.rawFamilyCount;
+			nullIndividualNo += lgaHouseholds.nullIndividualNo;
+		}
+		pool.shutdown();
+
+		System.out.println();
+		System.out.println(new Date(System.currentTimeMillis()) + ": Finished creating Households");
+		System.out.println("Created " + integerFormatter.format(agentId) + " Household agents");
+		System.out.println("Failed to add " + integerFormatter.format(nullIndividualNo) + " null Individual agents");
+		System.out.println(
+				"Raw CDCF family count: " + integerFormatter.format(rawFamilyCount) + " from within creation loop");
+
+		// CDCF Dimensions: FINF, CDCF, LGA, HCFMF
+		int dataCount = (int) this.censusHCFMF_LGA_FINF_CDCF.total();
+		System.out.println("Raw CDCF family count: " + integerFormatter.format(dataCount) + " from the data itself");
+
+		// release memory
+		this.individualAgents.trimToSize();
+		this.householdAgents.trimToSize();
+		this.close();
+
+		if (DEBUG) {
+			System.gc();
+			long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+			float megabytesConsumed = (memoryAfter - memoryBefore) / 1024f / 1024f;
+			DecimalFormat decimalFormatter = new DecimalFormat("#,##0.00");
+			System.out.println(
+					">>> Memory used creating Household agents: " + decimalFormatter.format(megabytesConsumed) + "MB");
+			memoryBefore = memoryAfter;
+		}
+
+		this.addAgentsToEconomy();
+	}
+
+	/**
+	 * Creates the households in one LGA from the Individuals in that LGA. This runs
+	 * on the calibration worker pool, so it only reads the shared calibration data,
+	 * writes to the LGA's own cells of the household matrix, and draws from the
+	 * LGA's own random stream.
+	 * 
+	 * @param lgaIdx  - the index of the LGA in the household matrix
+	 * @param lgaCode - the LGA code
+	 * @param random  - the LGA's random stream
+	 * @return the LGA's households and the Individuals assigned to them
+	 */
+	private LgaHouseholds createHouseholdAgents(int lgaIdx, String lgaCode, Random random) {
+		LgaHouseholds lgaHouseholds = new LgaHouseholds();
+
+		// PDF Keys: HCFMD, HIND, RNTRD/MRERD midpoints
+		float[][][] pdfRntrd = new float[ABS_HCFMF.length + 1][ABS_HIND_RANGES.length][ABS_RNTRD_MIDPOINT.length];
+		float[][][] pdfMrerd = new float[ABS_HCFMF.length + 1][ABS_HIND_RANGES.length][ABS_MRERD_MIDPOINT.length];
+
+		// family members must live in the same LGA, so these must be within LGA loop
+		// create count-weighted probability density functions (PDF)
+
+		// children are <20 years old (indexes 0 to 3)
+		float[] pdfAgeChild = new float[4];
+		float[][] pdfIncpGivenAgeChild = new float[4][CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length];
+		int divisor = 0;
+		for (int ageIdx = 0; ageIdx < 4; ageIdx++) {
+			// initialise PDF for INCP given AGE5P
+			for (int incpIdx = 0; incpIdx < CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length; incpIdx++) {
+				pdfIncpGivenAgeChild[ageIdx][incpIdx] = 0f;
 			}
-			pdfAgeChild[3] = 1f - pdfAgeChild[0] - pdfAgeChild[1] - pdfAgeChild[2];
-
-			// parents are 20-50 years old (indexes 4 to 9)
-			float[] pdfAgeParent = new float[6];
-			divisor = 0;
-			for (int ageIdx = 4; ageIdx < 10; ageIdx++) {
-				int numInAge = 0;
-				for (String incp : CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS) {
-					if (this.individualMap.get(lgaCode).containsKey(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
-							&& this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
-									.containsKey(incp)) {
-						// add the number of people in this cell, if this cell contains data
-						numInAge += this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
-								.get(incp).size();
-					}
+			// calculate values
+			int numInAge = 0;
+			for (int incpIdx = 0; incpIdx < CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length; incpIdx++) {
+				String incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx];
+				if (this.individualMap.get(lgaCode).containsKey(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
+						&& this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
+								.containsKey(incp)) {
+					// add the number of people in this cell, if this cell contains data
+					int numInCell = this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
+							.get(incp).size();
+					pdfIncpGivenAgeChild[ageIdx][incpIdx] = Float.valueOf(numInCell);
+					numInAge += numInCell;
 				}
-				pdfAgeParent[ageIdx - 4] = Float.valueOf(numInAge);
-				divisor += numInAge;
 			}
-			for (int ageIdx = 0; ageIdx < 5; ageIdx++) {
-				pdfAgeParent[ageIdx] = pdfAgeParent[ageIdx] / (float) divisor;
+			for (int incpIdx = 0; incpIdx < CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length; incpIdx++) {
+				if (numInAge == 0) {
+					pdfIncpGivenAgeChild[ageIdx][incpIdx] = 0f;
+				} else {
+					pdfIncpGivenAgeChild[ageIdx][incpIdx] = pdfIncpGivenAgeChild[ageIdx][incpIdx]
+							/ Float.valueOf(numInAge);
+				}
 			}
-			pdfAgeParent[5] = 1f - pdfAgeParent[0] - pdfAgeParent[1] - pdfAgeParent[2] - pdfAgeParent[3]
-					- pdfAgeParent[4];
-
-			// adults are >= 20 years old (indexes 4 to 20)
-			float[] pdfAgeAdult = new float[17];
-			divisor = 0;
-			for (int ageIdx = 4; ageIdx < 21; ageIdx++) {
-				int numInAge = 0;
-				for (String incp : CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS) {
-					if (this.individualMap.get(lgaCode).containsKey(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
-							&& this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
-									.containsKey(incp)) {
-						// add the number of poeple in this cell, if this cell contains data
-						numInAge += this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
-								.get(incp).size();
-					}
+			pdfAgeChild[ageIdx] = Float.valueOf(numInAge);
+			divisor += numInAge;
+		}
+		for (int ageIdx = 0; ageIdx < 3; ageIdx++) {
+			// there should always be people under 20 years old in every LGA, so no need to
+			// check that divisor != 0
+			pdfAgeChild[ageIdx] = pdfAgeChild[ageIdx] / (float) divisor;
+		}
+		pdfAgeChild[3] = 1f - pdfAgeChild[0] - pdfAgeChild[1] - pdfAgeChild[2];
+
+		// parents are 20-50 years old (indexes 4 to 9)
+		float[] pdfAgeParent = new float[6];
+		divisor = 0;
+		for (int ageIdx = 4; ageIdx < 10; ageIdx++) {
+			int numInAge = 0;
+			for (String incp : CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS) {
+				if (this.individualMap.get(lgaCode).containsKey(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
+						&& this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
+								.containsKey(incp)) {
+					// add the number of people in this cell, if this cell contains data
+					numInAge += this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
+							.get(incp).size();
 				}
-				pdfAgeAdult[ageIdx - 4] = Float.valueOf(numInAge);
-				divisor += numInAge;
 			}
-			for (int ageIdx = 0; ageIdx < 16; ageIdx++) {
-				pdfAgeAdult[ageIdx] = pdfAgeAdult[ageIdx] / (float) divisor;
+			pdfAgeParent[ageIdx - 4] = Float.valueOf(numInAge);
+			divisor += numInAge;
+		}
+		for (int ageIdx = 0; ageIdx < 5; ageIdx++) {
+			pdfAgeParent[ageIdx] = pdfAgeParent[ageIdx] / (float) divisor;
+		}
+		pdfAgeParent[5] = 1f - pdfAgeParent[0] - pdfAgeParent[1] - pdfAgeParent[2] - pdfAgeParent[3]
+				- pdfAgeParent[4];
+
+		// adults are >= 20 years old (indexes 4 to 20)
+		float[] pdfAgeAdult = new float[17];
+		divisor = 0;
+		for (int ageIdx = 4; ageIdx < 21; ageIdx++) {
+			int numInAge = 0;
+			for (String incp : CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS) {
+				if (this.individualMap.get(lgaCode).containsKey(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
+						&& this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
+								.containsKey(incp)) {
+					// add the number of poeple in this cell, if this cell contains data
+					numInAge += this.individualMap.get(lgaCode).get(CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx])
+							.get(incp).size();
+				}
 			}
-			pdfAgeAdult[16] = 1f - pdfAgeAdult[0] - pdfAgeAdult[1] - pdfAgeAdult[2] - pdfAgeAdult[3] - pdfAgeAdult[4]
-					- pdfAgeAdult[5] - pdfAgeAdult[6] - pdfAgeAdult[7] - pdfAgeAdult[8] - pdfAgeAdult[9]
-					- pdfAgeAdult[10] - pdfAgeAdult[11] - pdfAgeAdult[12] - pdfAgeAdult[13] - pdfAgeAdult[14]
-					- pdfAgeAdult[15];
-
-			// Keys: age, income
-			Map<String, Map<String, Boolean>> makeCopies = new HashMap<String, Map<String, Boolean>>(
-					(int) Math.ceil(CalibrateIndividuals.AGE_ARRAY_ABS.length / MAP_LOAD_FACTOR) + 1);
-			Map<String, Map<String, Integer>> nextIndex = new HashMap<String, Map<String, Integer>>(
-					(int) Math.ceil(CalibrateIndividuals.AGE_ARRAY_ABS.length / MAP_LOAD_FACTOR) + 1);
-			Map<String, Map<String, List<Integer>>> randomIndividualIdx = new HashMap<String, Map<String, List<Integer>>>(
-					(int) Math.ceil(CalibrateIndividuals.AGE_ARRAY_ABS.length / MAP_LOAD_FACTOR) + 1);
-			for (String age : CalibrateIndividuals.AGE_ARRAY_ABS) {
-				makeCopies.put(age,
-						new HashMap<String, Boolean>(CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length));
-				nextIndex.put(age,
-						new HashMap<String, Integer>(CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length));
-				randomIndividualIdx.put(age,
-						new HashMap<String, List<Integer>>(CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length));
-				for (String incp : CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS) {
-					makeCopies.get(age).put(incp, false);
-					nextIndex.get(age).put(incp, 0);
-					int numIndividualsInCell = 0;
-					if (this.individualMap.containsKey(lgaCode) && this.individualMap.get(lgaCode).containsKey(age)
-							&& this.individualMap.get(lgaCode).get(age).containsKey(incp)) {
-						numIndividualsInCell = this.individualMap.get(lgaCode).get(age).get(incp).size();
-					}
-					List<Integer> range = IntStream.rangeClosed(0, numIndividualsInCell - 1).boxed()
-							.collect(Collectors.toList());
-					Collections.shuffle(range, this.random);
-					randomIndividualIdx.get(age).put(incp, range);
+			pdfAgeAdult[ageIdx - 4] = Float.valueOf(numInAge);
+			divisor += numInAge;
+		}
+		for (int ageIdx = 0; ageIdx < 16; ageIdx++) {
+			pdfAgeAdult[ageIdx] = pdfAgeAdult[ageIdx] / (float) divisor;
+		}
+		pdfAgeAdult[16] = 1f - pdfAgeAdult[0] - pdfAgeAdult[1] - pdfAgeAdult[2] - pdfAgeAdult[3] - pdfAgeAdult[4]
+				- pdfAgeAdult[5] - pdfAgeAdult[6] - pdfAgeAdult[7] - pdfAgeAdult[8] - pdfAgeAdult[9]
+				- pdfAgeAdult[10] - pdfAgeAdult[11] - pdfAgeAdult[12] - pdfAgeAdult[13] - pdfAgeAdult[14]
+				- pdfAgeAdult[15];
+
+		// Keys: age, income
+		Map<String, Map<String, Boolean>> makeCopies = new HashMap<String, Map<String, Boolean>>(
+				(int) Math.ceil(CalibrateIndividuals.AGE_ARRAY_ABS.length / MAP_LOAD_FACTOR) + 1);
+		Map<String, Map<String, Integer>> nextIndex = new HashMap<String, Map<String, Integer>>(
+				(int) Math.ceil(CalibrateIndividuals.AGE_ARRAY_ABS.length / MAP_LOAD_FACTOR) + 1);
+		Map<String, Map<String, List<Integer>>> randomIndividualIdx = new HashMap<String, Map<String, List<Integer>>>(
+				(int) Math.ceil(CalibrateIndividuals.AGE_ARRAY_ABS.length / MAP_LOAD_FACTOR) + 1);
+		for (String age : CalibrateIndividuals.AGE_ARRAY_ABS) {
+			makeCopies.put(age,
+					new HashMap<String, Boolean>(CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length));
+			nextIndex.put(age,
+					new HashMap<String, Integer>(CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length));
+			randomIndividualIdx.put(age,
+					new HashMap<String, List<Integer>>(CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS.length));
+			for (String incp : CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS) {
+				makeCopies.get(age).put(incp, false);
+				nextIndex.get(age).put(incp, 0);
+				int numIndividualsInCell = 0;
+				if (this.individualMap.containsKey(lgaCode) && this.individualMap.get(lgaCode).containsKey(age)
+						&& this.individualMap.get(lgaCode).get(age).containsKey(incp)) {
+					numIndividualsInCell = this.individualMap.get(lgaCode).get(age).get(incp).size();
 				}
+				List<Integer> range = IntStream.rangeClosed(0, numIndividualsInCell - 1).boxed()
+						.collect(Collectors.toList());
+				Collections.shuffle(range, random);
+				randomIndividualIdx.get(age).put(incp, range);
 			}
+		}
 
-			// combine MRERD and RNTRD data, and calculate ratios/multipliers. MRERD and
-			// RNTRD ratios for all categories, and family composition ratios for the
-			// non-kids family types (the ones that map to N/A in CDCF).
-			for (int hindIdx = 0; hindIdx < ABS_HIND_RANGES.length; hindIdx++) {
-				String hind = ABS_HIND_RANGES[hindIdx];
-				for (int hcfmdIdx = 0; hcfmdIdx < ABS_HCFMF.length; hcfmdIdx++) {
-					// N.B. Using HCFMF array length to iterate over HCFMD data due to the 4 extra
-					// categories in HCFMD discussed below.
-					String hcfmd = ABS_HCFMD[hcfmdIdx];
-
-					// N.B. The RNTRD and MRERD data sometimes have different total counts, so take
-					// the max and use it when determining the ratios.
-					// Keys: HIND, RNTRD, LGA, HCFMD
-					int totalDwellingsRntrd = 0;
+		// slice this LGA out of the census cubes, and look up the codes of the categories once
+		// RNTRD Dimensions: HIND, RNTRD, HCFMD
+		Cube rntrdLga = this.censusHCFMD_LGA_HIND_RNTRD.slice(2, this.censusHCFMD_LGA_HIND_RNTRD.index(2, lgaCode));
+		int[] rntrdHind = rntrdLga.indices(0, ABS_HIND_RANGES);
+		int[] rntrdCodes = rntrdLga.indices(1, ABS_RNTRD_RANGES);
+		int[] rntrdHcfmd = rntrdLga.indices(2, ABS_HCFMD);
+		// MRERD Dimensions: HIND, MRERD, HCFMD
+		Cube mrerdLga = this.censusHCFMD_LGA_HIND_MRERD.slice(2, this.censusHCFMD_LGA_HIND_MRERD.index(2, lgaCode));
+		int[] mrerdHind = mrerdLga.indices(0, ABS_HIND_RANGES);
+		int[] mrerdCodes = mrerdLga.indices(1, ABS_MRERD_RANGES);
+		int[] mrerdHcfmd = mrerdLga.indices(2, ABS_HCFMD);
+		// CDCF Dimensions: FINF, CDCF, HCFMF
+		Cube cdcfLga = this.censusHCFMF_LGA_FINF_CDCF.slice(2, this.censusHCFMF_LGA_FINF_CDCF.index(2, lgaCode));
+		int[] cdcfFinf = cdcfLga.indices(0, ABS_HIND_RANGES);
+		int[] cdcfCodes = cdcfLga.indices(1, ABS_CDCF);
+		int[] cdcfHcfmf = cdcfLga.indices(2, ABS_HCFMD);
+
+		// combine MRERD and RNTRD data, and calculate ratios/multipliers. MRERD and
+		// RNTRD ratios for all categories, and family composition ratios for the
+		// non-kids family types (the ones that map to N/A in CDCF).
+		for (int hindIdx = 0; hindIdx < ABS_HIND_RANGES.length; hindIdx++) {
+			for (int hcfmdIdx = 0; hcfmdIdx < ABS_HCFMF.length; hcfmdIdx++) {
+				// N.B. Using HCFMF array length to iterate over HCFMD data due to the 4 extra
+				// categories in HCFMD discussed below.
+
+				// N.B. The RNTRD and MRERD data sometimes have different total counts, so take
+				// the max and use it when determining the ratios.
+				// Dimensions: HIND, RNTRD, HCFMD
+				int totalDwellingsRntrd = 0;
+				for (int rntrdIdx = 0; rntrdIdx < ABS_RNTRD_RANGES.length; rntrdIdx++) {
+					totalDwellingsRntrd += rntrdLga.getInt(rntrdHind[hindIdx], rntrdCodes[rntrdIdx],
+							rntrdHcfmd[hcfmdIdx]);
+				}
+				// Dimensions: HIND, MRERD, HCFMD
+				int totalDwellingsMrerd = 0;
+				for (int mrerdIdx = 0; mrerdIdx < ABS_MRERD_RANGES.length; mrerdIdx++) {
+					totalDwellingsMrerd += mrerdLga.getInt(mrerdHind[hindIdx], mrerdCodes[mrerdIdx],
+							mrerdHcfmd[hcfmdIdx]);
+				}
+				int totalDwellingsCell = Math.max(totalDwellingsRntrd, totalDwellingsMrerd);
+
+				/*
+				 * HCFMD has these additional categories compared to HCFMF: "Lone person
+				 * household", "Group household", "Visitors only household", "Other
+				 * non-classifiable household".
+				 * 
+				 * To simplify, use the ratio between "Lone person household" and
+				 * "Group household" to split the count in the "Not applicable" category in the
+				 * HCFMF data. To ensure the family count doesn't drop data by rounding down,
+				 * multiply by the ratio to get the number of "Lone person" households, then
+				 * subtract that number from the total count of "Not applicable" households from
+				 * the HCFMF data to ensure that the model ends up with the same total number of
+				 * Households.
+				 */
+				float lonePersonRatio = 0f;
+				int lonePersonCountRntrd = 0;
+				int lonePersonCountMrerd = 0;
+				int loneAndGroupCountRntrd = 0;
+				int loneAndGroupCountMrerd = 0;
+				if (hcfmdIdx == ABS_HCFMF.length - 1) {
+					int hcfmdLone = hcfmdIdx;
+					int hcfmdGroup = hcfmdIdx + 1;
 					for (int rntrdIdx = 0; rntrdIdx < ABS_RNTRD_RANGES.length; rntrdIdx++) {
-						String rntrd = ABS_RNTRD_RANGES[rntrdIdx];
-						totalDwellingsRntrd += this.censusHCFMD_LGA_HIND_RNTRD.get(hind).get(rntrd).get(lgaCode)
-								.get(hcfmd);
+						int lone = rntrdLga.getInt(rntrdHind[hindIdx], rntrdCodes[rntrdIdx], rntrdHcfmd[hcfmdLone]);
+						int grp = rntrdLga.getInt(rntrdHind[hindIdx], rntrdCodes[rntrdIdx], rntrdHcfmd[hcfmdGroup]);
+						lonePersonCountRntrd += lone;
+						loneAndGroupCountRntrd += lone + grp;
 					}
-					// Keys: HIND, MRERD, LGA, HCFMD
-					int totalDwellingsMrerd = 0;
 					for (int mrerdIdx = 0; mrerdIdx < ABS_MRERD_RANGES.length; mrerdIdx++) {
-						String mrerd = ABS_MRERD_RANGES[mrerdIdx];
-						totalDwellingsMrerd += this.censusHCFMD_LGA_HIND_MRERD.get(hind).get(mrerd).get(lgaCode)
-								.get(hcfmd);
+						int lone = mrerdLga.getInt(mrerdHind[hindIdx], mrerdCodes[mrerdIdx], mrerdHcfmd[hcfmdLone]);
+						int grp = mrerdLga.getInt(mrerdHind[hindIdx], mrerdCodes[mrerdIdx], mrerdHcfmd[hcfmdGroup]);
+						lonePersonCountMrerd += lone;
+						loneAndGroupCountMrerd += lone + grp;
 					}
-					int totalDwellingsCell = Math.max(totalDwellingsRntrd, totalDwellingsMrerd);
-
-					/*
-					 * HCFMD has these additional categories compared to HCFMF: "Lone person
-					 * household", "Group household", "Visitors only household", "Other
-					 * non-classifiable household".
-					 * 
-					 * To simplify, use the ratio between "Lone person household" and
-					 * "Group household" to split the count in the "Not applicable" category in the
-					 * HCFMF data. To ensure the family count doesn't drop data by rounding down,
-					 * multiply by the ratio to get the number of "Lone person" households, then
-					 * subtract that number from the total count of "Not applicable" households from
-					 * the HCFMF data to ensure that the model ends up with the same total number of
-					 * Households.
-					 */
-					float lonePersonRatio = 0f;
-					int lonePersonCountRntrd = 0;
-					int lonePersonCountMrerd = 0;
-					int loneAndGroupCountRntrd = 0;
-					int loneAndGroupCountMrerd = 0;
-					if (hcfmdIdx == ABS_HCFMF.length - 1) {
-						String hcfmdLone = hcfmd;
-						String hcfmdGroup = ABS_HCFMD[hcfmdIdx + 1];
-						for (int rntrdIdx = 0; rntrdIdx < ABS_RNTRD_RANGES.length; rntrdIdx++) {
-							String rntrd = ABS_RNTRD_RANGES[rntrdIdx];
-							int lone = this.censusHCFMD_LGA_HIND_RNTRD.get(hind).get(rntrd).get(lgaCode).get(hcfmdLone);
-							int grp = this.censusHCFMD_LGA_HIND_RNTRD.get(hind).get(rntrd).get(lgaCode).get(hcfmdGroup);
-							lonePersonCountRntrd += lone;
-							loneAndGroupCountRntrd += lone + grp;
-						}
-						for (int mrerdIdx = 0; mrerdIdx < ABS_MRERD_RANGES.length; mrerdIdx++) {
-							String mrerd = ABS_MRERD_RANGES[mrerdIdx];
-							int lone = this.censusHCFMD_LGA_HIND_MRERD.get(hind).get(mrerd).get(lgaCode).get(hcfmdLone);
-							int grp = this.censusHCFMD_LGA_HIND_MRERD.get(hind).get(mrerd).get(lgaCode).get(hcfmdGroup);
-							lonePersonCountMrerd += lone;
-							loneAndGroupCountMrerd += lone + grp;
-						}
-						// "Lone person household" category in the HCFMD data
-						if ((lonePersonCountRntrd + lonePersonCountMrerd) == 0) {
-							lonePersonRatio = 0f;
-						} else if ((loneAndGroupCountRntrd + loneAndGroupCountMrerd) == 0) {
-							lonePersonRatio = 1f;
-						} else {
-							lonePersonRatio = ((float) (lonePersonCountRntrd + lonePersonCountMrerd))
-									/ ((float) (loneAndGroupCountRntrd + loneAndGroupCountMrerd));
-						}
-					} // END IF lone person ratio calc
+					// "Lone person household" category in the HCFMD data
+					if ((lonePersonCountRntrd + lonePersonCountMrerd) == 0) {
+						lonePersonRatio = 0f;
+					} else if ((loneAndGroupCountRntrd + loneAndGroupCountMrerd) == 0) {
+						lonePersonRatio = 1f;
+					} else {
+						lonePersonRatio = ((float) (lonePersonCountRntrd + lonePersonCountMrerd))
+								/ ((float) (loneAndGroupCountRntrd + loneAndGroupCountMrerd));
+					}
+				} // END IF lone person ratio calc
+
+				// calculate PDF for RNTRD
+				float restOfCell = 0f;
+				for (int rntrdIdx = 1; rntrdIdx < ABS_RNTRD_MIDPOINT.length; rntrdIdx++) {
+					pdfRntrd[hcfmdIdx][hindIdx][rntrdIdx] = ((float) rntrdLga.getInt(rntrdHind[hindIdx],
+							rntrdCodes[rntrdIdx], rntrdHcfmd[hcfmdIdx])) / (float) totalDwellingsCell;
+					restOfCell += pdfRntrd[hcfmdIdx][hindIdx][rntrdIdx];
+				}
+				pdfRntrd[hcfmdIdx][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not applicable"
+																			// into the $0 category
+				// calculate PDF for MRERD
+				restOfCell = 0f;
+				for (int mrerdIdx = 1; mrerdIdx < ABS_MRERD_MIDPOINT.length; mrerdIdx++) {
+					pdfMrerd[hcfmdIdx][hindIdx][mrerdIdx] = mrerdLga.getInt(mrerdHind[hindIdx], mrerdCodes[mrerdIdx],
+							mrerdHcfmd[hcfmdIdx]);
+					restOfCell += pdfMrerd[hcfmdIdx][hindIdx][mrerdIdx];
+				}
+				pdfMrerd[hcfmdIdx][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not applicable"
+																			// into the $0 category
+
+				// add lone person & group household PDF calcs
+				if (hcfmdIdx == ABS_HCFMF.length - 1) {
+					int hcfmdLone = hcfmdIdx;
+					int hcfmdGroup = hcfmdIdx + 1;
 
 					// calculate PDF for RNTRD
-					float restOfCell = 0f;
+					restOfCell = 0f;
 					for (int rntrdIdx = 1; rntrdIdx < ABS_RNTRD_MIDPOINT.length; rntrdIdx++) {
-						String rntrd = ABS_RNTRD_RANGES[rntrdIdx];
-						pdfRntrd[lgaIdx][hcfmdIdx][hindIdx][rntrdIdx] = ((float) this.censusHCFMD_LGA_HIND_RNTRD
-								.get(hind).get(rntrd).get(lgaCode).get(hcfmd)) / (float) totalDwellingsCell;
-						restOfCell += pdfRntrd[lgaIdx][hcfmdIdx][hindIdx][rntrdIdx];
+						pdfRntrd[hcfmdIdx][hindIdx][rntrdIdx] = ((float) rntrdLga.getInt(rntrdHind[hindIdx],
+								rntrdCodes[rntrdIdx], rntrdHcfmd[hcfmdLone])) / (float) totalDwellingsCell;
+						restOfCell += pdfRntrd[hcfmdIdx][hindIdx][rntrdIdx];
 					}
-					pdfRntrd[lgaIdx][hcfmdIdx][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not applicable"
-																				// into the $0 category
+					pdfRntrd[hcfmdIdx][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not
+																				// applicable"
+					restOfCell = 0f;
+					for (int rntrdIdx = 1; rntrdIdx < ABS_RNTRD_MIDPOINT.length; rntrdIdx++) {
+						pdfRntrd[hcfmdIdx + 1][hindIdx][rntrdIdx] = ((float) rntrdLga.getInt(rntrdHind[hindIdx],
+								rntrdCodes[rntrdIdx], rntrdHcfmd[hcfmdGroup])) / (float) totalDwellingsCell;
+						restOfCell += pdfRntrd[hcfmdIdx + 1][hindIdx][rntrdIdx];
+					}
+					pdfRntrd[hcfmdIdx + 1][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not
+																					// applicable"
+
 					// calculate PDF for MRERD
 					restOfCell = 0f;
 					for (int mrerdIdx = 1; mrerdIdx < ABS_MRERD_MIDPOINT.length; mrerdIdx++) {
-						String mrerd = ABS_MRERD_RANGES[mrerdIdx];
-						pdfMrerd[lgaIdx][hcfmdIdx][hindIdx][mrerdIdx] = this.censusHCFMD_LGA_HIND_MRERD.get(hind)
-								.get(mrerd).get(lgaCode).get(hcfmd);
-						restOfCell += pdfMrerd[lgaIdx][hcfmdIdx][hindIdx][mrerdIdx];
+						pdfRntrd[hcfmdIdx][hindIdx][mrerdIdx] = ((float) mrerdLga.getInt(mrerdHind[hindIdx],
+								mrerdCodes[mrerdIdx], mrerdHcfmd[hcfmdLone])) / (float) totalDwellingsCell;
+						restOfCell += pdfMrerd[hcfmdIdx][hindIdx][mrerdIdx];
 					}
-					pdfMrerd[lgaIdx][hcfmdIdx][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not applicable"
-																				// into the $0 category
-
-					// add lone person & group household PDF calcs
-					if (hcfmdIdx == ABS_HCFMF.length - 1) {
-						String hcfmdLone = hcfmd;
-						String hcfmdGroup = ABS_HCFMD[hcfmdIdx + 1];
-
-						// calculate PDF for RNTRD
-						restOfCell = 0f;
-						for (int rntrdIdx = 1; rntrdIdx < ABS_RNTRD_MIDPOINT.length; rntrdIdx++) {
-							String rntrd = ABS_RNTRD_RANGES[rntrdIdx];
-							pdfRntrd[lgaIdx][hcfmdIdx][hindIdx][rntrdIdx] = ((float) this.censusHCFMD_LGA_HIND_RNTRD
-									.get(hind).get(rntrd).get(lgaCode).get(hcfmdLone)) / (float) totalDwellingsCell;
-							restOfCell += pdfRntrd[lgaIdx][hcfmdIdx][hindIdx][rntrdIdx];
-						}
-						pdfRntrd[lgaIdx][hcfmdIdx][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not
-																					// applicable"
-						restOfCell = 0f;
-						for (int rntrdIdx = 1; rntrdIdx < ABS_RNTRD_MIDPOINT.length; rntrdIdx++) {
-							String rntrd = ABS_RNTRD_RANGES[rntrdIdx];
-							pdfRntrd[lgaIdx][hcfmdIdx + 1][hindIdx][rntrdIdx] = ((float) this.censusHCFMD_LGA_HIND_RNTRD
-									.get(hind).get(rntrd).get(lgaCode).get(hcfmdGroup)) / (float) totalDwellingsCell;
-							restOfCell += pdfRntrd[lgaIdx][hcfmdIdx + 1][hindIdx][rntrdIdx];
-						}
-						pdfRntrd[lgaIdx][hcfmdIdx + 1][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not
-																						// applicable"
-
-						// calculate PDF for MRERD
-						restOfCell = 0f;
-						for (int mrerdIdx = 1; mrerdIdx < ABS_MRERD_MIDPOINT.length; mrerdIdx++) {
-							String mrerd = ABS_MRERD_RANGES[mrerdIdx];
-							pdfRntrd[lgaIdx][hcfmdIdx][hindIdx][mrerdIdx] = ((float) this.censusHCFMD_LGA_HIND_MRERD
-									.get(hind).get(mrerd).get(lgaCode).get(hcfmdLone)) / (float) totalDwellingsCell;
-							restOfCell += pdfMrerd[lgaIdx][hcfmdIdx][hindIdx][mrerdIdx];
-						}
-						pdfRntrd[lgaIdx][hcfmdIdx][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not
+					pdfRntrd[hcfmdIdx][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not
+																				// applicable"
+					restOfCell = 0f;
+					for (int mrerdIdx = 1; mrerdIdx < ABS_MRERD_MIDPOINT.length; mrerdIdx++) {
+						pdfMrerd[hcfmdIdx + 1][hindIdx][mrerdIdx] = ((float) mrerdLga.getInt(mrerdHind[hindIdx],
+								mrerdCodes[mrerdIdx], mrerdHcfmd[hcfmdGroup])) / (float) totalDwellingsCell;
+						restOfCell += pdfMrerd[hcfmdIdx + 1][hindIdx][mrerdIdx];
+					}
+					pdfRntrd[hcfmdIdx + 1][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not
 																					// applicable"
-						restOfCell = 0f;
-						for (int mrerdIdx = 1; mrerdIdx < ABS_MRERD_MIDPOINT.length; mrerdIdx++) {
-							String mrerd = ABS_MRERD_RANGES[mrerdIdx];
-							pdfMrerd[lgaIdx][hcfmdIdx + 1][hindIdx][mrerdIdx] = ((float) this.censusHCFMD_LGA_HIND_MRERD
-									.get(hind).get(mrerd).get(lgaCode).get(hcfmdGroup)) / (float) totalDwellingsCell;
-							restOfCell += pdfMrerd[lgaIdx][hcfmdIdx + 1][hindIdx][mrerdIdx];
-						}
-						pdfRntrd[lgaIdx][hcfmdIdx + 1][hindIdx][0] = 1f - restOfCell; // map "Not stated" and "Not
-																						// applicable"
-					} // end lone person & group household special case
-
-					/*
-					 * That's the end of the logic to create PDFs for RNTRD/MRERD data. Next step is
-					 * to map to the CDCF data and cross-reference to calculate the number
-					 * Households in each category. We can do this in the same loop because LGA is
-					 * the same for both data sets, HIND is the same as FINF, and we're restricting
-					 * HCFMD to the indices that are the same as HCFMF, and then splitting the last
-					 * index value into lone person and group households using the ratios we just
-					 * calculated.
-					 */
-					for (int cdcfIdx = 0; cdcfIdx < ABS_CDCF.length; cdcfIdx++) {
-						String cdcf = ABS_CDCF[cdcfIdx];
-						int numAdults = Math.min(ABS_CDCF_ADULT_COUNT[cdcfIdx], 2);
-						int numChildren = Math.min(ABS_CDCF_CHILD_COUNT[cdcfIdx], 6);
-
-						// get number of families
-						int numCdcfCategories = (cdcfIdx == (ABS_CDCF.length - 1)) ? 2 : 1;
-						List<Integer> hcfmdSplitIdx = new ArrayList<Integer>(numCdcfCategories);
-						List<Integer> numFamilies = new ArrayList<Integer>(numCdcfCategories);
-
-						// Census CDCF Keys: FINF, CDCF, LGA, HCFMF
-						if (this.censusHCFMF_LGA_FINF_CDCF.containsKey(hind)
-								&& this.censusHCFMF_LGA_FINF_CDCF.get(hind).containsKey(cdcf)
-								&& this.censusHCFMF_LGA_FINF_CDCF.get(hind).get(cdcf).containsKey(lgaCode)
-								&& this.censusHCFMF_LGA_FINF_CDCF.get(hind).get(cdcf).get(lgaCode).containsKey(hcfmd)) {
-							int numFamiliesInCell = (int) Math
-									.round(this.censusHCFMF_LGA_FINF_CDCF.get(hind).get(cdcf).get(lgaCode).get(hcfmd)
-											* properties.getHouseholdMultiplier());
-
-							// count number of families in source data
-							rawFamilyCount += numFamiliesInCell;
-
-							// if it's the last HCFMD index, split between lone person & group households
-							if (numCdcfCategories == 2) {
-								int hcfmdIdxLone = hcfmdIdx;
-								int hcfmdIdxGroup = hcfmdIdx + 1;
-								hcfmdSplitIdx.add(hcfmdIdxLone);
-								hcfmdSplitIdx.add(hcfmdIdxGroup);
-								int lonePersonFamilyCount = (int) Math
-										.round(lonePersonRatio * Float.valueOf(numFamiliesInCell));
-								numFamilies.add(lonePersonFamilyCount);
-								numFamilies.add(numFamiliesInCell - lonePersonFamilyCount);
-							} else {
-								hcfmdSplitIdx.add(hcfmdIdx);
-								numFamilies.add(numFamiliesInCell);
-							}
+				} // end lone person & group household special case
+
+				/*
+				 * That's the end of the logic to create PDFs for RNTRD/MRERD data. Next step is
+				 * to map to the CDCF data and cross-reference to calculate the number
+				 * Households in each category. We can do this in the same loop because LGA is
+				 * the same for both data sets, HIND is the same as FINF, and we're restricting
+				 * HCFMD to the indices that are the same as HCFMF, and then splitting the last
+				 * index value into lone person and group households using the ratios we just
+				 * calculated.
+				 */
+				for (int cdcfIdx = 0; cdcfIdx < ABS_CDCF.length; cdcfIdx++) {
+					int numAdults = Math.min(ABS_CDCF_ADULT_COUNT[cdcfIdx], 2);
+					int numChildren = Math.min(ABS_CDCF_CHILD_COUNT[cdcfIdx], 6);
+
+					// get number of families
+					int numCdcfCategories = (cdcfIdx == (ABS_CDCF.length - 1)) ? 2 : 1;
+					List<Integer> hcfmdSplitIdx = new ArrayList<Integer>(numCdcfCategories);
+					List<Integer> numFamilies = new ArrayList<Integer>(numCdcfCategories);
+
+					// Census CDCF Dimensions: FINF, CDCF, HCFMF
+					if (cdcfLga.isPresent(cdcfFinf[hindIdx], cdcfCodes[cdcfIdx], cdcfHcfmf[hcfmdIdx])) {
+						int numFamiliesInCell = (int) Math.round(
+								cdcfLga.getInt(cdcfFinf[hindIdx], cdcfCodes[cdcfIdx], cdcfHcfmf[hcfmdIdx])
+										* properties.getHouseholdMultiplier());
+
+						// count number of families in source data
+						lgaHouseholds.rawFamilyCount += numFamiliesInCell;
+
+						// if it's the last HCFMD index, split between lone person & group households
+						if (numCdcfCategories == 2) {
+							int hcfmdIdxLone = hcfmdIdx;
+							int hcfmdIdxGroup = hcfmdIdx + 1;
+							hcfmdSplitIdx.add(hcfmdIdxLone);
+							hcfmdSplitIdx.add(hcfmdIdxGroup);
+							int lonePersonFamilyCount = (int) Math
+									.round(lonePersonRatio * Float.valueOf(numFamiliesInCell));
+							numFamilies.add(lonePersonFamilyCount);
+							numFamilies.add(numFamiliesInCell - lonePersonFamilyCount);
+						} else {
+							hcfmdSplitIdx.add(hcfmdIdx);
+							numFamilies.add(numFamiliesInCell);
 						}
+					}
 
-						// randomly sample from PDFs for RNTRD and MRERD
-						if (numFamilies.size() > 0) {
-							// this if statement avoids index 0 out of bounds errors when no families
-							for (int cdcfSplit = 0; cdcfSplit < numCdcfCategories; cdcfSplit++) {
-								for (int familyNum = 0; familyNum < numFamilies.get(cdcfSplit); familyNum++) {
-									Household household = new Household();
-
-									// household.setNumAdults(numAdults);
-									// household.setNumChildren(numChildren);
-
-									// determine Henderson poverty line based on family composition
-									float henderson = 0f;
-									if (cdcfIdx == ABS_CDCF.length - 1) {
-										if (cdcfSplit == 0) {
-											// lone person household (same as single parent with no children)
-											henderson = HENDERSON_EXCL_HOUSING_LONE_PERSON;
-										} else {
-											// group household (assume four adults, no children)
-											henderson = HENDERSON_EXCL_HOUSING_GROUP;
-										}
+					// randomly sample from PDFs for RNTRD and MRERD
+					if (numFamilies.size() > 0) {
+						// this if statement avoids index 0 out of bounds errors when no families
+						for (int cdcfSplit = 0; cdcfSplit < numCdcfCategories; cdcfSplit++) {
+							for (int familyNum = 0; familyNum < numFamilies.get(cdcfSplit); familyNum++) {
+								Household household = new Household();
+
+								// household.setNumAdults(numAdults);
+								// household.setNumChildren(numChildren);
+
+								// determine Henderson poverty line based on family composition
+								float henderson = 0f;
+								if (cdcfIdx == ABS_CDCF.length - 1) {
+									if (cdcfSplit == 0) {
+										// lone person household (same as single parent with no children)
+										henderson = HENDERSON_EXCL_HOUSING_LONE_PERSON;
 									} else {
-										if (numAdults > 1) {
-											// couple
-											henderson = CDCF_HENDERSON_EXCL_HOUSING[numChildren];
+										// group household (assume four adults, no children)
+										henderson = HENDERSON_EXCL_HOUSING_GROUP;
+									}
+								} else {
+									if (numAdults > 1) {
+										// couple
+										henderson = CDCF_HENDERSON_EXCL_HOUSING[numChildren];
+									} else {
+										// single
+										henderson = CDCF_HENDERSON_EXCL_HOUSING[numChildren + 7];
+									}
+								}
+								household.setPnlLivingExpenses(henderson); // non-discretionary living expenses
+
+								float rand = random.nextFloat();
+								int attributeIdx = CustomMath
+										.sample(pdfMrerd[hcfmdSplitIdx.get(cdcfSplit)][hindIdx], rand);
+								household.setPnlMortgageRepayments(ABS_MRERD_MIDPOINT[attributeIdx]);
+								attributeIdx = CustomMath
+										.sample(pdfRntrd[hcfmdSplitIdx.get(cdcfSplit)][hindIdx], 1f - rand);
+								household.setPnlRentExpense(ABS_RNTRD_MIDPOINT[attributeIdx]);
+
+								ArrayList<Individual> members = new ArrayList<Individual>(numAdults + numChildren);
+								ArrayList<Individual> adultMembers = new ArrayList<Individual>(numAdults);
+								int firstAdultIncpIdx = 0;
+								// assign adults
+								if (numAdults == 1) {
+									// get random age for an adult
+									int ageIdx = 0;
+									if (numChildren == 0) {
+										// get random age for an adult
+										ageIdx = CustomMath.sample(pdfAgeAdult, random) + 4;
+									} else {
+										// get random age for a parent
+										ageIdx = CustomMath.sample(pdfAgeParent, random) + 4;
+									}
+
+									// now loop through, searching to find a cell with people in it
+									ageMultipleAdultsCheck: for (int i = 0; i < 21; i++) {
+										if (randomIndividualIdx
+												.containsKey(CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 21])
+												&& randomIndividualIdx
+														.get(CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 21])
+														.size() > 0
+												&& this.individualMap.get(lgaCode).containsKey(
+														CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 21])) {
+											ageIdx = (ageIdx + i) % 21;
+											break ageMultipleAdultsCheck;
+										}
+									}
+									String age = CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx];
+
+									/*
+									 * Need to ensure there are people in the chosen cell.
+									 * 
+									 * Choose the preferred index. Then in a loop, check if there are any people in
+									 * this cell. If there are, that's the chosen index. If not, increment/decrement
+									 * the index and try again. Repeat until a populated cell is found.
+									 * 
+									 * N.B. Age is chosen from a PDF, so there should definitely be people in that
+									 * age range for this LGA - it's just the income ranges that aren't guaranteed.
+									 */
+									// income brackets align fairly well
+									String incp = null;
+									{ // limit the scope of idx
+										int idx = 0;
+										// determine the best starting point, based on income mapping
+										if (hindIdx < 14) {
+											// 1:1 mapping between income brackets
+											idx = hindIdx;
+										} else if (hindIdx == 14) {
+											// 2:1 mapping between income brackets
+											idx = 13;
 										} else {
-											// single
-											henderson = CDCF_HENDERSON_EXCL_HOUSING[numChildren + 7];
+											// all higher FINF brackets map to the highest INCP
+											idx = 14;
+										}
+										// now loop through, searching the cells to find one with people in it
+										oneAdultPeopleCheck: for (int i = 0; i < 15; i++) {
+											if (randomIndividualIdx.get(age).containsKey(
+													CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(idx + i)
+															% 15])
+													&& randomIndividualIdx.get(age).get(
+															CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(idx
+																	+ i) % 15])
+															.size() > 0) {
+												idx = (idx + i) % 15;
+												break oneAdultPeopleCheck;
+											}
 										}
+										incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[idx];
+										firstAdultIncpIdx = idx;
+									} // end limit the scope of idx
+
+									// get next random individual in this LGA, AGE5P & INCP category
+									int nextIdx = 0;
+									if (randomIndividualIdx.get(age).get(incp).size() > 0) {
+										// stay within the List bounds
+										nextIdx = nextIndex.get(age).get(incp)
+												% randomIndividualIdx.get(age).get(incp).size();
+									}
+
+									int nextIndividualIdx = randomIndividualIdx.get(age).get(incp).get(nextIdx);
+									Individual newFamilyMember = null;
+									if (makeCopies.get(age).get(incp)) {
+										// we're iterating over the list a second time (or more), so make a copy of
+										// the
+										// Individual so we don't have multiple Households pointing to the same
+										// object
+										newFamilyMember = new Individual(this.individualMap.get(lgaCode).get(age)
+												.get(incp).get(nextIndividualIdx));
+									} else {
+										// use original Individual instance
+										newFamilyMember = this.individualMap.get(lgaCode).get(age).get(incp)
+												.get(nextIndividualIdx);
 									}
-									household.setPnlLivingExpenses(henderson); // non-discretionary living expenses
-
-									float rand = this.random.nextFloat();
-									int attributeIdx = CustomMath
-											.sample(pdfMrerd[lgaIdx][hcfmdSplitIdx.get(cdcfSplit)][hindIdx], rand);
-									household.setPnlMortgageRepayments(ABS_MRERD_MIDPOINT[attributeIdx]);
-									attributeIdx = CustomMath
-											.sample(pdfRntrd[lgaIdx][hcfmdSplitIdx.get(cdcfSplit)][hindIdx], 1f - rand);
-									household.setPnlRentExpense(ABS_RNTRD_MIDPOINT[attributeIdx]);
-
-									ArrayList<Individual> members = new ArrayList<Individual>(numAdults + numChildren);
-									ArrayList<Individual> adultMembers = new ArrayList<Individual>(numAdults);
-									int firstAdultIncpIdx = 0;
-									// assign adults
-									if (numAdults == 1) {
+									members.add(newFamilyMember);
+									adultMembers.add(newFamilyMember);
+								} else {
+									// multiple adults, so income brackets not so well behaved
+									for (int adultNo = 0; adultNo < numAdults; adultNo++) {
 										// get random age for an adult
 										int ageIdx = 0;
-										if (numChildren == 0) {
-											// get random age for an adult
-											ageIdx = CustomMath.sample(pdfAgeAdult, this.random) + 4;
+										if (adultNo > 0) {
+											// base the subsequent adults' ages on the previous adult's age
+											int adultOneAgeIdx = (members.get(members.size() - 1).getAge() + 3) / 5
+													- 1;
+											if (adultOneAgeIdx == 4) {
+												// other adult is older (younger would be a child)
+												ageIdx = adultOneAgeIdx + 1;
+											} else if (adultOneAgeIdx > 18) {
+												// other adult is younger (older would probably be dead)
+												ageIdx = adultOneAgeIdx - 1;
+											} else {
+												ageIdx = adultOneAgeIdx + 1;
+											}
 										} else {
-											// get random age for a parent
-											ageIdx = CustomMath.sample(pdfAgeParent, this.random) + 4;
+											// randomly choose an age
+											if (numChildren == 0) {
+												// get random age for an adult
+												ageIdx = CustomMath.sample(pdfAgeAdult, random) + 4;
+											} else {
+												// get random age for a parent
+												ageIdx = CustomMath.sample(pdfAgeParent, random) + 4;
+											}
 										}
 
 										// now loop through, searching to find a cell with people in it
 										ageMultipleAdultsCheck: for (int i = 0; i < 21; i++) {
-											if (randomIndividualIdx
-													.containsKey(CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 21])
-													&& randomIndividualIdx
-															.get(CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 21])
+											if (randomIndividualIdx.containsKey(
+													CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 21])
+													&& randomIndividualIdx.get(
+															CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 21])
 															.size() > 0
 													&& this.individualMap.get(lgaCode).containsKey(
-															CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 21])) {
+															CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i)
+																	% 21])) {
 												ageIdx = (ageIdx + i) % 21;
 												break ageMultipleAdultsCheck;
 											}
 										}
 										String age = CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx];
 
-										/*
-										 * Need to ensure there are people in the chosen cell.
-										 * 
-										 * Choose the preferred index. Then in a loop, check if there are any people in
-										 * this cell. If there are, that's the chosen index. If not, increment/decrement
-										 * the index and try again. Repeat until a populated cell is found.
-										 * 
-										 * N.B. Age is chosen from a PDF, so there should definitely be people in that
-										 * age range for this LGA - it's just the income ranges that aren't guaranteed.
-										 */
-										// income brackets align fairly well
+										// income brackets do not align so well
 										String incp = null;
-										{ // limit the scope of idx
-											int idx = 0;
-											// determine the best starting point, based on income mapping
-											if (hindIdx < 14) {
-												// 1:1 mapping between income brackets
-												idx = hindIdx;
-											} else if (hindIdx == 14) {
-												// 2:1 mapping between income brackets
-												idx = 13;
-											} else {
-												// all higher FINF brackets map to the highest INCP
-												idx = 14;
-											}
-											// now loop through, searching the cells to find one with people in it
-											oneAdultPeopleCheck: for (int i = 0; i < 15; i++) {
+										if (hindIdx < 3) {
+											// negative and nil combined into the less than $7,800 category
+											int incpIdx = 2;
+
+											// now loop through, searching to find a cell with people in it
+											incpLowIncomeCheck: for (int i = 0; i < 15; i++) {
 												if (randomIndividualIdx.get(age).containsKey(
-														CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(idx + i)
-																% 15])
+														CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx
+																+ i) % 15])
 														&& randomIndividualIdx.get(age).get(
-																CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(idx
+																CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx
 																		+ i) % 15])
 																.size() > 0) {
-													idx = (idx + i) % 15;
-													break oneAdultPeopleCheck;
-												}
-											}
-											incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[idx];
-											firstAdultIncpIdx = idx;
-										} // end limit the scope of idx
-
-										// get next random individual in this LGA, AGE5P & INCP category
-										int nextIdx = 0;
-										if (randomIndividualIdx.get(age).get(incp).size() > 0) {
-											// stay within the List bounds
-											nextIdx = nextIndex.get(age).get(incp)
-													% randomIndividualIdx.get(age).get(incp).size();
-										}
-
-										int nextIndividualIdx = randomIndividualIdx.get(age).get(incp).get(nextIdx);
-										Individual newFamilyMember = null;
-										if (makeCopies.get(age).get(incp)) {
-											// we're iterating over the list a second time (or more), so make a copy of
-											// the
-											// Individual so we don't have multiple Households pointing to the same
-											// object
-											newFamilyMember = new Individual(this.individualMap.get(lgaCode).get(age)
-													.get(incp).get(nextIndividualIdx));
-										} else {
-											// use original Individual instance
-											newFamilyMember = this.individualMap.get(lgaCode).get(age).get(incp)
-													.get(nextIndividualIdx);
-										}
-										members.add(newFamilyMember);
-										adultMembers.add(newFamilyMember);
-									} else {
-										// multiple adults, so income brackets not so well behaved
-										for (int adultNo = 0; adultNo < numAdults; adultNo++) {
-											// get random age for an adult
-											int ageIdx = 0;
-											if (adultNo > 0) {
-												// base the subsequent adults' ages on the previous adult's age
-												int adultOneAgeIdx = (members.get(members.size() - 1).getAge() + 3) / 5
-														- 1;
-												if (adultOneAgeIdx == 4) {
-													// other adult is older (younger would be a child)
-													ageIdx = adultOneAgeIdx + 1;
-												} else if (adultOneAgeIdx > 18) {
-													// other adult is younger (older would probably be dead)
-													ageIdx = adultOneAgeIdx - 1;
-												} else {
-													ageIdx = adultOneAgeIdx + 1;
-												}
-											} else {
-												// randomly choose an age
-												if (numChildren == 0) {
-													// get random age for an adult
-													ageIdx = CustomMath.sample(pdfAgeAdult, this.random) + 4;
-												} else {
-													// get random age for a parent
-													ageIdx = CustomMath.sample(pdfAgeParent, this.random) + 4;
+													incpIdx = (incpIdx + i) % 15;
+													break incpLowIncomeCheck;
 												}
 											}
+											incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx];
+											firstAdultIncpIdx = incpIdx;
+										} else if (hindIdx > 19) {
+											// family income over $312k means two individuals over $156k
+											int incpIdx = 14;
 
 											// now loop through, searching to find a cell with people in it
-											ageMultipleAdultsCheck: for (int i = 0; i < 21; i++) {
-												if (randomIndividualIdx.containsKey(
-														CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 21])
-														&& randomIndividualIdx.get(
-																CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 21])
-																.size() > 0
-														&& this.individualMap.get(lgaCode).containsKey(
-																CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i)
-																		% 21])) {
-													ageIdx = (ageIdx + i) % 21;
-													break ageMultipleAdultsCheck;
+											incpHighIncomeCheck: for (int i = 0; i < 15; i++) {
+												if (randomIndividualIdx.get(age).containsKey(
+														CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx
+																- i])
+														&& randomIndividualIdx.get(age).get(
+																CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx
+																		- i])
+																.size() > 0) {
+													incpIdx = incpIdx - i;
+													break incpHighIncomeCheck;
 												}
 											}
-											String age = CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx];
-
-											// income brackets do not align so well
-											String incp = null;
-											if (hindIdx < 3) {
-												// negative and nil combined into the less than $7,800 category
-												int incpIdx = 2;
+											incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx];
+											firstAdultIncpIdx = incpIdx;
+										} else {
+											// everything in between can be a complicated combination
+											if (adultNo == 1) {
+												// Randomly choose an income from the range of values that allows
+												// the
+												// second
+												// adult to bring the family income up to the right range.
+												int incpIdx = 0;
+												switch (hindIdx) { // for the relevant HIND/FINF income range
+												case 3:
+													incpIdx = 3;
+													break;
+												case 4:
+													incpIdx = random.nextInt(2) + 3;
+													break;
+												case 5:
+													incpIdx = random.nextInt(3) + 3;
+													break;
+												case 6:
+													incpIdx = random.nextInt(4) + 3;
+													break;
+												case 7:
+													incpIdx = random.nextInt(5) + 3;
+													break;
+												case 8:
+													incpIdx = random.nextInt(6) + 3;
+													break;
+												case 9:
+													incpIdx = random.nextInt(7) + 3;
+													break;
+												case 10:
+													incpIdx = random.nextInt(8) + 3;
+													break;
+												case 11:
+													incpIdx = random.nextInt(9) + 3;
+													break;
+												case 12:
+													incpIdx = random.nextInt(10) + 3;
+													break;
+												case 13:
+													incpIdx = random.nextInt(11) + 3;
+													break;
+												case 14:
+													incpIdx = random.nextInt(11) + 3;
+													break;
+												case 15:
+													incpIdx = random.nextInt(12) + 3;
+													break;
+												case 16:
+													incpIdx = random.nextInt(10) + 5;
+													break;
+												case 17:
+													incpIdx = random.nextInt(7) + 8;
+													break;
+												case 18:
+													incpIdx = random.nextInt(5) + 10;
+													break;
+												default: // case 19:
+													incpIdx = random.nextInt(2) + 13;
+													break;
+												}
 
 												// now loop through, searching to find a cell with people in it
-												incpLowIncomeCheck: for (int i = 0; i < 15; i++) {
+												incpFirstAdultCheck: for (int i = 0; i < 15; i++) {
 													if (randomIndividualIdx.get(age).containsKey(
 															CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx
 																	+ i) % 15])
@@ -986,703 +1163,578 @@ public class CalibrateHouseholds {
 																			+ i) % 15])
 																	.size() > 0) {
 														incpIdx = (incpIdx + i) % 15;
-														break incpLowIncomeCheck;
-													}
-												}
-												incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx];
-												firstAdultIncpIdx = incpIdx;
-											} else if (hindIdx > 19) {
-												// family income over $312k means two individuals over $156k
-												int incpIdx = 14;
-
-												// now loop through, searching to find a cell with people in it
-												incpHighIncomeCheck: for (int i = 0; i < 15; i++) {
-													if (randomIndividualIdx.get(age).containsKey(
-															CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx
-																	- i])
-															&& randomIndividualIdx.get(age).get(
-																	CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx
-																			- i])
-																	.size() > 0) {
-														incpIdx = incpIdx - i;
-														break incpHighIncomeCheck;
+														break incpFirstAdultCheck;
 													}
 												}
 												incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx];
 												firstAdultIncpIdx = incpIdx;
 											} else {
-												// everything in between can be a complicated combination
-												if (adultNo == 1) {
-													// Randomly choose an income from the range of values that allows
-													// the
-													// second
-													// adult to bring the family income up to the right range.
-													int incpIdx = 0;
-													switch (hindIdx) { // for the relevant HIND/FINF income range
+												// Choose the income that makes the family income correct, given the
+												// first
+												// adult's income. N.B. Assumes two adults.
+												int incpIdx = 0;
+												switch (hindIdx) { // for the relevant HIND/FINF income range
+												case 3: // HIND $7800
+													incpIdx = 2;
+													break;
+												case 4: // HIND $15600
+													switch (firstAdultIncpIdx) {
+													case 3:
+														incpIdx = 3;
+													default: // case 4
+														incpIdx = 2;
+													}
+													break;
+												case 5: // HIND $20800
+													switch (firstAdultIncpIdx) {
+													case 3:
+														incpIdx = 4;
+													case 4:
+														incpIdx = 3;
+													default: // case 5
+														incpIdx = 2;
+													}
+													break;
+												case 6: // HIND $26000
+													switch (firstAdultIncpIdx) {
 													case 3:
+														incpIdx = 5;
+													case 4:
+													case 5:
+														incpIdx = 3;
+													default: // case 6
+														incpIdx = 2;
+													}
+													break;
+												case 7: // HIND $33800
+													switch (firstAdultIncpIdx) {
+													case 3:
+														incpIdx = 6;
+													case 4:
+													case 5:
+														incpIdx = 4;
+													case 6:
+														incpIdx = 3;
+													default: // case 7
+														incpIdx = 2;
+													}
+													break;
+												case 8: // HIND $41600
+													switch (firstAdultIncpIdx) {
+													case 3:
+														incpIdx = 7;
+													case 4:
+														incpIdx = 6;
+													case 5:
+														incpIdx = 5;
+													case 6:
+														incpIdx = 4;
+													case 7:
 														incpIdx = 3;
-														break;
+													default: // case 8
+														incpIdx = 2;
+													}
+													break;
+												case 9: // HIND $52k
+													switch (firstAdultIncpIdx) {
+													case 3:
+														incpIdx = 8;
 													case 4:
-														incpIdx = this.random.nextInt(2) + 3;
-														break;
 													case 5:
-														incpIdx = this.random.nextInt(3) + 3;
-														break;
+														incpIdx = 7;
 													case 6:
-														incpIdx = this.random.nextInt(4) + 3;
-														break;
+														incpIdx = 6;
 													case 7:
-														incpIdx = this.random.nextInt(5) + 3;
-														break;
+														incpIdx = 4;
 													case 8:
-														incpIdx = this.random.nextInt(6) + 3;
-														break;
+														incpIdx = 3;
+													default: // case 9
+														incpIdx = 2;
+													}
+													break;
+												case 10: // HIND $65k
+													switch (firstAdultIncpIdx) {
+													case 3:
+													case 4:
+														incpIdx = 9;
+													case 5:
+													case 6:
+														incpIdx = 8;
+													case 7:
+														incpIdx = 7;
+													case 8:
+														incpIdx = 6;
+													case 9:
+														incpIdx = 3;
+													default: // case 10
+														incpIdx = 2;
+													}
+													break;
+												case 11: // HIND $78k
+													switch (firstAdultIncpIdx) {
+													case 3:
+													case 4:
+														incpIdx = 10;
+													case 5:
+													case 6:
+														incpIdx = 9;
+													case 7:
+													case 8:
+														incpIdx = 8;
+													case 9:
+														incpIdx = 6;
+													case 10:
+														incpIdx = 3;
+													default: // case 11
+														incpIdx = 2;
+													}
+													break;
+												case 12: // HIND $91k
+													switch (firstAdultIncpIdx) {
+													case 3:
+													case 4:
+														incpIdx = 11;
+													case 5:
+													case 6:
+														incpIdx = 10;
+													case 7:
+													case 8:
+														incpIdx = 9;
+													case 9:
+														incpIdx = 8;
+													case 10:
+														incpIdx = 6;
+													case 11:
+														incpIdx = 3;
+													default: // case 12
+														incpIdx = 2;
+													}
+													break;
+												case 13: // HIND $104k
+													switch (firstAdultIncpIdx) {
+													case 3:
+													case 4:
+														incpIdx = 12;
+													case 5:
+													case 6:
+														incpIdx = 11;
+													case 7:
+													case 8:
+														incpIdx = 10;
 													case 9:
-														incpIdx = this.random.nextInt(7) + 3;
-														break;
+														incpIdx = 9;
 													case 10:
-														incpIdx = this.random.nextInt(8) + 3;
-														break;
+														incpIdx = 8;
 													case 11:
-														incpIdx = this.random.nextInt(9) + 3;
-														break;
+														incpIdx = 6;
 													case 12:
-														incpIdx = this.random.nextInt(10) + 3;
-														break;
-													case 13:
-														incpIdx = this.random.nextInt(11) + 3;
-														break;
-													case 14:
-														incpIdx = this.random.nextInt(11) + 3;
-														break;
-													case 15:
-														incpIdx = this.random.nextInt(12) + 3;
-														break;
-													case 16:
-														incpIdx = this.random.nextInt(10) + 5;
-														break;
-													case 17:
-														incpIdx = this.random.nextInt(7) + 8;
-														break;
-													case 18:
-														incpIdx = this.random.nextInt(5) + 10;
-														break;
-													default: // case 19:
-														incpIdx = this.random.nextInt(2) + 13;
-														break;
+														incpIdx = 3;
+													default: // case 13
+														incpIdx = 2;
 													}
-
-													// now loop through, searching to find a cell with people in it
-													incpFirstAdultCheck: for (int i = 0; i < 15; i++) {
-														if (randomIndividualIdx.get(age).containsKey(
-																CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx
-																		+ i) % 15])
-																&& randomIndividualIdx.get(age).get(
-																		CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx
-																				+ i) % 15])
-																		.size() > 0) {
-															incpIdx = (incpIdx + i) % 15;
-															break incpFirstAdultCheck;
-														}
+													break;
+												case 14: // HIND $130k
+													switch (firstAdultIncpIdx) {
+													case 3:
+													case 4:
+													case 5:
+													case 6:
+														incpIdx = 13;
+													case 7:
+													case 8:
+													case 9:
+														incpIdx = 12;
+													case 10:
+														incpIdx = 10;
+													case 11:
+													case 12:
+														incpIdx = 9;
+													default: // case 13
+														incpIdx = 6;
 													}
-													incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx];
-													firstAdultIncpIdx = incpIdx;
-												} else {
-													// Choose the income that makes the family income correct, given the
-													// first
-													// adult's income. N.B. Assumes two adults.
-													int incpIdx = 0;
-													switch (hindIdx) { // for the relevant HIND/FINF income range
-													case 3: // HIND $7800
+													break;
+												case 15: // HIND $156k
+													switch (firstAdultIncpIdx) {
+													case 3:
+													case 4:
+													case 5:
+													case 6:
+													case 7:
+													case 8:
+													case 9:
+														incpIdx = 13;
+													case 10:
+														incpIdx = 12;
+													case 11:
+														incpIdx = 11;
+													case 12:
+														incpIdx = 10;
+													case 13:
+														incpIdx = 9;
+													default: // case 14
 														incpIdx = 2;
-														break;
-													case 4: // HIND $15600
-														switch (firstAdultIncpIdx) {
-														case 3:
-															incpIdx = 3;
-														default: // case 4
-															incpIdx = 2;
-														}
-														break;
-													case 5: // HIND $20800
-														switch (firstAdultIncpIdx) {
-														case 3:
-															incpIdx = 4;
-														case 4:
-															incpIdx = 3;
-														default: // case 5
-															incpIdx = 2;
-														}
-														break;
-													case 6: // HIND $26000
-														switch (firstAdultIncpIdx) {
-														case 3:
-															incpIdx = 5;
-														case 4:
-														case 5:
-															incpIdx = 3;
-														default: // case 6
-															incpIdx = 2;
-														}
-														break;
-													case 7: // HIND $33800
-														switch (firstAdultIncpIdx) {
-														case 3:
-															incpIdx = 6;
-														case 4:
-														case 5:
-															incpIdx = 4;
-														case 6:
-															incpIdx = 3;
-														default: // case 7
-															incpIdx = 2;
-														}
-														break;
-													case 8: // HIND $41600
-														switch (firstAdultIncpIdx) {
-														case 3:
-															incpIdx = 7;
-														case 4:
-															incpIdx = 6;
-														case 5:
-															incpIdx = 5;
-														case 6:
-															incpIdx = 4;
-														case 7:
-															incpIdx = 3;
-														default: // case 8
-															incpIdx = 2;
-														}
-														break;
-													case 9: // HIND $52k
-														switch (firstAdultIncpIdx) {
-														case 3:
-															incpIdx = 8;
-														case 4:
-														case 5:
-															incpIdx = 7;
-														case 6:
-															incpIdx = 6;
-														case 7:
-															incpIdx = 4;
-														case 8:
-															incpIdx = 3;
-														default: // case 9
-															incpIdx = 2;
-														}
-														break;
-													case 10: // HIND $65k
-														switch (firstAdultIncpIdx) {
-														case 3:
-														case 4:
-															incpIdx = 9;
-														case 5:
-														case 6:
-															incpIdx = 8;
-														case 7:
-															incpIdx = 7;
-														case 8:
-															incpIdx = 6;
-														case 9:
-															incpIdx = 3;
-														default: // case 10
-															incpIdx = 2;
-														}
-														break;
-													case 11: // HIND $78k
-														switch (firstAdultIncpIdx) {
-														case 3:
-														case 4:
-															incpIdx = 10;
-														case 5:
-														case 6:
-															incpIdx = 9;
-														case 7:
-														case 8:
-															incpIdx = 8;
-														case 9:
-															incpIdx = 6;
-														case 10:
-															incpIdx = 3;
-														default: // case 11
-															incpIdx = 2;
-														}
-														break;
-													case 12: // HIND $91k
-														switch (firstAdultIncpIdx) {
-														case 3:
-														case 4:
-															incpIdx = 11;
-														case 5:
-														case 6:
-															incpIdx = 10;
-														case 7:
-														case 8:
-															incpIdx = 9;
-														case 9:
-															incpIdx = 8;
-														case 10:
-															incpIdx = 6;
-														case 11:
-															incpIdx = 3;
-														default: // case 12
-															incpIdx = 2;
-														}
-														break;
-													case 13: // HIND $104k
-														switch (firstAdultIncpIdx) {
-														case 3:
-														case 4:
-															incpIdx = 12;
-														case 5:
-														case 6:
-															incpIdx = 11;
-														case 7:
-														case 8:
-															incpIdx = 10;
-														case 9:
-															incpIdx = 9;
-														case 10:
-															incpIdx = 8;
-														case 11:
-															incpIdx = 6;
-														case 12:
-															incpIdx = 3;
-														default: // case 13
-															incpIdx = 2;
-														}
-														break;
-													case 14: // HIND $130k
-														switch (firstAdultIncpIdx) {
-														case 3:
-														case 4:
-														case 5:
-														case 6:
-															incpIdx = 13;
-														case 7:
-														case 8:
-														case 9:
-															incpIdx = 12;
-														case 10:
-															incpIdx = 10;
-														case 11:
-														case 12:
-															incpIdx = 9;
-														default: // case 13
-															incpIdx = 6;
-														}
-														break;
-													case 15: // HIND $156k
-														switch (firstAdultIncpIdx) {
-														case 3:
-														case 4:
-														case 5:
-														case 6:
-														case 7:
-														case 8:
-														case 9:
-															incpIdx = 13;
-														case 10:
-															incpIdx = 12;
-														case 11:
-															incpIdx = 11;
-														case 12:
-															incpIdx = 10;
-														case 13:
-															incpIdx = 9;
-														default: // case 14
-															incpIdx = 2;
-														}
-														break;
-													case 16: // HIND $182k
-														switch (firstAdultIncpIdx) {
-														case 5:
-														case 6:
-														case 7:
-															incpIdx = 14;
-														case 8:
-														case 9:
-														case 10:
-														case 11:
-															incpIdx = 13;
-														case 12:
-															incpIdx = 12;
-														case 13:
-															incpIdx = 9;
-														default: // case 14
-															incpIdx = 6;
-														}
-														break;
-													case 17: // HIND $208k
-														switch (firstAdultIncpIdx) {
-														case 8:
-														case 9:
-														case 10:
-															incpIdx = 14;
-														case 11:
-														case 12:
-														case 13:
-															incpIdx = 13;
-														default: // case 14
-															incpIdx = 9;
-														}
-														break;
-													case 18: // HIND $234k
-														switch (firstAdultIncpIdx) {
-														case 10:
-														case 11:
-															incpIdx = 14;
-														case 12:
-														case 13:
-															incpIdx = 13;
-														default: // case 14
-															incpIdx = 11;
-														}
-														break;
-													default: // case 19: // HIND $260k
-														switch (firstAdultIncpIdx) {
-														case 13:
-															incpIdx = 14;
-														default: // case 14
-															incpIdx = 13;
-														}
-														break;
 													}
-
-													// now loop through, searching to find a cell with people in it
-													incpSecondAdultCheck: for (int i = 0; i < 15; i++) {
-														if (randomIndividualIdx.get(age).containsKey(
-																CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx
-																		+ i) % 15])
-																&& randomIndividualIdx.get(age).get(
-																		CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx
-																				+ i) % 15])
-																		.size() > 0) {
-															incpIdx = (incpIdx + i) % 15;
-															break incpSecondAdultCheck;
-														}
+													break;
+												case 16: // HIND $182k
+													switch (firstAdultIncpIdx) {
+													case 5:
+													case 6:
+													case 7:
+														incpIdx = 14;
+													case 8:
+													case 9:
+													case 10:
+													case 11:
+														incpIdx = 13;
+													case 12:
+														incpIdx = 12;
+													case 13:
+														incpIdx = 9;
+													default: // case 14
+														incpIdx = 6;
 													}
-													incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx];
-													firstAdultIncpIdx = incpIdx;
-												}
-											} // end hindIdx if/switch for multiple adults
-
-											// get next random individual in this LGA, AGE5P & INCP category
-											int nextIdx = 0;
-											int nextIndividualIdx = 0;
-											if (randomIndividualIdx.get(age).get(incp).size() > 0) {
-												// stay within the List bounds
-												nextIdx = nextIndex.get(age).get(incp)
-														% randomIndividualIdx.get(age).get(incp).size();
-												nextIndividualIdx = randomIndividualIdx.get(age).get(incp).get(nextIdx);
-												nextIdx++;
-												nextIndex.get(age).put(incp, nextIdx);
-												if (nextIdx % randomIndividualIdx.get(age).get(incp).size() == 0) {
-													// reached the upper bound of the List, so set the makeCopies flag
-													// to true
-													makeCopies.get(age).put(incp, true);
+													break;
+												case 17: // HIND $208k
+													switch (firstAdultIncpIdx) {
+													case 8:
+													case 9:
+													case 10:
+														incpIdx = 14;
+													case 11:
+													case 12:
+													case 13:
+														incpIdx = 13;
+													default: // case 14
+														incpIdx = 9;
+													}
+													break;
+												case 18: // HIND $234k
+													switch (firstAdultIncpIdx) {
+													case 10:
+													case 11:
+														incpIdx = 14;
+													case 12:
+													case 13:
+														incpIdx = 13;
+													default: // case 14
+														incpIdx = 11;
+													}
+													break;
+												default: // case 19: // HIND $260k
+													switch (firstAdultIncpIdx) {
+													case 13:
+														incpIdx = 14;
+													default: // case 14
+														incpIdx = 13;
+													}
+													break;
 												}
-											}
-											Individual newFamilyMember = null;
-
-											if (makeCopies.get(age).get(incp)) {
-												/*
-												 * we're iterating over the list a second time (or more), so make a copy
-												 * of the Individual so we don't have multiple Households pointing to
-												 * the same object
-												 */
-												newFamilyMember = new Individual(this.individualMap.get(lgaCode)
-														.get(age).get(incp).get(nextIndividualIdx));
-											} else {
-												// use original Individual instance
-												newFamilyMember = this.individualMap.get(lgaCode).get(age).get(incp)
-														.get(nextIndividualIdx);
-											}
-											members.add(newFamilyMember);
-											adultMembers.add(newFamilyMember);
-										} // end Adult Number loop
-									} // end if numAdults == 1
-
-									// assign children (assume under 20 years because dependent)
-									for (int childNo = 0; childNo < numChildren; childNo++) {
-										// get random age for a child
-										int ageIdx = CustomMath.sample(pdfAgeChild, this.random);
 
-										// now loop through, searching to find a cell with people in it
-										ageChildCheck: for (int i = 0; i < 4; i++) {
-											if (randomIndividualIdx
-													.containsKey(CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 4])
-													&& randomIndividualIdx
-															.get(CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 4])
-															.size() > 0
-													&& this.individualMap.get(lgaCode).containsKey(
-															CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 4])) {
-												ageIdx = (ageIdx + i) % 4;
-												break ageChildCheck;
-											}
-										}
-										String age = CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx];
-
-										// children's income is immaterial, so just sample randomly
-										int incpIdx = CustomMath.sample(pdfIncpGivenAgeChild[ageIdx], this.random);
-										if (incpIdx < 14) {
-											// 1:1 mapping between income brackets
-											// incpIdx = incpIdx;
-										} else if (incpIdx == 14) {
-											// 2:1 mapping between income brackets
-											incpIdx = 13;
-										} else {
-											// all higher FINF brackets map to the highest INCP
-											incpIdx = 14;
-										}
-
-										// now loop through, searching to find a cell with people in it
-										incpChildCheck: for (int i = 0; i < 15; i++) {
-											if (randomIndividualIdx.get(age).containsKey(
-													CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx + i)
-															% 15])
-													&& randomIndividualIdx.get(age).get(
+												// now loop through, searching to find a cell with people in it
+												incpSecondAdultCheck: for (int i = 0; i < 15; i++) {
+													if (randomIndividualIdx.get(age).containsKey(
 															CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx
 																	+ i) % 15])
-															.size() > 0) {
-												incpIdx = (incpIdx + i) % 15;
-												break incpChildCheck;
+															&& randomIndividualIdx.get(age).get(
+																	CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx
+																			+ i) % 15])
+																	.size() > 0) {
+														incpIdx = (incpIdx + i) % 15;
+														break incpSecondAdultCheck;
+													}
+												}
+												incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx];
+												firstAdultIncpIdx = incpIdx;
 											}
-										}
-										String incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx];
+										} // end hindIdx if/switch for multiple adults
 
 										// get next random individual in this LGA, AGE5P & INCP category
 										int nextIdx = 0;
 										int nextIndividualIdx = 0;
 										if (randomIndividualIdx.get(age).get(incp).size() > 0) {
+											// stay within the List bounds
 											nextIdx = nextIndex.get(age).get(incp)
-													% randomIndividualIdx.get(age).get(incp).size(); // stay within the
-																										// List
-																										// bounds
+													% randomIndividualIdx.get(age).get(incp).size();
 											nextIndividualIdx = randomIndividualIdx.get(age).get(incp).get(nextIdx);
 											nextIdx++;
 											nextIndex.get(age).put(incp, nextIdx);
 											if (nextIdx % randomIndividualIdx.get(age).get(incp).size() == 0) {
-												// reached the upper bound of the List, so set the makeCopies flag to
-												// true
+												// reached the upper bound of the List, so set the makeCopies flag
+												// to true
 												makeCopies.get(age).put(incp, true);
 											}
 										}
 										Individual newFamilyMember = null;
 
-										if (this.individualMap.get(lgaCode).containsKey(age)
-												&& this.individualMap.get(lgaCode).get(age).containsKey(incp)
-												&& this.individualMap.get(lgaCode).get(age).get(incp).size() > 0) {
-											if (makeCopies.get(age).get(incp)) {
-												// we're iterating over the list a second time (or more), so make a copy
-												// of the Individual so we don't have multiple Households pointing to
-												// the same object
-												newFamilyMember = new Individual(this.individualMap.get(lgaCode)
-														.get(age).get(incp).get(nextIndividualIdx));
-											} else {
-												// use original Individual instance
-												newFamilyMember = this.individualMap.get(lgaCode).get(age).get(incp)
-														.get(nextIndividualIdx);
-											}
-											members.add(newFamilyMember);
+										if (makeCopies.get(age).get(incp)) {
+											/*
+											 * we're iterating over the list a second time (or more), so make a copy
+											 * of the Individual so we don't have multiple Households pointing to
+											 * the same object
+											 */
+											newFamilyMember = new Individual(this.individualMap.get(lgaCode)
+													.get(age).get(incp).get(nextIndividualIdx));
 										} else {
-											// System.out.println(
-											// "Null individual: " + lgaCode + ", " + age + ", " + incp + ".");
-											nullIndividualNo++;
+											// use original Individual instance
+											newFamilyMember = this.individualMap.get(lgaCode).get(age).get(incp)
+													.get(nextIndividualIdx);
+										}
+										members.add(newFamilyMember);
+										adultMembers.add(newFamilyMember);
+									} // end Adult Number loop
+								} // end if numAdults == 1
+
+								// assign children (assume under 20 years because dependent)
+								for (int childNo = 0; childNo < numChildren; childNo++) {
+									// get random age for a child
+									int ageIdx = CustomMath.sample(pdfAgeChild, random);
+
+									// now loop through, searching to find a cell with people in it
+									ageChildCheck: for (int i = 0; i < 4; i++) {
+										if (randomIndividualIdx
+												.containsKey(CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 4])
+												&& randomIndividualIdx
+														.get(CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 4])
+														.size() > 0
+												&& this.individualMap.get(lgaCode).containsKey(
+														CalibrateIndividuals.AGE_ARRAY_ABS[(ageIdx + i) % 4])) {
+											ageIdx = (ageIdx + i) % 4;
+											break ageChildCheck;
 										}
 									}
+									String age = CalibrateIndividuals.AGE_ARRAY_ABS[ageIdx];
+
+									// children's income is immaterial, so just sample randomly
+									int incpIdx = CustomMath.sample(pdfIncpGivenAgeChild[ageIdx], random);
+									if (incpIdx < 14) {
+										// 1:1 mapping between income brackets
+										// incpIdx = incpIdx;
+									} else if (incpIdx == 14) {
+										// 2:1 mapping between income brackets
+										incpIdx = 13;
+									} else {
+										// all higher FINF brackets map to the highest INCP
+										incpIdx = 14;
+									}
 
-									// add family members to Household
-									members.trimToSize();
-									numAdults = 0;
-									numChildren = 0;
-									for (Individual assignedMember : members) {
-										if (assignedMember.getAge() < 20) {
-											numChildren++;
-										} else {
-											numAdults++;
+									// now loop through, searching to find a cell with people in it
+									incpChildCheck: for (int i = 0; i < 15; i++) {
+										if (randomIndividualIdx.get(age).containsKey(
+												CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx + i)
+														% 15])
+												&& randomIndividualIdx.get(age).get(
+														CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[(incpIdx
+																+ i) % 15])
+														.size() > 0) {
+											incpIdx = (incpIdx + i) % 15;
+											break incpChildCheck;
 										}
 									}
-									// household.setNumAdults(numAdults);
-									// household.setNumChildren(numChildren);
-									household.setIndividuals(members.toArray(Individual[]::new));
-
-									// add LGA Code and State to household
-									household.setLgaCode(lgaCode);
-									household.setState(this.area.getStateFromLgaCode(lgaCode));
-
-									// consolidate Individual financials into Household financials
-									household.initialiseFinancialsFromIndividuals();
-
-									// adjust Other Income and Other Expenses so that net saving is 1.1%
-									float tmpIncome = household.getIncomeAfterTax();
-									float tmpExpense = household.getTotalExpenses();
-									if (tmpExpense > (tmpIncome * (1 - properties.getHouseholdSavingRatio()))) {
-										// expenses already too high, so increase other income
-										float assumedMarginalTaxRate = 0.30f;
-										float tmpSavings = tmpIncome * properties.getHouseholdSavingRatio()
-												/ (1f - assumedMarginalTaxRate);
-										// float newIncome = tmpExpense + tmpSavings;
-										float tmpIncomeExclOther = tmpIncome - household.getPnlOtherIncome();
-										float newOtherIncome = tmpExpense + tmpSavings - tmpIncomeExclOther;
-
-										// assign other income back to individuals so tax is right
-										float otherIncomeDivisor = 0f;
-										float[] adultOtherIncome = new float[adultMembers.size()];
-										for (int otherIncomeIdx = 0; otherIncomeIdx < adultMembers
-												.size(); otherIncomeIdx++) {
-											adultOtherIncome[otherIncomeIdx] = adultMembers.get(otherIncomeIdx)
-													.getGrossIncome();
-											otherIncomeDivisor += adultMembers.get(otherIncomeIdx).getGrossIncome();
-										}
-										for (int otherIncomeIdx = 0; otherIncomeIdx < adultMembers
-												.size(); otherIncomeIdx++) {
-											// calculate this adult's share of other income
-											adultOtherIncome[otherIncomeIdx] = otherIncomeDivisor < 0.01f ? 0f
-													: adultOtherIncome[otherIncomeIdx] / otherIncomeDivisor;
-											// set other income in the Individual
-											adultMembers.get(otherIncomeIdx).setPnlOtherIncome(
-													adultOtherIncome[otherIncomeIdx] * newOtherIncome);
-											// update individual income tax
-											adultMembers.get(otherIncomeIdx)
-													.setPnlIncomeTaxExpense(Tax.calculateIndividualIncomeTax(
-															adultMembers.get(otherIncomeIdx).getGrossIncome()));
+									String incp = CalibrateIndividuals.INDIVIDUAL_INCOME_RANGES_ABS[incpIdx];
+
+									// get next random individual in this LGA, AGE5P & INCP category
+									int nextIdx = 0;
+									int nextIndividualIdx = 0;
+									if (randomIndividualIdx.get(age).get(incp).size() > 0) {
+										nextIdx = nextIndex.get(age).get(incp)
+												% randomIndividualIdx.get(age).get(incp).size(); // stay within the
+																									// List
+																									// bounds
+										nextIndividualIdx = randomIndividualIdx.get(age).get(incp).get(nextIdx);
+										nextIdx++;
+										nextIndex.get(age).put(incp, nextIdx);
+										if (nextIdx % randomIndividualIdx.get(age).get(incp).size() == 0) {
+											// reached the upper bound of the List, so set the makeCopies flag to
+											// true
+											makeCopies.get(age).put(incp, true);
 										}
-										// update household income tax
-										float tmpHouseholdIncomeTax = 0f;
-										for (Individual tmpMember : members) {
-											tmpHouseholdIncomeTax += tmpMember.getPnlIncomeTaxExpense();
+									}
+									Individual newFamilyMember = null;
+
+									if (this.individualMap.get(lgaCode).containsKey(age)
+											&& this.individualMap.get(lgaCode).get(age).containsKey(incp)
+											&& this.individualMap.get(lgaCode).get(age).get(incp).size() > 0) {
+										if (makeCopies.get(age).get(incp)) {
+											// we're iterating over the list a second time (or more), so make a copy
+											// of the Individual so we don't have multiple Households pointing to
+											// the same object
+											newFamilyMember = new Individual(this.individualMap.get(lgaCode)
+													.get(age).get(incp).get(nextIndividualIdx));
+										} else {
+											// use original Individual instance
+											newFamilyMember = this.individualMap.get(lgaCode).get(age).get(incp)
+													.get(nextIndividualIdx);
 										}
-										household.setPnlIncomeTaxExpense(tmpHouseholdIncomeTax);
+										members.add(newFamilyMember);
 									} else {
-										// income is sufficient, so increase discretionary spending
-										float tmpSavings = tmpIncome * properties.getHouseholdSavingRatio();
-										float newTotalExpenses = tmpIncome - tmpSavings;
-										float tmpExpenseExclOther = tmpExpense
-												- household.getPnlOtherDiscretionaryExpenses();
-										float newOtherExpenses = newTotalExpenses - tmpExpenseExclOther;
-										household.setPnlOtherDiscretionaryExpenses(newOtherExpenses);
+										// System.out.println(
+										// "Null individual: " + lgaCode + ", " + age + ", " + incp + ".");
+										lgaHouseholds.nullIndividualNo++;
 									}
+								}
+
+								// add family members to Household
+								members.trimToSize();
+								numAdults = 0;
+								numChildren = 0;
+								for (Individual assignedMember : members) {
+									if (assignedMember.getAge() < 20) {
+										numChildren++;
+									} else {
+										numAdults++;
+									}
+								}
+								// household.setNumAdults(numAdults);
+								// household.setNumChildren(numChildren);
+								household.setIndividuals(members.toArray(Individual[]::new));
+
+								// add LGA Code and State to household
+								household.setLgaCode(lgaCode);
+								household.setState(this.area.getStateFromLgaCode(lgaCode));
+
+								// consolidate Individual financials into Household financials
+								household.initialiseFinancialsFromIndividuals();
+
+								// adjust Other Income and Other Expenses so that net saving is 1.1%
+								float tmpIncome = household.getIncomeAfterTax();
+								float tmpExpense = household.getTotalExpenses();
+								if (tmpExpense > (tmpIncome * (1 - properties.getHouseholdSavingRatio()))) {
+									// expenses already too high, so increase other income
+									float assumedMarginalTaxRate = 0.30f;
+									float tmpSavings = tmpIncome * properties.getHouseholdSavingRatio()
+											/ (1f - assumedMarginalTaxRate);
+									// float newIncome = tmpExpense + tmpSavings;
+									float tmpIncomeExclOther = tmpIncome - household.getPnlOtherIncome();
+									float newOtherIncome = tmpExpense + tmpSavings - tmpIncomeExclOther;
+
+									// assign other income back to individuals so tax is right
+									float otherIncomeDivisor = 0f;
+									float[] adultOtherIncome = new float[adultMembers.size()];
+									for (int otherIncomeIdx = 0; otherIncomeIdx < adultMembers
+											.size(); otherIncomeIdx++) {
+										adultOtherIncome[otherIncomeIdx] = adultMembers.get(otherIncomeIdx)
+												.getGrossIncome();
+										otherIncomeDivisor += adultMembers.get(otherIncomeIdx).getGrossIncome();
+									}
+									for (int otherIncomeIdx = 0; otherIncomeIdx < adultMembers
+											.size(); otherIncomeIdx++) {
+										// calculate this adult's share of other income
+										adultOtherIncome[otherIncomeIdx] = otherIncomeDivisor < 0.01f ? 0f
+												: adultOtherIncome[otherIncomeIdx] / otherIncomeDivisor;
+										// set other income in the Individual
+										adultMembers.get(otherIncomeIdx).setPnlOtherIncome(
+												adultOtherIncome[otherIncomeIdx] * newOtherIncome);
+										// update individual income tax
+										adultMembers.get(otherIncomeIdx)
+												.setPnlIncomeTaxExpense(Tax.calculateIndividualIncomeTax(
+														adultMembers.get(otherIncomeIdx).getGrossIncome()));
+									}
+									// update household income tax
+									float tmpHouseholdIncomeTax = 0f;
+									for (Individual tmpMember : members) {
+										tmpHouseholdIncomeTax += tmpMember.getPnlIncomeTaxExpense();
+									}
+									household.setPnlIncomeTaxExpense(tmpHouseholdIncomeTax);
+								} else {
+									// income is sufficient, so increase discretionary spending
+									float tmpSavings = tmpIncome * properties.getHouseholdSavingRatio();
+									float newTotalExpenses = tmpIncome - tmpSavings;
+									float tmpExpenseExclOther = tmpExpense
+											- household.getPnlOtherDiscretionaryExpenses();
+									float newOtherExpenses = newTotalExpenses - tmpExpenseExclOther;
+									household.setPnlOtherDiscretionaryExpenses(newOtherExpenses);
+								}
+
+								// calibrate Bal Sht based on RBA data
+								// all ratios are based on gross income from P&L already calibrated
+								float grossIncome = household.getGrossIncome();
+
+								// set assets based on RBA ratios
+								float totalAssets = this.assetsToIncomeRatioRbaE2 * grossIncome;
+								float cash = this.cashToAssetsRbaE1 * totalAssets;
+								float existingBankDeposits = household.getBsBankDeposits();
+								float calculatedCash = Math.max(cash, existingBankDeposits);
+								float superannuation = this.superToAssetsRbaE1 * totalAssets;
+								float equities = this.equitiesToAssetsRbaE1 * totalAssets;
+								float otherFinAssets = this.otherFinAssetsToAssetsRbaE1 * totalAssets;
+								float dwellings = this.dwellingsToAssetsRbaE1 * totalAssets;
+								float otherNonFinAssets = this.otherNonFinAssetsToAssetsRbaE1 * totalAssets;
+								// float calculatedTotalAssets = totalAssets - cash + Math.max(cash,
+								// calculatedCash);
+								household.setBsBankDeposits(calculatedCash);
+								household.setBsSuperannuation(superannuation);
+								household.setBsEquities(equities);
+								household.setBsOtherFinancialAssets(otherFinAssets);
+								household.setBsResidentialLandAndDwellings(dwellings);
+								household.setBsOtherNonFinancialAssets(otherNonFinAssets);
+								// household.setBsTotalAssets(calculatedTotalAssets);
+
+								// set liabilities based on RBA ratios
+								float totalLiabilities = this.totalLiabilitiesToAssetsRbaE1 * totalAssets;
+								float totalDebt = this.debtToIncomeRatioRbaE2 * grossIncome;
+								float existingStudentLoans = household.getBsStudentLoans();
+								float calculatedLoanBal = Math.max(totalDebt - existingStudentLoans,
+										existingStudentLoans);
+								float calculatedOtherLiabilities = Math
+										.max(totalLiabilities - Math.max(totalDebt, existingStudentLoans), 0f);
+								// float calculatedTotalLiabilities = calculatedLoanBal + existingStudentLoans
+								// + calculatedOtherLiabilities;
+								household.setBsLoans(calculatedLoanBal);
+								household.setBsOtherLiabilities(calculatedOtherLiabilities);
+								// household.setBsTotalLiabilities(calculatedTotalLiabilities);
+
+								// add Individuals and Households to more permanent data structures
+								// add to matrix so it has LGA data and can be used to calibrate topology
+								ArrayList<Household> existingHouseholds = this.householdMatrix.get(lgaIdx)
+										.get(hindIdx).get(cdcfIdx);
+								existingHouseholds.add(household);
+								this.householdMatrix.get(lgaIdx).get(hindIdx).add(cdcfIdx, existingHouseholds);
+
+								// add to List so they can be used in Payments Clearing algorithm
+								lgaHouseholds.households.add(household);
+								lgaHouseholds.individuals.addAll(members);
+
+							} // end family number loop
+
+						} // end cdcf split loop
+					} // end numFamilies.size() > 0 if statement
+
+					this.householdMatrix.get(lgaIdx).get(hindIdx).get(cdcfIdx).trimToSize();
+				} // end for CDCF
+
+			} // end for HCFMD
+
+		} // end for HIND
+
+		// merge the combined MRERD/RNTRD data with the CDCF data (using pdf sampling?)
+
+		// Individual Matrix Keys: postcode, sex, age, industry division, income (ABS
+		// categories)
+		// convert to: LGA, income
 
-									// calibrate Bal Sht based on RBA data
-									// all ratios are based on gross income from P&L already calibrated
-									float grossIncome = household.getGrossIncome();
-
-									// set assets based on RBA ratios
-									float totalAssets = assetsToIncomeRatioRbaE2 * grossIncome;
-									float cash = cashToAssetsRbaE1 * totalAssets;
-									float existingBankDeposits = household.getBsBankDeposits();
-									float calculatedCash = Math.max(cash, existingBankDeposits);
-									float superannuation = superToAssetsRbaE1 * totalAssets;
-									float equities = equitiesToAssetsRbaE1 * totalAssets;
-									float otherFinAssets = otherFinAssetsToAssetsRbaE1 * totalAssets;
-									float dwellings = dwellingsToAssetsRbaE1 * totalAssets;
-									float otherNonFinAssets = otherNonFinAssetsToAssetsRbaE1 * totalAssets;
-									// float calculatedTotalAssets = totalAssets - cash + Math.max(cash,
-									// calculatedCash);
-									household.setBsBankDeposits(calculatedCash);
-									household.setBsSuperannuation(superannuation);
-									household.setBsEquities(equities);
-									household.setBsOtherFinancialAssets(otherFinAssets);
-									household.setBsResidentialLandAndDwellings(dwellings);
-									household.setBsOtherNonFinancialAssets(otherNonFinAssets);
-									// household.setBsTotalAssets(calculatedTotalAssets);
-
-									// set liabilities based on RBA ratios
-									float totalLiabilities = totalLiabilitiesToAssetsRbaE1 * totalAssets;
-									float totalDebt = debtToIncomeRatioRbaE2 * grossIncome;
-									float existingStudentLoans = household.getBsStudentLoans();
-									float calculatedLoanBal = Math.max(totalDebt - existingStudentLoans,
-											existingStudentLoans);
-									float calculatedOtherLiabilities = Math
-											.max(totalLiabilities - Math.max(totalDebt, existingStudentLoans), 0f);
-									// float calculatedTotalLiabilities = calculatedLoanBal + existingStudentLoans
-									// + calculatedOtherLiabilities;
-									household.setBsLoans(calculatedLoanBal);
-									household.setBsOtherLiabilities(calculatedOtherLiabilities);
-									// household.setBsTotalLiabilities(calculatedTotalLiabilities);
-
-									// add Individuals and Households to more permanent data structures
-									// add to matrix so it has LGA data and can be used to calibrate topology
-									ArrayList<Household> existingHouseholds = this.householdMatrix.get(lgaIdx)
-											.get(hindIdx).get(cdcfIdx);
-									existingHouseholds.add(household);
-									this.householdMatrix.get(lgaIdx).get(hindIdx).add(cdcfIdx, existingHouseholds);
-
-									// add to List so they can be used in Payments Clearing algorithm
-									this.householdAgents.add(household);
-									this.individualAgents.addAll(members);
-
-									agentId++;
-
-								} // end family number loop
-
-							} // end cdcf split loop
-						} // end numFamilies.size() > 0 if statement
-
-						this.householdMatrix.get(lgaIdx).get(hindIdx).get(cdcfIdx).trimToSize();
-					} // end for CDCF
-
-				} // end for HCFMD
-
-			} // end for HIND
-
-			// merge the combined MRERD/RNTRD data with the CDCF data (using pdf sampling?)
-
-			// Individual Matrix Keys: postcode, sex, age, industry division, income (ABS
-			// categories)
-			// convert to: LGA, income
-
-			/*
-			 * HCFMD has these additional categories compared to HCFMF: "Lone person
-			 * household", "Group household", "Visitors only household", "Other
-			 * non-classifiable household"
-			 */
-
-			// assign individuals to households using PDF sampling
-
-			// add households to matrix and list
-			// (matrix to enable easier links when creating network topology)
-
-			lgaIdx++;
-		} // end for LGA
-
-		System.out.println();
-		System.out.println(new Date(System.currentTimeMillis()) + ": Finished creating Households");
-		System.out.println("Created " + integerFormatter.format(agentId) + " Household agents");
-		System.out.println("Failed to add " + integerFormatter.format(nullIndividualNo) + " null Individual agents");
-		System.out.println(
-				"Raw CDCF family count: " + integerFormatter.format(rawFamilyCount) + " from within creation loop");
+		/*
+		 * HCFMD has these additional categories compared to HCFMF: "Lone person
+		 * household", "Group household", "Visitors only household", "Other
+		 * non-classifiable household"
+		 */
 
-		// CDCF Keys: FINF, CDCF, LGA, HCFMF
-		int dataCount = 0;
-		for (String finf2 : this.censusHCFMF_LGA_FINF_CDCF.keySet()) {
-			for (String cdcf2 : this.censusHCFMF_LGA_FINF_CDCF.get(finf2).keySet()) {
-				for (String lga2 : this.censusHCFMF_LGA_FINF_CDCF.get(finf2).get(cdcf2).keySet()) {
-					for (String hcfmf2 : this.censusHCFMF_LGA_FINF_CDCF.get(finf2).get(cdcf2).get(lga2).keySet()) {
-						dataCount += this.censusHCFMF_LGA_FINF_CDCF.get(finf2).get(cdcf2).get(lga2).get(hcfmf2);
-					}
-				}
-			}
-		}
-		System.out.println("Raw CDCF family count: " + integerFormatter.format(dataCount) + " from the data itself");
+		// assign individuals to households using PDF sampling
 
-		// release memory
-		this.individualAgents.trimToSize();
-		this.householdAgents.trimToSize();
-		this.close();
+		// add households to matrix and list
+		// (matrix to enable easier links when creating network topology)
 
-		if (DEBUG) {
-			System.gc();
-			long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
-			float megabytesConsumed = (memoryAfter - memoryBefore) / 1024f / 1024f;
-			DecimalFormat decimalFormatter = new DecimalFormat("#,##0.00");
-			System.out.println(
-					">>> Memory used creating Household agents: " + decimalFormatter.format(megabytesConsumed) + "MB");
-			memoryBefore = memoryAfter;
-		}
+		return lgaHouseholds;
+	}
 
-		this.addAgentsToEconomy();
+	/**
+	 * @param census - a census cube whose third dimension is LGA
+	 * @param key0   - the key to fix the first dimension at
+	 * @param key1   - the key to fix the second dimension at
+	 * @return the LGA codes that have data for the first two keys
+	 */
+	private Set<String> lgaCodes(Cube census, String key0, String key1) {
+		Cube lgas = census.slice(0, census.index(0, key0)).slice(0, census.index(1, key1));
+		return new HashSet<String>(lgas.presentKeys(0));
 	}
 
 	private void addAgentsToEconomy() {
@@ -1800,4 +1852,15 @@ public class CalibrateHouseholds {
 		this.economy = economy;
 	}
 
+
+	/**
+	 * The households created in one LGA, and the counts that are totalled across
+	 * all LGAs once they've been added to the agent lists.
+	 */
+	private static class LgaHouseholds {
+		final ArrayList<Household> households = new ArrayList<Household>();
+		final ArrayList<Individual> individuals = new ArrayList<Individual>();
+		int rawFamilyCount = 0;
+		int nullIndividualNo = 0;
+	}
 }
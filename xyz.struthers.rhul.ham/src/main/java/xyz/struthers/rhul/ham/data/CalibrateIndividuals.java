@@ -18,16 +18,20 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import gnu.trove.map.hash.TObjectFloatHashMap;
+import xyz.struthers.lang.Cube;
 import xyz.struthers.lang.CustomMath;
 import xyz.struthers.rhul.ham.agent.Individual;
 import xyz.struthers.rhul.ham.config.PropertiesXml;
 import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
+import xyz.struthers.rhul.ham.config.RandomStreams;
 import xyz.struthers.rhul.ham.process.Tax;
 
 /**
@@ -247,12 +251,12 @@ public class CalibrateIndividuals {
 	 * SEXP by POA (UR) by AGE5P, INDP and INCP<br>
 	 * Individual income by industry and demographic.
 	 * 
-	 * Keys: Age5, Industry Division, Personal Income, POA, Sex<br>
+	 * Dimensions: Age5, Industry Division, Personal Income, POA, Sex<br>
 	 * Values: Number of persons
 	 */
 	// private Map<String, Map<String, Map<String, Map<String, Map<String,
 	// Float>>>>> censusSEXP_POA_AGE5P_INDP_INCP;
-	private Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>> censusSEXP_POA_AGE5P_INDP_INCP;
+	private Cube censusSEXP_POA_AGE5P_INDP_INCP;
 
 	/**
 	 * 
@@ -761,11 +765,13 @@ public class CalibrateIndividuals {
 		System.out.println(new Date(System.currentTimeMillis()) + ": 4. Census ABS/ATO population multipliers");
 
 		// ATO 6B Keys: Series Title, Post Code
-		// censusSEXP_POA_AGE5P_INDP_INCP Keys: Age5, Industry Division, Personal
-		// Income, POA, Sex<br>
+		// censusSEXP_POA_AGE5P_INDP_INCP Dimensions: Age5, Industry Division,
+		// Personal Income, POA, Sex<br>
+		Cube census = this.censusSEXP_POA_AGE5P_INDP_INCP;
 		Set<String> poaSetAto = this.atoIndividualTable6b.get(ATO_6B_TITLE_TAXABLE_COUNT).keySet();
-		Set<String> poaSetAbs = this.censusSEXP_POA_AGE5P_INDP_INCP.get(AGE_ARRAY_ABS[5]).get(DIVISION_CODE_ARRAY[0])
-				.get(INDIVIDUAL_INCOME_RANGES_ABS[2]).keySet(); // was 1
+		Set<String> poaSetAbs = new HashSet<String>(census.slice(0, census.index(0, AGE_ARRAY_ABS[5]))
+				.slice(0, census.index(1, DIVISION_CODE_ARRAY[0]))
+				.slice(0, census.index(2, INDIVIDUAL_INCOME_RANGES_ABS[2])).presentKeys(0)); // was 1
 		Set<String> poaSetIntersection = new HashSet<String>(poaSetAto);
 		poaSetIntersection.retainAll(poaSetAbs); // gets just the POAs that appear in both ATO and ABS data
 		Map<String, List<String>> poasInEachLga = new HashMap<String, List<String>>(MAP_LGA_INIT_CAPACITY);
@@ -806,28 +812,38 @@ public class CalibrateIndividuals {
 			}
 			i++;
 		}
-		// convert CSV map data into matrix, and adjust population forward to 2018
+		// convert census data into matrix, and adjust population forward to 2018
+		// look up each POA's and sex's position in the census cube once, rather than per cell
+		int[] poaIndices = new int[poaSetIntersection.size()];
+		int[] poaOffsets = new int[poaSetIntersection.size()];
+		int p = 0;
+		for (String poa : poaSetIntersection) {
+			poaIndices[p] = this.poaIndexMap.get(poa);
+			poaOffsets[p] = census.index(3, poa) * census.stride(3);
+			p++;
+		}
+		int[] sexCodes = census.indices(4, SEX_ARRAY);
 		for (String age : AGE_ARRAY_ABS) {
 			int ageIdx = ageIndexMap.get(age);
+			int ageCode = census.index(0, age);
 			for (String divisionCode : DIVISION_CODE_ARRAY) {
 				int divIdx = divIndexMap.get(divisionCode);
+				int divCode = census.index(1, divisionCode);
 				// String divDescr = this.abs1292_0_55_002ANZSIC.get("Division Code to
 				// Division").get(divisionCode);
 				for (String incomeRange : INDIVIDUAL_INCOME_RANGES_ABS) {
 					int incomeIdx = individualIncomeIndexMap.get(incomeRange);
-					for (String poa : poaSetIntersection) {
-						int poaIdx = poaIndexMap.get(poa);
+					int incomeOffset = census.offset(ageCode, divCode, census.index(2, incomeRange), 0, 0);
+					for (p = 0; p < poaIndices.length; p++) {
+						int poaIdx = poaIndices[p];
 						for (String sex : SEX_ARRAY) {
 							int sexIdx = sexIndexMap.get(sex);
 							int oldVal = censusMatrixPersonsAdjustedPOA[poaIdx][sexIdx][ageIdx][divIdx][incomeIdx];
 							int adjustedPopulation = 0;
-							try {
-								adjustedPopulation = (int) Math.round(Float
-										.valueOf(this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).get(divisionCode)
-												.get(incomeRange).get(poa).get(sex))
+							if (sexCodes[sexIdx] >= 0) {
+								adjustedPopulation = (int) Math.round(census.floatAt(
+										incomeOffset + poaOffsets[p] + sexCodes[sexIdx] * census.stride(4))
 										* this.populationMultiplier * properties.getPopulationMultiplier());
-							} catch (NumberFormatException e) {
-								adjustedPopulation = 0;
 							}
 							censusMatrixPersonsAdjustedPOA[poaIdx][sexIdx][ageIdx][divIdx][incomeIdx] = oldVal
 									+ adjustedPopulation;
@@ -910,7 +926,12 @@ public class CalibrateIndividuals {
 		 * 
 		 * for each individual type, calculate P&L line items. Store in a nested List of
 		 * Individuals.
+		 * 
+		 * The industry and poa loops are run last, one poa per task on the calibration
+		 * worker pool, using the averages and pdfs kept in a profile for each income,
+		 * age and sex.
 		 */
+		List<IndividualProfile> profiles = new ArrayList<IndividualProfile>(); // in the same order as the loops
 		// for income, age, sex, taxable status
 		for (int incomeAtoIdx = 0; incomeAtoIdx < INDIVIDUAL_INCOME_RANGES_ATO3A.length; incomeAtoIdx++) {
 			String incomeRangeAto = INDIVIDUAL_INCOME_RANGES_ATO3A[incomeAtoIdx];
@@ -1281,371 +1302,160 @@ public class CalibrateIndividuals {
 													/ (float) atoCountAttributeStudentLoan.get(incomeMapNum));
 						}
 
-						for (int divIdx = 0; divIdx < NUM_DIVISIONS; divIdx++) {
-							String division = DIVISION_CODE_ARRAY[divIdx];
-							if (DEBUG_DETAIL) {
-								System.out.println("         division: " + division);
-							}
-							// for each industry, multiply by industry count ratio
-							float divAmtMult = divisionTaxableIncomeMultiplier.get(division);
-							for (String poa : poaSetIntersection) {
-								if (DEBUG_DETAIL) {
-									System.out.println(" poa: " + poa);
-								}
-								// reset ATO per person figures inside this loop so we don't sum to infinity
-								List<Float> atoPerPersonEmployedDivPoa = new ArrayList<Float>(atoPerPersonEmployed);
-								List<Float> atoPerPersonUnemployedDivPoa = new ArrayList<Float>(atoPerPersonUnemployed);
-								List<Float> atoPerPersonPensionDivPoa = new ArrayList<Float>(atoPerPersonPension);
-								List<Float> atoPerPersonSelfFundedRetireeDivPoa = new ArrayList<Float>(
-										atoPerPersonSelfFundedRetiree);
-								List<Float> atoPerPersonForeignIncomeDivPoa = new ArrayList<Float>(
-										atoPerPersonForeignIncome);
-								List<Float> atoPerPersonAttributeInterestIncomeDivPoa = new ArrayList<Float>(
-										atoPerPersonAttributeInterestIncome);
-								List<Float> atoPerPersonAttributeDividendIncomeDivPoa = new ArrayList<Float>(
-										atoPerPersonAttributeDividendIncome);
-								List<Float> atoPerPersonAttributeWorkRelatedExpensesDivPoa = new ArrayList<Float>(
-										atoPerPersonAttributeWorkRelatedExpenses);
-								List<Float> atoPerPersonAttributeDonationsDivPoa = new ArrayList<Float>(
-										atoPerPersonAttributeDonations);
-								List<Float> atoPerPersonAttributeRentIncomeDivPoa = new ArrayList<Float>(
-										atoPerPersonAttributeRentIncome);
-								List<Float> atoPerPersonAttributeRentInterestDivPoa = new ArrayList<Float>(
-										atoPerPersonAttributeRentInterest);
-								List<Float> atoPerPersonAttributeOtherIncomeDivPoa = new ArrayList<Float>(
-										atoPerPersonAttributeOtherIncome);
-								List<Float> atoPerPersonAttributeTotalIncomeDivPoa = new ArrayList<Float>(
-										atoPerPersonAttributeTotalIncome);
-								List<Float> atoPerPersonAttributeStudentLoanDivPoa = new ArrayList<Float>(
-										atoPerPersonAttributeStudentLoan);
-
-								int poaIdx = poaIndexMap.get(poa);
-								String lgaCode = this.area.getLgaCodeFromPoa(poa);
-								if (lgaCode != null) {
-									String state = this.area.getStateFromPoa(poa);
-									if (!state.equals("Other")) { // skip "Other" to solve mapping issues
-										// for each state, sex & age, multiply by state count ratio
-										float stateAmtMult = stateTaxableIncomeMultiplier.get(sex).get(age).get(state);
-
-										// get ATO taxable count by income, age, sex, industry, poa (same as ABS)
-										// for each poa, multiply by poa count ratio
-										float poaAmtMult = postcodeStateTaxableIncomeMultiplier.get(state).get(poa);
-
-										// divide ABS count by ATO count to get multiplier, and apply to counts
-										float amountMultiplier = divAmtMult * stateAmtMult * poaAmtMult;
-
-										// for each ATO income category in this iteration
-										for (int incomeMapNum = 0; incomeMapNum < numAtoIncomeIndices; incomeMapNum++) {
-											// multiply ATO 3A averages per person to calibrate them
-											atoPerPersonEmployedDivPoa.set(incomeMapNum,
-													atoPerPersonEmployedDivPoa.get(incomeMapNum) * amountMultiplier);
-											atoPerPersonUnemployedDivPoa.set(incomeMapNum,
-													atoPerPersonUnemployedDivPoa.get(incomeMapNum) * amountMultiplier);
-											atoPerPersonPensionDivPoa.set(incomeMapNum,
-													atoPerPersonPensionDivPoa.get(incomeMapNum) * amountMultiplier);
-											atoPerPersonSelfFundedRetireeDivPoa.set(incomeMapNum,
-													atoPerPersonSelfFundedRetireeDivPoa.get(incomeMapNum)
-															* amountMultiplier);
-											atoPerPersonForeignIncomeDivPoa.set(incomeMapNum,
-													atoPerPersonForeignIncomeDivPoa.get(incomeMapNum)
-															* amountMultiplier);
-											atoPerPersonAttributeInterestIncomeDivPoa.set(incomeMapNum,
-													atoPerPersonAttributeInterestIncomeDivPoa.get(incomeMapNum)
-															* amountMultiplier);
-											atoPerPersonAttributeDividendIncomeDivPoa.set(incomeMapNum,
-													atoPerPersonAttributeDividendIncomeDivPoa.get(incomeMapNum)
-															* amountMultiplier);
-											atoPerPersonAttributeWorkRelatedExpensesDivPoa.set(incomeMapNum,
-													atoPerPersonAttributeWorkRelatedExpensesDivPoa.get(incomeMapNum)
-															* amountMultiplier);
-											atoPerPersonAttributeDonationsDivPoa.set(incomeMapNum,
-													atoPerPersonAttributeDonationsDivPoa.get(incomeMapNum)
-															* amountMultiplier);
-											atoPerPersonAttributeRentIncomeDivPoa.set(incomeMapNum,
-													atoPerPersonAttributeRentIncomeDivPoa.get(incomeMapNum)
-															* amountMultiplier);
-											atoPerPersonAttributeRentInterestDivPoa.set(incomeMapNum,
-													atoPerPersonAttributeRentInterestDivPoa.get(incomeMapNum)
-															* amountMultiplier);
-											atoPerPersonAttributeOtherIncomeDivPoa.set(incomeMapNum,
-													atoPerPersonAttributeOtherIncomeDivPoa.get(incomeMapNum)
-															* amountMultiplier);
-											atoPerPersonAttributeTotalIncomeDivPoa.set(incomeMapNum,
-													atoPerPersonAttributeTotalIncomeDivPoa.get(incomeMapNum)
-															* amountMultiplier);
-											atoPerPersonAttributeStudentLoanDivPoa.set(incomeMapNum,
-													atoPerPersonAttributeStudentLoanDivPoa.get(incomeMapNum)
-															* amountMultiplier);
-										}
-
-										/**
-										 * RANDOM SAMPLING ALGORITHM Assumptions: I don't care about the ATO counts -
-										 * they can be ignored or deleted.<br>
-										 * I do care about the average amounts per person so the P&Ls are different.<br>
-										 * I also care about the split between various P&L compositions.<br>
-										 * 
-										 * Algorithm:<br>
-										 * 1. Set the flags using percentages so that I can use a pdf lookup then
-										 * generate a random float between 0 and 1.<br>
-										 * 2. Create an Individual based on this index.<br>
-										 * 3. Repeat for as many people as are in the corresponding ABS data.<br>
-										 * 
-										 * Special cases:<br>
-										 * (A) Where there are multiple ATO categories for the one ABS category, put
-										 * them all in the one pdf array.<br>
-										 * (B) Where there are multiple ABS categories for the one ATO category, loop
-										 * through the flag arrays as per usual, but store in the relevant ABS
-										 * category's cell.
-										 */
-
-										// create probability density functions for the relevant attributes
-										float totalCountDenominator = 0f;
-										for (int incomeMapNum = 0; incomeMapNum < numAtoIncomeIndices; incomeMapNum++) {
-											totalCountDenominator += atoCountTotal.get(incomeMapNum);
-										}
-										float[] pdfAtoIncomeRange = new float[numAtoIncomeIndices];
-										float[][] pdfMainIncomeSource = new float[numAtoIncomeIndices][5];
-										float[][] pdfAttributeInterestIncome = new float[numAtoIncomeIndices][2];
-										float[][] pdfAttributeDividendIncome = new float[numAtoIncomeIndices][2];
-										float[][] pdfAttributeDonations = new float[numAtoIncomeIndices][2];
-										float[][] pdfAttributeRentIncomeInterest = new float[numAtoIncomeIndices][3];
-										float[][] pdfAttributeOtherIncome = new float[numAtoIncomeIndices][2];
-										float[][] pdfAttributeStudentLoan = new float[numAtoIncomeIndices][2];
-										for (int incomeMapNum = 0; incomeMapNum < numAtoIncomeIndices; incomeMapNum++) {
-											// this determines the first index
-											pdfAtoIncomeRange[incomeMapNum] = ((float) atoCountTotal.get(incomeMapNum))
-													/ totalCountDenominator;
-
-											// create pdf for the main income source
-											pdfMainIncomeSource[incomeMapNum][0] = ((float) atoCountEmployed
-													.get(incomeMapNum)) / totalCountDenominator;
-											pdfMainIncomeSource[incomeMapNum][1] = ((float) atoCountUnemployed
-													.get(incomeMapNum)) / totalCountDenominator;
-											pdfMainIncomeSource[incomeMapNum][2] = ((float) atoCountPension
-													.get(incomeMapNum)) / totalCountDenominator;
-											pdfMainIncomeSource[incomeMapNum][3] = ((float) atoCountSelfFundedRetiree
-													.get(incomeMapNum)) / totalCountDenominator;
-											pdfMainIncomeSource[incomeMapNum][4] = 1f
-													- pdfMainIncomeSource[incomeMapNum][0]
-													- pdfMainIncomeSource[incomeMapNum][1]
-													- pdfMainIncomeSource[incomeMapNum][2]
-													- pdfMainIncomeSource[incomeMapNum][3];
-
-											// create pdfs for the binary attributes
-											pdfAttributeInterestIncome[incomeMapNum][0] = ((float) atoCountAttributeInterestIncome
-													.get(incomeMapNum)) / totalCountDenominator;
-											pdfAttributeInterestIncome[incomeMapNum][1] = 1f
-													- pdfAttributeInterestIncome[incomeMapNum][0];
-											pdfAttributeDividendIncome[incomeMapNum][0] = ((float) atoCountAttributeDividendIncome
-													.get(incomeMapNum)) / totalCountDenominator;
-											pdfAttributeDividendIncome[incomeMapNum][1] = 1f
-													- pdfAttributeDividendIncome[incomeMapNum][0];
-											pdfAttributeDonations[incomeMapNum][0] = ((float) atoCountAttributeDonations
-													.get(incomeMapNum)) / totalCountDenominator;
-											pdfAttributeDonations[incomeMapNum][1] = 1f
-													- pdfAttributeDonations[incomeMapNum][0];
-											pdfAttributeOtherIncome[incomeMapNum][0] = ((float) atoCountAttributeOtherIncome
-													.get(incomeMapNum)) / totalCountDenominator;
-											pdfAttributeOtherIncome[incomeMapNum][1] = 1f
-													- pdfAttributeOtherIncome[incomeMapNum][0];
-											pdfAttributeStudentLoan[incomeMapNum][0] = ((float) atoCountAttributeStudentLoan
-													.get(incomeMapNum)) / totalCountDenominator;
-											pdfAttributeStudentLoan[incomeMapNum][1] = 1f
-													- pdfAttributeStudentLoan[incomeMapNum][0];
-
-											// create pdf for rental property owners
-											int propertyInvestorCount = Math.max(
-													atoCountAttributeRentIncome.get(incomeMapNum),
-													atoCountAttributeRentInterest.get(incomeMapNum));
-											int propertyInvestorWithLoanCount = atoCountAttributeRentInterest
-													.get(incomeMapNum);
-											int propertyInvestorWithoutLoanCount = propertyInvestorCount
-													- propertyInvestorWithLoanCount;
-											pdfAttributeRentIncomeInterest[incomeMapNum][0] = ((float) propertyInvestorWithLoanCount)
-													/ totalCountDenominator; // rent & interest
-											pdfAttributeRentIncomeInterest[incomeMapNum][1] = ((float) propertyInvestorWithoutLoanCount)
-													/ totalCountDenominator; // rent only
-											pdfAttributeRentIncomeInterest[incomeMapNum][2] = 1f
-													- pdfAttributeRentIncomeInterest[incomeMapNum][0]
-													- pdfAttributeRentIncomeInterest[incomeMapNum][1]; // neither
-										}
-
-										// create Individual agents and store in a List matrix
-										// the loops take into account n:m mappings between ATO and ABS
-										for (int ageIdxAbs : ageIndicesAbs) {
-											// doesn't need to exclude children because it already filters on income
-											// range
-											for (int incomeIdxAbs : incomeIndicesAbs) {
-												int absCount = censusMatrixPersonsAdjustedPOA[poaIdx][sexIdx][ageIdxAbs][divIdx][incomeIdxAbs];
-												for (int agentNo = 0; agentNo < absCount; agentNo++) {
-													// create one agent for each person in the ABS data
-													Individual individual = new Individual();
-													individual.setAge(AGE_ARRAY_ABS_MIDPOINT[ageIdxAbs]);
-													individual.setSex(SEX_ARRAY[sexIdx]);
-													individual.setEmploymentIndustry(DIVISION_CODE_CHAR_ARRAY[divIdx]);
-													individual.setLocalGovernmentAreaCode(
-															this.area.getLgaCodeFromPoa(poa));
-
-													// P&L
-													int incomeMapNum = CustomMath.sample(pdfAtoIncomeRange,
-															this.random);
-													int incomeSourceNum = CustomMath
-															.sample(pdfMainIncomeSource[incomeMapNum], this.random);
-													switch (incomeSourceNum) {
-													case 0:
-														individual.setMainIncomeSource(0); // employed
-														individual.setPnlWagesSalaries(
-																atoPerPersonEmployedDivPoa.get(incomeMapNum)
-																		/ NUM_MONTHS);
-														individual.setPnlWorkRelatedExpenses(
-																atoPerPersonAttributeWorkRelatedExpensesDivPoa
-																		.get(incomeMapNum) / NUM_MONTHS);
-														break;
-													case 1:
-														individual.setMainIncomeSource(1); // unemployed
-														individual.setPnlUnemploymentBenefits(
-																atoPerPersonUnemployedDivPoa.get(incomeMapNum)
-																		/ NUM_MONTHS);
-														break;
-													case 2:
-														individual.setMainIncomeSource(2); // pension
-														individual.setPnlOtherSocialSecurityIncome(
-																atoPerPersonPensionDivPoa.get(incomeMapNum)
-																		/ NUM_MONTHS);
-														break;
-													case 3:
-														individual.setMainIncomeSource(3); // self-funded retiree
-														individual.setPnlInvestmentIncome(
-																atoPerPersonSelfFundedRetireeDivPoa.get(incomeMapNum)
-																		/ NUM_MONTHS);
-														break;
-													default:
-														individual.setMainIncomeSource(4); // foreign income
-														individual.setPnlForeignIncome(
-																atoPerPersonForeignIncomeDivPoa.get(incomeMapNum)
-																		/ NUM_MONTHS);
-														break;
-													}
-
-													int attributeIdx = CustomMath.sample(
-															pdfAttributeInterestIncome[incomeMapNum], this.random);
-													if (attributeIdx == 0) {
-														individual.setPnlInterestIncome(
-																atoPerPersonAttributeInterestIncomeDivPoa
-																		.get(incomeMapNum) / NUM_MONTHS);
-													}
-													attributeIdx = CustomMath.sample(
-															pdfAttributeDividendIncome[incomeMapNum], this.random);
-													if (attributeIdx == 0) {
-														individual.setPnlInvestmentIncome(
-																individual.getPnlInvestmentIncome()
-																		+ atoPerPersonAttributeDividendIncomeDivPoa
-																				.get(incomeMapNum) / NUM_MONTHS);
-													}
-													attributeIdx = CustomMath
-															.sample(pdfAttributeDonations[incomeMapNum], this.random);
-													if (attributeIdx == 0) {
-														individual.setPnlDonations(
-																atoPerPersonAttributeDonationsDivPoa.get(incomeMapNum)
-																		/ NUM_MONTHS);
-													}
-													attributeIdx = CustomMath.sample(
-															pdfAttributeRentIncomeInterest[incomeMapNum], this.random);
-													if (attributeIdx < 2) {
-														individual.setPnlRentIncome(
-																atoPerPersonAttributeRentIncomeDivPoa.get(incomeMapNum)
-																		/ NUM_MONTHS);
-													} else if (attributeIdx == 1) {
-														individual.setPnlRentInterestExpense(
-																atoPerPersonAttributeRentInterestDivPoa
-																		.get(incomeMapNum) / NUM_MONTHS);
-													}
-													attributeIdx = CustomMath
-															.sample(pdfAttributeOtherIncome[incomeMapNum], this.random);
-													if (attributeIdx == 0) {
-														individual.setPnlOtherIncome(
-																atoPerPersonAttributeOtherIncomeDivPoa.get(incomeMapNum)
-																		/ NUM_MONTHS);
-													}
-
-													// adjust other income if the sum of the income lines is less than
-													// total income
-													/*
-													 * if (individual.getGrossIncome() <
-													 * atoPerPersonAttributeTotalIncome.get(incomeMapNum)) { float
-													 * newOtherIncome = individual.getPnlOtherIncome() +
-													 * (atoPerPersonAttributeTotalIncome.get(incomeMapNum) -
-													 * individual.getGrossIncome());
-													 * individual.setPnlOtherIncome(newOtherIncome); }
-													 */
-
-													// income tax
-													individual.setPnlIncomeTaxExpense(Tax
-															.calculateIndividualIncomeTax(individual.getGrossIncome()));
-
-													// Bal Sht
-													if (individual.getPnlInterestIncome() <= EPSILON) {
-														// assume no savings, so the individual uses up their entire
-														// income
-														// each fortnight. This means the average bank balance is one
-														// week's
-														// income. Income is recorded monthly, so divide by 4 weeks.
-														individual.setBsBankDeposits(individual.getGrossIncome() / 4f);
-													}
-													attributeIdx = CustomMath
-															.sample(pdfAttributeStudentLoan[incomeMapNum], this.random);
-													if (attributeIdx == 0) {
-														individual.setBsStudentLoans(
-																atoPerPersonAttributeStudentLoanDivPoa
-																		.get(incomeMapNum));
-													}
-
-													// add Individual to matrix (for household calibration) using ABS
-													// indices
-													// this.individualMatrix.get(poaIdx).get(sexIdx).get(ageIdxAbs).get(divIdx)
-													// .get(incomeIdxAbs).add(individual);
-
-													// add individual to simplified map
-													// Keys: LGA, AGE5P, INCP
-													if (!this.individualMap.containsKey(lgaCode)) {
-														this.individualMap.put(lgaCode,
-																new HashMap<String, Map<String, ArrayList<Individual>>>(
-																		AGE_ARRAY_ABS.length));
-													}
-													if (!this.individualMap.get(lgaCode)
-															.containsKey(AGE_ARRAY_ABS[ageIdxAbs])) {
-														this.individualMap.get(lgaCode).put(AGE_ARRAY_ABS[ageIdxAbs],
-																new HashMap<String, ArrayList<Individual>>(
-																		INDIVIDUAL_INCOME_RANGES_ABS.length));
-													}
-													if (!this.individualMap.get(lgaCode).get(AGE_ARRAY_ABS[ageIdxAbs])
-															.containsKey(INDIVIDUAL_INCOME_RANGES_ABS[incomeIdxAbs])) {
-														this.individualMap.get(lgaCode).get(AGE_ARRAY_ABS[ageIdxAbs])
-																.put(INDIVIDUAL_INCOME_RANGES_ABS[incomeIdxAbs],
-																		new ArrayList<Individual>());
-													}
-													this.individualMap.get(lgaCode).get(AGE_ARRAY_ABS[ageIdxAbs])
-															.get(INDIVIDUAL_INCOME_RANGES_ABS[incomeIdxAbs])
-															.add(individual);
-
-													// add Individual to list (for payment clearing algorithm)
-													// CHANGE OF MIND: add the chosen Individuals as they are assigned
-													// into Households
-													// this.individualAgents.add(individual);
-													agentId++;
-												} // end Individual creation loop
-											} // end ABS income indices loop
-										} // end ABS age indices loop
-
-									} // end if !state.equals("Other")
-								} // end if lgaCode != null
-							} // end for POA
-						} // end for division
+						// create probability density functions for the relevant attributes
+						float totalCountDenominator = 0f;
+						for (int incomeMapNum = 0; incomeMapNum < numAtoIncomeIndices; incomeMapNum++) {
+							totalCountDenominator += atoCountTotal.get(incomeMapNum);
+						}
+						float[] pdfAtoIncomeRange = new float[numAtoIncomeIndices];
+						float[][] pdfMainIncomeSource = new float[numAtoIncomeIndices][5];
+						float[][] pdfAttributeInterestIncome = new float[numAtoIncomeIndices][2];
+						float[][] pdfAttributeDividendIncome = new float[numAtoIncomeIndices][2];
+						float[][] pdfAttributeDonations = new float[numAtoIncomeIndices][2];
+						float[][] pdfAttributeRentIncomeInterest = new float[numAtoIncomeIndices][3];
+						float[][] pdfAttributeOtherIncome = new float[numAtoIncomeIndices][2];
+						float[][] pdfAttributeStudentLoan = new float[numAtoIncomeIndices][2];
+						for (int incomeMapNum = 0; incomeMapNum < numAtoIncomeIndices; incomeMapNum++) {
+							// this determines the first index
+							pdfAtoIncomeRange[incomeMapNum] = ((float) atoCountTotal.get(incomeMapNum))
+									/ totalCountDenominator;
+
+							// create pdf for the main income source
+							pdfMainIncomeSource[incomeMapNum][0] = ((float) atoCountEmployed
+									.get(incomeMapNum)) / totalCountDenominator;
+							pdfMainIncomeSource[incomeMapNum][1] = ((float) atoCountUnemployed
+									.get(incomeMapNum)) / totalCountDenominator;
+							pdfMainIncomeSource[incomeMapNum][2] = ((float) atoCountPension
+									.get(incomeMapNum)) / totalCountDenominator;
+							pdfMainIncomeSource[incomeMapNum][3] = ((float) atoCountSelfFundedRetiree
+									.get(incomeMapNum)) / totalCountDenominator;
+							pdfMainIncomeSource[incomeMapNum][4] = 1f
+									- pdfMainIncomeSource[incomeMapNum][0]
+									- pdfMainIncomeSource[incomeMapNum][1]
+									- pdfMainIncomeSource[incomeMapNum][2]
+									- pdfMainIncomeSource[incomeMapNum][3];
+
+							// create pdfs for the binary attributes
+							pdfAttributeInterestIncome[incomeMapNum][0] = ((float) atoCountAttributeInterestIncome
+									.get(incomeMapNum)) / totalCountDenominator;
+							pdfAttributeInterestIncome[incomeMapNum][1] = 1f
+									- pdfAttributeInterestIncome[incomeMapNum][0];
+							pdfAttributeDividendIncome[incomeMapNum][0] = ((float) atoCountAttributeDividendIncome
+									.get(incomeMapNum)) / totalCountDenominator;
+							pdfAttributeDividendIncome[incomeMapNum][1] = 1f
+									- pdfAttributeDividendIncome[incomeMapNum][0];
+							pdfAttributeDonations[incomeMapNum][0] = ((float) atoCountAttributeDonations
+									.get(incomeMapNum)) / totalCountDenominator;
+							pdfAttributeDonations[incomeMapNum][1] = 1f
+									- pdfAttributeDonations[incomeMapNum][0];
+							pdfAttributeOtherIncome[incomeMapNum][0] = ((float) atoCountAttributeOtherIncome
+									.get(incomeMapNum)) / totalCountDenominator;
+							pdfAttributeOtherIncome[incomeMapNum][1] = 1f
+									- pdfAttributeOtherIncome[incomeMapNum][0];
+							pdfAttributeStudentLoan[incomeMapNum][0] = ((float) atoCountAttributeStudentLoan
+									.get(incomeMapNum)) / totalCountDenominator;
+							pdfAttributeStudentLoan[incomeMapNum][1] = 1f
+									- pdfAttributeStudentLoan[incomeMapNum][0];
+
+							// create pdf for rental property owners
+							int propertyInvestorCount = Math.max(
+									atoCountAttributeRentIncome.get(incomeMapNum),
+									atoCountAttributeRentInterest.get(incomeMapNum));
+							int propertyInvestorWithLoanCount = atoCountAttributeRentInterest
+									.get(incomeMapNum);
+							int propertyInvestorWithoutLoanCount = propertyInvestorCount
+									- propertyInvestorWithLoanCount;
+							pdfAttributeRentIncomeInterest[incomeMapNum][0] = ((float) propertyInvestorWithLoanCount)
+									/ totalCountDenominator; // rent & interest
+							pdfAttributeRentIncomeInterest[incomeMapNum][1] = ((float) propertyInvestorWithoutLoanCount)
+									/ totalCountDenominator; // rent only
+							pdfAttributeRentIncomeInterest[incomeMapNum][2] = 1f
+									- pdfAttributeRentIncomeInterest[incomeMapNum][0]
+									- pdfAttributeRentIncomeInterest[incomeMapNum][1]; // neither
+						}
+
+						// the Individuals themselves are created one POA at a time below
+						IndividualProfile profile = new IndividualProfile(sexIdx, age, ageIndicesAbs, incomeIndicesAbs);
+						profile.perPersonEmployed = atoPerPersonEmployed;
+						profile.perPersonUnemployed = atoPerPersonUnemployed;
+						profile.perPersonPension = atoPerPersonPension;
+						profile.perPersonSelfFundedRetiree = atoPerPersonSelfFundedRetiree;
+						profile.perPersonForeignIncome = atoPerPersonForeignIncome;
+						profile.perPersonInterestIncome = atoPerPersonAttributeInterestIncome;
+						profile.perPersonDividendIncome = atoPerPersonAttributeDividendIncome;
+						profile.perPersonWorkRelatedExpenses = atoPerPersonAttributeWorkRelatedExpenses;
+						profile.perPersonDonations = atoPerPersonAttributeDonations;
+						profile.perPersonRentIncome = atoPerPersonAttributeRentIncome;
+						profile.perPersonRentInterest = atoPerPersonAttributeRentInterest;
+						profile.perPersonOtherIncome = atoPerPersonAttributeOtherIncome;
+						profile.perPersonStudentLoan = atoPerPersonAttributeStudentLoan;
+						profile.pdfAtoIncomeRange = pdfAtoIncomeRange;
+						profile.pdfMainIncomeSource = pdfMainIncomeSource;
+						profile.pdfInterestIncome = pdfAttributeInterestIncome;
+						profile.pdfDividendIncome = pdfAttributeDividendIncome;
+						profile.pdfDonations = pdfAttributeDonations;
+						profile.pdfRentIncomeInterest = pdfAttributeRentIncomeInterest;
+						profile.pdfOtherIncome = pdfAttributeOtherIncome;
+						profile.pdfStudentLoan = pdfAttributeStudentLoan;
+						profiles.add(profile);
 					} // end for sex
 				} // end for age
 			} // end if multi-index income range mapping
 		} // end for ATO income range
 
+		// create the Individuals in each POA on the worker pool, with each POA drawing
+		// from its own random stream so the agents don't depend on the thread count
+		String[] poas = new String[poaSetIntersection.size()];
+		for (String poa : poaSetIntersection) {
+			poas[this.poaIndexMap.get(poa)] = poa;
+		}
+		Random[] streams = RandomStreams.split(this.properties.getRandomSeed(), RandomStreams.STAGE_INDIVIDUALS,
+				poas.length);
+		int threadCount = this.properties.getCalibrationThreadCount();
+		ForkJoinPool pool = new ForkJoinPool(
+				threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors());
+		List<ForkJoinTask<Map<String, Map<String, ArrayList<Individual>>>>> tasks = new ArrayList<ForkJoinTask<Map<String, Map<String, ArrayList<Individual>>>>>(
+				poas.length);
+		for (int poaIdx = 0; poaIdx < poas.length; poaIdx++) {
+			String poa = poas[poaIdx];
+			int[][][][] censusMatrixPoa = censusMatrixPersonsAdjustedPOA[poaIdx];
+			Random poaRandom = streams[poaIdx];
+			tasks.add(pool.submit(() -> this.createIndividualAgents(poa, censusMatrixPoa, profiles,
+					divisionTaxableIncomeMultiplier, stateTaxableIncomeMultiplier,
+					postcodeStateTaxableIncomeMultiplier, poaRandom)));
+		}
+
+		// add them to the map in POA order, so each LGA's lists are always in the same
+		// order
+		for (int poaIdx = 0; poaIdx < poas.length; poaIdx++) {
+			Map<String, Map<String, ArrayList<Individual>>> poaIndividuals = tasks.get(poaIdx).join();
+			if (poaIndividuals != null) {
+				String lgaCode = this.area.getLgaCodeFromPoa(poas[poaIdx]);
+				if (!this.individualMap.containsKey(lgaCode)) {
+					this.individualMap.put(lgaCode,
+							new HashMap<String, Map<String, ArrayList<Individual>>>(AGE_ARRAY_ABS.length));
+				}
+				Map<String, Map<String, ArrayList<Individual>>> lgaIndividuals = this.individualMap.get(lgaCode);
+				for (String ageAbs : poaIndividuals.keySet()) {
+					if (!lgaIndividuals.containsKey(ageAbs)) {
+						lgaIndividuals.put(ageAbs,
+								new HashMap<String, ArrayList<Individual>>(INDIVIDUAL_INCOME_RANGES_ABS.length));
+					}
+					for (String incomeAbs : poaIndividuals.get(ageAbs).keySet()) {
+						ArrayList<Individual> individuals = poaIndividuals.get(ageAbs).get(incomeAbs);
+						if (!lgaIndividuals.get(ageAbs).containsKey(incomeAbs)) {
+							lgaIndividuals.get(ageAbs).put(incomeAbs, individuals);
+						} else {
+							lgaIndividuals.get(ageAbs).get(incomeAbs).addAll(individuals);
+						}
+						agentId += individuals.size();
+					}
+				}
+			}
+			tasks.set(poaIdx, null); // let this POA's maps be garbage collected
+		}
+		pool.shutdown();
+
 		if (DEBUG) {
 			int calculatedAdjustedPopulationByLgaTotal = 0;
 			for (int poaIdx = 0; poaIdx < censusMatrixPersonsAdjustedPOA.length; poaIdx++) {
@@ -1710,6 +1520,174 @@ public class CalibrateIndividuals {
 		// this.addAgentsToEconomy();
 	}
 
+	/**
+	 * Creates the Individual agents in one POA. This runs on the calibration
+	 * worker pool, so it only reads the shared data and draws from the POA's own
+	 * random stream.
+	 * 
+	 * @param poa                                  - the POA
+	 * @param censusMatrixPoa                      - the adjusted ABS person counts
+	 *                                             in the POA. Keys: sex, age,
+	 *                                             division code, income
+	 * @param profiles                             - the ATO averages and pdfs for
+	 *                                             each income, age and sex
+	 * @param divisionTaxableIncomeMultiplier      - the multipliers by division
+	 * @param stateTaxableIncomeMultiplier         - the multipliers by sex, age and
+	 *                                             state
+	 * @param postcodeStateTaxableIncomeMultiplier - the multipliers by state and
+	 *                                             POA
+	 * @param random                               - the POA's random stream
+	 * @return the POA's Individuals (Keys: AGE5P, INCP), or null if the POA isn't
+	 *         calibrated
+	 */
+	private Map<String, Map<String, ArrayList<Individual>>> createIndividualAgents(String poa,
+			int[][][][] censusMatrixPoa, List<IndividualProfile> profiles,
+			Map<String, Float> divisionTaxableIncomeMultiplier,
+			Map<String, Map<String, Map<String, Float>>> stateTaxableIncomeMultiplier,
+			Map<String, Map<String, Float>> postcodeStateTaxableIncomeMultiplier, Random random) {
+		String lgaCode = this.area.getLgaCodeFromPoa(poa);
+		if (lgaCode == null) {
+			return null;
+		}
+		String state = this.area.getStateFromPoa(poa);
+		if (state.equals("Other")) {
+			return null; // skip "Other" to solve mapping issues
+		}
+		// get ATO taxable count by income, age, sex, industry, poa (same as ABS)
+		// for each poa, multiply by poa count ratio
+		float poaAmtMult = postcodeStateTaxableIncomeMultiplier.get(state).get(poa);
+
+		// Keys: AGE5P, INCP
+		Map<String, Map<String, ArrayList<Individual>>> poaIndividuals = new HashMap<String, Map<String, ArrayList<Individual>>>(
+				AGE_ARRAY_ABS.length);
+		for (IndividualProfile profile : profiles) {
+			// for each state, sex & age, multiply by state count ratio
+			float stateAmtMult = stateTaxableIncomeMultiplier.get(profile.sex).get(profile.age).get(state);
+			for (int divIdx = 0; divIdx < NUM_DIVISIONS; divIdx++) {
+				// for each industry, multiply by industry count ratio
+				float divAmtMult = divisionTaxableIncomeMultiplier.get(DIVISION_CODE_ARRAY[divIdx]);
+
+				// divide ABS count by ATO count to get multiplier, and apply it to the ATO 3A
+				// averages per person to calibrate them
+				float amountMultiplier = divAmtMult * stateAmtMult * poaAmtMult;
+
+				// create Individual agents and store them in the POA's map
+				// the loops take into account n:m mappings between ATO and ABS
+				for (int ageIdxAbs : profile.ageIndicesAbs) {
+					// doesn't need to exclude children because it already filters on income range
+					for (int incomeIdxAbs : profile.incomeIndicesAbs) {
+						int absCount = censusMatrixPoa[profile.sexIdx][ageIdxAbs][divIdx][incomeIdxAbs];
+						if (absCount == 0) {
+							continue;
+						}
+						if (!poaIndividuals.containsKey(AGE_ARRAY_ABS[ageIdxAbs])) {
+							poaIndividuals.put(AGE_ARRAY_ABS[ageIdxAbs],
+									new HashMap<String, ArrayList<Individual>>(INDIVIDUAL_INCOME_RANGES_ABS.length));
+						}
+						if (!poaIndividuals.get(AGE_ARRAY_ABS[ageIdxAbs])
+								.containsKey(INDIVIDUAL_INCOME_RANGES_ABS[incomeIdxAbs])) {
+							poaIndividuals.get(AGE_ARRAY_ABS[ageIdxAbs]).put(INDIVIDUAL_INCOME_RANGES_ABS[incomeIdxAbs],
+									new ArrayList<Individual>());
+						}
+						ArrayList<Individual> individuals = poaIndividuals.get(AGE_ARRAY_ABS[ageIdxAbs])
+								.get(INDIVIDUAL_INCOME_RANGES_ABS[incomeIdxAbs]);
+						for (int agentNo = 0; agentNo < absCount; agentNo++) {
+							// create one agent for each person in the ABS data
+							Individual individual = new Individual();
+							individual.setAge(AGE_ARRAY_ABS_MIDPOINT[ageIdxAbs]);
+							individual.setSex(SEX_ARRAY[profile.sexIdx]);
+							individual.setEmploymentIndustry(DIVISION_CODE_CHAR_ARRAY[divIdx]);
+							individual.setLocalGovernmentAreaCode(lgaCode);
+
+							// P&L
+							int incomeMapNum = CustomMath.sample(profile.pdfAtoIncomeRange, random);
+							int incomeSourceNum = CustomMath.sample(profile.pdfMainIncomeSource[incomeMapNum], random);
+							switch (incomeSourceNum) {
+							case 0:
+								individual.setMainIncomeSource(0); // employed
+								individual.setPnlWagesSalaries(
+										profile.perPersonEmployed.get(incomeMapNum) * amountMultiplier / NUM_MONTHS);
+								individual.setPnlWorkRelatedExpenses(profile.perPersonWorkRelatedExpenses
+										.get(incomeMapNum) * amountMultiplier / NUM_MONTHS);
+								break;
+							case 1:
+								individual.setMainIncomeSource(1); // unemployed
+								individual.setPnlUnemploymentBenefits(
+										profile.perPersonUnemployed.get(incomeMapNum) * amountMultiplier / NUM_MONTHS);
+								break;
+							case 2:
+								individual.setMainIncomeSource(2); // pension
+								individual.setPnlOtherSocialSecurityIncome(
+										profile.perPersonPension.get(incomeMapNum) * amountMultiplier / NUM_MONTHS);
+								break;
+							case 3:
+								individual.setMainIncomeSource(3); // self-funded retiree
+								individual.setPnlInvestmentIncome(profile.perPersonSelfFundedRetiree.get(incomeMapNum)
+										* amountMultiplier / NUM_MONTHS);
+								break;
+							default:
+								individual.setMainIncomeSource(4); // foreign income
+								individual.setPnlForeignIncome(profile.perPersonForeignIncome.get(incomeMapNum)
+										* amountMultiplier / NUM_MONTHS);
+								break;
+							}
+
+							int attributeIdx = CustomMath.sample(profile.pdfInterestIncome[incomeMapNum], random);
+							if (attributeIdx == 0) {
+								individual.setPnlInterestIncome(profile.perPersonInterestIncome.get(incomeMapNum)
+										* amountMultiplier / NUM_MONTHS);
+							}
+							attributeIdx = CustomMath.sample(profile.pdfDividendIncome[incomeMapNum], random);
+							if (attributeIdx == 0) {
+								individual.setPnlInvestmentIncome(individual.getPnlInvestmentIncome()
+										+ profile.perPersonDividendIncome.get(incomeMapNum) * amountMultiplier
+												/ NUM_MONTHS);
+							}
+							attributeIdx = CustomMath.sample(profile.pdfDonations[incomeMapNum], random);
+							if (attributeIdx == 0) {
+								individual.setPnlDonations(
+										profile.perPersonDonations.get(incomeMapNum) * amountMultiplier / NUM_MONTHS);
+							}
+							attributeIdx = CustomMath.sample(profile.pdfRentIncomeInterest[incomeMapNum], random);
+							if (attributeIdx < 2) {
+								individual.setPnlRentIncome(
+										profile.perPersonRentIncome.get(incomeMapNum) * amountMultiplier / NUM_MONTHS);
+							} else if (attributeIdx == 1) {
+								individual.setPnlRentInterestExpense(profile.perPersonRentInterest.get(incomeMapNum)
+										* amountMultiplier / NUM_MONTHS);
+							}
+							attributeIdx = CustomMath.sample(profile.pdfOtherIncome[incomeMapNum], random);
+							if (attributeIdx == 0) {
+								individual.setPnlOtherIncome(
+										profile.perPersonOtherIncome.get(incomeMapNum) * amountMultiplier / NUM_MONTHS);
+							}
+
+							// income tax
+							individual.setPnlIncomeTaxExpense(
+									Tax.calculateIndividualIncomeTax(individual.getGrossIncome()));
+
+							// Bal Sht
+							if (individual.getPnlInterestIncome() <= EPSILON) {
+								// assume no savings, so the individual uses up their entire income each
+								// fortnight. This means the average bank balance is one week's income. Income
+								// is recorded monthly, so divide by 4 weeks.
+								individual.setBsBankDeposits(individual.getGrossIncome() / 4f);
+							}
+							attributeIdx = CustomMath.sample(profile.pdfStudentLoan[incomeMapNum], random);
+							if (attributeIdx == 0) {
+								individual.setBsStudentLoans(
+										profile.perPersonStudentLoan.get(incomeMapNum) * amountMultiplier);
+							}
+
+							individuals.add(individual);
+						} // end Individual creation loop
+					} // end ABS income indices loop
+				} // end ABS age indices loop
+			} // end for division
+		} // end for profile
+		return poaIndividuals;
+	}
+
 	/*
 	 * private void addAgentsToEconomy() {
 	 * //this.economy.setIndividuals(this.individualAgents);
@@ -1929,4 +1907,51 @@ public class CalibrateIndividuals {
 		this.area = area;
 	}
 
+
+	/**
+	 * The ATO averages per person and the pdfs used to calibrate the Individuals
+	 * in one ATO income range, age and sex. They're the same in every POA and
+	 * division, so they're calculated once and shared by the POA workers, which
+	 * only read them.
+	 */
+	private static class IndividualProfile {
+		final int sexIdx;
+		final String sex;
+		final String age; // ATO age range
+		final List<Integer> ageIndicesAbs;
+		final List<Integer> incomeIndicesAbs;
+
+		// ATO 3A averages per person, by ATO income index
+		List<Float> perPersonEmployed;
+		List<Float> perPersonUnemployed;
+		List<Float> perPersonPension;
+		List<Float> perPersonSelfFundedRetiree;
+		List<Float> perPersonForeignIncome;
+		List<Float> perPersonInterestIncome;
+		List<Float> perPersonDividendIncome;
+		List<Float> perPersonWorkRelatedExpenses;
+		List<Float> perPersonDonations;
+		List<Float> perPersonRentIncome;
+		List<Float> perPersonRentInterest;
+		List<Float> perPersonOtherIncome;
+		List<Float> perPersonStudentLoan;
+
+		// probability density functions, by ATO income index
+		float[] pdfAtoIncomeRange;
+		float[][] pdfMainIncomeSource;
+		float[][] pdfInterestIncome;
+		float[][] pdfDividendIncome;
+		float[][] pdfDonations;
+		float[][] pdfRentIncomeInterest;
+		float[][] pdfOtherIncome;
+		float[][] pdfStudentLoan;
+
+		IndividualProfile(int sexIdx, String age, List<Integer> ageIndicesAbs, List<Integer> incomeIndicesAbs) {
+			this.sexIdx = sexIdx;
+			this.sex = SEX_ARRAY[sexIdx];
+			this.age = age;
+			this.ageIndicesAbs = ageIndicesAbs;
+			this.incomeIndicesAbs = incomeIndicesAbs;
+		}
+	}
 }
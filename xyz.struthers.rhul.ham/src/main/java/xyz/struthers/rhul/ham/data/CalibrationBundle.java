@@ -0,0 +1,530 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham.data;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gnu.trove.map.hash.TObjectFloatHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import xyz.struthers.lang.Cube;
+
+/**
+ * A compiled, memory-mapped copy of the big calibration tables, so they don't
+ * have to be parsed from the CSV files every time the model is calibrated.
+ *
+ * The first time the data is loaded, the nested maps read from the CSV files
+ * are compiled into a bundle file. Each table is stored as a dense cube: a
+ * dictionary of the keys at each level of the nested maps, then the value of
+ * every combination of keys in one float or int array, in row-major order of
+ * the keys' codes. A table whose maps don't contain every combination of keys
+ * also has a bitmap for each level saying which maps (or values) are present.
+ * The file starts with a fingerprint of the source files' names, sizes and
+ * modification times, so it is compiled again when one of them changes.
+ *
+ * On later runs the file is mapped read-only and the tables are read straight
+ * from the mapping, so the values live in the OS page cache rather than on the
+ * Java heap until they are asked for. A table is served as a Cube, which copies
+ * its values into one flat array. Tables whose key order matters to the
+ * calibrators (e.g. the ATO tables, whose key sets are iterated) aren't
+ * bundled, because nested maps rebuilt from the bundle wouldn't iterate in the
+ * same order as the maps the CSV loaders build.
+ *
+ * The file is: magic number, version, fingerprint, then the number of tables
+ * followed by each table's name, kind, number of levels, keys of each level,
+ * presence bitmap of each level (or none if every map is present) and values.
+ * It is little-endian, and every array starts on an 8-byte boundary so it can
+ * be viewed directly from the mapping.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class CalibrationBundle {
+
+	public static final int MAGIC = 0x43414C42; // "CALB"
+	public static final int VERSION = 2;
+
+	// kinds of table
+	public static final int KIND_FLOAT = 0; // leaves are TObjectFloatHashMap<String>
+	public static final int KIND_INT = 1; // leaves are TObjectIntHashMap<String>
+
+	private static final String FILE_EXTENSION = ".bundle";
+	private static final int BUFFER_BYTES = 1024 * 1024; // 1MB
+
+	private final long fingerprint;
+	private final Map<String, Table> tables;
+
+	/**
+	 * Creates an empty bundle that tables can be compiled into.
+	 *
+	 * @param fingerprint - the fingerprint of the files the tables are read from
+	 */
+	public CalibrationBundle(long fingerprint) {
+		super();
+		this.fingerprint = fingerprint;
+		this.tables = new LinkedHashMap<String, Table>();
+	}
+
+	/**
+	 * @param directory - the directory bundles are kept in, or null or empty if
+	 *                  the data is always read from the CSV files
+	 * @param name      - the name of the bundle (e.g. "individual")
+	 * @return the bundle's file, or null if bundles aren't used
+	 */
+	public static Path path(String directory, String name) {
+		if (directory == null || directory.isBlank()) {
+			return null;
+		}
+		return Paths.get(directory, name + FILE_EXTENSION).toAbsolutePath();
+	}
+
+	/**
+	 * Fingerprints the source files of a bundle, and the columns that are imported
+	 * from them, so a bundle that was compiled from different data is never used.
+	 * Files are identified by their name, size and modification time rather than
+	 * their contents so they don't have to be read to check the bundle.
+	 *
+	 * @param resourceClass - the class the files are resources of
+	 * @param resources     - the resource names of the files
+	 * @param columns       - the columns imported from the files
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(Class<?> resourceClass, List<String> resources, int[]... columns) {
+		long fingerprint = VERSION;
+		for (String resource : resources) {
+			long size = -1L; // missing files are part of the fingerprint too
+			long modified = -1L;
+			URL url = resourceClass.getResource(resource);
+			if (url != null) {
+				try {
+					if ("file".equals(url.getProtocol())) {
+						Path file = Paths.get(url.toURI());
+						size = Files.size(file);
+						modified = Files.getLastModifiedTime(file).toMillis();
+					} else {
+						URLConnection connection = url.openConnection();
+						size = connection.getContentLengthLong();
+						modified = connection.getLastModified();
+						connection.getInputStream().close();
+					}
+				} catch (IOException | URISyntaxException e) {
+					// fingerprint it as a missing file
+					e.printStackTrace();
+				}
+			}
+			fingerprint = fingerprint * 31L + resource.hashCode();
+			fingerprint = fingerprint * 31L + size;
+			fingerprint = fingerprint * 31L + modified;
+		}
+		for (int[] imported : columns) {
+			fingerprint = fingerprint * 31L + Arrays.hashCode(imported);
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Compiles a table of nested maps into the bundle. Every level but the last is
+	 * a Map with String keys, and the last is the kind of map given.
+	 *
+	 * @param name       - the name of the table
+	 * @param kind  - the kind of map at the last level (KIND_FLOAT or KIND_INT)
+	 * @param data  - the nested maps
+	 * @param depth - the number of levels of maps
+	 */
+	public void putTable(String name, int kind, Map<String, ?> data, int depth) {
+		List<Map<String, Integer>> codes = new ArrayList<Map<String, Integer>>(depth);
+		for (int level = 0; level < depth; level++) {
+			codes.add(new LinkedHashMap<String, Integer>());
+		}
+		collectKeys(data, 0, kind, codes);
+
+		String[][] keys = new String[depth][];
+		long[][] present = new long[depth][];
+		long cells = 1L;
+		for (int level = 0; level < depth; level++) {
+			keys[level] = codes.get(level).keySet().toArray(new String[codes.get(level).size()]);
+			cells *= keys[level].length;
+			if (cells > Integer.MAX_VALUE) {
+				throw new IllegalStateException("Table " + name + " has more than " + Integer.MAX_VALUE + " cells.");
+			}
+			present[level] = new long[(int) ((cells + 63L) / 64L)];
+		}
+		Table table = new Table(kind, keys);
+		if (kind == KIND_INT) {
+			table.ints = IntBuffer.wrap(new int[(int) cells]);
+		} else {
+			table.floats = FloatBuffer.wrap(new float[(int) cells]);
+		}
+		table.fill(data, 0, 0, codes, present);
+
+		// only keep the bitmaps of levels that are missing some maps
+		cells = 1L;
+		for (int level = 0; level < depth; level++) {
+			cells *= keys[level].length;
+			long count = 0L;
+			for (long bits : present[level]) {
+				count += Long.bitCount(bits);
+			}
+			table.present[level] = count == cells ? null : LongBuffer.wrap(present[level]);
+		}
+		this.tables.put(name, table);
+	}
+
+	/**
+	 * Copies a table's values into a Cube, with one dimension per level of the
+	 * nested maps it was compiled from. A cell of the cube is present if its value
+	 * was in the maps.
+	 *
+	 * @param name - the name of the table
+	 * @return the cube, or null if the bundle doesn't contain the table
+	 */
+	public Cube getCube(String name) {
+		Table table = this.tables.get(name);
+		if (table == null) {
+			return null;
+		}
+		return table.toCube();
+	}
+
+	/**
+	 * Writes the bundle to a file. It is written to a temporary file first, then
+	 * moved into place, so a failed write never leaves a partial bundle behind.
+	 *
+	 * @param file - the file to write
+	 * @throws IOException
+	 */
+	public void write(Path file) throws IOException {
+		System.out.println(new Date(System.currentTimeMillis()) + ": saving calibration bundle to " + file);
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				Output out = new Output(channel);
+				out.putInt(MAGIC);
+				out.putInt(VERSION);
+				out.putLong(this.fingerprint);
+				out.putInt(this.tables.size());
+				for (String name : this.tables.keySet()) {
+					out.putString(name);
+					this.tables.get(name).write(out);
+				}
+				out.flush();
+			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		System.out.println(new Date(System.currentTimeMillis()) + ": saved calibration bundle ("
+				+ Files.size(file) / 1024L / 1024L + "MB).");
+	}
+
+	/**
+	 * Maps a bundle file into memory. The values stay in the mapping, so only the
+	 * keys are read when the bundle is opened.
+	 *
+	 * @param file        - the file to map, or null if bundles aren't used
+	 * @param fingerprint - the fingerprint of the files it must have been compiled
+	 *                    from
+	 * @return the bundle, or null if there isn't one or it was compiled from
+	 *         different files or by a different version
+	 * @throws IOException if the file can't be read or isn't a bundle
+	 */
+	public static CalibrationBundle read(Path file, long fingerprint) throws IOException {
+		if (file == null || !Files.isRegularFile(file)) {
+			return null;
+		}
+		MappedByteBuffer mapping = null;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// the mapping stays valid after the channel is closed
+			mapping = channel.map(MapMode.READ_ONLY, 0L, channel.size());
+		}
+		ByteBuffer in = mapping.order(ByteOrder.LITTLE_ENDIAN);
+		if (in.remaining() < 16 || in.getInt() != MAGIC) {
+			throw new IOException(file + " is not a calibration bundle.");
+		}
+		int version = in.getInt();
+		if (version != VERSION || in.getLong() != fingerprint) {
+			System.out.println(new Date(System.currentTimeMillis()) + ": calibration bundle " + file
+					+ " is out of date, so it will be compiled again.");
+			return null;
+		}
+		System.out.println(new Date(System.currentTimeMillis()) + ": loading calibration bundle from " + file);
+		CalibrationBundle bundle = new CalibrationBundle(fingerprint);
+		int tableCount = in.getInt();
+		for (int i = 0; i < tableCount; i++) {
+			String name = getString(in);
+			bundle.tables.put(name, Table.read(in));
+		}
+		return bundle;
+	}
+
+	private static String getString(ByteBuffer in) {
+		byte[] bytes = new byte[in.getInt()];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Adds the keys at each level of the nested maps to that level's dictionary, in
+	 * the order they're first seen.
+	 */
+	@SuppressWarnings("unchecked")
+	private static void collectKeys(Object node, int level, int kind, List<Map<String, Integer>> codes) {
+		Map<String, Integer> levelCodes = codes.get(level);
+		boolean leaf = level == codes.size() - 1;
+		if (leaf && kind == KIND_FLOAT) {
+			for (String key : ((TObjectFloatHashMap<String>) node).keySet()) {
+				levelCodes.putIfAbsent(key, levelCodes.size());
+			}
+		} else if (leaf && kind == KIND_INT) {
+			for (String key : ((TObjectIntHashMap<String>) node).keySet()) {
+				levelCodes.putIfAbsent(key, levelCodes.size());
+			}
+		} else {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) node).entrySet()) {
+				if (entry.getValue() != null) {
+					levelCodes.putIfAbsent((String) entry.getKey(), levelCodes.size());
+					collectKeys(entry.getValue(), level + 1, kind, codes);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A table of nested maps, stored as a dense cube of values.
+	 */
+	private static final class Table {
+		final int kind;
+		final String[][] keys; // keys at each level, in code order
+		final LongBuffer[] present; // maps present at each level, or null if they all are
+		FloatBuffer floats;
+		IntBuffer ints;
+
+		Table(int kind, String[][] keys) {
+			this.kind = kind;
+			this.keys = keys;
+			this.present = new LongBuffer[keys.length];
+		}
+
+		/**
+		 * Copies the values of the nested maps into the cube, and marks which maps and
+		 * values are present.
+		 *
+		 * @param node - the map at this level
+		 * @param level - the level of the map
+		 * @param base - the index of the map's cell in the level above
+		 */
+		@SuppressWarnings("unchecked")
+		void fill(Object node, int level, int base, List<Map<String, Integer>> codes, long[][] present) {
+			int size = this.keys[level].length;
+			Map<String, Integer> levelCodes = codes.get(level);
+			boolean leaf = level == this.keys.length - 1;
+			if (leaf && this.kind == KIND_FLOAT) {
+				TObjectFloatHashMap<String> map = (TObjectFloatHashMap<String>) node;
+				for (String key : map.keySet()) {
+					int cell = base * size + levelCodes.get(key);
+					present[level][cell >>> 6] |= 1L << cell;
+					this.floats.put(cell, map.get(key));
+				}
+			} else if (leaf && this.kind == KIND_INT) {
+				TObjectIntHashMap<String> map = (TObjectIntHashMap<String>) node;
+				for (String key : map.keySet()) {
+					int cell = base * size + levelCodes.get(key);
+					present[level][cell >>> 6] |= 1L << cell;
+					this.ints.put(cell, map.get(key));
+				}
+			} else {
+				for (Map.Entry<String, ?> entry : ((Map<String, ?>) node).entrySet()) {
+					if (entry.getValue() != null) {
+						int cell = base * size + levelCodes.get(entry.getKey());
+						present[level][cell >>> 6] |= 1L << cell;
+						this.fill(entry.getValue(), level + 1, cell, codes, present);
+					}
+				}
+			}
+		}
+
+		Cube toCube() {
+			// a value is only present if the maps above it are, so the last level's bitmap is enough
+			long[] present = null;
+			LongBuffer leaves = this.present[this.keys.length - 1];
+			if (leaves != null) {
+				present = new long[leaves.limit()];
+				leaves.duplicate().get(present);
+			}
+			if (this.kind == KIND_INT) {
+				int[] values = new int[this.ints.limit()];
+				this.ints.duplicate().get(values);
+				return Cube.ofInts(this.keys, values, present);
+			} else {
+				float[] values = new float[this.floats.limit()];
+				this.floats.duplicate().get(values);
+				return Cube.ofFloats(this.keys, values, present);
+			}
+		}
+
+		void write(Output out) throws IOException {
+			out.putInt(this.kind);
+			out.putInt(this.keys.length);
+			for (int level = 0; level < this.keys.length; level++) {
+				out.putInt(this.keys[level].length);
+				for (String key : this.keys[level]) {
+					out.putString(key);
+				}
+			}
+			for (int level = 0; level < this.keys.length; level++) {
+				if (this.present[level] == null) {
+					out.putInt(-1); // every map is present
+				} else {
+					out.putInt(this.present[level].limit());
+					out.align();
+					for (int i = 0; i < this.present[level].limit(); i++) {
+						out.putLong(this.present[level].get(i));
+					}
+				}
+			}
+			if (this.kind == KIND_INT) {
+				out.putInt(this.ints.limit());
+				out.align();
+				for (int i = 0; i < this.ints.limit(); i++) {
+					out.putInt(this.ints.get(i));
+				}
+			} else {
+				out.putInt(this.floats.limit());
+				out.align();
+				for (int i = 0; i < this.floats.limit(); i++) {
+					out.putFloat(this.floats.get(i));
+				}
+			}
+		}
+
+		static Table read(ByteBuffer in) {
+			int kind = in.getInt();
+			int depth = in.getInt();
+			String[][] keys = new String[depth][];
+			for (int level = 0; level < depth; level++) {
+				keys[level] = new String[in.getInt()];
+				for (int k = 0; k < keys[level].length; k++) {
+					keys[level][k] = getString(in);
+				}
+			}
+			Table table = new Table(kind, keys);
+			for (int level = 0; level < depth; level++) {
+				int length = in.getInt();
+				if (length >= 0) {
+					table.present[level] = view(in, length, Long.BYTES).asLongBuffer();
+				}
+			}
+			int cells = in.getInt();
+			if (kind == KIND_INT) {
+				table.ints = view(in, cells, Integer.BYTES).asIntBuffer();
+			} else {
+				table.floats = view(in, cells, Float.BYTES).asFloatBuffer();
+			}
+			return table;
+		}
+
+		/**
+		 * Views an array in the mapping without copying it, and skips past it.
+		 */
+		static ByteBuffer view(ByteBuffer in, int length, int bytes) {
+			in.position(Output.aligned(in.position()));
+			ByteBuffer view = in.slice();
+			view.limit(length * bytes);
+			in.position(in.position() + length * bytes);
+			return view.order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	/**
+	 * Writes little-endian values to a file through a buffer, keeping track of the
+	 * position so arrays can be aligned.
+	 */
+	private static final class Output {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		private long written; // bytes written to the channel so far
+
+		Output(FileChannel channel) {
+			this.channel = channel;
+			this.buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			this.written = 0L;
+		}
+
+		static int aligned(int position) {
+			return (position + 7) & ~7;
+		}
+
+		void align() throws IOException {
+			long position = this.written + this.buffer.position();
+			for (long i = position; i < ((position + 7L) & ~7L); i++) {
+				this.ensure(1);
+				this.buffer.put((byte) 0);
+			}
+		}
+
+		void putInt(int value) throws IOException {
+			this.ensure(Integer.BYTES);
+			this.buffer.putInt(value);
+		}
+
+		void putLong(long value) throws IOException {
+			this.ensure(Long.BYTES);
+			this.buffer.putLong(value);
+		}
+
+		void putFloat(float value) throws IOException {
+			this.ensure(Float.BYTES);
+			this.buffer.putFloat(value);
+		}
+
+		void putString(String value) throws IOException {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			this.putInt(bytes.length);
+			this.ensure(bytes.length);
+			this.buffer.put(bytes);
+		}
+
+		private void ensure(int bytes) throws IOException {
+			if (this.buffer.remaining() < bytes) {
+				this.flush();
+			}
+		}
+
+		void flush() throws IOException {
+			this.buffer.flip();
+			while (this.buffer.hasRemaining()) {
+				this.written += this.channel.write(this.buffer);
+			}
+			this.buffer.clear();
+		}
+	}
+
+}
@@ -7,11 +7,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -28,6 +30,8 @@ import com.opencsv.CSVReader;
 
 import gnu.trove.map.hash.TObjectFloatHashMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
+import xyz.struthers.lang.CsvTokenizer;
+import xyz.struthers.lang.Cube;
 import xyz.struthers.rhul.ham.config.PropertiesXml;
 import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
 
@@ -68,6 +72,13 @@ public class CalibrationDataHousehold {
 	public static final String CENSUS_HCFMD_LGA_HIND_MRERD = "Census HCFMD by LGA by HIND and MRERD";
 	public static final String CENSUS_HCFMF_LGA_FINF_CDCF = "Census HCFMF by LGA by FINF and CDCF";
 
+	// files and columns imported: from (inclusive), to (exclusive)
+	private static final String[] STATES_HCFMD = { "NSW", "VIC", "QLD", "SA", "WA", "TAS", "NT", "ACT" }; // , "OT" };
+	private static final int[] COLUMNS_HCFMD_LGA_HIND_RNTRD = { 1, 651 };
+	private static final int[] COLUMNS_HCFMD_LGA_HIND_MRERD = { 1, 547 };
+	private static final int[] COLUMNS_HCFMF_LGA_FINF_CDCF = { 1, 416 };
+	private static final String BUNDLE_NAME = "household";
+
 	// properties
 	PropertiesXml properties;
 
@@ -76,6 +87,7 @@ public class CalibrationDataHousehold {
 
 	// data
 	private boolean dataLoaded;
+	private CalibrationBundle bundle; // the census tables are served from this
 	private Map<String, List<String>> title;
 	private Map<String, List<String>> unitType;
 
@@ -107,29 +119,31 @@ public class CalibrationDataHousehold {
 	 * HCFMD by LGA by HIND and RNTRD<br>
 	 * Rent by household income and composition.
 	 * 
-	 * Keys: Household Income, Rent Range, LGA, Household Composition Dwelling<br>
+	 * Dimensions: Household Income, Rent Range, LGA, Household Composition
+	 * Dwelling<br>
 	 * Values: Number of dwellings
 	 */
-	private Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> censusHCFMD_LGA_HIND_RNTRD;
+	private Cube censusHCFMD_LGA_HIND_RNTRD;
 	/**
 	 * ABS Census Table Builder data:<br>
 	 * HCFMD by LGA by HIND and MRERD<br>
 	 * Mortgage payments by household income and composition.
 	 * 
-	 * Keys: Household Income, Rent Range, LGA, Household Composition Dwelling<br>
+	 * Dimensions: Household Income, Rent Range, LGA, Household Composition
+	 * Dwelling<br>
 	 * Values: Number of dwellings
 	 */
-	private Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> censusHCFMD_LGA_HIND_MRERD;
+	private Cube censusHCFMD_LGA_HIND_MRERD;
 	/**
 	 * ABS Census Table Builder data:<br>
 	 * HCFMF by LGA by FINF and CDCF<br>
 	 * Parents & children by family income and composition.
 	 * 
-	 * Keys: Family Income, Parents & Children (CDCF), LGA, Family Composition
-	 * Dwelling<br>
+	 * Dimensions: Family Income, Parents & Children (CDCF), LGA, Family
+	 * Composition Dwelling<br>
 	 * Values: Number of dwellings
 	 */
-	private Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> censusHCFMF_LGA_FINF_CDCF;
+	private Cube censusHCFMF_LGA_FINF_CDCF;
 
 	private boolean initialisedCensusHCFMD_LGA_HIND_RNTRD;
 	private boolean initialisedCensusHCFMD_LGA_HIND_MRERD;
@@ -147,6 +161,7 @@ public class CalibrationDataHousehold {
 		this.properties = PropertiesXmlFactory.getProperties();
 
 		this.dataLoaded = false;
+		this.bundle = null;
 
 		this.title = null;
 		this.unitType = null;
@@ -241,75 +256,22 @@ public class CalibrationDataHousehold {
 		}
 
 		// census RNTRD
-		if (this.censusHCFMD_LGA_HIND_RNTRD != null) {
-			for (String key1 : this.censusHCFMD_LGA_HIND_RNTRD.keySet()) {
-				for (String key2 : this.censusHCFMD_LGA_HIND_RNTRD.get(key1).keySet()) {
-					for (String key3 : this.censusHCFMD_LGA_HIND_RNTRD.get(key1).get(key2).keySet()) {
-						for (String key4 : this.censusHCFMD_LGA_HIND_RNTRD.get(key1).get(key2).get(key3).keySet()) {
-							this.censusHCFMD_LGA_HIND_RNTRD.get(key1).get(key2).get(key3).put(key4, 0); // null
-						}
-						this.censusHCFMD_LGA_HIND_RNTRD.get(key1).get(key2).get(key3).clear();
-						this.censusHCFMD_LGA_HIND_RNTRD.get(key1).get(key2).put(key3, null);
-					}
-					this.censusHCFMD_LGA_HIND_RNTRD.get(key1).get(key2).clear();
-					this.censusHCFMD_LGA_HIND_RNTRD.get(key1).put(key2, null);
-				}
-				this.censusHCFMD_LGA_HIND_RNTRD.get(key1).clear();
-				this.censusHCFMD_LGA_HIND_RNTRD.put(key1, null);
-			}
-			this.censusHCFMD_LGA_HIND_RNTRD.clear();
-			this.censusHCFMD_LGA_HIND_RNTRD = null;
-			this.initialisedCensusHCFMD_LGA_HIND_RNTRD = false;
-		}
+		this.censusHCFMD_LGA_HIND_RNTRD = null;
+		this.initialisedCensusHCFMD_LGA_HIND_RNTRD = false;
 
 		// census MRERD
-		if (this.censusHCFMD_LGA_HIND_MRERD != null) {
-			for (String key1 : this.censusHCFMD_LGA_HIND_MRERD.keySet()) {
-				for (String key2 : this.censusHCFMD_LGA_HIND_MRERD.get(key1).keySet()) {
-					for (String key3 : this.censusHCFMD_LGA_HIND_MRERD.get(key1).get(key2).keySet()) {
-						for (String key4 : this.censusHCFMD_LGA_HIND_MRERD.get(key1).get(key2).get(key3).keySet()) {
-							this.censusHCFMD_LGA_HIND_MRERD.get(key1).get(key2).get(key3).put(key4, 0); // null
-						}
-						this.censusHCFMD_LGA_HIND_MRERD.get(key1).get(key2).get(key3).clear();
-						this.censusHCFMD_LGA_HIND_MRERD.get(key1).get(key2).put(key3, null);
-					}
-					this.censusHCFMD_LGA_HIND_MRERD.get(key1).get(key2).clear();
-					this.censusHCFMD_LGA_HIND_MRERD.get(key1).put(key2, null);
-				}
-				this.censusHCFMD_LGA_HIND_MRERD.get(key1).clear();
-				this.censusHCFMD_LGA_HIND_MRERD.put(key1, null);
-			}
-			this.censusHCFMD_LGA_HIND_MRERD.clear();
-			this.censusHCFMD_LGA_HIND_MRERD = null;
-			this.initialisedCensusHCFMD_LGA_HIND_MRERD = false;
-		}
+		this.censusHCFMD_LGA_HIND_MRERD = null;
+		this.initialisedCensusHCFMD_LGA_HIND_MRERD = false;
 
 		// census CDCF
-		if (this.censusHCFMF_LGA_FINF_CDCF != null) {
-			for (String key1 : this.censusHCFMF_LGA_FINF_CDCF.keySet()) {
-				for (String key2 : this.censusHCFMF_LGA_FINF_CDCF.get(key1).keySet()) {
-					for (String key3 : this.censusHCFMF_LGA_FINF_CDCF.get(key1).get(key2).keySet()) {
-						for (String key4 : this.censusHCFMF_LGA_FINF_CDCF.get(key1).get(key2).get(key3).keySet()) {
-							this.censusHCFMF_LGA_FINF_CDCF.get(key1).get(key2).get(key3).put(key4, 0); // null
-						}
-						this.censusHCFMF_LGA_FINF_CDCF.get(key1).get(key2).get(key3).clear();
-						this.censusHCFMF_LGA_FINF_CDCF.get(key1).get(key2).put(key3, null);
-					}
-					this.censusHCFMF_LGA_FINF_CDCF.get(key1).get(key2).clear();
-					this.censusHCFMF_LGA_FINF_CDCF.get(key1).put(key2, null);
-				}
-				this.censusHCFMF_LGA_FINF_CDCF.get(key1).clear();
-				this.censusHCFMF_LGA_FINF_CDCF.put(key1, null);
-			}
-			this.censusHCFMF_LGA_FINF_CDCF.clear();
-			this.censusHCFMF_LGA_FINF_CDCF = null;
-		}
+		this.censusHCFMF_LGA_FINF_CDCF = null;
 		this.initialisedCensusHCFMF_LGA_FINF_CDCF = false;
+		this.bundle = null;
 	}
 
 	private void loadData() {
-		this.title = new HashMap<String, List<String>>();
-		this.unitType = new HashMap<String, List<String>>();
+		this.title = Collections.synchronizedMap(new HashMap<String, List<String>>());
+		this.unitType = Collections.synchronizedMap(new HashMap<String, List<String>>());
 
 		long memoryBefore = 0L; // for debugging memory consumption
 
@@ -318,23 +280,18 @@ public class CalibrationDataHousehold {
 			memoryBefore = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
 		}
 
+		// read the files concurrently, and combine the states after they've all loaded
+		LoaderPool loader = new LoaderPool(this.properties.getCalibrationThreadCount());
+
 		// load RBA data
 		System.out.println(new Date(System.currentTimeMillis()) + ": Loading RBA E2 data");
 		int[] rbaE2Columns = { 3, 6 };
 		// int[] rbaE2Columns = { 3, 6, 8, 9, 10 };
 		int rbaE2MapCapacity = (int) Math.ceil(rbaE2Columns.length / MAP_LOAD_FACTOR);
 		this.rbaE2 = new HashMap<String, Map<Date, String>>(rbaE2MapCapacity);
-		this.loadRbaDataCsv(properties.getFilename("RBA") + "E_HouseholdBusiness/e2-data.csv", RBA_E2, rbaE2Columns,
-				this.title, this.unitType, this.rbaE2);
+		loader.submit(() -> this.loadRbaDataCsv(properties.getFilename("RBA") + "E_HouseholdBusiness/e2-data.csv",
+				RBA_E2, rbaE2Columns, this.title, this.unitType, this.rbaE2));
 
-		if (DEBUG) {
-			System.gc();
-			long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
-			float megabytesConsumed = (memoryAfter - memoryBefore) / 1024f / 1024f;
-			DecimalFormat formatter = new DecimalFormat("#,##0.00");
-			System.out.println(">>> Memory used by RBA E2: " + formatter.format(megabytesConsumed) + "MB");
-			memoryBefore = memoryAfter;
-		}
 
 		// load ABS 1410.0 data
 		/*
@@ -394,228 +351,167 @@ public class CalibrationDataHousehold {
 		 * formatter.format(megabytesConsumed) + "MB"); memoryBefore = memoryAfter; }
 		 */
 
-		// ABS Census HCFMD by LGA by HIND and RNTRD
-		System.out.print(
-				new Date(System.currentTimeMillis()) + ": Loading ABS Census HCFMD by LGA by HIND and RNTRD data");
-		this.censusHCFMD_LGA_HIND_RNTRD = new HashMap<String, Map<String, Map<String, TObjectIntHashMap<String>>>>(
-				MAP_INIT_SIZE_HIND);
-		int fromColumnHCFMD_LGA_HIND_RNTRD = 1;
-		int toColumnHCFMD_LGA_HIND_RNTRD = 651;
-		System.out.print(": NSW");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and RNTRD/HCFMD by LGA by HIND and RNTRD - NSW.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_RNTRD, fromColumnHCFMD_LGA_HIND_RNTRD,
-				toColumnHCFMD_LGA_HIND_RNTRD, this.censusHCFMD_LGA_HIND_RNTRD);
+		// use the compiled bundle for the census tables if it's up to date, otherwise read the CSV files and compile it
+		List<String> sources = new ArrayList<String>();
+		for (String state : STATES_HCFMD) {
+			sources.add(this.censusFilename("HCFMD by LGA by HIND and RNTRD", state));
+			sources.add(this.censusFilename("HCFMD by LGA by HIND and MRERD", state));
+			sources.add(this.censusFilename("HCFMF by LGA by FINF and CDCF", state));
+		}
+		long fingerprint = CalibrationBundle.fingerprint(this.getClass(), sources, COLUMNS_HCFMD_LGA_HIND_RNTRD,
+				COLUMNS_HCFMD_LGA_HIND_MRERD, COLUMNS_HCFMF_LGA_FINF_CDCF);
+		Path bundleFile = CalibrationBundle.path(this.properties.getCalibrationBundleDirectory(), BUNDLE_NAME);
+		try {
+			this.bundle = CalibrationBundle.read(bundleFile, fingerprint);
+		} catch (IOException e) {
+			// read the CSV files instead
+			e.printStackTrace();
+		}
+		if (this.bundle != null) {
+			loader.join();
+		} else {
+			this.bundle = this.loadCensusCsvData(loader, bundleFile, fingerprint);
+		}
+		// the getters serve each table from the bundle as a cube the first time it's asked for
 		this.initialisedCensusHCFMD_LGA_HIND_RNTRD = true;
-		System.out.print(", VIC");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and RNTRD/HCFMD by LGA by HIND and RNTRD - VIC.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_RNTRD, fromColumnHCFMD_LGA_HIND_RNTRD,
-				toColumnHCFMD_LGA_HIND_RNTRD, this.censusHCFMD_LGA_HIND_RNTRD);
-		System.out.print(", QLD");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and RNTRD/HCFMD by LGA by HIND and RNTRD - QLD.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_RNTRD, fromColumnHCFMD_LGA_HIND_RNTRD,
-				toColumnHCFMD_LGA_HIND_RNTRD, this.censusHCFMD_LGA_HIND_RNTRD);
-		System.out.print(", SA");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and RNTRD/HCFMD by LGA by HIND and RNTRD - SA.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_RNTRD, fromColumnHCFMD_LGA_HIND_RNTRD,
-				toColumnHCFMD_LGA_HIND_RNTRD, this.censusHCFMD_LGA_HIND_RNTRD);
-		System.out.print(", WA");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and RNTRD/HCFMD by LGA by HIND and RNTRD - WA.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_RNTRD, fromColumnHCFMD_LGA_HIND_RNTRD,
-				toColumnHCFMD_LGA_HIND_RNTRD, this.censusHCFMD_LGA_HIND_RNTRD);
-		System.out.print(", TAS");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and RNTRD/HCFMD by LGA by HIND and RNTRD - TAS.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_RNTRD, fromColumnHCFMD_LGA_HIND_RNTRD,
-				toColumnHCFMD_LGA_HIND_RNTRD, this.censusHCFMD_LGA_HIND_RNTRD);
-		System.out.print(", NT");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and RNTRD/HCFMD by LGA by HIND and RNTRD - NT.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_RNTRD, fromColumnHCFMD_LGA_HIND_RNTRD,
-				toColumnHCFMD_LGA_HIND_RNTRD, this.censusHCFMD_LGA_HIND_RNTRD);
-		System.out.println(", ACT");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and RNTRD/HCFMD by LGA by HIND and RNTRD - ACT.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_RNTRD, fromColumnHCFMD_LGA_HIND_RNTRD,
-				toColumnHCFMD_LGA_HIND_RNTRD, this.censusHCFMD_LGA_HIND_RNTRD);
-		/*
-		 * System.out.println(", OT."); this.loadAbsCensusTableCsv2Columns1Wafer(
-		 * "/data/ABS/CensusTableBuilder2016/HCFMD by LGA by HIND and RNTRD/HCFMD by LGA by HIND and RNTRD - OT.csv"
-		 * , this.initialisedCensusHCFMD_LGA_HIND_RNTRD, fromColumnHCFMD_LGA_HIND_RNTRD,
-		 * toColumnHCFMD_LGA_HIND_RNTRD, this.censusHCFMD_LGA_HIND_RNTRD);
-		 */
+		this.initialisedCensusHCFMD_LGA_HIND_MRERD = true;
+		this.initialisedCensusHCFMF_LGA_FINF_CDCF = true;
 
 		if (DEBUG) {
 			System.gc();
 			long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
 			float megabytesConsumed = (memoryAfter - memoryBefore) / 1024f / 1024f;
 			DecimalFormat formatter = new DecimalFormat("#,##0.00");
-			System.out.println(">>> Memory used by ABS Census HCFMD by LGA by HIND and RNTRD: "
+			System.out.println(">>> Memory used by RBA E2 and ABS Census household tables: "
 					+ formatter.format(megabytesConsumed) + "MB");
 			memoryBefore = memoryAfter;
 		}
 
+		// set flag so we only load the data once
+		System.out.println(new Date(System.currentTimeMillis()) + ": Individual data loaded");
+		this.dataLoaded = true;
+	}
+
+	/**
+	 * Reads the ABS Census tables from the CSV files, several at a time, then
+	 * merges the states in order and compiles them into a bundle.
+	 * 
+	 * @param loader      - the pool the files are loaded on, which is joined once
+	 *                    they've all been submitted
+	 * @param bundleFile  - the file to save the bundle to, or null if bundles
+	 *                    aren't saved
+	 * @param fingerprint - the fingerprint of the CSV files
+	 * @return the bundle
+	 */
+	private CalibrationBundle loadCensusCsvData(LoaderPool loader, Path bundleFile, long fingerprint) {
+		// ABS Census HCFMD by LGA by HIND and RNTRD
+		System.out.print(
+				new Date(System.currentTimeMillis()) + ": Loading ABS Census HCFMD by LGA by HIND and RNTRD data");
+		Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> censusHCFMD_LGA_HIND_RNTRD = new HashMap<String, Map<String, Map<String, TObjectIntHashMap<String>>>>(
+				MAP_INIT_SIZE_HIND);
+		List<Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>>> stateCensusHCFMD_LGA_HIND_RNTRD = this
+				.loadAbsCensusTableStates(loader, "HCFMD by LGA by HIND and RNTRD", STATES_HCFMD,
+						COLUMNS_HCFMD_LGA_HIND_RNTRD[0], COLUMNS_HCFMD_LGA_HIND_RNTRD[1], MAP_INIT_SIZE_HIND);
+
 		// ABS Census HCFMD by LGA by HIND and MRERD
 		System.out.print(
 				new Date(System.currentTimeMillis()) + ": Loading ABS Census HCFMD by LGA by HIND and MRERD data");
-		this.censusHCFMD_LGA_HIND_MRERD = new HashMap<String, Map<String, Map<String, TObjectIntHashMap<String>>>>(
+		Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> censusHCFMD_LGA_HIND_MRERD = new HashMap<String, Map<String, Map<String, TObjectIntHashMap<String>>>>(
 				MAP_INIT_SIZE_HIND);
-		int fromColumnHCFMD_LGA_HIND_MRERD = 1;
-		int toColumnHCFMD_LGA_HIND_MRERD = 547;
-		System.out.print(": NSW");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and MRERD/HCFMD by LGA by HIND and MRERD - NSW.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_MRERD, fromColumnHCFMD_LGA_HIND_MRERD,
-				toColumnHCFMD_LGA_HIND_MRERD, this.censusHCFMD_LGA_HIND_MRERD);
-		this.initialisedCensusHCFMD_LGA_HIND_MRERD = true;
-		System.out.print(", VIC");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and MRERD/HCFMD by LGA by HIND and MRERD - VIC.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_MRERD, fromColumnHCFMD_LGA_HIND_MRERD,
-				toColumnHCFMD_LGA_HIND_MRERD, this.censusHCFMD_LGA_HIND_MRERD);
-		System.out.print(", QLD");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and MRERD/HCFMD by LGA by HIND and MRERD - QLD.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_MRERD, fromColumnHCFMD_LGA_HIND_MRERD,
-				toColumnHCFMD_LGA_HIND_MRERD, this.censusHCFMD_LGA_HIND_MRERD);
-		System.out.print(", SA");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and MRERD/HCFMD by LGA by HIND and MRERD - SA.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_MRERD, fromColumnHCFMD_LGA_HIND_MRERD,
-				toColumnHCFMD_LGA_HIND_MRERD, this.censusHCFMD_LGA_HIND_MRERD);
-		System.out.print(", WA");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and MRERD/HCFMD by LGA by HIND and MRERD - WA.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_MRERD, fromColumnHCFMD_LGA_HIND_MRERD,
-				toColumnHCFMD_LGA_HIND_MRERD, this.censusHCFMD_LGA_HIND_MRERD);
-		System.out.print(", TAS");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and MRERD/HCFMD by LGA by HIND and MRERD - TAS.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_MRERD, fromColumnHCFMD_LGA_HIND_MRERD,
-				toColumnHCFMD_LGA_HIND_MRERD, this.censusHCFMD_LGA_HIND_MRERD);
-		System.out.print(", NT");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and MRERD/HCFMD by LGA by HIND and MRERD - NT.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_MRERD, fromColumnHCFMD_LGA_HIND_MRERD,
-				toColumnHCFMD_LGA_HIND_MRERD, this.censusHCFMD_LGA_HIND_MRERD);
-		System.out.println(", ACT");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMD by LGA by HIND and MRERD/HCFMD by LGA by HIND and MRERD - ACT.csv",
-				this.initialisedCensusHCFMD_LGA_HIND_MRERD, fromColumnHCFMD_LGA_HIND_MRERD,
-				toColumnHCFMD_LGA_HIND_MRERD, this.censusHCFMD_LGA_HIND_MRERD);
-		/*
-		 * System.out.println(", OT."); this.loadAbsCensusTableCsv2Columns1Wafer(
-		 * "/data/ABS/CensusTableBuilder2016/HCFMD by LGA by HIND and MRERD/HCFMD by LGA by HIND and MRERD - OT.csv"
-		 * , this.initialisedCensusHCFMD_LGA_HIND_MRERD, fromColumnHCFMD_LGA_HIND_MRERD,
-		 * toColumnHCFMD_LGA_HIND_MRERD, this.censusHCFMD_LGA_HIND_MRERD);
-		 */
-
-		if (DEBUG) {
-			System.gc();
-			long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
-			float megabytesConsumed = (memoryAfter - memoryBefore) / 1024f / 1024f;
-			DecimalFormat formatter = new DecimalFormat("#,##0.00");
-			System.out.println(">>> Memory used by ABS Census HCFMD by LGA by HIND and MRERD: "
-					+ formatter.format(megabytesConsumed) + "MB");
-			memoryBefore = memoryAfter;
-		}
+		List<Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>>> stateCensusHCFMD_LGA_HIND_MRERD = this
+				.loadAbsCensusTableStates(loader, "HCFMD by LGA by HIND and MRERD", STATES_HCFMD,
+						COLUMNS_HCFMD_LGA_HIND_MRERD[0], COLUMNS_HCFMD_LGA_HIND_MRERD[1], MAP_INIT_SIZE_HIND);
 
 		// ABS Census HCFMF by LGA by FINF and CDCF
 		System.out.print(
 				new Date(System.currentTimeMillis()) + ": Loading ABS Census HCFMD by LGA by FINF and CDCF data");
-		this.censusHCFMF_LGA_FINF_CDCF = new HashMap<String, Map<String, Map<String, TObjectIntHashMap<String>>>>(
+		Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> censusHCFMF_LGA_FINF_CDCF = new HashMap<String, Map<String, Map<String, TObjectIntHashMap<String>>>>(
 				MAP_INIT_SIZE_FINF);
-		int fromColumnHCFMF_LGA_FINF_CDCF = 1;
-		int toColumnHCFMF_LGA_FINF_CDCF = 416;
-		System.out.print(": NSW");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMF by LGA by FINF and CDCF/HCFMF by LGA by FINF and CDCF - NSW.csv",
-				this.initialisedCensusHCFMF_LGA_FINF_CDCF, fromColumnHCFMF_LGA_FINF_CDCF, toColumnHCFMF_LGA_FINF_CDCF,
-				this.censusHCFMF_LGA_FINF_CDCF);
-		this.initialisedCensusHCFMF_LGA_FINF_CDCF = true;
-		System.out.print(", VIC");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMF by LGA by FINF and CDCF/HCFMF by LGA by FINF and CDCF - VIC.csv",
-				this.initialisedCensusHCFMF_LGA_FINF_CDCF, fromColumnHCFMF_LGA_FINF_CDCF, toColumnHCFMF_LGA_FINF_CDCF,
-				this.censusHCFMF_LGA_FINF_CDCF);
-		System.out.print(", QLD");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMF by LGA by FINF and CDCF/HCFMF by LGA by FINF and CDCF - QLD.csv",
-				this.initialisedCensusHCFMF_LGA_FINF_CDCF, fromColumnHCFMF_LGA_FINF_CDCF, toColumnHCFMF_LGA_FINF_CDCF,
-				this.censusHCFMF_LGA_FINF_CDCF);
-		System.out.print(", SA");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMF by LGA by FINF and CDCF/HCFMF by LGA by FINF and CDCF - SA.csv",
-				this.initialisedCensusHCFMF_LGA_FINF_CDCF, fromColumnHCFMF_LGA_FINF_CDCF, toColumnHCFMF_LGA_FINF_CDCF,
-				this.censusHCFMF_LGA_FINF_CDCF);
-		System.out.print(", WA");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMF by LGA by FINF and CDCF/HCFMF by LGA by FINF and CDCF - WA.csv",
-				this.initialisedCensusHCFMF_LGA_FINF_CDCF, fromColumnHCFMF_LGA_FINF_CDCF, toColumnHCFMF_LGA_FINF_CDCF,
-				this.censusHCFMF_LGA_FINF_CDCF);
-		System.out.print(", TAS");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMF by LGA by FINF and CDCF/HCFMF by LGA by FINF and CDCF - TAS.csv",
-				this.initialisedCensusHCFMF_LGA_FINF_CDCF, fromColumnHCFMF_LGA_FINF_CDCF, toColumnHCFMF_LGA_FINF_CDCF,
-				this.censusHCFMF_LGA_FINF_CDCF);
-		System.out.print(", NT");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMF by LGA by FINF and CDCF/HCFMF by LGA by FINF and CDCF - NT.csv",
-				this.initialisedCensusHCFMF_LGA_FINF_CDCF, fromColumnHCFMF_LGA_FINF_CDCF, toColumnHCFMF_LGA_FINF_CDCF,
-				this.censusHCFMF_LGA_FINF_CDCF);
-		System.out.println(", ACT");
-		this.loadAbsCensusTableCsv2Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "HCFMF by LGA by FINF and CDCF/HCFMF by LGA by FINF and CDCF - ACT.csv",
-				this.initialisedCensusHCFMF_LGA_FINF_CDCF, fromColumnHCFMF_LGA_FINF_CDCF, toColumnHCFMF_LGA_FINF_CDCF,
-				this.censusHCFMF_LGA_FINF_CDCF);
-		/*
-		 * System.out.println(", OT."); this.loadAbsCensusTableCsv2Columns1Wafer(
-		 * "/data/ABS/CensusTableBuilder2016/HCFMF by LGA by FINF and CDCF/HCFMF by LGA by FINF and CDCF - OT.csv"
-		 * , this.initialisedCensusHCFMF_LGA_FINF_CDCF, fromColumnHCFMF_LGA_FINF_CDCF,
-		 * toColumnHCFMF_LGA_FINF_CDCF, this.censusHCFMF_LGA_FINF_CDCF);
-		 */
+		List<Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>>> stateCensusHCFMF_LGA_FINF_CDCF = this
+				.loadAbsCensusTableStates(loader, "HCFMF by LGA by FINF and CDCF", STATES_HCFMD,
+						COLUMNS_HCFMF_LGA_FINF_CDCF[0], COLUMNS_HCFMF_LGA_FINF_CDCF[1], MAP_INIT_SIZE_FINF);
+
+		loader.join();
+		for (int i = 0; i < STATES_HCFMD.length; i++) {
+			mergeCensusTable(stateCensusHCFMD_LGA_HIND_RNTRD.get(i), censusHCFMD_LGA_HIND_RNTRD);
+			mergeCensusTable(stateCensusHCFMD_LGA_HIND_MRERD.get(i), censusHCFMD_LGA_HIND_MRERD);
+			mergeCensusTable(stateCensusHCFMF_LGA_FINF_CDCF.get(i), censusHCFMF_LGA_FINF_CDCF);
+		}
+		return this.compileBundle(bundleFile, fingerprint, censusHCFMD_LGA_HIND_RNTRD, censusHCFMD_LGA_HIND_MRERD,
+				censusHCFMF_LGA_FINF_CDCF);
+	}
 
-		if (DEBUG) {
-			System.gc();
-			long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
-			float megabytesConsumed = (memoryAfter - memoryBefore) / 1024f / 1024f;
-			DecimalFormat formatter = new DecimalFormat("#,##0.00");
-			System.out.println(
-					">>> Memory used by ABS Census CDCF by LGA by FINF: " + formatter.format(megabytesConsumed) + "MB");
-			memoryBefore = memoryAfter;
+	/**
+	 * Compiles the ABS Census tables read from the CSV files into a bundle, which
+	 * the getters serve the tables from, and saves it so it can be mapped instead
+	 * of read from the CSV files next time. If it can't be saved the CSV files are
+	 * just read again.
+	 * 
+	 * @param bundleFile  - the file to save the bundle to, or null if bundles
+	 *                    aren't saved
+	 * @param fingerprint - the fingerprint of the CSV files
+	 * @param rntrd       - the HCFMD by LGA by HIND and RNTRD table
+	 * @param mrerd       - the HCFMD by LGA by HIND and MRERD table
+	 * @param cdcf        - the HCFMF by LGA by FINF and CDCF table
+	 * @return the bundle
+	 */
+	private CalibrationBundle compileBundle(Path bundleFile, long fingerprint,
+			Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> rntrd,
+			Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> mrerd,
+			Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> cdcf) {
+		CalibrationBundle bundle = new CalibrationBundle(fingerprint);
+		bundle.putTable(CENSUS_HCFMD_LGA_HIND_RNTRD, CalibrationBundle.KIND_INT, rntrd, 4);
+		bundle.putTable(CENSUS_HCFMD_LGA_HIND_MRERD, CalibrationBundle.KIND_INT, mrerd, 4);
+		bundle.putTable(CENSUS_HCFMF_LGA_FINF_CDCF, CalibrationBundle.KIND_INT, cdcf, 4);
+		if (bundleFile != null) {
+			try {
+				bundle.write(bundleFile);
+			} catch (IOException e) {
+				// read the CSV files again next time
+				e.printStackTrace();
+			}
 		}
+		return bundle;
+	}
 
-		// set flag so we only load the data once
-		System.out.println(new Date(System.currentTimeMillis()) + ": Individual data loaded");
-		this.dataLoaded = true;
+	/**
+	 * @param tableName - the name of the table's folder and files
+	 * @param state     - the state
+	 * @return the resource name of the state's file
+	 */
+	private String censusFilename(String tableName, String state) {
+		return properties.getFilename("ABS/CensusTableBuilder") + tableName + "/" + tableName + " - " + state
+				+ ".csv";
+	}
+
+	/**
+	 * Starts loading each state's file for an ABS Census Table Builder table into
+	 * its own map, so they can be merged in order once they've all loaded.
+	 * 
+	 * @param loader          - the pool the files are loaded on
+	 * @param tableName       - the name of the table's folder and files
+	 * @param states          - the states to load, in the order they're merged
+	 * @param fromColumnIndex - import data from this column index (inclusive).
+	 * @param toColumnIndex   - import data to this column index (exclusive).
+	 * @param mapInitSize     - the initial size of each state's map
+	 * @return each state's map, in the same order as the states
+	 */
+	private List<Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>>> loadAbsCensusTableStates(
+			LoaderPool loader, String tableName, String[] states, int fromColumnIndex, int toColumnIndex,
+			int mapInitSize) {
+		List<Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>>> stateData = new ArrayList<Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>>>(
+				states.length);
+		for (int i = 0; i < states.length; i++) {
+			System.out.print((i == 0 ? ": " : ", ") + states[i]);
+			String filename = this.censusFilename(tableName, states[i]);
+			Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> data = new HashMap<String, Map<String, Map<String, TObjectIntHashMap<String>>>>(
+					mapInitSize);
+			loader.submit(
+					() -> this.loadAbsCensusTableCsv2Columns1Wafer(filename, fromColumnIndex, toColumnIndex, data));
+			stateData.add(data);
+		}
+		System.out.println();
+		return stateData;
 	}
 
 	/**
@@ -784,22 +680,18 @@ public class CalibrationDataHousehold {
 	 * 6. The first row in the footer begins with "Data Source".
 	 * 
 	 * @param fileResourceLocation - the URI of the file to import.
-	 * @param isInitialised        - true if any file has already been imported for
-	 *                             this data series, false otherwise.
 	 * @param fromColumnIndex      - import data from this column index (inclusive).
 	 * @param toColumnIndex        - import data to this column index (exclusive).
 	 * @param data                 - the data map that the values are returned in.
 	 *                             Keys are: 2 columns, row, wafer. (HIND,
 	 *                             RNTRD/MRERD, LGA, HCFMD)
 	 */
-	private void loadAbsCensusTableCsv2Columns1Wafer(String fileResourceLocation, boolean isInitialised,
-			int fromColumnIndex, int toColumnIndex,
-			Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> data) {
+	private void loadAbsCensusTableCsv2Columns1Wafer(String fileResourceLocation, int fromColumnIndex,
+			int toColumnIndex, Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> data) {
 
-		CSVReader reader = null;
+		CsvTokenizer reader = null;
 		try {
-			InputStream is = this.getClass().getResourceAsStream(fileResourceLocation);
-			reader = new CSVReader(new InputStreamReader(is));
+			reader = CsvTokenizer.open(this.getClass(), fileResourceLocation);
 			boolean header = true;
 			boolean footer = false;
 			int currentRow = 1;
@@ -810,20 +702,23 @@ public class CalibrationDataHousehold {
 			int columnSeriesNumber = Integer.MAX_VALUE;
 			final int columnSeriesMax = 2; // because the dataset contains 2 column series
 			String[][] columnTitles = new String[columnSeriesMax][toColumnIndex - fromColumnIndex];
+			// the map each column's values go in, so the keys are only looked up once
+			List<Map<String, TObjectIntHashMap<String>>> columnData = new ArrayList<Map<String, TObjectIntHashMap<String>>>(
+					toColumnIndex - fromColumnIndex);
 
-			String[] line = null;
-			while ((line = reader.readNext()) != null) {
+			while (reader.next()) {
 				if (header) {
 					if (currentRow++ == lastHeaderRow) {
 						header = false;
 					}
 				} else if (!footer) {
-					if (line[0].length() > 11 && line[0].substring(0, 11).equals("Data Source")) {
+					String rowTitle = reader.get(0);
+					if (rowTitle.length() > 11 && rowTitle.substring(0, 11).equals("Data Source")) {
 						footer = true;
 					} else {
-						if (prevRowIsBlank && !line[0].isBlank()) {
+						if (prevRowIsBlank && !rowTitle.isBlank()) {
 							// set wafer name
-							waferName = line[0].trim();
+							waferName = rowTitle.trim();
 							columnSeriesNumber = 0;
 							waferNumber++;
 							prevRowIsBlank = false;
@@ -832,15 +727,16 @@ public class CalibrationDataHousehold {
 								// set series ID
 								String thisTitle = null;
 								for (int i = 0; i < toColumnIndex - fromColumnIndex; i++) {
-									thisTitle = line[i + fromColumnIndex].isEmpty() ? thisTitle
-											: line[i + fromColumnIndex];
+									thisTitle = reader.isEmpty(i + fromColumnIndex) ? thisTitle
+											: reader.get(i + fromColumnIndex);
 									columnTitles[columnSeriesNumber][i] = thisTitle;
 								}
 								columnSeriesNumber++;
-							} else if (columnSeriesNumber == columnSeriesMax && !isInitialised) {
+							} else if (columnSeriesNumber == columnSeriesMax) {
 								// add blank maps to data, so they can be populated below
-								if (waferNumber == 1) {
-									for (int i = 0; i < toColumnIndex - fromColumnIndex; i++) {
+								columnData.clear();
+								for (int i = 0; i < toColumnIndex - fromColumnIndex; i++) {
+									if (waferNumber == 1) {
 										if (!columnTitles[0][i].isBlank() && !data.containsKey(columnTitles[0][i])) {
 											// add column series 1 key
 											data.put(columnTitles[0][i],
@@ -854,30 +750,27 @@ public class CalibrationDataHousehold {
 													new HashMap<String, TObjectIntHashMap<String>>(MAP_INIT_SIZE_LGA));
 										}
 									}
+									columnData.add(data.get(columnTitles[0][i]).get(columnTitles[1][i]));
 								}
 								columnSeriesNumber++; // make sure this is only executed once
-							} else if (line.length > 1 && !line[1].isBlank()) {
+							} else if (reader.size() > 1 && !reader.isBlank(1)) {
 								// parse the body of the data
 								// WISHLIST: modify this so it can use POA, state, etc. not just LGA
-								String lgaCode = this.area.getLgaCodeFromName(line[0]);
+								String lgaCode = this.area.getLgaCodeFromName(rowTitle);
 								if (lgaCode != null) {
 									// null check excludes invalid LGAs
 									for (int i = 0; i < toColumnIndex - fromColumnIndex; i++) {
+										TObjectIntHashMap<String> lgaData = null;
 										if (waferNumber == 1) {
-											data.get(columnTitles[0][i]).get(columnTitles[1][i]).put(lgaCode,
-													new TObjectIntHashMap<String>(MAP_INIT_SIZE_HCFMD));
+											lgaData = new TObjectIntHashMap<String>(MAP_INIT_SIZE_HCFMD);
+											columnData.get(i).put(lgaCode, lgaData);
+										} else {
+											lgaData = columnData.get(i).get(lgaCode);
 										}
-										int value = 0;
-										try {
-											value = Integer.valueOf(line[i + fromColumnIndex]);
-										} catch (NumberFormatException e) {
-											value = 0;
-										}
-										data.get(columnTitles[0][i]).get(columnTitles[1][i]).get(lgaCode).put(waferName,
-												value);
+										lgaData.put(waferName, reader.getInt(i + fromColumnIndex, 0));
 									}
 								}
-							} else if (line[0].isBlank()) {
+							} else if (rowTitle.isBlank()) {
 								prevRowIsBlank = true;
 							}
 						}
@@ -895,6 +788,34 @@ public class CalibrationDataHousehold {
 		}
 	}
 
+	/**
+	 * Adds one state's ABS Census data to the data for the whole country, in the
+	 * same order as if the states had been loaded into one map one after the
+	 * other.
+	 * 
+	 * @param stateData - the data loaded from one state's file
+	 * @param data      - the data for all the states loaded so far
+	 */
+	private static void mergeCensusTable(Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> stateData,
+			Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> data) {
+		// uses put rather than computeIfAbsent, which would change the iteration order,
+		// and takes the state's own maps where there isn't one yet rather than copying
+		for (String series1 : stateData.keySet()) {
+			if (!data.containsKey(series1)) {
+				data.put(series1, stateData.get(series1));
+				continue;
+			}
+			Map<String, Map<String, TObjectIntHashMap<String>>> series1Data = data.get(series1);
+			for (String series2 : stateData.get(series1).keySet()) {
+				if (!series1Data.containsKey(series2)) {
+					series1Data.put(series2, stateData.get(series1).get(series2));
+				} else {
+					series1Data.get(series2).putAll(stateData.get(series1).get(series2));
+				}
+			}
+		}
+	}
+
 	/**
 	 * @return the rbaE2
 	 */
@@ -928,30 +849,39 @@ public class CalibrationDataHousehold {
 	/**
 	 * @return the censusHCFMD_LGA_HIND_MRERD
 	 */
-	public Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> getCensusHCFMD_LGA_HIND_MRERD() {
+	public Cube getCensusHCFMD_LGA_HIND_MRERD() {
 		if (!this.dataLoaded) {
 			this.loadData();
 		}
+		if (this.censusHCFMD_LGA_HIND_MRERD == null && this.bundle != null) {
+			this.censusHCFMD_LGA_HIND_MRERD = this.bundle.getCube(CENSUS_HCFMD_LGA_HIND_MRERD);
+		}
 		return censusHCFMD_LGA_HIND_MRERD;
 	}
 
 	/**
 	 * @return the censusHCFMD_LGA_HIND_RNTRD
 	 */
-	public Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> getCensusHCFMD_LGA_HIND_RNTRD() {
+	public Cube getCensusHCFMD_LGA_HIND_RNTRD() {
 		if (!this.dataLoaded) {
 			this.loadData();
 		}
+		if (this.censusHCFMD_LGA_HIND_RNTRD == null && this.bundle != null) {
+			this.censusHCFMD_LGA_HIND_RNTRD = this.bundle.getCube(CENSUS_HCFMD_LGA_HIND_RNTRD);
+		}
 		return censusHCFMD_LGA_HIND_RNTRD;
 	}
 
 	/**
 	 * @return the censusCDCF_LGA_FINF
 	 */
-	public Map<String, Map<String, Map<String, TObjectIntHashMap<String>>>> getCensusHCFMF_LGA_FINF_CDCF() {
+	public Cube getCensusHCFMF_LGA_FINF_CDCF() {
 		if (!this.dataLoaded) {
 			this.loadData();
 		}
+		if (this.censusHCFMF_LGA_FINF_CDCF == null && this.bundle != null) {
+			this.censusHCFMF_LGA_FINF_CDCF = this.bundle.getCube(CENSUS_HCFMF_LGA_FINF_CDCF);
+		}
 		return censusHCFMF_LGA_FINF_CDCF;
 	}
 
@@ -7,8 +7,10 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -25,6 +27,8 @@ import org.springframework.stereotype.Component;
 import com.opencsv.CSVReader;
 
 import gnu.trove.map.hash.TObjectFloatHashMap;
+import xyz.struthers.lang.CsvTokenizer;
+import xyz.struthers.lang.Cube;
 import xyz.struthers.rhul.ham.config.PropertiesXml;
 import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
 
@@ -63,6 +67,26 @@ public class CalibrationDataIndividual {
 
 	public static final String CENSUS_SEXP_POA_AGE5P_INDP_INCP = "Census SEXP by POA (UR) by AGE5P, INDP and INCP";
 
+	// files and columns imported
+	private static final String[] STATES_SEXP_POA_AGE5P_INDP_INCP = { "NSW", "VIC", "QLD", "SA", "WA", "TAS", "NT",
+			"ACT", "OT" };
+	// ATO_INDIVIDUAL_T2A_COLUMNS = { 5, 6, 7, 18, 19, 20, 21, 24, 25, 30, 31, 32,
+	// 33, 34, 35, 36, 37, 38, 39, 40, 41, 42, 43, 46, 47, 62, 63, 66, 67, 96, 97,
+	// 98, 99, 102, 103, 104, 105, 140, 141, 142, 143, 144, 145 };
+	private static final int[] ATO_INDIVIDUAL_T2A_COLUMNS = { 5, 6, 7 };
+	private static final int[] ATO_INDIVIDUAL_T3A_COLUMNS = { 5, 6, 7, 20, 21, 24, 25, 30, 31, 32, 33, 34, 35, 36,
+			37, 38, 39, 40, 41, 42, 43, 46, 47, 58, 59, 62, 63, 66, 67, 96, 97, 98, 99, 102, 103, 104, 105, 140, 141,
+			142, 143, 144, 145 };
+	// ATO_INDIVIDUAL_T6B_COLUMNS = { 2, 3, 4, 15, 16, 17, 18, 21, 22, 28, 29, 30,
+	// 31, 32, 33, 34, 35, 36, 37, 38, 39, 40, 41, 44, 45, 59, 60, 63, 64, 93, 94,
+	// 95, 96, 99, 100, 101, 102 };
+	private static final int[] ATO_INDIVIDUAL_T6B_COLUMNS = { 2, 3, 4 };
+	// ATO_INDIVIDUAL_T9_COLUMNS = { 2, 3, 4, 15, 16, 17, 18, 21, 22, 27, 28, 29,
+	// 30, 31, 32, 33, 34, 35, 36, 37, 38, 39, 40, 43, 44, 93, 94, 95, 96, 99, 100,
+	// 101, 102 };
+	private static final int[] ATO_INDIVIDUAL_T9_COLUMNS = { 2, 3, 4 };
+	private static final String BUNDLE_NAME = "individual";
+
 	// properties
 	PropertiesXml properties;
 
@@ -72,6 +96,7 @@ public class CalibrationDataIndividual {
 
 	// data
 	private boolean dataLoaded;
+	private CalibrationBundle bundle; // the census table is served from this
 	private Map<String, List<String>> title;
 	private Map<String, List<String>> unitType;
 	private Map<String, Map<String, String>> abs1292_0_55_002ANZSIC; // ANZSIC industry code mapping
@@ -105,12 +130,12 @@ public class CalibrationDataIndividual {
 	 * SEXP by POA (UR) by AGE5P, INDP and INCP<br>
 	 * Individual income by industry and demographic.
 	 * 
-	 * Keys: Age5, Industry Division, Personal Income, POA, Sex<br>
+	 * Dimensions: Age5, Industry Division, Personal Income, POA, Sex<br>
 	 * Values: Number of persons
 	 */
 	// private Map<String, Map<String, Map<String, Map<String, Map<String,
 	// Float>>>>> censusSEXP_POA_AGE5P_INDP_INCP;
-	private Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>> censusSEXP_POA_AGE5P_INDP_INCP;
+	private Cube censusSEXP_POA_AGE5P_INDP_INCP;
 	private boolean initialisedCensusSEXP_POA_AGE5P_INDP_INCP;
 
 	/**
@@ -239,39 +264,16 @@ public class CalibrationDataIndividual {
 			this.atoIndividualTable9DivisionSummary = null;
 		}
 
-		// Census SEXP Keys: Age5, Industry Division, Personal Income, POA, Sex
-		if (this.censusSEXP_POA_AGE5P_INDP_INCP != null) {
-			for (String age : this.censusSEXP_POA_AGE5P_INDP_INCP.keySet()) {
-				for (String div : this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).keySet()) {
-					for (String income : this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).get(div).keySet()) {
-						for (String poa : this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).get(div).get(income).keySet()) {
-							for (String sex : this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).get(div).get(income).get(poa)
-									.keySet()) {
-								this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).get(div).get(income).get(poa).put(sex, 0f); // null
-							} // end taxable status loop
-							this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).get(div).get(income).get(poa).clear();
-							this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).get(div).get(income).put(poa, null);
-						} // end sex loop
-						this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).get(div).get(income).clear();
-						this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).get(div).put(income, null);
-					} // end age loop
-					this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).get(div).clear();
-					this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).put(div, null);
-				} // end state loop
-				this.censusSEXP_POA_AGE5P_INDP_INCP.get(age).clear();
-				this.censusSEXP_POA_AGE5P_INDP_INCP.put(age, null);
-			} // end series loop
-			this.censusSEXP_POA_AGE5P_INDP_INCP.clear();
-			this.censusSEXP_POA_AGE5P_INDP_INCP = null;
-		}
+		// Census SEXP Dimensions: Age5, Industry Division, Personal Income, POA, Sex
+		this.censusSEXP_POA_AGE5P_INDP_INCP = null;
 		this.initialisedCensusSEXP_POA_AGE5P_INDP_INCP = false;
 
 		this.init(); // set all the pointers to null
 	}
 
 	private void loadData() {
-		this.title = new HashMap<String, List<String>>();
-		this.unitType = new HashMap<String, List<String>>();
+		this.title = Collections.synchronizedMap(new HashMap<String, List<String>>());
+		this.unitType = Collections.synchronizedMap(new HashMap<String, List<String>>());
 		this.abs1292_0_55_002ANZSIC = this.sharedData.getAbs1292_0_55_002ANZSIC();
 
 		long memoryBefore = 0L; // for debugging memory consumption
@@ -281,143 +283,118 @@ public class CalibrationDataIndividual {
 			memoryBefore = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
 		}
 
-		// ABS Census SEXP by POA (UR) by AGE5P, INDP and INCP
-		System.out.print(new Date(System.currentTimeMillis())
-				+ ": Loading ABS Census SEXP by POA (UR) by AGE5P, INDP and INCP data");
-		this.censusSEXP_POA_AGE5P_INDP_INCP = new HashMap<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>>(
-				MAP_INIT_SIZE_AGE5P);
-		int fromColumnSEXP_POA_AGE5P_INDP_INCP = 1;
-		int toColumnSEXP_POA_AGE5P_INDP_INCP = 8229;
-		System.out.print(": NSW");
-		this.loadAbsCensusTableCsv3Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "SEXP by POA (UR) by AGE5P, INDP and INCP/SEXP by POA (UR) by AGE5P, INDP and INCP - NSW.csv",
-				this.initialisedCensusSEXP_POA_AGE5P_INDP_INCP, fromColumnSEXP_POA_AGE5P_INDP_INCP,
-				toColumnSEXP_POA_AGE5P_INDP_INCP, this.censusSEXP_POA_AGE5P_INDP_INCP, "POA");
+		// read the files concurrently
+		LoaderPool loader = new LoaderPool(this.properties.getCalibrationThreadCount());
+
+		// the calibrators iterate over the ATO tables' keys, so they're always read from the CSV files to keep the
+		// maps in the order they were read
+		this.loadAtoCsvData(loader);
+
+		// use the compiled bundle for the census table if it's up to date, otherwise read the CSV files and compile it
+		List<String> sources = new ArrayList<String>();
+		for (String state : STATES_SEXP_POA_AGE5P_INDP_INCP) {
+			sources.add(this.censusFilenameSEXP_POA_AGE5P_INDP_INCP(state));
+		}
+		long fingerprint = CalibrationBundle.fingerprint(this.getClass(), sources);
+		Path bundleFile = CalibrationBundle.path(this.properties.getCalibrationBundleDirectory(), BUNDLE_NAME);
+		try {
+			this.bundle = CalibrationBundle.read(bundleFile, fingerprint);
+		} catch (IOException e) {
+			// read the CSV files instead
+			e.printStackTrace();
+		}
+		if (this.bundle != null) {
+			loader.join();
+		} else {
+			this.bundle = this.loadCensusCsvData(loader, bundleFile, fingerprint);
+		}
+		// the getter serves the census table from the bundle as a cube the first time it's asked for
 		this.initialisedCensusSEXP_POA_AGE5P_INDP_INCP = true;
-		System.out.print(", VIC");
-		this.loadAbsCensusTableCsv3Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "SEXP by POA (UR) by AGE5P, INDP and INCP/SEXP by POA (UR) by AGE5P, INDP and INCP - VIC.csv",
-				this.initialisedCensusSEXP_POA_AGE5P_INDP_INCP, fromColumnSEXP_POA_AGE5P_INDP_INCP,
-				toColumnSEXP_POA_AGE5P_INDP_INCP, this.censusSEXP_POA_AGE5P_INDP_INCP, "POA");
-		System.out.print(", QLD");
-		this.loadAbsCensusTableCsv3Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "SEXP by POA (UR) by AGE5P, INDP and INCP/SEXP by POA (UR) by AGE5P, INDP and INCP - QLD.csv",
-				this.initialisedCensusSEXP_POA_AGE5P_INDP_INCP, fromColumnSEXP_POA_AGE5P_INDP_INCP,
-				toColumnSEXP_POA_AGE5P_INDP_INCP, this.censusSEXP_POA_AGE5P_INDP_INCP, "POA");
-		System.out.print(", SA");
-		this.loadAbsCensusTableCsv3Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "SEXP by POA (UR) by AGE5P, INDP and INCP/SEXP by POA (UR) by AGE5P, INDP and INCP - SA.csv",
-				this.initialisedCensusSEXP_POA_AGE5P_INDP_INCP, fromColumnSEXP_POA_AGE5P_INDP_INCP,
-				toColumnSEXP_POA_AGE5P_INDP_INCP, this.censusSEXP_POA_AGE5P_INDP_INCP, "POA");
-		System.out.print(", WA");
-		this.loadAbsCensusTableCsv3Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "SEXP by POA (UR) by AGE5P, INDP and INCP/SEXP by POA (UR) by AGE5P, INDP and INCP - WA.csv",
-				this.initialisedCensusSEXP_POA_AGE5P_INDP_INCP, fromColumnSEXP_POA_AGE5P_INDP_INCP,
-				toColumnSEXP_POA_AGE5P_INDP_INCP, this.censusSEXP_POA_AGE5P_INDP_INCP, "POA");
-		System.out.print(", TAS");
-		this.loadAbsCensusTableCsv3Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "SEXP by POA (UR) by AGE5P, INDP and INCP/SEXP by POA (UR) by AGE5P, INDP and INCP - TAS.csv",
-				this.initialisedCensusSEXP_POA_AGE5P_INDP_INCP, fromColumnSEXP_POA_AGE5P_INDP_INCP,
-				toColumnSEXP_POA_AGE5P_INDP_INCP, this.censusSEXP_POA_AGE5P_INDP_INCP, "POA");
-		System.out.print(", NT");
-		this.loadAbsCensusTableCsv3Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "SEXP by POA (UR) by AGE5P, INDP and INCP/SEXP by POA (UR) by AGE5P, INDP and INCP - NT.csv",
-				this.initialisedCensusSEXP_POA_AGE5P_INDP_INCP, fromColumnSEXP_POA_AGE5P_INDP_INCP,
-				toColumnSEXP_POA_AGE5P_INDP_INCP, this.censusSEXP_POA_AGE5P_INDP_INCP, "POA");
-		System.out.print(", ACT");
-		this.loadAbsCensusTableCsv3Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "SEXP by POA (UR) by AGE5P, INDP and INCP/SEXP by POA (UR) by AGE5P, INDP and INCP - ACT.csv",
-				this.initialisedCensusSEXP_POA_AGE5P_INDP_INCP, fromColumnSEXP_POA_AGE5P_INDP_INCP,
-				toColumnSEXP_POA_AGE5P_INDP_INCP, this.censusSEXP_POA_AGE5P_INDP_INCP, "POA");
-		System.out.println(", OT.");
-		this.loadAbsCensusTableCsv3Columns1Wafer(
-				properties.getFilename("ABS/CensusTableBuilder")
-						+ "SEXP by POA (UR) by AGE5P, INDP and INCP/SEXP by POA (UR) by AGE5P, INDP and INCP - OT.csv",
-				this.initialisedCensusSEXP_POA_AGE5P_INDP_INCP, fromColumnSEXP_POA_AGE5P_INDP_INCP,
-				toColumnSEXP_POA_AGE5P_INDP_INCP, this.censusSEXP_POA_AGE5P_INDP_INCP, "POA");
 
 		if (DEBUG) {
 			System.gc();
 			long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
 			float megabytesConsumed = (memoryAfter - memoryBefore) / 1024f / 1024f;
 			DecimalFormat formatter = new DecimalFormat("#,##0.00");
-			System.out.println(">>> Memory used by ABS Census SEXP by POA (UR) by AGE5P, INDP and INCP: "
-					+ formatter.format(megabytesConsumed) + "MB");
+			System.out.println(">>> Memory used by ABS Census SEXP by POA (UR) by AGE5P, INDP and INCP and ATO "
+					+ "Individuals Tables: " + formatter.format(megabytesConsumed) + "MB");
 			memoryBefore = memoryAfter;
 		}
 
-		// Load ATO Individuals Table data
+		// set flag so we only load the data once
+		System.out.println(new Date(System.currentTimeMillis()) + ": Individual data loaded");
+		this.dataLoaded = true;
+	}
+
+	/**
+	 * Reads the ABS Census table from the CSV files, several at a time, then
+	 * merges the states in order and compiles it into a bundle.
+	 * 
+	 * @param loader      - the pool the files are loaded on, which is joined once
+	 *                    they've all been submitted
+	 * @param bundleFile  - the file to save the bundle to, or null if bundles
+	 *                    aren't saved
+	 * @param fingerprint - the fingerprint of the CSV files
+	 * @return the bundle
+	 */
+	private CalibrationBundle loadCensusCsvData(LoaderPool loader, Path bundleFile, long fingerprint) {
+		// ABS Census SEXP by POA (UR) by AGE5P, INDP and INCP
+		System.out.print(new Date(System.currentTimeMillis())
+				+ ": Loading ABS Census SEXP by POA (UR) by AGE5P, INDP and INCP data");
+		Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>> census = new HashMap<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>>(
+				MAP_INIT_SIZE_AGE5P);
+		int fromColumnSEXP_POA_AGE5P_INDP_INCP = 1;
+		int toColumnSEXP_POA_AGE5P_INDP_INCP = 8229;
+		List<Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>>> stateCensusSEXP_POA_AGE5P_INDP_INCP = new ArrayList<Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>>>(
+				STATES_SEXP_POA_AGE5P_INDP_INCP.length);
+		for (int i = 0; i < STATES_SEXP_POA_AGE5P_INDP_INCP.length; i++) {
+			System.out.print((i == 0 ? ": " : ", ") + STATES_SEXP_POA_AGE5P_INDP_INCP[i]);
+			String filename = this.censusFilenameSEXP_POA_AGE5P_INDP_INCP(STATES_SEXP_POA_AGE5P_INDP_INCP[i]);
+			Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>> stateData = new HashMap<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>>(
+					MAP_INIT_SIZE_AGE5P);
+			loader.submit(() -> this.loadAbsCensusTableCsv3Columns1Wafer(filename, fromColumnSEXP_POA_AGE5P_INDP_INCP,
+					toColumnSEXP_POA_AGE5P_INDP_INCP, stateData, "POA"));
+			stateCensusSEXP_POA_AGE5P_INDP_INCP.add(stateData);
+		}
+		System.out.println(".");
+
+		loader.join();
+		for (Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>> stateData : stateCensusSEXP_POA_AGE5P_INDP_INCP) {
+			mergeCensusTable(stateData, census);
+		}
+		return this.compileBundle(bundleFile, fingerprint, census);
+	}
+
+	/**
+	 * Submits the ATO Individuals tables to the loader. They are small, so they're
+	 * read from the CSV files every time rather than bundled.
+	 * 
+	 * @param loader - the pool the files are loaded on
+	 */
+	private void loadAtoCsvData(LoaderPool loader) {
 		System.out.println(new Date(System.currentTimeMillis()) + ": Loading ATO Individuals Table 2A data");
-		// int[] atoIndividualTable2aColumns = { 5, 6, 7, 18, 19, 20, 21, 24, 25, 30,
-		// 31, 32, 33, 34, 35, 36, 37, 38, 39,
-		// 40, 41, 42, 43, 46, 47, 62, 63, 66, 67, 96, 97, 98, 99, 102, 103, 104, 105,
-		// 140, 141, 142, 143, 144,
-		// 145 };
-		int[] atoIndividualTable2aColumns = { 5, 6, 7 };
-		int ato2aMapCapacity = (int) Math.ceil(atoIndividualTable2aColumns.length / MAP_LOAD_FACTOR);
+		int ato2aMapCapacity = (int) Math.ceil(ATO_INDIVIDUAL_T2A_COLUMNS.length / MAP_LOAD_FACTOR);
 		this.atoIndividualTable2a = new HashMap<String, Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>>>(
 				ato2aMapCapacity);
-		this.loadAtoIndividualsTable2a(properties.getFilename("ATO") + "Individual/IndividualsTable2A.csv",
-				ATO_INDIVIDUAL_T2A, atoIndividualTable2aColumns, this.title, this.atoIndividualTable2a);
-
-		if (DEBUG) {
-			System.gc();
-			long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
-			float megabytesConsumed = (memoryAfter - memoryBefore) / 1024f / 1024f;
-			DecimalFormat formatter = new DecimalFormat("#,##0.00");
-			System.out.println(
-					">>> Memory used by ATO Individuals Table 2A: " + formatter.format(megabytesConsumed) + "MB");
-			memoryBefore = memoryAfter;
-		}
+		loader.submit(() -> this.loadAtoIndividualsTable2a(
+				properties.getFilename("ATO") + "Individual/IndividualsTable2A.csv", ATO_INDIVIDUAL_T2A,
+				ATO_INDIVIDUAL_T2A_COLUMNS, this.title, this.atoIndividualTable2a));
 
 		System.out.println(new Date(System.currentTimeMillis()) + ": Loading ATO Individuals Table 3A data");
 
-		int[] atoIndividualTable3aColumns = { 5, 6, 7, 20, 21, 24, 25, 30, 31, 32, 33, 34, 35, 36, 37, 38, 39, 40, 41,
-				42, 43, 46, 47, 58, 59, 62, 63, 66, 67, 96, 97, 98, 99, 102, 103, 104, 105, 140, 141, 142, 143, 144,
-				145 };
-		int ato3aMapCapacity = (int) Math.ceil(atoIndividualTable3aColumns.length / MAP_LOAD_FACTOR);
+		int ato3aMapCapacity = (int) Math.ceil(ATO_INDIVIDUAL_T3A_COLUMNS.length / MAP_LOAD_FACTOR);
 		this.atoIndividualTable3a = new HashMap<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>>(
 				ato3aMapCapacity);
-		this.loadAtoIndividualsTable3a(properties.getFilename("ATO") + "Individual/IndividualsTable3A.csv",
-				ATO_INDIVIDUAL_T3A, atoIndividualTable3aColumns, this.title, this.atoIndividualTable3a);
-
-		if (DEBUG) {
-			System.gc();
-			long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
-			float megabytesConsumed = (memoryAfter - memoryBefore) / 1024f / 1024f;
-			DecimalFormat formatter = new DecimalFormat("#,##0.00");
-			System.out.println(
-					">>> Memory used by ATO Individuals Table 3A: " + formatter.format(megabytesConsumed) + "MB");
-			memoryBefore = memoryAfter;
-		}
+		loader.submit(() -> this.loadAtoIndividualsTable3a(
+				properties.getFilename("ATO") + "Individual/IndividualsTable3A.csv", ATO_INDIVIDUAL_T3A,
+				ATO_INDIVIDUAL_T3A_COLUMNS, this.title, this.atoIndividualTable3a));
 
 		System.out.println(new Date(System.currentTimeMillis()) + ": Loading ATO Individuals Table 6B data");
-		// int[] atoIndividualTable6bColumns = { 2, 3, 4, 15, 16, 17, 18, 21, 22, 28,
-		// 29, 30, 31, 32, 33, 34, 35, 36, 37,
-		// 38, 39, 40, 41, 44, 45, 59, 60, 63, 64, 93, 94, 95, 96, 99, 100, 101, 102 };
-		int[] atoIndividualTable6bColumns = { 2, 3, 4 };
-		int ato6bMapCapacity = (int) Math.ceil(atoIndividualTable6bColumns.length / MAP_LOAD_FACTOR);
+		int ato6bMapCapacity = (int) Math.ceil(ATO_INDIVIDUAL_T6B_COLUMNS.length / MAP_LOAD_FACTOR);
 		this.atoIndividualTable6b = new HashMap<String, TObjectFloatHashMap<String>>(ato6bMapCapacity);
-		this.loadAtoIndividualsTable6(properties.getFilename("ATO") + "Individual/IndividualsTable6B.csv",
-				ATO_INDIVIDUAL_T6B, atoIndividualTable6bColumns, this.title, this.atoIndividualTable6b);
-
-		if (DEBUG) {
-			System.gc();
-			long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
-			float megabytesConsumed = (memoryAfter - memoryBefore) / 1024f / 1024f;
-			DecimalFormat formatter = new DecimalFormat("#,##0.00");
-			System.out.println(
-					">>> Memory used by ATO Individuals Table 6B: " + formatter.format(megabytesConsumed) + "MB");
-			memoryBefore = memoryAfter;
-		}
+		loader.submit(() -> this.loadAtoIndividualsTable6(
+				properties.getFilename("ATO") + "Individual/IndividualsTable6B.csv", ATO_INDIVIDUAL_T6B,
+				ATO_INDIVIDUAL_T6B_COLUMNS, this.title, this.atoIndividualTable6b));
 
 		/*
 		 * System.out.println(new Date(System.currentTimeMillis()) +
@@ -430,33 +407,55 @@ public class CalibrationDataIndividual {
 		 */
 
 		System.out.println(new Date(System.currentTimeMillis()) + ": Loading ATO Individuals Table 9 data");
-		// int[] atoIndividualTable9Columns = { 2, 3, 4, 15, 16, 17, 18, 21, 22, 27, 28,
-		// 29, 30, 31, 32, 33, 34, 35, 36,
-		// 37, 38, 39, 40, 43, 44, 93, 94, 95, 96, 99, 100, 101, 102 };
-		int[] atoIndividualTable9Columns = { 2, 3, 4 };
-		int ato9MapCapacity = (int) Math.ceil(atoIndividualTable9Columns.length / MAP_LOAD_FACTOR);
+		int ato9MapCapacity = (int) Math.ceil(ATO_INDIVIDUAL_T9_COLUMNS.length / MAP_LOAD_FACTOR);
 		this.atoIndividualTable9DivisionSummary = new HashMap<String, Map<String, Float>>(ato9MapCapacity);
-		this.loadAtoIndividualsTable9DivisionSummary(properties.getFilename("ATO") + "Individual/IndividualsTable9.csv",
-				ATO_INDIVIDUAL_T9, atoIndividualTable9Columns, this.title, this.atoIndividualTable9DivisionSummary);
+		loader.submit(() -> this.loadAtoIndividualsTable9DivisionSummary(
+				properties.getFilename("ATO") + "Individual/IndividualsTable9.csv", ATO_INDIVIDUAL_T9,
+				ATO_INDIVIDUAL_T9_COLUMNS, this.title, this.atoIndividualTable9DivisionSummary));
 		// this.atoIndividualTable9 = new HashMap<String, Map<String,
 		// String>>(ato9MapCapacity);
 		// this.loadAtoIndividualsTable9("/data/ATO/Individual/IndividualsTable9.csv",
 		// ATO_INDIVIDUAL_T9,
-		// atoIndividualTable9Columns, this.title, this.atoIndividualTable9);
+		// ATO_INDIVIDUAL_T9_COLUMNS, this.title, this.atoIndividualTable9);
+	}
 
-		if (DEBUG) {
-			System.gc();
-			long memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
-			float megabytesConsumed = (memoryAfter - memoryBefore) / 1024f / 1024f;
-			DecimalFormat formatter = new DecimalFormat("#,##0.00");
-			System.out.println(
-					">>> Memory used by ATO Individuals Table 9: " + formatter.format(megabytesConsumed) + "MB");
-			memoryBefore = memoryAfter;
+	/**
+	 * Compiles the ABS Census table read from the CSV files into a bundle, which
+	 * the getter serves the table from, and saves it so it can be mapped instead
+	 * of read from the CSV files next time. If it can't be saved the CSV files are
+	 * just read again.
+	 * 
+	 * @param bundleFile  - the file to save the bundle to, or null if bundles
+	 *                    aren't saved
+	 * @param fingerprint - the fingerprint of the CSV files
+	 * @param census      - the ABS Census SEXP by POA (UR) by AGE5P, INDP and INCP
+	 *                    table
+	 * @return the bundle
+	 */
+	private CalibrationBundle compileBundle(Path bundleFile, long fingerprint,
+			Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>> census) {
+		CalibrationBundle bundle = new CalibrationBundle(fingerprint);
+		bundle.putTable(CENSUS_SEXP_POA_AGE5P_INDP_INCP, CalibrationBundle.KIND_FLOAT, census, 5);
+		if (bundleFile != null) {
+			try {
+				bundle.write(bundleFile);
+			} catch (IOException e) {
+				// read the CSV files again next time
+				e.printStackTrace();
+			}
 		}
+		return bundle;
+	}
 
-		// set flag so we only load the data once
-		System.out.println(new Date(System.currentTimeMillis()) + ": Individual data loaded");
-		this.dataLoaded = true;
+	/**
+	 * @param state - the state (or "OT" for other territories)
+	 * @return the resource name of the state's SEXP by POA (UR) by AGE5P, INDP and
+	 *         INCP file
+	 */
+	private String censusFilenameSEXP_POA_AGE5P_INDP_INCP(String state) {
+		return properties.getFilename("ABS/CensusTableBuilder")
+				+ "SEXP by POA (UR) by AGE5P, INDP and INCP/SEXP by POA (UR) by AGE5P, INDP and INCP - " + state
+				+ ".csv";
 	}
 
 	/**
@@ -584,22 +583,19 @@ public class CalibrationDataIndividual {
 	 * 6. The first row in the footer begins with "Data Source".
 	 * 
 	 * @param fileResourceLocation - the URI of the file to import.
-	 * @param isInitialised        - true if any file has already been imported for
-	 *                             this data series, false otherwise.
 	 * @param fromColumnIndex      - import data from this column index (inclusive).
 	 * @param toColumnIndex        - import data to this column index (exclusive).
 	 * @param data                 - the data map that the values are returned in.
 	 *                             Keys are: 3 columns, row, wafer. (AGE5P, INDP,
 	 *                             INCP, LGA, SEXP)
 	 */
-	private void loadAbsCensusTableCsv3Columns1Wafer(String fileResourceLocation, boolean isInitialised,
-			int fromColumnIndex, int toColumnIndex,
-			Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>> data, String lgaOrPoa) {
+	private void loadAbsCensusTableCsv3Columns1Wafer(String fileResourceLocation, int fromColumnIndex,
+			int toColumnIndex, Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>> data,
+			String lgaOrPoa) {
 
-		CSVReader reader = null;
+		CsvTokenizer reader = null;
 		try {
-			InputStream is = this.getClass().getResourceAsStream(fileResourceLocation);
-			reader = new CSVReader(new InputStreamReader(is));
+			reader = CsvTokenizer.open(this.getClass(), fileResourceLocation);
 			boolean header = true;
 			boolean footer = false;
 			int currentRow = 1;
@@ -610,20 +606,24 @@ public class CalibrationDataIndividual {
 			int columnSeriesNumber = Integer.MAX_VALUE;
 			final int columnSeriesMax = 3; // because the dataset contains 3 column series
 			String[][] columnTitles = new String[columnSeriesMax][toColumnIndex - fromColumnIndex];
+			// the map each column's values go in, so the keys are only looked up once
+			List<Map<String, TObjectFloatHashMap<String>>> columnData = new ArrayList<Map<String, TObjectFloatHashMap<String>>>(
+					toColumnIndex - fromColumnIndex);
+			Map<String, String> divisionCodes = this.abs1292_0_55_002ANZSIC.get("Division to Division Code");
 
-			String[] line = null;
-			while ((line = reader.readNext()) != null) {
+			while (reader.next()) {
 				if (header) {
 					if (currentRow++ == lastHeaderRow) {
 						header = false;
 					}
 				} else if (!footer) {
-					if (line[0].length() > 11 && line[0].substring(0, 11).equals("Data Source")) {
+					String rowTitle = reader.get(0);
+					if (rowTitle.length() > 11 && rowTitle.substring(0, 11).equals("Data Source")) {
 						footer = true;
 					} else {
-						if (prevRowIsBlank && !line[0].isBlank()) {
+						if (prevRowIsBlank && !rowTitle.isBlank()) {
 							// set wafer name
-							waferName = line[0].trim();
+							waferName = rowTitle.trim();
 							waferName = waferName.substring(0, 1); // wafer is sex, so just take the first letter (M, F)
 							columnSeriesNumber = 0;
 							waferNumber++;
@@ -633,27 +633,27 @@ public class CalibrationDataIndividual {
 								// set series ID
 								String thisTitle = null;
 								for (int i = 0; i < toColumnIndex - fromColumnIndex; i++) {
-									thisTitle = line[i + fromColumnIndex].isEmpty() ? thisTitle
-											: line[i + fromColumnIndex];
+									thisTitle = reader.isEmpty(i + fromColumnIndex) ? thisTitle
+											: reader.get(i + fromColumnIndex);
 									columnTitles[columnSeriesNumber][i] = thisTitle;
 								}
 								columnSeriesNumber++;
-							} else if (columnSeriesNumber == columnSeriesMax && !isInitialised) {
+							} else if (columnSeriesNumber == columnSeriesMax) {
 								// add blank maps to data, so they can be populated below
-								if (waferNumber == 1) {
-									for (int i = 0; i < toColumnIndex - fromColumnIndex; i++) {
+								columnData.clear();
+								for (int i = 0; i < toColumnIndex - fromColumnIndex; i++) {
+									// convert Industry Division Description to Code
+									String divCode = divisionCodes.get(columnTitles[1][i].toUpperCase());
+									if (waferNumber == 1) {
 										if (!columnTitles[0][i].isBlank() && !data.containsKey(columnTitles[0][i])) {
 											// add column series 1 key
 											data.put(columnTitles[0][i],
 													new HashMap<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>(
 															MAP_INIT_SIZE_INDP));
 										}
-										String divCode = this.abs1292_0_55_002ANZSIC.get("Division to Division Code")
-												.get(columnTitles[1][i].toUpperCase());
 										if (!columnTitles[1][i].isBlank()
 												&& !data.get(columnTitles[0][i]).containsKey(divCode)) {
 											// add column series 2 key
-											// convert Industry Division Description to Code
 											data.get(columnTitles[0][i]).put(divCode,
 													new HashMap<String, Map<String, TObjectFloatHashMap<String>>>(
 															MAP_INIT_SIZE_INCP));
@@ -666,39 +666,34 @@ public class CalibrationDataIndividual {
 															MAP_INIT_SIZE_LGA));
 										}
 									}
+									columnData.add(data.get(columnTitles[0][i]).get(divCode).get(columnTitles[2][i]));
 								}
 								columnSeriesNumber++; // make sure this is only executed once
-							} else if (line.length > 1 && !line[1].isBlank()) {
+							} else if (reader.size() > 1 && !reader.isBlank(1)) {
 								// parse the body of the data
 								String areaCode = null;
 								if (lgaOrPoa.equalsIgnoreCase("LGA")) {
-									areaCode = this.area.getLgaCodeFromName(line[0]);
+									areaCode = this.area.getLgaCodeFromName(rowTitle);
 								} else {
 									// assume it's POA in the format NNNN, SSS
-									if (!line[0].equalsIgnoreCase("Total")) {
-										areaCode = line[0].substring(0, line[0].indexOf(","));
+									if (!rowTitle.equalsIgnoreCase("Total")) {
+										areaCode = rowTitle.substring(0, rowTitle.indexOf(","));
 									}
 								}
 								if (areaCode != null) {
 									// null check excludes invalid LGAs
 									for (int i = 0; i < toColumnIndex - fromColumnIndex; i++) {
-										String divCode = this.abs1292_0_55_002ANZSIC.get("Division to Division Code")
-												.get(columnTitles[1][i].toUpperCase());
+										TObjectFloatHashMap<String> areaData = null;
 										if (waferNumber == 1) {
-											data.get(columnTitles[0][i]).get(divCode).get(columnTitles[2][i])
-													.put(areaCode, new TObjectFloatHashMap<String>(MAP_INIT_SIZE_SEXP));
-										}
-										float value = 0f;
-										try {
-											value = Float.valueOf(line[i + fromColumnIndex].trim().replace(",", ""));
-										} catch (NumberFormatException e) {
-											// do nothing and leave it as zero.
+											areaData = new TObjectFloatHashMap<String>(MAP_INIT_SIZE_SEXP);
+											columnData.get(i).put(areaCode, areaData);
+										} else {
+											areaData = columnData.get(i).get(areaCode);
 										}
-										data.get(columnTitles[0][i]).get(divCode).get(columnTitles[2][i]).get(areaCode)
-												.put(waferName, value);
+										areaData.put(waferName, reader.getFloat(i + fromColumnIndex, 0f));
 									}
 								}
-							} else if (line[0].isBlank()) {
+							} else if (rowTitle.isBlank()) {
 								prevRowIsBlank = true;
 							}
 						}
@@ -716,6 +711,42 @@ public class CalibrationDataIndividual {
 		}
 	}
 
+	/**
+	 * Adds one state's ABS Census data to the data for the whole country, in the
+	 * same order as if the states had been loaded into one map one after the
+	 * other.
+	 * 
+	 * @param stateData - the data loaded from one state's file
+	 * @param data      - the data for all the states loaded so far
+	 */
+	private static void mergeCensusTable(
+			Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>> stateData,
+			Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>> data) {
+		// uses put rather than computeIfAbsent, which would change the iteration order,
+		// and takes the state's own maps where there isn't one yet rather than copying
+		for (String series1 : stateData.keySet()) {
+			if (!data.containsKey(series1)) {
+				data.put(series1, stateData.get(series1));
+				continue;
+			}
+			Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>> series1Data = data.get(series1);
+			for (String series2 : stateData.get(series1).keySet()) {
+				if (!series1Data.containsKey(series2)) {
+					series1Data.put(series2, stateData.get(series1).get(series2));
+					continue;
+				}
+				Map<String, Map<String, TObjectFloatHashMap<String>>> series2Data = series1Data.get(series2);
+				for (String series3 : stateData.get(series1).get(series2).keySet()) {
+					if (!series2Data.containsKey(series3)) {
+						series2Data.put(series3, stateData.get(series1).get(series2).get(series3));
+					} else {
+						series2Data.get(series3).putAll(stateData.get(series1).get(series2).get(series3));
+					}
+				}
+			}
+		}
+	}
+
 	/*
 	 * private void loadAbsCensusTableCsv3Columns1WaferJDK(String
 	 * fileResourceLocation, boolean isInitialised, int fromColumnIndex, int
@@ -1259,6 +1290,7 @@ public class CalibrationDataIndividual {
 		this.properties = PropertiesXmlFactory.getProperties();
 
 		this.dataLoaded = false;
+		this.bundle = null;
 
 		this.title = null;
 		this.unitType = null;
@@ -1313,12 +1345,16 @@ public class CalibrationDataIndividual {
 	}
 
 	/**
-	 * @return the censusSEXP_POA_AGE5P_INDP_INCP
+	 * @return the censusSEXP_POA_AGE5P_INDP_INCP cube (Age5, Industry Division,
+	 *         Personal Income, POA, Sex)
 	 */
-	public Map<String, Map<String, Map<String, Map<String, TObjectFloatHashMap<String>>>>> getCensusSEXP_POA_AGE5P_INDP_INCP() {
+	public Cube getCensusSEXP_POA_AGE5P_INDP_INCP() {
 		if (!this.dataLoaded) {
 			this.loadData();
 		}
+		if (this.censusSEXP_POA_AGE5P_INDP_INCP == null && this.bundle != null) {
+			this.censusSEXP_POA_AGE5P_INDP_INCP = this.bundle.getCube(CENSUS_SEXP_POA_AGE5P_INDP_INCP);
+		}
 		return censusSEXP_POA_AGE5P_INDP_INCP;
 	}
 
@@ -0,0 +1,64 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads independent data files concurrently on a bounded pool of threads, so
+ * the time it takes to load a data set is closer to the time it takes to read
+ * its largest file than the sum of all of them.
+ *
+ * Each load must only write to its own maps, apart from the shared title and
+ * unit type maps, which must be synchronized. Files that are combined into one
+ * map (e.g. one file per state) are each loaded into their own map and merged
+ * in file order after they've all been joined, so the result doesn't depend on
+ * which thread finishes first.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class LoaderPool {
+
+	private final ForkJoinPool pool;
+	private final List<ForkJoinTask<?>> loads;
+
+	/**
+	 * @param threadCount - the number of files to read at once, or zero to use
+	 *                    all the available processors
+	 */
+	public LoaderPool(int threadCount) {
+		super();
+		this.pool = new ForkJoinPool(threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors());
+		this.loads = new ArrayList<ForkJoinTask<?>>();
+	}
+
+	/**
+	 * Starts loading a file (or a group of files that must be read in order).
+	 *
+	 * @param load - reads the file into its own maps
+	 */
+	public void submit(Runnable load) {
+		this.loads.add(this.pool.submit(load));
+	}
+
+	/**
+	 * Waits for every load to finish, then shuts the pool down. Any exception
+	 * thrown by a load is rethrown here.
+	 */
+	public void join() {
+		try {
+			for (ForkJoinTask<?> load : this.loads) {
+				load.join();
+			}
+		} finally {
+			this.loads.clear();
+			this.pool.shutdown();
+		}
+	}
+
+}
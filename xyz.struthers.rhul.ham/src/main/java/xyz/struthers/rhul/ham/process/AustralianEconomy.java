@@ -10,14 +10,14 @@ import java.io.Writer;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -34,6 +34,7 @@ import com.opencsv.exceptions.CsvRequiredFieldEmptyException;
 
 import gnu.trove.list.array.TFloatArrayList;
 import gnu.trove.list.array.TIntArrayList;
+import xyz.struthers.lang.QuotaSampler;
 import xyz.struthers.rhul.ham.agent.AustralianGovernment;
 import xyz.struthers.rhul.ham.agent.AuthorisedDepositTakingInstitution;
 import xyz.struthers.rhul.ham.agent.Business;
@@ -42,7 +43,6 @@ import xyz.struthers.rhul.ham.agent.ForeignCountry;
 import xyz.struthers.rhul.ham.agent.Household;
 import xyz.struthers.rhul.ham.agent.Individual;
 import xyz.struthers.rhul.ham.agent.ReserveBankOfAustralia;
-import xyz.struthers.rhul.ham.config.ExchangeRateList;
 import xyz.struthers.rhul.ham.config.PropertiesXml;
 import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
 import xyz.struthers.rhul.ham.data.Currencies;
@@ -71,6 +71,18 @@ public class AustralianEconomy implements Serializable {
 	public static final float BUFFER_GOVT = Float.MAX_VALUE / 2f;
 	public static final float BUFFER_RBA = Float.MAX_VALUE / 2f;
 
+	/**
+	 * The minimum number of agents in each segment when the CPV inputs are
+	 * prepared in parallel. Smaller economies are prepared on the calling thread.
+	 */
+	public static final int PREPARE_PARALLEL_THRESHOLD = 1 << 12;
+	/**
+	 * ADIs owe interest to millions of depositors while households only owe a few
+	 * liabilities each, so the agents are split into more segments than there are
+	 * threads to let the fork-join pool balance the load.
+	 */
+	public static final int PREPARE_SEGMENTS_PER_THREAD = 4;
+
 	// Agents
 	Household[] households;
 	Individual[] individuals;
@@ -90,10 +102,21 @@ public class AustralianEconomy implements Serializable {
 	// List<List<Integer>> liabilitiesIndices;
 	// List<Float> operatingCashFlow;
 	// List<Float> liquidAssets; // cash at bank, etc.
-	List<TFloatArrayList> liabilitiesAmounts;
-	List<TIntArrayList> liabilitiesIndices;
-	TFloatArrayList operatingCashFlow;
-	TFloatArrayList liquidAssets; // cash at bank, etc.
+	// List<TFloatArrayList> liabilitiesAmounts;
+	// List<TIntArrayList> liabilitiesIndices;
+	// TFloatArrayList operatingCashFlow;
+	// TFloatArrayList liquidAssets; // cash at bank, etc.
+	// float[][] liabilitiesAmounts;
+	// int[][] liabilitiesIndices;
+	transient LiabilityCsrBuilder liabilityBuilder; // reuses the CSR arrays each iteration
+	LiabilityGraph liabilities; // handed to the CPV inputs without being copied
+	float[] operatingCashFlow;
+	float[] liquidAssets; // cash at bank, etc.
+	transient ForkJoinPool preparePool; // only used when preparing the CPV inputs (and outputs) in parallel
+	transient LiabilityCsrBuilder[] liabilitySegments; // thread-local CSR segments
+	transient int[] receivablePtr; // receivables index, which the in-process CPV reuses
+	transient int[] receivableFrom;
+	transient int[] receivableEdge;
 	/**
 	 * Clearing Payment Vector output is a map containing:<br>
 	 * List<Float> ClearingPaymentVector,<br>
@@ -115,6 +138,19 @@ public class AustralianEconomy implements Serializable {
 		this.init();
 	}
 
+	/**
+	 * Creates an empty economy for a scenario, to be filled from an
+	 * EconomySnapshot. Unlike the Spring bean, it uses the scenario's properties
+	 * and leaves the exogeneous expense agent alone, because it's shared with the
+	 * other scenarios that are running at the same time.
+	 * 
+	 * @param properties - the scenario's properties
+	 */
+	public AustralianEconomy(PropertiesXml properties) {
+		super();
+		this.properties = properties;
+	}
+
 	@PostConstruct
 	private void init() {
 		this.properties = PropertiesXmlFactory.getProperties();
@@ -132,9 +168,14 @@ public class AustralianEconomy implements Serializable {
 
 		// Process
 		this.payments = null;
-		this.liabilitiesAmounts = null;
-		this.liabilitiesIndices = null;
+		this.liabilityBuilder = null;
+		this.liabilities = null;
 		this.operatingCashFlow = null;
+		this.preparePool = null;
+		this.liabilitySegments = null;
+		this.receivablePtr = null;
+		this.receivableFrom = null;
+		this.receivableEdge = null;
 
 		// Analytics
 		this.businessTypeCount = null;
@@ -149,44 +190,31 @@ public class AustralianEconomy implements Serializable {
 	 */
 	@PreDestroy
 	public void close() {
-		int i = 0;
-		for (i = 0; i < this.households.length; i++) {
-			this.households = null;
-		}
-		for (i = 0; i < this.individuals.length; i++) {
-			this.individuals = null;
-		}
-		for (i = 0; i < this.businesses.length; i++) {
-			this.businesses = null;
-		}
-		for (i = 0; i < this.adis.length; i++) {
-			this.adis = null;
-		}
-		for (i = 0; i < this.countries.length; i++) {
-			this.countries = null;
-		}
+		this.households = null;
+		this.individuals = null;
+		this.businesses = null;
+		this.adis = null;
+		this.countries = null;
 		this.currencies = null;
 		this.rba = null;
 		this.government = null;
 		this.payments = null;
 
-		for (i = 0; i < this.liabilitiesAmounts.size(); i++) {
-			this.liabilitiesAmounts.clear();
-			this.liabilitiesAmounts.set(i, null);
-		}
-		this.liabilitiesAmounts.clear();
-		this.liabilitiesAmounts = null;
-		for (i = 0; i < this.liabilitiesIndices.size(); i++) {
-			this.liabilitiesIndices.clear();
-			this.liabilitiesIndices.set(i, null);
-		}
-		this.liabilitiesIndices.clear();
-		this.liabilitiesIndices = null;
-		this.operatingCashFlow.clear();
+		this.liabilityBuilder = null;
+		this.liabilities = null;
 		this.operatingCashFlow = null;
-		this.liquidAssets.clear();
 		this.liquidAssets = null;
-		this.clearingPaymentVectorOutput.close();
+		if (this.preparePool != null) {
+			this.preparePool.shutdown();
+			this.preparePool = null;
+		}
+		this.liabilitySegments = null;
+		this.receivablePtr = null;
+		this.receivableFrom = null;
+		this.receivableEdge = null;
+		if (this.clearingPaymentVectorOutput != null) {
+			this.clearingPaymentVectorOutput.close(); // null if the economy hasn't been simulated
+		}
 		this.businessTypeCount = null;
 	}
 
@@ -221,22 +249,22 @@ public class AustralianEconomy implements Serializable {
 		} else if (properties.getFxRateStrategy() == Currencies.RANDOM_5YR_DOWN) {
 			this.currencies.prepareFxRatesRandom5yrDown(iteration, this.random);
 		} else if (properties.getFxRateStrategy() == Currencies.CUSTOM_PATH) {
-			Map<String, ExchangeRateList> ratesListProperties = this.properties.getFxRateCustomPath();
-			Set<String> currencyCodes = ratesListProperties.keySet();
-			Map<String, TFloatArrayList> customRates = new HashMap<String, TFloatArrayList>(currencyCodes.size());
-			for (String ccy : currencyCodes) {
-				// get list from properties map
-				List<Float> origList = ratesListProperties.get(ccy).getFxRates();
-
-				// convert ExchangeRateList to Trove List
-				TFloatArrayList newList = new TFloatArrayList(origList.size());
-				for (float ccyRate : origList) { // FIXME: null pointer exception (15% for 5yrs)
-					newList.add(ccyRate);
-				}
-
-				// put in new map
-				customRates.put(ccy, newList);
-			}
+			/*
+			 * Map<String, ExchangeRateList> ratesListProperties =
+			 * this.properties.getFxRateCustomPath(); Set<String> currencyCodes
+			 * = ratesListProperties.keySet(); Map<String, TFloatArrayList>
+			 * customRates = new HashMap<String,
+			 * TFloatArrayList>(currencyCodes.size()); for (String ccy :
+			 * currencyCodes) { // get list from properties map List<Float>
+			 * origList = ratesListProperties.get(ccy).getFxRates(); // convert
+			 * ExchangeRateList to Trove List TFloatArrayList newList = new
+			 * TFloatArrayList(origList.size()); for (float ccyRate : origList)
+			 * { // FIXME: null pointer exception (15% for 5yrs)
+			 * newList.add(ccyRate); } // put in new map customRates.put(ccy,
+			 * newList); }
+			 */
+			// converted to Trove lists once, when the properties were loaded
+			Map<String, TFloatArrayList> customRates = this.properties.getFxRateCustomPathArrays();
 			this.currencies.prepareFxRatesCustomPath(iteration, customRates);
 		} else {
 			// same FX rates for all iterations
@@ -273,8 +301,13 @@ public class AustralianEconomy implements Serializable {
 		// prepare the inputs to the Clearing Payments Vector algorithm
 		this.preparePaymentsClearingVectorInputs(iteration, scenarioName);
 
-		ClearingPaymentInputs cpvInputs = new ClearingPaymentInputs(this.liabilitiesAmounts, this.liabilitiesIndices,
-				this.operatingCashFlow, this.liquidAssets, iteration);
+		ClearingPaymentInputs cpvInputs = new ClearingPaymentInputs(this.liabilities, this.operatingCashFlow,
+				this.liquidAssets, iteration);
+		// the inputs own the cash flow arrays now, so don't keep them alive after
+		// they're cleared
+		this.liabilities = null;
+		this.operatingCashFlow = null;
+		this.liquidAssets = null;
 
 		if (DEBUG_RAM_USAGE) {
 			System.gc();
@@ -480,215 +513,124 @@ public class AustralianEconomy implements Serializable {
 		// initialise local variables (incl. RBA, govt & exogeneous)
 		int totalAgentCount = 1 + 1 + this.households.length + this.businesses.length + this.adis.length
 				+ this.countries.length + 1;
-		this.liabilitiesAmounts = new ArrayList<TFloatArrayList>(totalAgentCount);
-		this.liabilitiesIndices = new ArrayList<TIntArrayList>(totalAgentCount);
-		this.operatingCashFlow = new TFloatArrayList(totalAgentCount);
-		this.liquidAssets = new TFloatArrayList(totalAgentCount);
-		ArrayList<Float> receivableFromAnotherAgent = new ArrayList<Float>(totalAgentCount);
-		ArrayList<Float> payableToAnotherAgent = new ArrayList<Float>(totalAgentCount);
-		for (int i = 0; i < totalAgentCount; i++) {
-			// initialise them so we can use set without getting index out of bounds errors
-			this.liabilitiesAmounts.add(new TFloatArrayList());
-			this.liabilitiesIndices.add(new TIntArrayList());
-			this.operatingCashFlow.add(0f);
-			this.liquidAssets.add(0f);
-			receivableFromAnotherAgent.add(0f);
-			payableToAnotherAgent.add(0f);
+		// the agents write their liabilities straight into the CSR arrays that are
+		// passed to the CPV, which are reused from one iteration to the next
+		if (this.liabilityBuilder == null) {
+			this.liabilityBuilder = new LiabilityCsrBuilder();
+		}
+		this.liabilityBuilder.reset(totalAgentCount, this.liabilityBuilder.getLinkCount());
+		this.operatingCashFlow = new float[totalAgentCount];
+		this.liquidAssets = new float[totalAgentCount];
+
+		// calculate liabilities, in CPV index order (the exogeneous expense agent has
+		// none). The RBA resets its earnings when it emits its liabilities, so the
+		// government and RBA are always emitted on the calling thread.
+		int firstHousehold = this.rba.getPaymentClearingIndex() + 1;
+		boolean parallel = this.isParallel(totalAgentCount);
+		this.emitLiabilities(this.government, iteration);
+		this.emitLiabilities(this.rba, iteration);
+		if (parallel) {
+			this.emitLiabilitiesInParallel(firstHousehold, iteration);
+		} else {
+			for (Household household : this.households) {
+				this.emitLiabilities(household, iteration);
+			}
+			for (Business business : this.businesses) {
+				this.emitLiabilities(business, iteration);
+			}
+			for (AuthorisedDepositTakingInstitution adi : this.adis) {
+				this.emitLiabilities(adi, iteration);
+			}
+			for (ForeignCountry country : this.countries) {
+				this.emitLiabilities(country, iteration);
+			}
+		}
+		this.liabilities = this.liabilityBuilder.build();
+		int[] rowPtr = this.liabilities.getRowPtr();
+		float[] amount = this.liabilities.getAmount();
+
+		// add liabilities to recipient's receivables so we can calculate exogeneous
+		// cash flow. N.B. exogeneous cash flow calculated below after all liabilities
+		// are set. The government and RBA are added last, as they always have been,
+		// so the floating point sums don't change.
+		float[] receivableFromAnotherAgent = new float[totalAgentCount];
+		float[] payableToAnotherAgent = new float[totalAgentCount];
+		if (parallel) {
+			this.addReceivablesAndPayablesInParallel(firstHousehold, receivableFromAnotherAgent,
+					payableToAnotherAgent);
+		} else {
+			this.addReceivablesAndPayables(firstHousehold, totalAgentCount, receivableFromAnotherAgent,
+					payableToAnotherAgent);
+			this.addReceivablesAndPayables(0, firstHousehold, receivableFromAnotherAgent, payableToAnotherAgent);
 		}
 
 		// households
 		for (Household household : this.households) {
 			int paymentClearingIndex = household.getPaymentClearingIndex();
 
-			// calculate liabilities
-			List<NodePayment> nodePayments = household.getAmountsPayable(iteration);
-			TFloatArrayList liabilityAmounts = new TFloatArrayList(nodePayments.size());
-			TIntArrayList liabilityIndices = new TIntArrayList(nodePayments.size());
-			for (int creditorIdx = 0; creditorIdx < nodePayments.size(); creditorIdx++) {
-				float liabAmt = nodePayments.get(creditorIdx).getLiabilityAmount();
-				liabilityAmounts.add(liabAmt);
-				int liabIdx = nodePayments.get(creditorIdx).getRecipientIndex();
-				liabilityIndices.add(liabIdx);
-				payableToAnotherAgent.set(paymentClearingIndex, payableToAnotherAgent.get(creditorIdx) + liabAmt);
-
-				// add liabilities to recipient's receivables so we can calculate exogeneous
-				// cash flow. N.B. exogeneous cash flow calculated below after all liabilities
-				// are set
-				receivableFromAnotherAgent.set(liabIdx, receivableFromAnotherAgent.get(liabIdx) + liabAmt);
-			}
-			liabilityAmounts.trimToSize();
-			liabilityIndices.trimToSize();
-			this.liabilitiesAmounts.set(paymentClearingIndex, liabilityAmounts);
-			this.liabilitiesIndices.set(paymentClearingIndex, liabilityIndices);
-
 			// calculate liquid assets
 			float liquid = household.getBsBankDeposits()
 					+ household.getBsSuperannuation() * (1f - properties.getSuperannuationHaircut());
-			this.liquidAssets.set(paymentClearingIndex, liquid);
+			this.liquidAssets[paymentClearingIndex] = liquid;
 		}
 
 		// businesses
 		for (Business business : this.businesses) {
 			int paymentClearingIndex = business.getPaymentClearingIndex();
 
-			// calculate liabilities
-			List<NodePayment> nodePayments = business.getAmountsPayable(iteration);
-			TFloatArrayList liabilityAmounts = new TFloatArrayList(nodePayments.size());
-			TIntArrayList liabilityIndices = new TIntArrayList(nodePayments.size());
-			for (int creditorIdx = 0; creditorIdx < nodePayments.size(); creditorIdx++) {
-				float liabAmt = nodePayments.get(creditorIdx).getLiabilityAmount();
-				liabilityAmounts.add(liabAmt);
-				int liabIdx = nodePayments.get(creditorIdx).getRecipientIndex();
-				liabilityIndices.add(liabIdx);
-				payableToAnotherAgent.set(paymentClearingIndex, payableToAnotherAgent.get(creditorIdx) + liabAmt);
-
-				// add liabilities to recipient's receivables so we can calculate exogeneous
-				// cash flow. N.B. exogeneous cash flow calculated below after all liabilities
-				// are set
-				receivableFromAnotherAgent.set(liabIdx, receivableFromAnotherAgent.get(liabIdx) + liabAmt);
-			}
-			liabilityAmounts.trimToSize();
-			liabilityIndices.trimToSize();
-			this.liabilitiesAmounts.set(paymentClearingIndex, liabilityAmounts);
-			this.liabilitiesIndices.set(paymentClearingIndex, liabilityIndices);
-
 			// calculate liquid assets
 			float liquid = business.getBankDeposits()
 					+ business.getOtherFinancialAssets() * (1f - properties.getInvestmentHaircut())
 					+ business.getForeignEquities() * (1f - properties.getForeignInvestmentHaircut());
-			this.liquidAssets.set(paymentClearingIndex, liquid);
+			this.liquidAssets[paymentClearingIndex] = liquid;
 		}
 
 		// ADIs
 		for (AuthorisedDepositTakingInstitution adi : this.adis) {
 			int paymentClearingIndex = adi.getPaymentClearingIndex();
 
-			// calculate liabilities
-			List<NodePayment> nodePayments = adi.getAmountsPayable(iteration);
-			TFloatArrayList liabilityAmounts = new TFloatArrayList(nodePayments.size());
-			TIntArrayList liabilityIndices = new TIntArrayList(nodePayments.size());
-			for (int creditorIdx = 0; creditorIdx < nodePayments.size(); creditorIdx++) {
-				float liabAmt = nodePayments.get(creditorIdx).getLiabilityAmount();
-				liabilityAmounts.add(liabAmt);
-				int liabIdx = nodePayments.get(creditorIdx).getRecipientIndex();
-				liabilityIndices.add(liabIdx);
-				payableToAnotherAgent.set(paymentClearingIndex, payableToAnotherAgent.get(creditorIdx) + liabAmt);
-
-				// add liabilities to recipient's receivables so we can calculate exogeneous
-				// cash flow. N.B. exogeneous cash flow calculated below after all liabilities
-				// are set
-				receivableFromAnotherAgent.set(liabIdx, receivableFromAnotherAgent.get(liabIdx) + liabAmt);
-			}
-			liabilityAmounts.trimToSize();
-			liabilityIndices.trimToSize();
-			this.liabilitiesAmounts.set(paymentClearingIndex, liabilityAmounts);
-			this.liabilitiesIndices.set(paymentClearingIndex, liabilityIndices);
-
 			// calculate liquid assets
 			float liquid = adi.getBsCash() + adi.getBsInvestments() * properties.getAdiHqlaProportion();
-			this.liquidAssets.set(paymentClearingIndex, liquid);
+			this.liquidAssets[paymentClearingIndex] = liquid;
 		}
 
 		// foreign countries
 		for (ForeignCountry country : this.countries) {
 			int paymentClearingIndex = country.getPaymentClearingIndex();
 
-			// calculate liabilities
-			List<NodePayment> nodePayments = country.getAmountsPayable(iteration);
-			TFloatArrayList liabilityAmounts = new TFloatArrayList(nodePayments.size());
-			TIntArrayList liabilityIndices = new TIntArrayList(nodePayments.size());
-			for (int creditorIdx = 0; creditorIdx < nodePayments.size(); creditorIdx++) {
-				float liabAmt = nodePayments.get(creditorIdx).getLiabilityAmount();
-				liabilityAmounts.add(liabAmt);
-				int liabIdx = nodePayments.get(creditorIdx).getRecipientIndex();
-				liabilityIndices.add(liabIdx);
-				payableToAnotherAgent.set(paymentClearingIndex, payableToAnotherAgent.get(creditorIdx) + liabAmt);
-
-				// add liabilities to recipient's receivables so we can calculate exogeneous
-				// cash flow. N.B. exogeneous cash flow calculated below after all liabilities
-				// are set
-				receivableFromAnotherAgent.set(liabIdx, receivableFromAnotherAgent.get(liabIdx) + liabAmt);
-			}
-			liabilityAmounts.trimToSize();
-			liabilityIndices.trimToSize();
-			this.liabilitiesAmounts.set(paymentClearingIndex, liabilityAmounts);
-			this.liabilitiesIndices.set(paymentClearingIndex, liabilityIndices);
-
 			// calculate exogeneous cash flow (i.e. not from another Agent)
 			// foreign countries are assumed to never default
 			// float totalLiabilities = (float) liabilityAmounts.stream().mapToDouble(o ->
 			// o).sum();
 			float totalLiabilities = 0f;
-			for (int liabIdx = 0; liabIdx < liabilityAmounts.size(); liabIdx++) {
-				totalLiabilities += liabilityAmounts.get(liabIdx);
+			for (int link = rowPtr[paymentClearingIndex]; link < rowPtr[paymentClearingIndex + 1]; link++) {
+				totalLiabilities += amount[link];
 			}
 			// (float) liabilityAmounts.stream().mapToDouble(o -> o).sum();
 			float exogeneous = totalLiabilities;
-			this.operatingCashFlow.set(paymentClearingIndex, exogeneous);
+			this.operatingCashFlow[paymentClearingIndex] = exogeneous;
 
 			// calculate liquid assets
 			float liquid = BUFFER_COUNTRY; // buffer so countries never default
-			this.liquidAssets.set(paymentClearingIndex, liquid);
+			this.liquidAssets[paymentClearingIndex] = liquid;
 		}
 
 		// government
 		{
 			int paymentClearingIndex = this.government.getPaymentClearingIndex();
 
-			// calculate liabilities
-			List<NodePayment> nodePayments = this.government.getAmountsPayable(iteration);
-			TFloatArrayList liabilityAmounts = new TFloatArrayList(nodePayments.size());
-			TIntArrayList liabilityIndices = new TIntArrayList(nodePayments.size());
-			for (int creditorIdx = 0; creditorIdx < nodePayments.size(); creditorIdx++) {
-				float liabAmt = nodePayments.get(creditorIdx).getLiabilityAmount();
-				liabilityAmounts.add(liabAmt);
-				int liabIdx = nodePayments.get(creditorIdx).getRecipientIndex();
-				liabilityIndices.add(liabIdx);
-				payableToAnotherAgent.set(paymentClearingIndex, payableToAnotherAgent.get(creditorIdx) + liabAmt);
-
-				// add liabilities to recipient's receivables so we can calculate exogeneous
-				// cash flow. N.B. exogeneous cash flow calculated below after all liabilities
-				// are set
-				receivableFromAnotherAgent.set(liabIdx, receivableFromAnotherAgent.get(liabIdx) + liabAmt);
-			}
-			liabilityAmounts.trimToSize();
-			liabilityIndices.trimToSize();
-			this.liabilitiesAmounts.set(paymentClearingIndex, liabilityAmounts);
-			this.liabilitiesIndices.set(paymentClearingIndex, liabilityIndices);
-
 			// calculate liquid assets
 			float liquid = BUFFER_GOVT; // buffer so government never defaults
-			this.liquidAssets.set(paymentClearingIndex, liquid);
+			this.liquidAssets[paymentClearingIndex] = liquid;
 		}
 
 		// RBA
 		{
 			int paymentClearingIndex = this.rba.getPaymentClearingIndex();
 
-			// calculate liabilities
-			List<NodePayment> nodePayments = this.rba.getAmountsPayable(iteration);
-			TFloatArrayList liabilityAmounts = new TFloatArrayList(nodePayments.size());
-			TIntArrayList liabilityIndices = new TIntArrayList(nodePayments.size());
-			for (int creditorIdx = 0; creditorIdx < nodePayments.size(); creditorIdx++) {
-				float liabAmt = nodePayments.get(creditorIdx).getLiabilityAmount();
-				liabilityAmounts.add(liabAmt);
-				int liabIdx = nodePayments.get(creditorIdx).getRecipientIndex();
-				liabilityIndices.add(liabIdx);
-				payableToAnotherAgent.set(paymentClearingIndex, payableToAnotherAgent.get(creditorIdx) + liabAmt);
-
-				// add liabilities to recipient's receivables so we can calculate exogeneous
-				// cash flow. N.B. exogeneous cash flow calculated below after all liabilities
-				// are set
-				receivableFromAnotherAgent.set(liabIdx, receivableFromAnotherAgent.get(liabIdx) + liabAmt);
-			}
-			liabilityAmounts.trimToSize();
-			liabilityIndices.trimToSize();
-			this.liabilitiesAmounts.set(paymentClearingIndex, liabilityAmounts);
-			this.liabilitiesIndices.set(paymentClearingIndex, liabilityIndices);
-
 			// calculate liquid assets
 			float liquid = BUFFER_RBA; // buffer so RBA never defaults
-			this.liquidAssets.set(paymentClearingIndex, liquid);
+			this.liquidAssets[paymentClearingIndex] = liquid;
 		}
 
 		/*
@@ -722,12 +664,12 @@ public class AustralianEconomy implements Serializable {
 					int paymentClearingIndex = household.getPaymentClearingIndex();
 
 					// calculate exogeneous cash flow (i.e. not from another Agent)
-					float receivable = receivableFromAnotherAgent.get(paymentClearingIndex);
+					float receivable = receivableFromAnotherAgent[paymentClearingIndex];
 					float calibratedIncome = household.getGrossIncome();
 					float exogeneousIncome = (calibratedIncome - receivable) * exogeneousIncomeMultiplier;
-					this.operatingCashFlow.set(paymentClearingIndex, exogeneousIncome);
+					this.operatingCashFlow[paymentClearingIndex] = exogeneousIncome;
 
-					float payable = payableToAnotherAgent.get(paymentClearingIndex);
+					float payable = payableToAnotherAgent[paymentClearingIndex];
 					float calibratedExpense = household.getTotalExpenses();
 					float exogeneousExpense = (calibratedExpense - payable) * exogeneousExpenseMultiplier;
 
@@ -749,10 +691,10 @@ public class AustralianEconomy implements Serializable {
 				int paymentClearingIndex = household.getPaymentClearingIndex();
 
 				// calculate exogeneous cash flow (i.e. not from another Agent)
-				float receivable = receivableFromAnotherAgent.get(paymentClearingIndex);
+				float receivable = receivableFromAnotherAgent[paymentClearingIndex];
 				float calibratedIncome = household.getGrossIncome();
 				float exogeneousIncome = (calibratedIncome - receivable) * exogeneousIncomeMultiplier;
-				this.operatingCashFlow.set(paymentClearingIndex, exogeneousIncome);
+				this.operatingCashFlow[paymentClearingIndex] = exogeneousIncome;
 			}
 		}
 
@@ -766,10 +708,10 @@ public class AustralianEconomy implements Serializable {
 					int paymentClearingIndex = business.getPaymentClearingIndex();
 
 					// calculate exogeneous cash flow (i.e. not from another Agent)
-					float receivable = receivableFromAnotherAgent.get(paymentClearingIndex);
+					float receivable = receivableFromAnotherAgent[paymentClearingIndex];
 					float calibratedIncome = business.getTotalIncome();
 					float exogeneousIncome = (calibratedIncome - receivable) * exogeneousIncomeMultiplier;
-					this.operatingCashFlow.set(paymentClearingIndex, exogeneousIncome);
+					this.operatingCashFlow[paymentClearingIndex] = exogeneousIncome;
 
 					// save ratio of exogeneous to total income to CSV so it can be graphed
 					entries = new String[] { String.valueOf(iteration), "B", decimalFormat.format(exogeneousIncome),
@@ -788,10 +730,10 @@ public class AustralianEconomy implements Serializable {
 				int paymentClearingIndex = business.getPaymentClearingIndex();
 
 				// calculate exogeneous cash flow (i.e. not from another Agent)
-				float receivable = receivableFromAnotherAgent.get(paymentClearingIndex);
+				float receivable = receivableFromAnotherAgent[paymentClearingIndex];
 				float calibratedIncome = business.getTotalIncome();
 				float exogeneousIncome = (calibratedIncome - receivable) * exogeneousIncomeMultiplier;
-				this.operatingCashFlow.set(paymentClearingIndex, exogeneousIncome);
+				this.operatingCashFlow[paymentClearingIndex] = exogeneousIncome;
 			}
 		}
 
@@ -805,10 +747,10 @@ public class AustralianEconomy implements Serializable {
 					int paymentClearingIndex = adi.getPaymentClearingIndex();
 
 					// calculate exogeneous cash flow (i.e. not from another Agent)
-					float receivable = receivableFromAnotherAgent.get(paymentClearingIndex);
+					float receivable = receivableFromAnotherAgent[paymentClearingIndex];
 					float calibratedIncome = adi.getTotalIncome();
 					float exogeneousIncome = (calibratedIncome - receivable) * exogeneousIncomeMultiplier;
-					this.operatingCashFlow.set(paymentClearingIndex, exogeneousIncome);
+					this.operatingCashFlow[paymentClearingIndex] = exogeneousIncome;
 
 					// save ratio of exogeneous to total income to CSV so it can be graphed
 					entries = new String[] { String.valueOf(iteration), "A", decimalFormat.format(exogeneousIncome),
@@ -827,10 +769,10 @@ public class AustralianEconomy implements Serializable {
 				int paymentClearingIndex = adi.getPaymentClearingIndex();
 
 				// calculate exogeneous cash flow (i.e. not from another Agent)
-				float receivable = receivableFromAnotherAgent.get(paymentClearingIndex);
+				float receivable = receivableFromAnotherAgent[paymentClearingIndex];
 				float calibratedIncome = adi.getTotalIncome();
 				float exogeneousIncome = (calibratedIncome - receivable) * exogeneousIncomeMultiplier;
-				this.operatingCashFlow.set(paymentClearingIndex, exogeneousIncome);
+				this.operatingCashFlow[paymentClearingIndex] = exogeneousIncome;
 			}
 		}
 
@@ -841,10 +783,10 @@ public class AustralianEconomy implements Serializable {
 			// Whatever it is short by it simply borrows.
 
 			// calculate exogeneous cash flow (i.e. not from another Agent)
-			float receivable = receivableFromAnotherAgent.get(paymentClearingIndex);
+			float receivable = receivableFromAnotherAgent[paymentClearingIndex];
 			float calibratedIncome = this.government.getTotalIncome();
 			float exogeneousIncome = (calibratedIncome - receivable) * exogeneousIncomeMultiplier;
-			this.operatingCashFlow.set(paymentClearingIndex, exogeneousIncome);
+			this.operatingCashFlow[paymentClearingIndex] = exogeneousIncome;
 		}
 
 		// RBA
@@ -854,10 +796,215 @@ public class AustralianEconomy implements Serializable {
 			// Whatever it is short by it simply borrows.
 
 			// calculate exogeneous cash flow (i.e. not from another Agent)
-			float receivable = receivableFromAnotherAgent.get(paymentClearingIndex);
+			float receivable = receivableFromAnotherAgent[paymentClearingIndex];
 			float calibratedIncome = this.rba.getTotalIncome();
 			float exogeneousIncome = (calibratedIncome - receivable) * exogeneousIncomeMultiplier;
-			this.operatingCashFlow.set(paymentClearingIndex, exogeneousIncome);
+			this.operatingCashFlow[paymentClearingIndex] = exogeneousIncome;
+		}
+	}
+
+	/**
+	 * Writes an agent's liabilities into its row of the CPV inputs.
+	 * 
+	 * @param agent     - the agent, whose row must come after the previous one's
+	 * @param iteration - the iteration number
+	 */
+	private void emitLiabilities(Clearable agent, int iteration) {
+		this.liabilityBuilder.beginRow(agent.getPaymentClearingIndex());
+		agent.emitAmountsPayable(iteration, this.liabilityBuilder);
+	}
+
+	/**
+	 * Adds the liabilities of a range of nodes to the totals payable by each node
+	 * and receivable by each creditor.
+	 * 
+	 * @param fromNode                   - first node in the range (inclusive)
+	 * @param toNode                     - last node in the range (exclusive)
+	 * @param receivableFromAnotherAgent - the amount receivable by each node
+	 * @param payableToAnotherAgent      - the amount payable by each node
+	 */
+	private void addReceivablesAndPayables(int fromNode, int toNode, float[] receivableFromAnotherAgent,
+			float[] payableToAnotherAgent) {
+		int[] rowPtr = this.liabilities.getRowPtr();
+		int[] col = this.liabilities.getCol();
+		float[] amount = this.liabilities.getAmount();
+		for (int node = fromNode; node < toNode; node++) {
+			for (int link = rowPtr[node]; link < rowPtr[node + 1]; link++) {
+				payableToAnotherAgent[node] += amount[link];
+				receivableFromAnotherAgent[col[link]] += amount[link];
+			}
+		}
+	}
+
+	/**
+	 * Decides whether to prepare the CPV inputs and process its outputs in
+	 * parallel, creating the fork-join pool the first time it's needed.
+	 * 
+	 * @param totalAgentCount - the number of agents in the CPV
+	 * @return true if the agents should be split across the fork-join pool
+	 */
+	private boolean isParallel(int totalAgentCount) {
+		int threadCount = this.properties.getCpvPrepareThreadCount();
+		boolean parallel = threadCount != 1 && totalAgentCount > PREPARE_PARALLEL_THRESHOLD;
+		if (parallel && this.preparePool == null) {
+			this.preparePool = new ForkJoinPool(
+					threadCount > 1 ? threadCount : Runtime.getRuntime().availableProcessors());
+		}
+		return parallel;
+	}
+
+	/**
+	 * Works out how many ranges to split some agents into when they're processed
+	 * in parallel.
+	 * 
+	 * @param agentCount - the number of agents to split into ranges
+	 * @return the number of ranges
+	 */
+	private int getRangeCount(int agentCount) {
+		return Math.min(this.preparePool.getParallelism() * PREPARE_SEGMENTS_PER_THREAD,
+				Math.max(1, agentCount / PREPARE_PARALLEL_THRESHOLD));
+	}
+
+	/**
+	 * Emits the liabilities of the households, businesses, ADIs and foreign
+	 * countries into thread-local CSR segments, then appends the segments to the
+	 * liabilities builder. Each segment's position is found with a prefix sum of
+	 * the segments' link counts, so the CSR arrays are exactly the same as if the
+	 * agents had been emitted one at a time on the calling thread.
+	 * 
+	 * @param firstNode - the CPV index of the first household
+	 * @param iteration - the iteration number
+	 */
+	private void emitLiabilitiesInParallel(int firstNode, int iteration) {
+		int agentCount = this.households.length + this.businesses.length + this.adis.length + this.countries.length;
+		int segmentCount = this.getRangeCount(agentCount);
+		if (this.liabilitySegments == null || this.liabilitySegments.length != segmentCount) {
+			this.liabilitySegments = new LiabilityCsrBuilder[segmentCount];
+			for (int i = 0; i < segmentCount; i++) {
+				this.liabilitySegments[i] = new LiabilityCsrBuilder();
+			}
+		}
+
+		// emit each segment of agents on the pool's threads
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(segmentCount);
+		for (int i = 0; i < segmentCount; i++) {
+			LiabilityCsrBuilder segment = this.liabilitySegments[i];
+			int fromAgent = (int) ((long) agentCount * i / segmentCount);
+			int toAgent = (int) ((long) agentCount * (i + 1) / segmentCount);
+			tasks.add(this.preparePool.submit(() -> {
+				segment.resetSegment(firstNode + fromAgent, firstNode + toAgent, segment.getLinkCount());
+				for (int agentIdx = fromAgent; agentIdx < toAgent; agentIdx++) {
+					Clearable agent = this.getClearableAgent(agentIdx);
+					segment.beginRow(agent.getPaymentClearingIndex());
+					agent.emitAmountsPayable(iteration, segment);
+				}
+			}));
+		}
+		joinAll(tasks);
+
+		// merge the segments in order, copying them in parallel
+		int[] linkOffsets = this.liabilityBuilder.appendSegments(this.liabilitySegments);
+		tasks.clear();
+		for (int i = 0; i < segmentCount; i++) {
+			LiabilityCsrBuilder segment = this.liabilitySegments[i];
+			int linkOffset = linkOffsets[i];
+			tasks.add(this.preparePool.submit(() -> this.liabilityBuilder.copySegment(segment, linkOffset)));
+		}
+		joinAll(tasks);
+	}
+
+	/**
+	 * Finds the agent at the given position in the households, businesses, ADIs
+	 * and foreign countries, which is the order of their CPV indices.
+	 * 
+	 * @param agentIdx - the position of the agent, starting at the first household
+	 * @return the agent
+	 */
+	private Clearable getClearableAgent(int agentIdx) {
+		Clearable agent;
+		if (agentIdx < this.households.length) {
+			agent = this.households[agentIdx];
+		} else if ((agentIdx -= this.households.length) < this.businesses.length) {
+			agent = this.businesses[agentIdx];
+		} else if ((agentIdx -= this.businesses.length) < this.adis.length) {
+			agent = this.adis[agentIdx];
+		} else {
+			agent = this.countries[agentIdx - this.adis.length];
+		}
+		return agent;
+	}
+
+	/**
+	 * Calculates the same totals as addReceivablesAndPayables, but splits the
+	 * nodes into ranges across the fork-join pool. Each range only writes to its
+	 * own nodes. Payables are summed along each node's row. Receivables are
+	 * summed down each node's column using the receivables index, adding the links
+	 * owed by the government and RBA last, so every total is added up in exactly
+	 * the same order as the single-threaded calculation.
+	 * 
+	 * The receivables index is kept on the liabilities graph, so the in-process
+	 * CPV doesn't need to build it again.
+	 * 
+	 * @param firstHousehold             - the CPV index of the first household
+	 * @param receivableFromAnotherAgent - the amount receivable by each node
+	 * @param payableToAnotherAgent      - the amount payable by each node
+	 */
+	private void addReceivablesAndPayablesInParallel(int firstHousehold, float[] receivableFromAnotherAgent,
+			float[] payableToAnotherAgent) {
+		this.liabilities.buildReceivablesIndex(this.receivablePtr, this.receivableFrom, this.receivableEdge);
+		this.receivablePtr = this.liabilities.getReceivablePtr();
+		this.receivableFrom = this.liabilities.getReceivableFrom();
+		this.receivableEdge = this.liabilities.getReceivableEdge();
+
+		int[] rowPtr = this.liabilities.getRowPtr();
+		float[] amount = this.liabilities.getAmount();
+		int[] receivablePtr = this.receivablePtr;
+		int[] receivableEdge = this.receivableEdge;
+		int firstHouseholdLink = rowPtr[firstHousehold]; // the government's and RBA's links come before this
+		int nodeCount = this.liabilities.getNodeCount();
+		int rangeCount = this.getRangeCount(nodeCount);
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(rangeCount);
+		for (int i = 0; i < rangeCount; i++) {
+			int fromNode = (int) ((long) nodeCount * i / rangeCount);
+			int toNode = (int) ((long) nodeCount * (i + 1) / rangeCount);
+			tasks.add(this.preparePool.submit(() -> {
+				for (int node = fromNode; node < toNode; node++) {
+					float payable = 0f;
+					for (int link = rowPtr[node]; link < rowPtr[node + 1]; link++) {
+						payable += amount[link];
+					}
+					payableToAnotherAgent[node] = payable;
+
+					// the receivables are sorted by debtor, so the government's and RBA's are first
+					int start = receivablePtr[node];
+					int end = receivablePtr[node + 1];
+					int firstFromHousehold = start;
+					while (firstFromHousehold < end && receivableEdge[firstFromHousehold] < firstHouseholdLink) {
+						firstFromHousehold++;
+					}
+					float receivable = 0f;
+					for (int pos = firstFromHousehold; pos < end; pos++) {
+						receivable += amount[receivableEdge[pos]];
+					}
+					for (int pos = start; pos < firstFromHousehold; pos++) {
+						receivable += amount[receivableEdge[pos]];
+					}
+					receivableFromAnotherAgent[node] = receivable;
+				}
+			}));
+		}
+		joinAll(tasks);
+	}
+
+	/**
+	 * Waits for all the tasks to finish, re-throwing the first exception thrown by
+	 * any of them.
+	 * 
+	 * @param tasks - the tasks submitted to the fork-join pool
+	 */
+	private static void joinAll(List<ForkJoinTask<?>> tasks) {
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
 		}
 	}
 
@@ -870,50 +1017,121 @@ public class AustralianEconomy implements Serializable {
 	void processPaymentsClearingVectorOutputs() {
 		// unmarshall CPV outputs into their original data structures
 		// net cash flow of each node after paying liabilities
-		TFloatArrayList equityOfNode = this.clearingPaymentVectorOutput.getEquityOfNode();
+		float[] equityOfNode = this.clearingPaymentVectorOutput.getEquityOfNodeArray();
 		// Which round of the CPV algorithm caused the node to default (0 = no default)
-		TIntArrayList defaultOrderOfNode = this.clearingPaymentVectorOutput.getDefaultOrderOfNode();
+		int[] defaultOrderOfNode = this.clearingPaymentVectorOutput.getDefaultOrderOfNodeArray();
 		int iteration = this.clearingPaymentVectorOutput.getIteration();
 
-		// update agents
-		for (int cpvIdx = 0; cpvIdx < equityOfNode.size(); cpvIdx++) {
-			if (cpvIdx == 0) {
-				// government
-				this.government.processClearingPaymentVectorOutput(equityOfNode.get(cpvIdx), iteration,
-						defaultOrderOfNode.get(cpvIdx));
-			} else if (cpvIdx == 1) {
-				// RBA
-				this.rba.processClearingPaymentVectorOutput(equityOfNode.get(cpvIdx), iteration,
-						defaultOrderOfNode.get(cpvIdx));
-			} else if (cpvIdx < (this.households.length + 2)) {
-				// households
-				this.households[cpvIdx - 2].processClearingPaymentVectorOutput(equityOfNode.get(cpvIdx), iteration,
-						defaultOrderOfNode.get(cpvIdx));
-			} else if (cpvIdx < (this.businesses.length + this.households.length + 2)) {
-				// businesses
-				this.businesses[cpvIdx - 2 - this.households.length].processClearingPaymentVectorOutput(
-						equityOfNode.get(cpvIdx), iteration, defaultOrderOfNode.get(cpvIdx));
-			} else if (cpvIdx < (this.adis.length + this.businesses.length + this.households.length + 2)) {
-				// ADIs
-				int adiStatus = this.adis[cpvIdx - 2 - this.households.length - this.businesses.length]
-						.processClearingPaymentVectorOutput(equityOfNode.get(cpvIdx), iteration,
-								defaultOrderOfNode.get(cpvIdx));
-				if (adiStatus == -1) {
-					// assign ADI customers to other ADIs if it defaults
-					this.reassignCustomersToAnotherAdi(
-							this.adis[cpvIdx - 2 - this.households.length - this.businesses.length]);
+		// update agents, using the offsets of each type of agent in the CPV
+		// N.B. the exogeneous expense agent is a dummy agent, so nothing to update
+		int householdOffset = this.rba.getPaymentClearingIndex() + 1;
+		int businessOffset = householdOffset + this.households.length;
+		int adiOffset = businessOffset + this.businesses.length;
+		int countryOffset = adiOffset + this.adis.length;
+		this.government.processClearingPaymentVectorOutput(equityOfNode[this.government.getPaymentClearingIndex()],
+				iteration, defaultOrderOfNode[this.government.getPaymentClearingIndex()]);
+		this.rba.processClearingPaymentVectorOutput(equityOfNode[this.rba.getPaymentClearingIndex()], iteration,
+				defaultOrderOfNode[this.rba.getPaymentClearingIndex()]);
+
+		/*
+		 * Households, businesses and foreign countries only update themselves, so
+		 * ranges of them can be updated concurrently. A bankrupt business also fires
+		 * its employees (which updates their households) and writes its balances off
+		 * at its ADI, so that's done afterwards in the order of the businesses, which
+		 * gives the same results as updating every agent on one thread.
+		 */
+		boolean parallel = this.isParallel(equityOfNode.length);
+		int householdRanges = parallel ? this.getRangeCount(this.households.length) : 1;
+		int businessRanges = parallel ? this.getRangeCount(this.businesses.length) : 1;
+		List<Runnable> updates = new ArrayList<Runnable>(householdRanges + businessRanges + 1);
+		for (int i = 0; i < householdRanges; i++) {
+			int fromIdx = (int) ((long) this.households.length * i / householdRanges);
+			int toIdx = (int) ((long) this.households.length * (i + 1) / householdRanges);
+			updates.add(() -> {
+				for (int idx = fromIdx; idx < toIdx; idx++) {
+					this.households[idx].processClearingPaymentVectorOutput(equityOfNode[householdOffset + idx],
+							iteration, defaultOrderOfNode[householdOffset + idx]);
 				}
-			} else if (cpvIdx < (this.adis.length + this.businesses.length + this.households.length
-					+ this.countries.length + 2)) {
-				// foreign countries
-				this.countries[cpvIdx - 2 - this.households.length - this.businesses.length - this.adis.length]
-						.processClearingPaymentVectorOutput(equityOfNode.get(cpvIdx), iteration,
-								defaultOrderOfNode.get(cpvIdx));
-			} else {
-				// exogeneous expense
-				// it's a dummy agent, so nothing to update
+			});
+		}
+		BankruptBusinesses[] bankruptBusinesses = new BankruptBusinesses[businessRanges];
+		for (int i = 0; i < businessRanges; i++) {
+			int fromIdx = (int) ((long) this.businesses.length * i / businessRanges);
+			int toIdx = (int) ((long) this.businesses.length * (i + 1) / businessRanges);
+			BankruptBusinesses bankrupt = new BankruptBusinesses();
+			bankruptBusinesses[i] = bankrupt;
+			updates.add(() -> {
+				for (int idx = fromIdx; idx < toIdx; idx++) {
+					Business business = this.businesses[idx];
+					float bankDeposits = business.getBankDeposits();
+					float loans = business.getLoans();
+					int status = business.processClearingPaymentVectorOutput(equityOfNode[businessOffset + idx],
+							iteration, defaultOrderOfNode[businessOffset + idx], false);
+					if (status == Clearable.BANKRUPT) {
+						bankrupt.add(idx, bankDeposits, loans);
+					}
+				}
+			});
+		}
+		updates.add(() -> {
+			for (int idx = 0; idx < this.countries.length; idx++) {
+				this.countries[idx].processClearingPaymentVectorOutput(equityOfNode[countryOffset + idx], iteration,
+						defaultOrderOfNode[countryOffset + idx]);
+			}
+		});
+		if (parallel) {
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(updates.size());
+			for (Runnable update : updates) {
+				tasks.add(this.preparePool.submit(update));
+			}
+			joinAll(tasks);
+		} else {
+			for (Runnable update : updates) {
+				update.run();
+			}
+		}
+		for (BankruptBusinesses bankrupt : bankruptBusinesses) {
+			for (int i = 0; i < bankrupt.businessIdx.size(); i++) {
+				this.businesses[bankrupt.businessIdx.get(i)].applyBankruptcyToOtherAgents(iteration,
+						bankrupt.bankDeposits.get(i), bankrupt.loans.get(i));
 			}
 		}
+
+		/*
+		 * ADIs are updated one at a time because they update their depositors when
+		 * they fail. Their customers are only re-assigned once every ADI has been
+		 * updated, in the order the ADIs failed in, so the random re-assignments
+		 * don't depend on how the other agents were updated.
+		 */
+		List<AuthorisedDepositTakingInstitution> failedAdis = new ArrayList<AuthorisedDepositTakingInstitution>();
+		for (int idx = 0; idx < this.adis.length; idx++) {
+			int adiStatus = this.adis[idx].processClearingPaymentVectorOutput(equityOfNode[adiOffset + idx],
+					iteration, defaultOrderOfNode[adiOffset + idx]);
+			if (adiStatus == Clearable.BANKRUPT) {
+				failedAdis.add(this.adis[idx]);
+			}
+		}
+		for (AuthorisedDepositTakingInstitution failedAdi : failedAdis) {
+			// assign ADI customers to other ADIs if it defaults
+			this.reassignCustomersToAnotherAdi(failedAdi);
+		}
+	}
+
+	/**
+	 * The businesses in a range that went bankrupt, with the balances they had at
+	 * their ADI beforehand.
+	 */
+	private static final class BankruptBusinesses {
+
+		private final TIntArrayList businessIdx = new TIntArrayList();
+		private final TFloatArrayList bankDeposits = new TFloatArrayList();
+		private final TFloatArrayList loans = new TFloatArrayList();
+
+		void add(int idx, float deposits, float loanBalance) {
+			this.businessIdx.add(idx);
+			this.bankDeposits.add(deposits);
+			this.loans.add(loanBalance);
+		}
 	}
 
 	/**
@@ -942,29 +1160,21 @@ public class AustralianEconomy implements Serializable {
 		float totalLoanBal = (float) Arrays.asList(this.adis).stream().mapToDouble(o -> o.getBsLoansBusiness()).sum();
 		// populate indices with relative amounts of each ADI
 		ArrayList<Business> businessesToReallocate = failedAdi.getCommercialDepositors();
-		ArrayList<Integer> shuffledIndices = null;
-		int nextShuffledIdx = 0;
+		QuotaSampler sampler = null;
 		if (businessesToReallocate != null) {
-			shuffledIndices = new ArrayList<Integer>(businessesToReallocate.size());
+			sampler = new QuotaSampler(this.adis.length);
 			for (int i = 0; i < this.adis.length; i++) {
 				if (this.adis[i].getPaymentClearingIndex() != failedAdi.getPaymentClearingIndex()) {
-					// calculate ratio of ADI to total
-					float adiLoanBal = this.adis[i].getBsLoansBusiness();
-					if (adiLoanBal > 0f) {
-						// convert to indices, rounding up so we have at least enough
-						int adiCustomerCount = (int) Math
-								.ceil(adiLoanBal / totalLoanBal * businessesToReallocate.size());
-						shuffledIndices.addAll(Collections.nCopies(adiCustomerCount, i));
-					}
+					// convert ratio of ADI to total into a quota, rounding up so we have at least
+					// enough
+					sampler.add(i, this.adis[i].getBsLoansBusiness(), totalLoanBal, businessesToReallocate.size());
 				}
 			}
-			// shuffle indices, and assign ADIs to Businesses
-			Collections.shuffle(shuffledIndices, this.random);
-			nextShuffledIdx = 0;
+			// assign ADIs to Businesses
 			for (int i = 0; i < businessesToReallocate.size(); i++) {
 				// Assign loan ADI to Business. It doesn't matter if the Business doesn't have a
 				// loan. We assume businesses only bank with ADIs who have business loans.
-				AuthorisedDepositTakingInstitution adi = this.adis[shuffledIndices.get(nextShuffledIdx++)];
+				AuthorisedDepositTakingInstitution adi = this.adis[sampler.next(this.random)];
 				businessesToReallocate.get(i).setAdi(adi);
 
 				// add business to ADI and increase loan & deposit balances
@@ -976,10 +1186,7 @@ public class AustralianEconomy implements Serializable {
 				// TODO update ADI's RWA? Or is it calculated elsewhere?
 			}
 			// release memory
-			if (shuffledIndices != null) {
-				shuffledIndices.clear();
-				shuffledIndices = null;
-			}
+			sampler = null;
 		}
 
 		////////////////////////////////////////////////////////////////////////////////////
@@ -992,31 +1199,23 @@ public class AustralianEconomy implements Serializable {
 		float totalDepositBal = (float) Arrays.asList(this.adis).stream().mapToDouble(o -> o.getBsDepositsAtCall())
 				.sum();
 		totalDepositBal += (float) Arrays.asList(this.adis).stream().mapToDouble(o -> o.getBsDepositsTerm()).sum();
-		// populate indices with relative amounts of each ADI
-		shuffledIndices = new ArrayList<Integer>(this.households.length);
+		// populate sampler with relative amounts of each ADI
+		sampler = new QuotaSampler(this.adis.length);
 		for (int i = 0; i < this.adis.length; i++) {
-			// calculate ratio of ADI to total
+			// convert ratio of ADI to total into a quota, rounding up so we have at least
+			// enough
 			float adiDepositBal = this.adis[i].getBsDepositsAtCall() + this.adis[i].getBsDepositsTerm();
-			if (adiDepositBal > 0f) {
-				// convert to indices, rounding up so we have at least enough
-				int adiCustomerCount = (int) Math.ceil(adiDepositBal / totalDepositBal * this.households.length);
-				shuffledIndices.addAll(Collections.nCopies(adiCustomerCount, i));
-			}
+			sampler.add(i, adiDepositBal, totalDepositBal, this.households.length);
 		}
-		// shuffle indices, and assign ADIs to Households
-		shuffledIndices.trimToSize();
-		Collections.shuffle(shuffledIndices, this.random);
-		nextShuffledIdx = 0;
+		// assign ADIs to Households
 		for (int i = 0; i < this.households.length; i++) {
 			if (this.households[i].getBsLoans() > 0f) {
 				// assign depositor Household to ADI
-				this.adis[shuffledIndices.get(nextShuffledIdx++)].addRetailDepositor(this.households[i]);
-				nextShuffledIdx = (nextShuffledIdx + 1) % shuffledIndices.size();
+				this.adis[sampler.next(this.random)].addRetailDepositor(this.households[i]);
 			}
 		}
 		// release memory
-		shuffledIndices.clear();
-		shuffledIndices = null;
+		sampler = null;
 	}
 
 	/**
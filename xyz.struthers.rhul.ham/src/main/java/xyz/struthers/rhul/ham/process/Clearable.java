@@ -53,6 +53,28 @@ public interface Clearable {
 	 */
 	public List<NodePayment> getAmountsPayable(int iteration);
 
+	/**
+	 * Writes the contractual obligations of this node to other nodes straight
+	 * into the sink, without creating a NodePayment for each one. This must give
+	 * the same liabilities as getAmountsPayable, so call one or the other each
+	 * iteration (some agents update their balances when their liabilities are
+	 * calculated).
+	 * 
+	 * The default implementation copies them from getAmountsPayable, so agents
+	 * with a lot of creditors should override it.
+	 * 
+	 * @param iteration
+	 * @param sink      - receives each liability
+	 */
+	public default void emitAmountsPayable(int iteration, LiabilitySink sink) {
+		List<NodePayment> liabilities = this.getAmountsPayable(iteration);
+		if (liabilities != null) {
+			for (NodePayment liability : liabilities) {
+				sink.addLiability(liability.getRecipientIndex(), liability.getLiabilityAmount());
+			}
+		}
+	}
+
 	/**
 	 * Sets which iteration and order the Agent defaulted on their payments.
 	 * 
@@ -5,6 +5,7 @@ package xyz.struthers.rhul.ham.process;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import gnu.trove.list.array.TFloatArrayList;
@@ -40,6 +41,9 @@ public class ClearingPaymentInputs implements Serializable {
 	private float[] liquidAssets;
 	private int iteration;
 
+	// using CSR, which the other forms are converted to or from when needed
+	private LiabilityGraph liabilities;
+
 	public ClearingPaymentInputs() {
 		// if super-class is not serializable it will cause an exception
 		// SOURCE:
@@ -47,6 +51,50 @@ public class ClearingPaymentInputs implements Serializable {
 		// super();
 	}
 
+	/**
+	 * Wraps the arrays without copying them, so the inputs can be prepared
+	 * directly in the form they're sent to the CPV. The caller mustn't modify the
+	 * arrays afterwards.
+	 * 
+	 * @param liabilitiesAmounts - amounts owed by each node, one row per node
+	 * @param liabilitiesIndices - the creditor of each amount
+	 * @param operatingCashFlow  - exogeneous cash inflows to each node
+	 * @param liquidAssets       - cash at bank, etc. of each node
+	 * @param iteration          - the month these inputs are for
+	 */
+	public ClearingPaymentInputs(float[][] liabilitiesAmounts, int[][] liabilitiesIndices, float[] operatingCashFlow,
+			float[] liquidAssets, int iteration) {
+		this.liabilitiesAmounts = liabilitiesAmounts;
+		this.liabilitiesIndices = liabilitiesIndices;
+		this.operatingCashFlow = operatingCashFlow;
+		this.liquidAssets = liquidAssets;
+		this.iteration = iteration;
+	}
+
+	/**
+	 * Wraps a liabilities graph without copying it, so the inputs can be emitted
+	 * by the agents straight into the form the CPV uses. The jagged arrays are
+	 * only created if a caller asks for them.
+	 * 
+	 * @param liabilities       - amounts owed by each node, in CSR form
+	 * @param operatingCashFlow - exogeneous cash inflows to each node
+	 * @param liquidAssets      - cash at bank, etc. of each node
+	 * @param iteration         - the month these inputs are for
+	 */
+	public ClearingPaymentInputs(LiabilityGraph liabilities, float[] operatingCashFlow, float[] liquidAssets,
+			int iteration) {
+		this.liabilities = liabilities;
+		this.liabilitiesAmounts = null;
+		this.liabilitiesIndices = null;
+		this.operatingCashFlow = operatingCashFlow;
+		this.liquidAssets = liquidAssets;
+		this.iteration = iteration;
+	}
+
+	/**
+	 * Copies the Trove lists into primitive arrays. Prefer the constructor that
+	 * takes arrays, which doesn't copy anything.
+	 */
 	public ClearingPaymentInputs(List<TFloatArrayList> liabilitiesAmounts, List<TIntArrayList> liabilitiesIndices,
 			TFloatArrayList operatingCashFlow, TFloatArrayList liquidAssets, int iteration) {
 		// this.liabilitiesAmounts = liabilitiesAmounts;
@@ -103,19 +151,28 @@ public class ClearingPaymentInputs implements Serializable {
 	}
 
 	public void clear() {
-		for (int i = 0; i < this.liabilitiesAmounts.length; i++) {
-			this.liabilitiesAmounts[i] = null;
+		if (this.liabilitiesAmounts != null) {
+			for (int i = 0; i < this.liabilitiesAmounts.length; i++) {
+				this.liabilitiesAmounts[i] = null;
+			}
+			this.liabilitiesAmounts = null;
 		}
-		this.liabilitiesAmounts = null;
-		for (int i = 0; i < this.liabilitiesIndices.length; i++) {
-			this.liabilitiesIndices[i] = null;
+		if (this.liabilitiesIndices != null) {
+			for (int i = 0; i < this.liabilitiesIndices.length; i++) {
+				this.liabilitiesIndices[i] = null;
+			}
+			this.liabilitiesIndices = null;
 		}
-		this.liabilitiesIndices = null;
+		// the graph's arrays may belong to a builder that reuses them, so just let go
+		this.liabilities = null;
 		this.operatingCashFlow = null;
 		this.liquidAssets = null;
 	}
 
 	/**
+	 * Copies the liabilitiesAmounts into Trove lists, so use the array getter unless a list is
+	 * really needed.
+	 * 
 	 * @return the liabilitiesAmounts
 	 */
 	// public List<List<Float>> getLiabilitiesAmounts() {
@@ -146,11 +203,12 @@ public class ClearingPaymentInputs implements Serializable {
 		 */
 
 		// using primitives, returning Trove
-		List<TFloatArrayList> boxedList = new ArrayList<TFloatArrayList>(this.liabilitiesAmounts.length);
-		for (int i = 0; i < this.liabilitiesAmounts.length; i++) {
-			TFloatArrayList boxed = new TFloatArrayList(this.liabilitiesAmounts[i].length);
-			for (int j = 0; j < this.liabilitiesAmounts[i].length; j++) {
-				boxed.add(this.liabilitiesAmounts[i][j]);
+		float[][] liabilitiesAmounts = this.getLiabilitiesAmountsArray();
+		List<TFloatArrayList> boxedList = new ArrayList<TFloatArrayList>(liabilitiesAmounts.length);
+		for (int i = 0; i < liabilitiesAmounts.length; i++) {
+			TFloatArrayList boxed = new TFloatArrayList(liabilitiesAmounts[i].length);
+			for (int j = 0; j < liabilitiesAmounts[i].length; j++) {
+				boxed.add(liabilitiesAmounts[i][j]);
 			}
 			boxedList.add(boxed);
 		}
@@ -161,6 +219,10 @@ public class ClearingPaymentInputs implements Serializable {
 	 * @param liabilitiesAmounts the liabilitiesAmounts to set
 	 */
 	public void setLiabilitiesAmounts(List<TFloatArrayList> liabilitiesAmounts) {
+		// the graph won't match any more, so keep the other half as arrays
+		this.liabilitiesIndices = this.getLiabilitiesIndicesArray();
+		this.liabilities = null;
+
 		// using JDK Collections
 		// this.liabilitiesAmounts = liabilitiesAmounts;
 
@@ -185,6 +247,9 @@ public class ClearingPaymentInputs implements Serializable {
 	}
 
 	/**
+	 * Copies the liabilitiesIndices into Trove lists, so use the array getter unless a list is
+	 * really needed.
+	 * 
 	 * @return the liabilitiesIndices
 	 */
 	public List<TIntArrayList> getLiabilitiesIndices() {
@@ -203,11 +268,12 @@ public class ClearingPaymentInputs implements Serializable {
 		 */
 
 		// using primitives
-		List<TIntArrayList> boxedList = new ArrayList<TIntArrayList>(this.liabilitiesIndices.length);
-		for (int i = 0; i < this.liabilitiesIndices.length; i++) {
-			TIntArrayList boxed = new TIntArrayList(this.liabilitiesIndices[i].length);
-			for (int j = 0; j < this.liabilitiesIndices[i].length; j++) {
-				boxed.add(this.liabilitiesIndices[i][j]);
+		int[][] liabilitiesIndices = this.getLiabilitiesIndicesArray();
+		List<TIntArrayList> boxedList = new ArrayList<TIntArrayList>(liabilitiesIndices.length);
+		for (int i = 0; i < liabilitiesIndices.length; i++) {
+			TIntArrayList boxed = new TIntArrayList(liabilitiesIndices[i].length);
+			for (int j = 0; j < liabilitiesIndices[i].length; j++) {
+				boxed.add(liabilitiesIndices[i][j]);
 			}
 			boxedList.add(boxed);
 		}
@@ -218,6 +284,10 @@ public class ClearingPaymentInputs implements Serializable {
 	 * @param liabilitiesIndices the liabilitiesIndices to set
 	 */
 	public void setLiabilitiesIndices(List<TIntArrayList> liabilitiesIndices) {
+		// the graph won't match any more, so keep the other half as arrays
+		this.liabilitiesAmounts = this.getLiabilitiesAmountsArray();
+		this.liabilities = null;
+
 		// using JDK Collections
 		// this.liabilitiesIndices = liabilitiesIndices;
 
@@ -242,6 +312,9 @@ public class ClearingPaymentInputs implements Serializable {
 	}
 
 	/**
+	 * Copies the operatingCashFlow into Trove lists, so use the array getter unless a list is
+	 * really needed.
+	 * 
 	 * @return the operatingCashFlow
 	 */
 	public TFloatArrayList getOperatingCashFlow() {
@@ -285,6 +358,9 @@ public class ClearingPaymentInputs implements Serializable {
 	}
 
 	/**
+	 * Copies the liquidAssets into Trove lists, so use the array getter unless a list is
+	 * really needed.
+	 * 
 	 * @return the liquidAssets
 	 */
 	public TFloatArrayList getLiquidAssets() {
@@ -327,6 +403,75 @@ public class ClearingPaymentInputs implements Serializable {
 		}
 	}
 
+	/**
+	 * Gets the liabilities in CSR form. If the inputs were created from jagged
+	 * arrays or lists, they're copied into a graph the first time this is called.
+	 * 
+	 * @return the liabilities graph
+	 */
+	public LiabilityGraph getLiabilityGraph() {
+		if (this.liabilities == null && this.liabilitiesAmounts != null) {
+			this.liabilities = LiabilityGraph.fromArrays(this.liabilitiesAmounts, this.liabilitiesIndices);
+		}
+		return this.liabilities;
+	}
+
+	/**
+	 * Gets the liabilities amounts without copying them into Trove lists. If the
+	 * inputs were created from a graph, each row is copied out of it the first
+	 * time this is called, so prefer getLiabilityGraph.
+	 * 
+	 * @return the liabilitiesAmounts array
+	 */
+	public float[][] getLiabilitiesAmountsArray() {
+		if (this.liabilitiesAmounts == null && this.liabilities != null) {
+			int[] rowPtr = this.liabilities.getRowPtr();
+			float[] amount = this.liabilities.getAmount();
+			this.liabilitiesAmounts = new float[this.liabilities.getNodeCount()][];
+			for (int i = 0; i < this.liabilitiesAmounts.length; i++) {
+				this.liabilitiesAmounts[i] = Arrays.copyOfRange(amount, rowPtr[i], rowPtr[i + 1]);
+			}
+		}
+		return liabilitiesAmounts;
+	}
+
+	/**
+	 * Gets the liabilities indices without copying them into Trove lists. If the
+	 * inputs were created from a graph, each row is copied out of it the first
+	 * time this is called, so prefer getLiabilityGraph.
+	 * 
+	 * @return the liabilitiesIndices array
+	 */
+	public int[][] getLiabilitiesIndicesArray() {
+		if (this.liabilitiesIndices == null && this.liabilities != null) {
+			int[] rowPtr = this.liabilities.getRowPtr();
+			int[] col = this.liabilities.getCol();
+			this.liabilitiesIndices = new int[this.liabilities.getNodeCount()][];
+			for (int i = 0; i < this.liabilitiesIndices.length; i++) {
+				this.liabilitiesIndices[i] = Arrays.copyOfRange(col, rowPtr[i], rowPtr[i + 1]);
+			}
+		}
+		return liabilitiesIndices;
+	}
+
+	/**
+	 * Gets the operating cash flow without copying it into a Trove list.
+	 * 
+	 * @return the operatingCashFlow array
+	 */
+	public float[] getOperatingCashFlowArray() {
+		return operatingCashFlow;
+	}
+
+	/**
+	 * Gets the liquid assets without copying them into a Trove list.
+	 * 
+	 * @return the liquidAssets array
+	 */
+	public float[] getLiquidAssetsArray() {
+		return liquidAssets;
+	}
+
 	/**
 	 * @return the iteration
 	 */
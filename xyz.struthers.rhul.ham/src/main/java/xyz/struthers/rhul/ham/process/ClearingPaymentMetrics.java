@@ -0,0 +1,118 @@
+/**
+ * 
+ */
+package xyz.struthers.rhul.ham.process;
+
+import java.io.Serializable;
+import java.text.DecimalFormat;
+
+/**
+ * Convergence metrics for a single Clearing Payments Vector calculation, so
+ * the solvers can be compared on production networks.
+ * 
+ * The residual norm is the largest absolute difference between a node's
+ * payment and the payment implied by everyone else's payments, i.e.
+ * max(|p - min(L, e + &Pi;'p)|). It should be zero (give or take rounding)
+ * when the solver has found the clearing vector.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class ClearingPaymentMetrics implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String solverName;
+	private int rounds; // rounds (or sweeps) of the algorithm
+	private float residualNorm; // infinity norm of the fixed point residual
+	private long wallTimeMillis; // wall time to calculate the CPV
+	private int defaultCount; // number of nodes that defaulted
+
+	public ClearingPaymentMetrics() {
+		super();
+		this.solverName = null;
+		this.rounds = 0;
+		this.residualNorm = 0f;
+		this.wallTimeMillis = 0L;
+		this.defaultCount = 0;
+	}
+
+	@Override
+	public String toString() {
+		DecimalFormat formatter = new DecimalFormat("#,##0");
+		return this.solverName + " solver: " + formatter.format(this.rounds) + " rounds, residual norm "
+				+ this.residualNorm + ", " + formatter.format(this.defaultCount) + " defaults, "
+				+ formatter.format(this.wallTimeMillis) + "ms";
+	}
+
+	/**
+	 * @return the solverName
+	 */
+	public String getSolverName() {
+		return solverName;
+	}
+
+	/**
+	 * @param solverName the solverName to set
+	 */
+	public void setSolverName(String solverName) {
+		this.solverName = solverName;
+	}
+
+	/**
+	 * @return the rounds
+	 */
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * @param rounds the rounds to set
+	 */
+	public void setRounds(int rounds) {
+		this.rounds = rounds;
+	}
+
+	/**
+	 * @return the residualNorm
+	 */
+	public float getResidualNorm() {
+		return residualNorm;
+	}
+
+	/**
+	 * @param residualNorm the residualNorm to set
+	 */
+	public void setResidualNorm(float residualNorm) {
+		this.residualNorm = residualNorm;
+	}
+
+	/**
+	 * @return the wallTimeMillis
+	 */
+	public long getWallTimeMillis() {
+		return wallTimeMillis;
+	}
+
+	/**
+	 * @param wallTimeMillis the wallTimeMillis to set
+	 */
+	public void setWallTimeMillis(long wallTimeMillis) {
+		this.wallTimeMillis = wallTimeMillis;
+	}
+
+	/**
+	 * @return the defaultCount
+	 */
+	public int getDefaultCount() {
+		return defaultCount;
+	}
+
+	/**
+	 * @param defaultCount the defaultCount to set
+	 */
+	public void setDefaultCount(int defaultCount) {
+		this.defaultCount = defaultCount;
+	}
+
+}
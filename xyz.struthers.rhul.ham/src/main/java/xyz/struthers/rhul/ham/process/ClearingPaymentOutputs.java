@@ -89,6 +89,16 @@ public class ClearingPaymentOutputs implements Serializable {
 		this.equityOfNode = equityOfNode.toArray(this.equityOfNode);
 	}
 
+	/**
+	 * Stores the array without copying it, so the caller must not modify it
+	 * afterwards.
+	 * 
+	 * @param equityOfNode the equityOfNode to set
+	 */
+	public void setEquityOfNode(float[] equityOfNode) {
+		this.equityOfNode = equityOfNode;
+	}
+
 	/**
 	 * @return the defaultOrderOfNode
 	 */
@@ -140,6 +150,34 @@ public class ClearingPaymentOutputs implements Serializable {
 		this.defaultOrderOfNode = defaultOrderOfNode.toArray(this.defaultOrderOfNode);
 	}
 
+	/**
+	 * Stores the array without copying it, so the caller must not modify it
+	 * afterwards.
+	 * 
+	 * @param defaultOrderOfNode the defaultOrderOfNode to set
+	 */
+	public void setDefaultOrderOfNode(int[] defaultOrderOfNode) {
+		this.defaultOrderOfNode = defaultOrderOfNode;
+	}
+
+	/**
+	 * Gets the equity of each node without copying it into a Trove list.
+	 * 
+	 * @return the equityOfNode array
+	 */
+	public float[] getEquityOfNodeArray() {
+		return equityOfNode;
+	}
+
+	/**
+	 * Gets the default order of each node without copying it into a Trove list.
+	 * 
+	 * @return the defaultOrderOfNode array
+	 */
+	public int[] getDefaultOrderOfNodeArray() {
+		return defaultOrderOfNode;
+	}
+
 	/**
 	 * @return the iteration
 	 */
@@ -0,0 +1,99 @@
+/**
+ * 
+ */
+package xyz.struthers.rhul.ham.process;
+
+import java.util.List;
+
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Solvers that calculate the Clearing Payments Vector need to implement this
+ * interface so they can be swapped without changing the caller. The solver is
+ * chosen using the cpvSolver property.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public interface ClearingPaymentSolver {
+
+	/**
+	 * Eisenberg &amp; Noe's sequential default algorithm, only re-evaluating the
+	 * creditors of newly defaulted nodes after the first round.
+	 */
+	public static final int EISENBERG_NOE = 0;
+	/**
+	 * Eisenberg &amp; Noe's sequential default algorithm, re-evaluating every node
+	 * in every round.
+	 */
+	public static final int EISENBERG_NOE_FULL_SWEEP = 1;
+	/**
+	 * In-place Gauss-Seidel fixed point iteration, which stops when the largest
+	 * relative change in any node's payments is within the tolerance.
+	 */
+	public static final int GAUSS_SEIDEL = 2;
+
+	/**
+	 * Calculates the payments that will clear the whole economy.
+	 * 
+	 * @param liabilitiesAmounts - amounts owed by every node to the other nodes
+	 *                           they're connected to
+	 * @param liabilitiesIndices - indices of the sub-list to designate which node
+	 *                           they relate to
+	 * @param operatingCashFlow  - exogeneous cash inflows to each node
+	 * @param liquidAssets       - cash at bank, etc. which can buffer a node
+	 *                           against defaulting
+	 * @return the equity and default order of each node
+	 */
+	public ClearingPaymentOutputs calculate(List<TFloatArrayList> liabilitiesAmounts,
+			List<TIntArrayList> liabilitiesIndices, TFloatArrayList operatingCashFlow, TFloatArrayList liquidAssets);
+
+	/**
+	 * Calculates the payments that will clear the whole economy.
+	 * 
+	 * @param liabilities       - amounts owed by every node to the other nodes
+	 *                          they're connected to, in CSR form
+	 * @param operatingCashFlow - exogeneous cash inflows to each node
+	 * @param liquidAssets      - cash at bank, etc. which can buffer a node
+	 *                          against defaulting
+	 * @return the equity and default order of each node
+	 */
+	public ClearingPaymentOutputs calculate(LiabilityGraph liabilities, float[] operatingCashFlow,
+			float[] liquidAssets);
+
+	/**
+	 * Calculates the payments that will clear the whole economy, using the
+	 * inputs' liabilities graph without going through Trove lists.
+	 * 
+	 * @param cpvInputs - the liabilities, cash flows and liquid assets
+	 * @return the equity and default order of each node, with the inputs'
+	 *         iteration
+	 */
+	public default ClearingPaymentOutputs calculate(ClearingPaymentInputs cpvInputs) {
+		ClearingPaymentOutputs result = this.calculate(cpvInputs.getLiabilityGraph(),
+				cpvInputs.getOperatingCashFlowArray(), cpvInputs.getLiquidAssetsArray());
+		if (result != null) {
+			result.setIteration(cpvInputs.getIteration());
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the convergence metrics for the most recent call to calculate.
+	 * 
+	 * @return the metrics, or null if nothing has been calculated yet
+	 */
+	public ClearingPaymentMetrics getMetrics();
+
+	/**
+	 * Releases the inputs, keeping any workspace for the next calculation.
+	 */
+	public void clearInputsAndWorking();
+
+	/**
+	 * Releases the inputs and any workspace.
+	 */
+	public void releaseWorkspace();
+
+}
@@ -9,6 +9,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import gnu.trove.list.array.TFloatArrayList;
 import gnu.trove.list.array.TIntArrayList;
@@ -40,11 +42,31 @@ import gnu.trove.list.array.TIntArrayList;
  * point in time. It does not maintain a history of liabilities, payments,
  * equity, etc.
  * 
- * Each instance of this class stores 5 float lists, 3 float nested lists, 1
- * integer list, 1 integer nested list, 1 nested NodeLink list, and 1 integer.
- * With 27 million agents and 20 links per node, it will consume approximately
- * 17GB of RAM. At 37 million agents this becomes 23.5GB of RAM, and with only
- * 12.5 million agents it drops down to 7.9GB of RAM.
+ * The liabilities network is held in a LiabilityGraph, which stores it in
+ * Compressed Sparse Row form with a transposed view for the receivables. Each
+ * instance of this class adds 1 float array per link and 6 primitive arrays
+ * per node on top of that. With 27 million agents and 20 links per node, it
+ * will consume approximately 11.8GB of RAM (down from approximately 17GB when
+ * it used nested Trove lists and NodeLink objects).
+ * 
+ * Within a round of the algorithm each node's payments only depend on the
+ * previous round's clearing payment vector, so the rounds can be split across a
+ * ForkJoinPool. Each node is still summed in exactly the same order, and each
+ * thread only writes to its own range of nodes, so the results are identical
+ * regardless of the number of threads used.
+ * 
+ * After the first round, a node's payments can only change if one of the nodes
+ * that owes it money defaulted in the previous round. By default, rounds 2..n
+ * only re-evaluate the creditors of the nodes that defaulted in the previous
+ * round (the "dirty frontier"), so they cost O(affected links) rather than
+ * O(agents). Default cascades usually only touch a small part of the network.
+ * 
+ * All the working arrays are kept in a workspace that is reused by subsequent
+ * calls to calculate, and the two clearing payment vectors are swapped between
+ * rounds rather than copied. As long as the number of agents doesn't change,
+ * only the first month's calculation allocates the working arrays. The outputs
+ * refer to the workspace's arrays, so they are only valid until the next call
+ * to calculate.
  * 
  * TODO: If an ADI defaults, apply the govt g'tee rules to customer's deposits.
  * Not just the $250k limit per account, but also the $15Bn limit per ADI
@@ -54,117 +76,245 @@ import gnu.trove.list.array.TIntArrayList;
  * @version 0.1
  * @since 12-Nov-2018
  */
-public class ClearingPaymentVector implements Serializable {
+public class ClearingPaymentVector implements Serializable, ClearingPaymentSolver {
 
 	private static final long serialVersionUID = 1L;
 
 	public static final boolean DEBUG_RAM_USAGE = true;
 	public static final boolean DEBUG_DEFAULTS = false;
 
-	// We know the size in advance, so can use arrays to improve speed & reduce
-	// memory usage because these don't change
-	// private List<Float> exogeneousNominalCashFlow; // Non-negative cash inflows
-	// (i.e. income).
-	private TFloatArrayList exogeneousNominalCashFlow; // Non-negative cash inflows (i.e. income).
-	// private List<List<Float>> nominalLiabilitiesAmount; // payments owed in this
-	// time period only
-	private List<TFloatArrayList> nominalLiabilitiesAmount; // payments owed in this time period only
-	// private List<List<Float>> relativeLiabilitiesAmount;
-	private List<TFloatArrayList> relativeLiabilitiesAmount;
 	/**
-	 * Index of the agent that payments are owed to for nominal liabilities,
-	 * relative liabilities, and clearing payments.
-	 * 
-	 * It's more efficient to store this in a separate List than to store Maps in
-	 * each of the other lists.
+	 * The minimum number of nodes a fork-join task will process without splitting
+	 * itself any further.
 	 */
-	// private List<List<Integer>> liabilitiesIndex;
-	private List<TIntArrayList> liabilitiesIndex;
-	// private List<Float> totalLiabilitiesOfNode; // total obligation vector
-	private TFloatArrayList totalLiabilitiesOfNode; // total obligation vector
+	public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * Spare capacity allocated for links (as a power of two fraction, so 4 is
+	 * 1/16th) because the number of links varies a little from month to month.
+	 */
+	public static final int LINK_CAPACITY_HEADROOM_SHIFT = 4;
+
+	// We know the size in advance, so can use arrays to improve speed & reduce
+	// memory usage because these don't change
+	protected float[] exogeneousNominalCashFlow; // Non-negative cash inflows (i.e. income).
 	/**
-	 * The node link details to easily identify which nodes owe money to this node.
+	 * Payments owed in this time period only, and the index of the agent that
+	 * payments are owed to, stored in CSR form. The transposed view identifies
+	 * which nodes owe money to each node.
 	 */
-	private ArrayList<ArrayList<NodeLink>> receivablesIndex;
-	// private List<Float> totalOwedToNode; // amount owed to node, assuming no
-	// defaults
-	private TFloatArrayList totalOwedToNode; // amount owed to node, assuming no defaults
-	/// private List<List<Float>> clearingPaymentAmount; // to work out the exact
-	/// amounts being paid between parties
-	private List<TFloatArrayList> clearingPaymentAmount; // to work out the exact amounts being paid between parties
-	// private List<Float> clearingPaymentVector; // sum of the rows in the
-	// clearingPaymentMatrix
-	private TFloatArrayList clearingPaymentVector; // sum of the rows in the clearingPaymentMatrix
-	// private List<Float> equityOfNode; // net cash flow of each node after paying
-	// liabilities
-	private TFloatArrayList equityOfNode; // net cash flow of each node after paying liabilities
+	protected LiabilityGraph liabilities;
+	protected float[] relativeLiabilitiesAmount; // one element per link in the liabilities graph
+	protected float[] totalLiabilitiesOfNode; // total obligation vector
+	private float[] totalOwedToNode; // amount owed to node, assuming no defaults
+	protected float[] clearingPaymentVector; // sum of the rows in the clearingPaymentMatrix
+	protected float[] oldPaymentClearingVector; // clearing payment vector from the previous round
+	private float[] equityOfNode; // net cash flow of each node after paying liabilities
 	/**
 	 * Which round of the clearing vector algorithm caused the node to default.<br>
 	 * (0 = no default)
 	 */
-	// private List<Integer> defaultOrderOfNode;
-	private TIntArrayList defaultOrderOfNode;
-	private int agentCount; // the number of agents in the clearing algorithm
+	protected int[] defaultOrderOfNode;
+	protected int agentCount; // the number of agents in the clearing algorithm
+
+	// reusable workspace (so consecutive months don't allocate)
+	private int[] receivablePtr;
+	private int[] receivableFrom;
+	private int[] receivableEdge;
+	private int[] worklist; // nodes to re-evaluate in the next round
+	private int[] defaultedNodes; // nodes that defaulted in the current round
+	private int[] lastQueued; // the last round each node was added to the worklist
+	private ClearingPaymentOutputs outputs;
+	private ClearingPaymentMetrics metrics; // convergence metrics for the last calculation
 
+	/**
+	 * Number of threads to use when calculating the CPV. 1 is single-threaded, and
+	 * zero (or less) uses all available processors.
+	 */
+	private int threadCount;
+	private transient ForkJoinPool pool;
+	/**
+	 * True to only re-evaluate the creditors of newly defaulted nodes after the
+	 * first round, or false to re-evaluate every node in every round.
+	 */
+	private boolean dirtyFrontier;
+
+	/**
+	 * Creates a single-threaded Clearing Payments Vector.
+	 */
 	public ClearingPaymentVector() {
 		super();
+		this.threadCount = 1;
+		this.dirtyFrontier = true;
+		this.init();
+	}
+
+	/**
+	 * Creates a Clearing Payments Vector that splits each round of the algorithm
+	 * across the specified number of threads.
+	 * 
+	 * @param threadCount - 1 is single-threaded, and zero (or less) uses all
+	 *                    available processors
+	 */
+	public ClearingPaymentVector(int threadCount) {
+		super();
+		this.threadCount = threadCount;
+		this.dirtyFrontier = true;
 		this.init();
 	}
 
 	private void init() {
 		this.exogeneousNominalCashFlow = null;
-		this.nominalLiabilitiesAmount = null;
+		this.liabilities = null;
 		this.relativeLiabilitiesAmount = null;
-		this.liabilitiesIndex = null;
 		this.totalLiabilitiesOfNode = null;
-		this.receivablesIndex = null;
 		this.totalOwedToNode = null;
-		this.clearingPaymentAmount = null;
 		this.clearingPaymentVector = null;
+		this.oldPaymentClearingVector = null;
 		this.equityOfNode = null;
 		this.defaultOrderOfNode = null;
 		this.agentCount = 0;
+		this.pool = null;
+
+		this.receivablePtr = null;
+		this.receivableFrom = null;
+		this.receivableEdge = null;
+		this.worklist = null;
+		this.defaultedNodes = null;
+		this.lastQueued = null;
+		this.outputs = null;
+		this.metrics = null;
+	}
+
+	/**
+	 * Makes sure the workspace is big enough for the given network. The per-node
+	 * arrays are returned to the caller, so they're reallocated whenever the
+	 * number of nodes changes. The per-link arrays are only reallocated when they
+	 * are too small, and are given some headroom when they are.
+	 * 
+	 * @param nodes - the number of agents in the network
+	 * @param links - the number of links in the network
+	 */
+	private void ensureCapacity(int nodes, int links) {
+		if (this.totalLiabilitiesOfNode == null || this.totalLiabilitiesOfNode.length != nodes) {
+			this.exogeneousNominalCashFlow = new float[nodes];
+			this.totalLiabilitiesOfNode = new float[nodes];
+			this.totalOwedToNode = new float[nodes];
+			this.clearingPaymentVector = new float[nodes];
+			this.oldPaymentClearingVector = new float[nodes];
+			this.equityOfNode = new float[nodes];
+			this.defaultOrderOfNode = new int[nodes];
+			this.worklist = new int[nodes];
+			this.defaultedNodes = new int[nodes];
+			this.lastQueued = new int[nodes];
+		}
+		if (this.relativeLiabilitiesAmount == null || this.relativeLiabilitiesAmount.length < links) {
+			int capacity = links + (links >> LINK_CAPACITY_HEADROOM_SHIFT);
+			this.relativeLiabilitiesAmount = new float[capacity];
+		}
+		if (this.outputs == null) {
+			this.outputs = new ClearingPaymentOutputs();
+		}
+		if (this.pool == null && this.threadCount != 1) {
+			this.pool = new ForkJoinPool(
+					this.threadCount > 1 ? this.threadCount : Runtime.getRuntime().availableProcessors());
+		}
+	}
+
+	/**
+	 * Makes sure the workspace's receivables index is big enough for the given
+	 * network. It's kept separate from the rest of the workspace because it isn't
+	 * needed when the caller supplies a graph that already has its index.
+	 * 
+	 * @param nodes - the number of agents in the network
+	 * @param links - the number of links in the network
+	 */
+	private void ensureReceivablesCapacity(int nodes, int links) {
+		if (this.receivablePtr == null || this.receivablePtr.length != nodes + 1) {
+			this.receivablePtr = new int[nodes + 1];
+		}
+		if (this.receivableFrom == null || this.receivableFrom.length < links) {
+			int capacity = links + (links >> LINK_CAPACITY_HEADROOM_SHIFT);
+			this.receivableFrom = new int[capacity];
+			this.receivableEdge = new int[capacity];
+		}
 	}
 
+	/**
+	 * Converts the boxed lists straight into a LiabilityGraph, unboxing each
+	 * element once, then calculates the payments that will clear the whole
+	 * economy. Null elements are treated as zero.
+	 * 
+	 * @param liabilitiesAmounts - amounts owed by every node to the other nodes
+	 *                           they're connected to
+	 * @param liabilitiesIndices - indices of the sub-list to designate which node
+	 *                           they relate to
+	 * @param operatingCashFlow  - exogeneous cash inflows to each node
+	 * @param liquidAssets       - cash at bank, etc. of each node
+	 * @return the equity and default order of each node
+	 */
 	public ClearingPaymentOutputs calculate(List<List<Float>> liabilitiesAmounts,
 			List<List<Integer>> liabilitiesIndices, List<Float> operatingCashFlow, List<Float> liquidAssets) {
-
-		List<TFloatArrayList> troveLiabilitiesAmounts = new ArrayList<TFloatArrayList>(liabilitiesAmounts.size());
-		for (int i = 0; i < liabilitiesAmounts.size(); i++) {
-			float[] liabAmtArray = new float[liabilitiesAmounts.get(i).size()];
-			int j = 0;
+		if (liabilitiesAmounts.size() != liabilitiesIndices.size()) {
+			return null;
+		}
+		int nodes = liabilitiesAmounts.size();
+		int[] rowPtr = new int[nodes + 1];
+		for (int i = 0; i < nodes; i++) {
+			rowPtr[i + 1] = rowPtr[i] + liabilitiesAmounts.get(i).size();
+		}
+		int[] col = new int[rowPtr[nodes]];
+		float[] amount = new float[rowPtr[nodes]];
+		for (int i = 0; i < nodes; i++) {
+			int link = rowPtr[i];
 			for (Float node : liabilitiesAmounts.get(i)) {
-				liabAmtArray[j++] = (node != null ? node : 0f);
+				amount[link++] = (node != null ? node : 0f);
 			}
-			troveLiabilitiesAmounts.add(TFloatArrayList.wrap(liabAmtArray));
-		}
-
-		List<TIntArrayList> troveLiabilitiesIndices = new ArrayList<TIntArrayList>(liabilitiesIndices.size());
-		for (int i = 0; i < liabilitiesIndices.size(); i++) {
-			int[] liabIdxArray = new int[liabilitiesIndices.get(i).size()];
-			int j = 0;
+			link = rowPtr[i];
 			for (Integer node : liabilitiesIndices.get(i)) {
-				liabIdxArray[j++] = (node != null ? node : 0);
+				col[link++] = (node != null ? node : 0);
 			}
-			troveLiabilitiesIndices.add(TIntArrayList.wrap(liabIdxArray));
 		}
 
-		float[] primitiveArray = new float[operatingCashFlow.size()];
+		float[] cashflowArray = new float[operatingCashFlow.size()];
 		int i = 0;
 		for (Float node : operatingCashFlow) {
-			primitiveArray[i++] = (node != null ? node : 0f);
+			cashflowArray[i++] = (node != null ? node : 0f);
 		}
-		TFloatArrayList troveOperatingCashFlow = TFloatArrayList.wrap(primitiveArray);
-
 		float[] assetsArray = new float[liquidAssets.size()];
 		i = 0;
 		for (Float node : liquidAssets) {
 			assetsArray[i++] = (node != null ? node : 0f);
 		}
-		TFloatArrayList troveLiquidAssets = TFloatArrayList.wrap(assetsArray);
 
-		return this.calculate(troveLiabilitiesAmounts, troveLiabilitiesIndices, troveOperatingCashFlow,
-				troveLiquidAssets);
+		return this.calculate(new LiabilityGraph(rowPtr, col, amount), cashflowArray, assetsArray);
+	}
+
+	/**
+	 * Converts the nested Trove lists into a LiabilityGraph, then calculates the
+	 * payments that will clear the whole economy.
+	 * 
+	 * @param liabilitiesAmounts - amounts owed by every node to the other nodes
+	 *                           they're connected to
+	 * @param liabilitiesIndices - indices of the sub-list to designate which node
+	 *                           they relate to
+	 * @param operatingCashFlow  - exogeneous cash inflows to each node
+	 * @param liquidAssets       - cash at bank, etc. which can buffer a node
+	 *                           against defaulting if their liabilities exceed
+	 *                           their income in this iteration.
+	 * @return the equity and default order of each node
+	 * @author Adam Struthers
+	 * @since 2019-03-18
+	 */
+	@Override
+	public ClearingPaymentOutputs calculate(List<TFloatArrayList> liabilitiesAmounts,
+			List<TIntArrayList> liabilitiesIndices, TFloatArrayList operatingCashFlow, TFloatArrayList liquidAssets) {
+		ClearingPaymentOutputs result = null;
+		if (liabilitiesAmounts.size() == liabilitiesIndices.size()) {
+			result = this.calculate(LiabilityGraph.fromLists(liabilitiesAmounts, liabilitiesIndices),
+					operatingCashFlow.toArray(), liquidAssets.toArray());
+		}
+		return result;
 	}
 
 	/**
@@ -185,67 +335,50 @@ public class ClearingPaymentVector implements Serializable {
 	 * period - they only default when they make a loss that's big enough to use up
 	 * all their liquid assets too.
 	 * 
-	 * @param liabilitiesAmounts - amounts owed by every node to the other nodes
-	 *                           they're connected to
-	 * @param liabilitiesIndices - indices of the sub-list to designate which node
-	 *                           they relate to
-	 * @param operatingCashFlow  - exogeneous cash inflows to each node
-	 * @param liquidAssets       - cash at bank, etc. which can buffer a node
-	 *                           against defaulting if their liabilities exceed
-	 *                           their income in this iteration.
-	 * @return a map containing:<br>
-	 *         List<Float> ClearingPaymentVector,<br>
-	 *         List<List<Float>> ClearingPaymentMatrix,<br>
-	 *         List<List<Integer>> ClearingPaymentIndices,<br>
-	 *         List<Float> NodeEquity, and<br>
-	 *         List<Integer> NodeDefaultOrder.
+	 * N.B. The liability amounts in the graph are updated in place to enforce the
+	 * constraints on the liabilities matrix.
+	 * 
+	 * @param liabilities       - amounts owed by every node to the other nodes
+	 *                          they're connected to, in CSR form
+	 * @param operatingCashFlow - exogeneous cash inflows to each node
+	 * @param liquidAssets      - cash at bank, etc. which can buffer a node
+	 *                          against defaulting if their liabilities exceed
+	 *                          their income in this iteration.
+	 * @return the equity and default order of each node
 	 * @author Adam Struthers
 	 * @since 2019-03-18
 	 */
-	public ClearingPaymentOutputs calculate(List<TFloatArrayList> liabilitiesAmounts,
-			List<TIntArrayList> liabilitiesIndices, TFloatArrayList operatingCashFlow, TFloatArrayList liquidAssets) {
-		System.gc();
-
+	@Override
+	public ClearingPaymentOutputs calculate(LiabilityGraph liabilities, float[] operatingCashFlow,
+			float[] liquidAssets) {
 		ClearingPaymentOutputs result = null;
+		long startTime = System.nanoTime();
 
-		if (liabilitiesAmounts.size() == liabilitiesIndices.size()
-				&& liabilitiesAmounts.size() == operatingCashFlow.size()
-				&& liabilitiesAmounts.size() == liquidAssets.size()) {
+		if (liabilities.getNodeCount() == operatingCashFlow.length
+				&& liabilities.getNodeCount() == liquidAssets.length) {
 			// must be the same number of agents in each argument
 
 			// set input values
-			this.agentCount = liabilitiesAmounts.size();
-			this.exogeneousNominalCashFlow = operatingCashFlow;
-			for (int i = 0; i < liquidAssets.size(); i++) {
-				this.exogeneousNominalCashFlow.set(i, this.exogeneousNominalCashFlow.get(i) + liquidAssets.get(i));
-			}
-			this.nominalLiabilitiesAmount = liabilitiesAmounts;
-			this.liabilitiesIndex = liabilitiesIndices;
-
-			// store the links to the nodes, based on links from each node
-			this.receivablesIndex = new ArrayList<ArrayList<NodeLink>>(this.agentCount);
-			for (int fromIdx = 0; fromIdx < this.agentCount; fromIdx++) {
-				// initialise
-				this.receivablesIndex.add(new ArrayList<NodeLink>(20));
+			this.agentCount = liabilities.getNodeCount();
+			this.liabilities = liabilities;
+			this.ensureCapacity(this.agentCount, liabilities.getLinkCount());
+			for (int i = 0; i < this.agentCount; i++) {
+				this.exogeneousNominalCashFlow[i] = operatingCashFlow[i] + liquidAssets[i];
 			}
-			for (int fromIdx = 0; fromIdx < this.agentCount; fromIdx++) {
-				// store node links
-				for (int to = 0; to < this.liabilitiesIndex.get(fromIdx).size(); to++) {
-					int toIdx = this.liabilitiesIndex.get(fromIdx).get(to);
-					NodeLink link = new NodeLink(fromIdx, to);
-					this.receivablesIndex.get(toIdx).add(link);
-				}
-			}
-			for (int fromIdx = 0; fromIdx < this.agentCount; fromIdx++) {
-				// trim to reduce memory footprint
-				this.receivablesIndex.get(fromIdx).trimToSize();
+
+			// store the links to the nodes, based on links from each node, unless the
+			// caller kept the index from an earlier month because the topology hasn't
+			// changed since
+			if (!this.liabilities.hasReceivablesIndex()) {
+				this.ensureReceivablesCapacity(this.agentCount, liabilities.getLinkCount());
+				this.liabilities.buildReceivablesIndex(this.receivablePtr, this.receivableFrom,
+						this.receivableEdge);
 			}
 
 			long memoryBefore = 0L;
 			long memoryAfter = 0L;
 			DecimalFormat formatter = new DecimalFormat("#,##0.00");
 			if (DEBUG_RAM_USAGE) {
-				System.gc();
 				memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
 				float megabytesAfter = memoryAfter / 1024f / 1024f;
 				System.out.println(new Date(System.currentTimeMillis())
@@ -257,7 +390,6 @@ public class ClearingPaymentVector implements Serializable {
 			System.out.println(new Date(System.currentTimeMillis()) + ": CPV calculating liabilities");
 			this.calculateLiabilities();
 			if (DEBUG_RAM_USAGE) {
-				System.gc();
 				memoryAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
 				float megabytesAfter = memoryAfter / 1024f / 1024f;
 				float megabytesBefore = memoryBefore / 1024f / 1024f;
@@ -266,9 +398,28 @@ public class ClearingPaymentVector implements Serializable {
 								+ formatter.format(megabytesAfter - megabytesBefore) + "MB (CURRENT TOTAL IS: "
 								+ formatter.format(megabytesAfter) + "MB)");
 			}
-			System.gc();
 			System.out.println(new Date(System.currentTimeMillis()) + ": CPV calculating payments");
-			this.calculatePayments();
+			int rounds = this.calculatePayments();
+
+			// calculate equity of each node, and how far the payments are from a fixed point
+			this.forEachNodeRange((fromNode, toNode) -> this.calculateEquity(fromNode, toNode));
+			float residualNorm = 0f;
+			int defaultCount = 0;
+			for (int i = 0; i < this.agentCount; i++) {
+				if (this.oldPaymentClearingVector[i] > residualNorm) {
+					residualNorm = this.oldPaymentClearingVector[i];
+				}
+				if (this.defaultOrderOfNode[i] > 0) {
+					defaultCount++;
+				}
+			}
+			this.metrics = new ClearingPaymentMetrics();
+			this.metrics.setSolverName(this.getSolverName());
+			this.metrics.setRounds(rounds);
+			this.metrics.setResidualNorm(residualNorm);
+			this.metrics.setDefaultCount(defaultCount);
+			this.metrics.setWallTimeMillis((System.nanoTime() - startTime) / 1000000L);
+			System.out.println(new Date(System.currentTimeMillis()) + ": CPV " + this.metrics);
 
 			// MAYBE: save output to file for analysis
 
@@ -280,18 +431,44 @@ public class ClearingPaymentVector implements Serializable {
 			 */
 
 			// return output to caller
-			// Map<String, Object> result = null;
-			// result = new HashMap<String, Object>((int) Math.ceil(5f / 0.75f));
-			result = new ClearingPaymentOutputs();
-			// result.put("ClearingPaymentVector", this.clearingPaymentVector);
-			// result.put("ClearingPaymentMatrix", this.clearingPaymentAmount);
-			// result.put("ClearingPaymentIndices", this.liabilitiesIndex);
+			result = this.outputs;
 			result.setEquityOfNode(this.equityOfNode); // net cash flow
 			result.setDefaultOrderOfNode(this.defaultOrderOfNode);
 		}
 		return result;
 	}
 
+	/**
+	 * @return the convergence metrics for the most recent calculation
+	 */
+	@Override
+	public ClearingPaymentMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return the name of the solver, for reporting
+	 */
+	protected String getSolverName() {
+		return this.dirtyFrontier ? "Eisenberg-Noe" : "Eisenberg-Noe (full sweep)";
+	}
+
+	/**
+	 * @return true if rounds 2..n only re-evaluate the dirty frontier
+	 */
+	public boolean isDirtyFrontier() {
+		return dirtyFrontier;
+	}
+
+	/**
+	 * @param dirtyFrontier true to only re-evaluate the creditors of newly
+	 *                      defaulted nodes after the first round, or false to
+	 *                      re-evaluate every node in every round
+	 */
+	public void setDirtyFrontier(boolean dirtyFrontier) {
+		this.dirtyFrontier = dirtyFrontier;
+	}
+
 	public String saveCpvOutoutsToFile(int iteration) {
 		// MAYBE: implement saveCpvOutoutsToFile(int)
 		String filename = "CPV_output" + iteration + ".csv";
@@ -300,40 +477,26 @@ public class ClearingPaymentVector implements Serializable {
 	}
 
 	/**
-	 * Releases memory for everything other than the variables that are returned to
-	 * the caller.
+	 * Releases the inputs. The workspace is kept so it can be reused by the next
+	 * call to calculate. The liabilities graph isn't cleared because it belongs to
+	 * the caller, who may keep it (and its receivables index) for the next month.
 	 */
+	@Override
 	public void clearInputsAndWorking() {
-		this.exogeneousNominalCashFlow.clear();
-		this.exogeneousNominalCashFlow = null;
-		for (int i = 0; i < this.nominalLiabilitiesAmount.size(); i++) {
-			this.nominalLiabilitiesAmount.get(i).clear();
-			this.nominalLiabilitiesAmount.set(i, null);
-		}
-		this.nominalLiabilitiesAmount.clear();
-		this.nominalLiabilitiesAmount = null;
-		for (int i = 0; i < this.relativeLiabilitiesAmount.size(); i++) {
-			this.relativeLiabilitiesAmount.get(i).clear();
-			this.relativeLiabilitiesAmount.set(i, null);
-		}
-		this.relativeLiabilitiesAmount.clear();
-		this.relativeLiabilitiesAmount = null;
-		for (int i = 0; i < this.liabilitiesIndex.size(); i++) {
-			this.liabilitiesIndex.get(i).clear();
-			this.liabilitiesIndex.set(i, null);
-		}
-		this.liabilitiesIndex.clear();
-		this.liabilitiesIndex = null;
-		this.totalLiabilitiesOfNode.clear();
-		this.totalLiabilitiesOfNode = null;
-		for (int i = 0; i < this.receivablesIndex.size(); i++) {
-			this.receivablesIndex.get(i).clear();
-			this.receivablesIndex.set(i, null);
+		this.liabilities = null;
+	}
+
+	/**
+	 * Releases the inputs, the whole workspace and the thread pool. The outputs
+	 * from the last calculation are no longer valid after calling this.
+	 */
+	@Override
+	public void releaseWorkspace() {
+		this.clearInputsAndWorking();
+		if (this.pool != null) {
+			this.pool.shutdown();
 		}
-		this.receivablesIndex.clear();
-		this.receivablesIndex = null;
-		this.totalOwedToNode.clear();
-		this.totalOwedToNode = null;
+		this.init();
 	}
 
 	/**
@@ -354,18 +517,25 @@ public class ClearingPaymentVector implements Serializable {
 	 * 
 	 * SOURCE: Eisenberg & Noe (2001: 243)
 	 * 
+	 * Subclasses can override this to use a different algorithm. They must fill in
+	 * the clearingPaymentVector and defaultOrderOfNode, and can use
+	 * oldPaymentClearingVector as working space.
+	 * 
+	 * @return the number of rounds of the algorithm
 	 * @author Adam Struthers
 	 * @since 2019-03-18
 	 */
-	private void calculatePayments() {
-		System.gc(); // it's a memory hog, so clean up first
-
+	protected int calculatePayments() {
 		// initialise variables, making copies so we don't alter the originals
-		TFloatArrayList oldPaymentClearingVector = new TFloatArrayList(this.totalLiabilitiesOfNode);
-		this.clearingPaymentVector = new TFloatArrayList(this.totalLiabilitiesOfNode);
-		int[] zeros = new int[this.agentCount];
-		Arrays.fill(zeros, 0);
-		this.defaultOrderOfNode = new TIntArrayList(zeros); // no default
+		System.arraycopy(this.totalLiabilitiesOfNode, 0, this.oldPaymentClearingVector, 0, this.agentCount);
+		System.arraycopy(this.totalLiabilitiesOfNode, 0, this.clearingPaymentVector, 0, this.agentCount);
+		Arrays.fill(this.defaultOrderOfNode, 0); // no default
+		Arrays.fill(this.lastQueued, 0);
+
+		// nodes to re-evaluate in the next round (null means every node)
+		int[] nodes = null;
+		int worklistSize = this.agentCount;
+		int defaultedCount = 0;
 
 		// iteratively calculate payment clearing vector
 		boolean systemCleared = false; // FIXME: this was true. Make it false
@@ -374,14 +544,14 @@ public class ClearingPaymentVector implements Serializable {
 			System.out.println("order " + order);
 			System.out.println("this.agentCount " + this.agentCount);
 			System.out.println("systemCleared " + systemCleared);
-			for (int i = 0; i < oldPaymentClearingVector.size(); i++) {
-				System.out.println("old CPV[" + i + "] = " + oldPaymentClearingVector.get(i));
+			for (int i = 0; i < this.oldPaymentClearingVector.length; i++) {
+				System.out.println("old CPV[" + i + "] = " + this.oldPaymentClearingVector[i]);
 			}
-			for (int i = 0; i < this.clearingPaymentVector.size(); i++) {
-				System.out.println("this CPV[" + i + "] = " + this.clearingPaymentVector.get(i));
+			for (int i = 0; i < this.clearingPaymentVector.length; i++) {
+				System.out.println("this CPV[" + i + "] = " + this.clearingPaymentVector[i]);
 			}
-			for (int i = 0; i < this.defaultOrderOfNode.size(); i++) {
-				System.out.println("default order[" + i + "] = " + this.defaultOrderOfNode.get(i));
+			for (int i = 0; i < this.defaultOrderOfNode.length; i++) {
+				System.out.println("default order[" + i + "] = " + this.defaultOrderOfNode[i]);
 			}
 		}
 		while ((order < this.agentCount) && !systemCleared) {
@@ -394,98 +564,162 @@ public class ClearingPaymentVector implements Serializable {
 			// algorithm.
 			// 3. If second-order defaults occur, then try to clear again
 			// assuming only second-order defaults occur, and so on.
+			if (order > 0) {
+				// swap buffers so this round reads the payments calculated in the last round
+				float[] swap = this.oldPaymentClearingVector;
+				this.oldPaymentClearingVector = this.clearingPaymentVector;
+				this.clearingPaymentVector = swap;
+				if (this.dirtyFrontier) {
+					// only the nodes that defaulted last round are out of date
+					for (int d = 0; d < defaultedCount; d++) {
+						int node = this.defaultedNodes[d];
+						this.clearingPaymentVector[node] = this.oldPaymentClearingVector[node];
+					}
+				}
+			}
 			order++;
-			systemCleared = true;
-			for (int fromIdx = 0; fromIdx < this.agentCount; fromIdx++) {
-				if (DEBUG_DEFAULTS) {
-					System.out.println("fromIdx " + fromIdx);
+			final int round = order;
+			final float[] previousRound = this.oldPaymentClearingVector;
+			final int[] roundNodes = nodes;
+			systemCleared = this.forEachRange(worklistSize, (fromNode,
+					toNode) -> this.calculateClearingRound(previousRound, round, roundNodes, fromNode, toNode));
+			if (!systemCleared && this.dirtyFrontier) {
+				// only the creditors of nodes that just defaulted can change next round
+				defaultedCount = 0;
+				for (int k = 0; k < worklistSize; k++) {
+					int node = nodes == null ? k : nodes[k];
+					if (this.defaultOrderOfNode[node] == order) {
+						this.defaultedNodes[defaultedCount++] = node;
+					}
 				}
+				nodes = this.worklist;
+				worklistSize = this.queueCreditors(defaultedCount, order);
+			}
+		}
 
-				// use clearing payment vector and rel liab matrix to calc total paid to node
-				float paidToNode = 0f;
-				for (int link = 0; link < this.receivablesIndex.get(fromIdx).size(); link++) {
-					int from = this.receivablesIndex.get(fromIdx).get(link).getFromIndex();
-					int to = this.receivablesIndex.get(fromIdx).get(link).getTo();
-					paidToNode += oldPaymentClearingVector.get(from) * this.relativeLiabilitiesAmount.get(from).get(to);
-
-					if (DEBUG_DEFAULTS) {
-						System.out.println("link " + link);
-						System.out.println("from " + from);
-						System.out.println("to " + to);
-						System.out.println(
-								"oldPaymentClearingVector.get(from) * this.relativeLiabilitiesAmount.get(from).get(to) "
-										+ oldPaymentClearingVector.get(from)
-												* this.relativeLiabilitiesAmount.get(from).get(to));
-						System.out.println("paidToNode " + paidToNode);
-					}
+		return order;
+	}
+
+	/**
+	 * Queues each of the creditors of the nodes that defaulted this round exactly
+	 * once, so they can be re-evaluated in the next round.
+	 * 
+	 * @param defaultedCount - number of elements used in defaultedNodes
+	 * @param order          - the round that just finished
+	 * @return the number of nodes in the worklist
+	 */
+	private int queueCreditors(int defaultedCount, int order) {
+		int[] rowPtr = this.liabilities.getRowPtr();
+		int[] col = this.liabilities.getCol();
+		int worklistSize = 0;
+		for (int d = 0; d < defaultedCount; d++) {
+			int debtor = this.defaultedNodes[d];
+			for (int link = rowPtr[debtor]; link < rowPtr[debtor + 1]; link++) {
+				int creditor = col[link];
+				if (this.lastQueued[creditor] != order) {
+					this.lastQueued[creditor] = order;
+					this.worklist[worklistSize++] = creditor;
 				}
+			}
+		}
+		return worklistSize;
+	}
 
-				/**
-				 * Need to add in each node's cash balance because they don't default simply
-				 * because they have negative net income this iteration - they default if they
-				 * run out of cash too.
-				 */
+	/**
+	 * Calculates one round of the clearing payment vector algorithm for a range of
+	 * nodes. Each node only reads the previous round's clearing payment vector and
+	 * only writes to its own elements, so ranges can be run concurrently.
+	 * 
+	 * @param oldPaymentClearingVector - the clearing payment vector from the
+	 *                                 previous round
+	 * @param order                    - the round of the algorithm (i.e. the
+	 *                                 default order)
+	 * @param nodes                    - the nodes to evaluate, or null to
+	 *                                 evaluate every node
+	 * @param from                     - first element in the range (inclusive)
+	 * @param to                       - last element in the range (exclusive)
+	 * @return true if none of the nodes in the range defaulted in this round
+	 */
+	private boolean calculateClearingRound(float[] oldPaymentClearingVector, int order, int[] nodes, int from,
+			int to) {
+		int[] receivablePtr = this.liabilities.getReceivablePtr();
+		int[] receivableFrom = this.liabilities.getReceivableFrom();
+		int[] receivableEdge = this.liabilities.getReceivableEdge();
+
+		boolean cleared = true;
+		for (int k = from; k < to; k++) {
+			int fromIdx = nodes == null ? k : nodes[k];
+			// use clearing payment vector and rel liab matrix to calc total paid to node
+			float paidToNode = 0f;
+			for (int link = receivablePtr[fromIdx]; link < receivablePtr[fromIdx + 1]; link++) {
+				paidToNode += oldPaymentClearingVector[receivableFrom[link]]
+						* this.relativeLiabilitiesAmount[receivableEdge[link]];
+			}
+
+			/**
+			 * Need to add in each node's cash balance because they don't default simply
+			 * because they have negative net income this iteration - they default if they
+			 * run out of cash too.
+			 */
 
+			if (DEBUG_DEFAULTS) {
+				System.out.println("fromIdx " + fromIdx);
+				System.out.println("this.exogeneousNominalCashFlow[" + fromIdx + "]: "
+						+ this.exogeneousNominalCashFlow[fromIdx]);
+				System.out.println("paidToNode: " + paidToNode);
+				System.out.println(
+						"this.totalLiabilitiesOfNode[" + fromIdx + "]: " + this.totalLiabilitiesOfNode[fromIdx]);
+			}
+			// check for negative equity to see who defaulted in this round
+			if (this.exogeneousNominalCashFlow[fromIdx] + paidToNode < oldPaymentClearingVector[fromIdx]) {
+				// node defaulted, so reduce its payment so that its cash flow to equity is zero
+				cleared = false;
+				this.defaultOrderOfNode[fromIdx] = order; // node defaulted in this round of algorithm
+				this.clearingPaymentVector[fromIdx] = this.exogeneousNominalCashFlow[fromIdx] + paidToNode;
 				if (DEBUG_DEFAULTS) {
-					System.out.println("this.exogeneousNominalCashFlow.get(" + fromIdx + "): "
-							+ this.exogeneousNominalCashFlow.get(fromIdx));
-					System.out.println("paidToNode: " + paidToNode);
-					System.out.println("this.totalLiabilitiesOfNode.get(" + fromIdx + "): "
-							+ this.totalLiabilitiesOfNode.get(fromIdx));
-				}
-				// check for negative equity to see who defaulted in this round
-				// if (this.exogeneousNominalCashFlow.get(fromIdx) + paidToNode <
-				// this.totalLiabilitiesOfNode
-				// .get(fromIdx)) {
-				if (this.exogeneousNominalCashFlow.get(fromIdx) + paidToNode < oldPaymentClearingVector.get(fromIdx)) {
-					// node defaulted, so reduce its payment so that its cash flow to equity is zero
-					systemCleared = false;
-					this.defaultOrderOfNode.set(fromIdx, order); // node defaulted in this round of algorithm
-					this.clearingPaymentVector.set(fromIdx, this.exogeneousNominalCashFlow.get(fromIdx) + paidToNode);
-					if (DEBUG_DEFAULTS) {
-						System.out.println(
-								"INSIDE DEFAULT IF STATEMENT (fromIdx = " + fromIdx + ", order = " + order + ")");
-					}
-				} else {
-					this.clearingPaymentVector.set(fromIdx, oldPaymentClearingVector.get(fromIdx));
-					if (DEBUG_DEFAULTS) {
-						System.out.println(
-								"INSIDE DEFAULT ELSE STATEMENT (fromIdx = " + fromIdx + ", order = " + order + ")");
-					}
+					System.out.println(
+							"INSIDE DEFAULT IF STATEMENT (fromIdx = " + fromIdx + ", order = " + order + ")");
 				}
-			}
-			if (!systemCleared) {
-				// reset old payment clearing vector ready for the next round
-				oldPaymentClearingVector = new TFloatArrayList(this.clearingPaymentVector);
+			} else {
+				this.clearingPaymentVector[fromIdx] = oldPaymentClearingVector[fromIdx];
 			}
 		}
+		return cleared;
+	}
 
-		// calculate payment clearing matrix and equity of each node
-		this.clearingPaymentAmount = new ArrayList<TFloatArrayList>(this.agentCount);
-		for (int fromIdx = 0; fromIdx < this.agentCount; fromIdx++) {
-			this.clearingPaymentAmount.add(new TFloatArrayList(this.nominalLiabilitiesAmount.get(fromIdx).size()));
-		}
-		this.equityOfNode = new TFloatArrayList(this.agentCount);
-		for (int fromIdx = 0; fromIdx < this.agentCount; fromIdx++) {
-			// amounts paid by this node
-			for (int to = 0; to < this.nominalLiabilitiesAmount.get(fromIdx).size(); to++) {
-				this.clearingPaymentAmount.get(fromIdx).add(
-						this.clearingPaymentVector.get(fromIdx) * this.relativeLiabilitiesAmount.get(fromIdx).get(to));
-			}
+	/**
+	 * Calculates the equity of a range of nodes, using the final clearing payment
+	 * vector. Also stores the absolute difference between each node's payment and
+	 * the payment implied by the other nodes' payments in the (no longer needed)
+	 * old clearing payment vector, so the residual norm can be calculated.
+	 * 
+	 * @param fromNode - first node in the range (inclusive)
+	 * @param toNode   - last node in the range (exclusive)
+	 * @return true (there is nothing to reduce)
+	 */
+	private boolean calculateEquity(int fromNode, int toNode) {
+		int[] receivablePtr = this.liabilities.getReceivablePtr();
+		int[] receivableFrom = this.liabilities.getReceivableFrom();
+		int[] receivableEdge = this.liabilities.getReceivableEdge();
 
+		for (int fromIdx = fromNode; fromIdx < toNode; fromIdx++) {
 			// amounts received by this node
 			float paymentReceived = 0f;
-			for (int link = 0; link < this.receivablesIndex.get(fromIdx).size(); link++) {
-				int from = this.receivablesIndex.get(fromIdx).get(link).getFromIndex();
-				int to = this.receivablesIndex.get(fromIdx).get(link).getTo();
-				paymentReceived += this.clearingPaymentVector.get(from)
-						* this.relativeLiabilitiesAmount.get(from).get(to);
+			for (int link = receivablePtr[fromIdx]; link < receivablePtr[fromIdx + 1]; link++) {
+				paymentReceived += this.clearingPaymentVector[receivableFrom[link]]
+						* this.relativeLiabilitiesAmount[receivableEdge[link]];
 			}
 
 			// equity of this node
-			this.equityOfNode.add(paymentReceived + this.exogeneousNominalCashFlow.get(fromIdx)
-					- this.clearingPaymentVector.get(fromIdx));
+			float available = paymentReceived + this.exogeneousNominalCashFlow[fromIdx];
+			this.equityOfNode[fromIdx] = available - this.clearingPaymentVector[fromIdx];
+
+			// residual of the fixed point p = min(L, e + Pi'p)
+			float fixedPoint = available < this.totalLiabilitiesOfNode[fromIdx] ? available
+					: this.totalLiabilitiesOfNode[fromIdx];
+			this.oldPaymentClearingVector[fromIdx] = Math.abs(this.clearingPaymentVector[fromIdx] - fixedPoint);
 		}
+		return true;
 	}
 
 	/**
@@ -496,95 +730,152 @@ public class ClearingPaymentVector implements Serializable {
 	 * @since 2019-03-18
 	 */
 	private void calculateLiabilities() {
-		this.enforceLiabilityMatrixConstraints();
-		this.totalOwedToNode = new TFloatArrayList(this.agentCount);
-		this.totalLiabilitiesOfNode = new TFloatArrayList(this.agentCount);
-		this.relativeLiabilitiesAmount = new ArrayList<TFloatArrayList>(this.agentCount);
-		for (int fromIdx = 0; fromIdx < this.agentCount; fromIdx++) {
-			// initialise array
-			int toSize = this.liabilitiesIndex.get(fromIdx).size();
-			this.relativeLiabilitiesAmount.add(new TFloatArrayList(toSize));
-		}
-		for (int fromIdx = 0; fromIdx < this.agentCount; fromIdx++) {
+		this.forEachNodeRange((fromNode, toNode) -> this.enforceLiabilityMatrixConstraints(fromNode, toNode));
+
+		this.forEachNodeRange((fromNode, toNode) -> this.calculateLiabilities(fromNode, toNode));
+	}
+
+	/**
+	 * Calculates the liabilities, receivables and relative liabilities for a range
+	 * of nodes.
+	 * 
+	 * @param fromNode - first node in the range (inclusive)
+	 * @param toNode   - last node in the range (exclusive)
+	 * @return true (there is nothing to reduce)
+	 */
+	private boolean calculateLiabilities(int fromNode, int toNode) {
+		int[] rowPtr = this.liabilities.getRowPtr();
+		float[] amount = this.liabilities.getAmount();
+		int[] receivablePtr = this.liabilities.getReceivablePtr();
+		int[] receivableEdge = this.liabilities.getReceivableEdge();
+
+		for (int fromIdx = fromNode; fromIdx < toNode; fromIdx++) {
 			// calculate contractual liabilities
 			float liabilities = 0f;
-			for (int to = 0; to < this.nominalLiabilitiesAmount.get(fromIdx).size(); to++) {
-				liabilities += this.nominalLiabilitiesAmount.get(fromIdx).get(to);
+			for (int link = rowPtr[fromIdx]; link < rowPtr[fromIdx + 1]; link++) {
+				liabilities += amount[link];
 			}
-			this.totalLiabilitiesOfNode.add(liabilities);
+			this.totalLiabilitiesOfNode[fromIdx] = liabilities;
 
 			// calculate contractual receivables
 			float receivables = 0f;
-			for (int link = 0; link < this.receivablesIndex.get(fromIdx).size(); link++) {
-				int from = this.receivablesIndex.get(fromIdx).get(link).getFromIndex();
-				int to = this.receivablesIndex.get(fromIdx).get(link).getTo();
-				receivables += this.nominalLiabilitiesAmount.get(from).get(to);
+			for (int link = receivablePtr[fromIdx]; link < receivablePtr[fromIdx + 1]; link++) {
+				receivables += amount[receivableEdge[link]];
 			}
-			// this.totalOwedToNode.set(fromIdx, receivables);
-			this.totalOwedToNode.add(receivables);
+			this.totalOwedToNode[fromIdx] = receivables;
 
 			// calculate relative liabilities
-			for (int to = 0; to < this.nominalLiabilitiesAmount.get(fromIdx).size(); to++) {
+			for (int link = rowPtr[fromIdx]; link < rowPtr[fromIdx + 1]; link++) {
 				if (liabilities > 0f) {
-					// this.relativeLiabilitiesAmount.get(fromIdx).set(to,
-					// this.nominalLiabilitiesAmount.get(fromIdx).get(to) / liabilities);
-					this.relativeLiabilitiesAmount.get(fromIdx)
-							.add(this.nominalLiabilitiesAmount.get(fromIdx).get(to) / liabilities);
+					this.relativeLiabilitiesAmount[link] = amount[link] / liabilities;
 				} else {
-					// this.relativeLiabilitiesAmount.get(fromIdx).set(to, 0f);
-					this.relativeLiabilitiesAmount.get(fromIdx).add(0f);
+					this.relativeLiabilitiesAmount[link] = 0f;
 				}
 			}
 		}
+		return true;
 	}
 
 	/**
 	 * All elements non-negative, and diagonal is 0.
 	 * 
+	 * @param fromNode - first node in the range (inclusive)
+	 * @param toNode   - last node in the range (exclusive)
+	 * @return true (there is nothing to reduce)
 	 * @author Adam Struthers
 	 * @since 2019-03-18
 	 */
-	private void enforceLiabilityMatrixConstraints() {
-		for (int fromIdx = 0; fromIdx < this.agentCount; fromIdx++) {
-			for (int to = 0; to < this.nominalLiabilitiesAmount.get(fromIdx).size(); to++) {
-				int toIdx = this.liabilitiesIndex.get(fromIdx).get(to);
-				if (fromIdx == toIdx) {
+	private boolean enforceLiabilityMatrixConstraints(int fromNode, int toNode) {
+		int[] rowPtr = this.liabilities.getRowPtr();
+		int[] col = this.liabilities.getCol();
+		float[] amount = this.liabilities.getAmount();
+		for (int fromIdx = fromNode; fromIdx < toNode; fromIdx++) {
+			for (int link = rowPtr[fromIdx]; link < rowPtr[fromIdx + 1]; link++) {
+				if (fromIdx == col[link]) {
 					// set diagonal to zero
-					this.nominalLiabilitiesAmount.get(fromIdx).set(to, 0f);
+					amount[link] = 0f;
 				}
-				if (this.nominalLiabilitiesAmount.get(fromIdx).get(to) < 0f) {
+				if (amount[link] < 0f) {
 					// ensure amounts are non-negative
-					this.nominalLiabilitiesAmount.get(fromIdx).set(to,
-							-this.nominalLiabilitiesAmount.get(fromIdx).get(to));
+					amount[link] = -amount[link];
 				}
 			}
 		}
+		return true;
 	}
 
 	/**
-	 * A utility class to make it easier to look up which nodes owe money to a given
-	 * node. The fromIndex and toIndex correspond to coordinates in the
-	 * nominalLiabilitiesAmount nested Lists.
+	 * Applies the operation to every node, either in a single pass on the calling
+	 * thread or split into ranges across the fork-join pool.
 	 * 
-	 * @author Adam Struthers
-	 * @since 2019-03-18
+	 * @param operation - the operation to apply to each range of nodes
+	 * @return the logical AND of the results for each range
 	 */
-	private class NodeLink {
-		final int fromIndex;
-		final int to;
-
-		protected NodeLink(final int fromNodeIndex, final int to) {
-			super();
-			this.fromIndex = fromNodeIndex;
-			this.to = to;
+	private boolean forEachNodeRange(NodeRangeOperation operation) {
+		return this.forEachRange(this.agentCount, operation);
+	}
+
+	/**
+	 * Applies the operation to the elements 0 to size, either in a single pass on
+	 * the calling thread or split into ranges across the fork-join pool.
+	 * 
+	 * @param size      - the number of elements to process
+	 * @param operation - the operation to apply to each range of elements
+	 * @return the logical AND of the results for each range
+	 */
+	private boolean forEachRange(int size, NodeRangeOperation operation) {
+		boolean result;
+		if (this.pool == null || size <= PARALLEL_THRESHOLD) {
+			result = operation.apply(0, size);
+		} else {
+			result = this.pool.invoke(new NodeRangeTask(operation, 0, size));
 		}
+		return result;
+	}
+
+	/**
+	 * An operation applied to a contiguous range of nodes. Implementations must
+	 * only write to the elements belonging to nodes in their range.
+	 */
+	@FunctionalInterface
+	private interface NodeRangeOperation {
+		boolean apply(int fromNode, int toNode);
+	}
 
-		protected int getFromIndex() {
-			return this.fromIndex;
+	/**
+	 * Recursively splits a range of nodes in half until it is no bigger than the
+	 * parallel threshold. The results are combined with a logical AND, which gives
+	 * the same answer no matter how the work was scheduled.
+	 */
+	private static final class NodeRangeTask extends RecursiveTask<Boolean> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final NodeRangeOperation operation;
+		private final int fromNode;
+		private final int toNode;
+
+		NodeRangeTask(NodeRangeOperation operation, int fromNode, int toNode) {
+			this.operation = operation;
+			this.fromNode = fromNode;
+			this.toNode = toNode;
 		}
 
-		protected int getTo() {
-			return this.to;
+		@Override
+		protected Boolean compute() {
+			boolean result;
+			if (this.toNode - this.fromNode <= PARALLEL_THRESHOLD) {
+				result = this.operation.apply(this.fromNode, this.toNode);
+			} else {
+				int mid = (this.fromNode + this.toNode) >>> 1;
+				NodeRangeTask left = new NodeRangeTask(this.operation, this.fromNode, mid);
+				NodeRangeTask right = new NodeRangeTask(this.operation, mid, this.toNode);
+				left.fork();
+				boolean rightResult = right.compute();
+				boolean leftResult = left.join();
+				result = leftResult && rightResult;
+			}
+			return result;
 		}
 	}
 
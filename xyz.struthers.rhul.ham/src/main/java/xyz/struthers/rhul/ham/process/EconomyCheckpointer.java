@@ -0,0 +1,138 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham.process;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import xyz.struthers.rhul.ham.config.PropertiesXml;
+
+/**
+ * Checkpoints the economy every checkpointInterval months, so a simulation that
+ * dies part way through can be resumed from the last checkpoint instead of
+ * starting again from calibration.
+ *
+ * The state of the economy (including the random number generator and the
+ * exchange rate paths) is captured on the simulation's thread, then written to
+ * disk on a background thread while the simulation carries on with the next
+ * month. Only one checkpoint is written at a time, so if the next one is due
+ * before the last one has finished, the simulation waits for it. Each
+ * checkpoint replaces the previous one once it has been completely written.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class EconomyCheckpointer implements Closeable {
+
+	private final String filename;
+	private final int interval;
+	private final int numberOfIterations;
+	private final ExecutorService executor;
+	private Future<?> pending;
+
+	/**
+	 * @param properties - the simulation's properties
+	 */
+	public EconomyCheckpointer(PropertiesXml properties) {
+		super();
+		this.filename = checkpointFilename(properties);
+		this.interval = properties.getCheckpointInterval();
+		this.numberOfIterations = properties.getNumberOfIterations();
+		this.executor = this.interval > 0 ? Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "economy-checkpoint");
+			thread.setDaemon(true); // a checkpoint that dies with the JVM leaves the last one in place
+			return thread;
+		}) : null;
+		this.pending = null;
+	}
+
+	/**
+	 * @param properties - the simulation's properties
+	 * @return the checkpoint file for the scenario
+	 */
+	public static String checkpointFilename(PropertiesXml properties) {
+		return properties.getOutputDirectory() + properties.getScenarioName() + "_CHECKPOINT.economy";
+	}
+
+	/**
+	 * Resumes a simulation by loading the last checkpoint into the economy.
+	 *
+	 * @param economy    - the economy to load the checkpoint into
+	 * @param properties - the simulation's properties
+	 * @return the iteration to resume from, or -1 if there is no checkpoint
+	 */
+	public static int resume(AustralianEconomy economy, PropertiesXml properties) {
+		String filename = checkpointFilename(properties);
+		if (!new File(filename).exists()) {
+			System.out.println(new Date(System.currentTimeMillis()) + ": no checkpoint to resume from: " + filename);
+			return -1;
+		}
+		try {
+			return EconomySnapshot.load(economy, filename);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return -1;
+		}
+	}
+
+	/**
+	 * @param iteration - the iteration that has just been simulated
+	 * @return true if a checkpoint should be saved after this iteration
+	 */
+	public boolean isDue(int iteration) {
+		int completed = iteration + 1;
+		return this.interval > 0 && completed % this.interval == 0 && completed < this.numberOfIterations;
+	}
+
+	/**
+	 * Captures the economy and writes it to the checkpoint file in the
+	 * background.
+	 *
+	 * @param economy   - the economy
+	 * @param iteration - the iteration that has just been simulated
+	 */
+	public void checkpoint(AustralianEconomy economy, int iteration) {
+		this.awaitPending();
+		EconomySnapshot snapshot = EconomySnapshot.capture(economy, iteration + 1);
+		this.pending = this.executor.submit(() -> {
+			try {
+				snapshot.write(this.filename);
+			} catch (IOException e) {
+				// the simulation carries on, and the previous checkpoint is still there
+				e.printStackTrace();
+			}
+		});
+	}
+
+	private void awaitPending() {
+		if (this.pending != null) {
+			try {
+				this.pending.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			}
+			this.pending = null;
+		}
+	}
+
+	/**
+	 * Waits for the last checkpoint to be written.
+	 */
+	@Override
+	public void close() {
+		this.awaitPending();
+		if (this.executor != null) {
+			this.executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,1149 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham.process;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.map.hash.TObjectFloatHashMap;
+import xyz.struthers.io.FramedArrayReader;
+import xyz.struthers.io.FramedArrayWriter;
+import xyz.struthers.rhul.ham.agent.AustralianGovernment;
+import xyz.struthers.rhul.ham.agent.AuthorisedDepositTakingInstitution;
+import xyz.struthers.rhul.ham.agent.Business;
+import xyz.struthers.rhul.ham.agent.ExogeneousExpenseAgent;
+import xyz.struthers.rhul.ham.agent.ForeignCountry;
+import xyz.struthers.rhul.ham.agent.Household;
+import xyz.struthers.rhul.ham.agent.Individual;
+import xyz.struthers.rhul.ham.agent.ReserveBankOfAustralia;
+import xyz.struthers.rhul.ham.config.RandomState;
+import xyz.struthers.rhul.ham.data.Currencies;
+import xyz.struthers.rhul.ham.data.Currency;
+
+/**
+ * Saves a calibrated and linked AustralianEconomy to a compact, versioned binary
+ * file, and loads it again, so a simulation can skip reading the calibration
+ * data and re-running the calibration. The same file is used to checkpoint the
+ * economy part way through a simulation so it can be resumed, and to give each
+ * scenario its own copy of a calibrated economy without calibrating it again.
+ *
+ * The agents are stored in columns: one array per field for each type of agent,
+ * written with a FramedArrayWriter. The columns are captured from the agents
+ * first, then written, so a checkpoint can be written on another thread while
+ * the simulation carries on. Strings are stored as a dictionary plus an int code per agent. Links to
+ * other agents are stored as agent ids, which are the agents' payment clearing
+ * indices, followed by the Individuals and then the currencies. Lists and
+ * arrays of links are stored as the length of each list (or -1 for null)
+ * followed by all the ids in one array, and lists of floats the same way.
+ *
+ * The file is: magic number, version, the number of months simulated, the
+ * random seed, the state of the random number generator, the exogeneous
+ * expense agent's payment clearing index, the number of businesses of each
+ * type, then a table of the agent groups (name, number of agents and the class
+ * of each agent) and then the columns of each group (field name, kind of field
+ * and the data). Fields are matched by name when the file is loaded, so a field
+ * that was added to an agent after the file was saved keeps the value its
+ * constructor gives it, while a field that no longer exists is an error.
+ *
+ * This is not Java serialization. The fields are found by reflection, but only
+ * primitives, Strings, links to agents and the collections listed above are
+ * supported, so a new kind of field fails fast when the economy is saved.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class EconomySnapshot {
+
+	public static final int MAGIC = 0x45434F4E; // "ECON"
+	public static final int VERSION = 2;
+
+	public static final int NO_LINK = -1;
+	private static final int FRAME_BYTES = 8 * 1024 * 1024; // 8MB
+
+	// kinds of field
+	static final int KIND_INT = 0;
+	static final int KIND_FLOAT = 1;
+	static final int KIND_CHAR = 2;
+	static final int KIND_BOOLEAN = 3;
+	static final int KIND_STRING = 4;
+	static final int KIND_LINK = 5; // a single agent or currency
+	static final int KIND_LINK_ARRAY = 6;
+	static final int KIND_LINK_LIST = 7;
+	static final int KIND_FLOAT_LIST = 8; // TFloatArrayList
+	static final int KIND_BOXED_FLOAT_LIST = 9; // List<Float>
+	static final int KIND_STRING_FLOAT_MAP = 10; // TObjectFloatHashMap<String>
+	static final int KIND_STRING_LINK_MAP = 11; // Map<String, agent or currency>
+
+	// agent groups, in id order
+	static final int GROUP_GOVERNMENT = 0;
+	static final int GROUP_RBA = 1;
+	static final int GROUP_HOUSEHOLDS = 2;
+	static final int GROUP_BUSINESSES = 3;
+	static final int GROUP_ADIS = 4;
+	static final int GROUP_COUNTRIES = 5;
+	static final int GROUP_EXOGENEOUS = 6;
+	static final int GROUP_INDIVIDUALS = 7;
+	static final int GROUP_CURRENCY = 8;
+	static final int GROUP_CURRENCIES = 9;
+	static final String[] GROUP_NAMES = { "government", "rba", "households", "businesses", "adis", "countries",
+			"exogeneousExpenseAgent", "individuals", "currency", "currencies" };
+	static final Class<?>[] GROUP_CLASSES = { AustralianGovernment.class, ReserveBankOfAustralia.class,
+			Household.class, Business.class, AuthorisedDepositTakingInstitution.class, ForeignCountry.class,
+			ExogeneousExpenseAgent.class, Individual.class, Currency.class, Currencies.class };
+
+	// agents being captured or restored
+	private final Object[][] groups;
+	private final int[] groupOffsets; // id of the first agent in each group
+	private int[] individualPtr; // Individuals of household i start at individualPtr[i]
+	private final IdentityHashMap<Object, Integer> otherIds; // small groups, and Individuals if out of order
+	private final boolean[] mappedGroups; // households or businesses whose ids are in otherIds
+
+	// captured state
+	private int iteration; // months simulated so far
+	private long randomSeed;
+	private long[] randomState;
+	private int exogeneousIndex;
+	private int[] businessTypeCount;
+	private List<List<Class<?>>> classes; // classes of the agents in each group
+	private int[][] classCodes; // index into classes of each agent
+	private List<List<Column>> columns;
+
+	/**
+	 * Creates a snapshot that hasn't been read yet.
+	 */
+	private EconomySnapshot() {
+		super();
+		this.groups = null;
+		this.groupOffsets = null;
+		this.individualPtr = null;
+		this.otherIds = null;
+		this.mappedGroups = null;
+	}
+
+	/**
+	 * Creates a snapshot of a set of agents, either to capture them or to resolve
+	 * the links between the agents being restored.
+	 */
+	private EconomySnapshot(Object[][] groups) {
+		super();
+		this.groups = groups;
+		this.groupOffsets = new int[groups.length + 1];
+		for (int g = 0; g < groups.length; g++) {
+			this.groupOffsets[g + 1] = this.groupOffsets[g] + groups[g].length;
+		}
+		this.individualPtr = null;
+		this.otherIds = new IdentityHashMap<Object, Integer>();
+		this.mappedGroups = new boolean[groups.length];
+	}
+
+	/**
+	 * Saves the economy. It is written to a temporary file first, then moved into
+	 * place, so a failed save never leaves a partial snapshot behind.
+	 *
+	 * @param economy  - the calibrated and linked economy
+	 * @param filename - the file to save it to
+	 * @throws IOException
+	 */
+	public static void save(AustralianEconomy economy, String filename) throws IOException {
+		capture(economy, 0).write(filename);
+	}
+
+	/**
+	 * Copies the state of the economy into columns, so it can be written to disk
+	 * (e.g. on another thread) while the simulation carries on changing the agents.
+	 * The copy holds only primitive arrays and Strings, so it is much smaller than
+	 * the agents themselves.
+	 *
+	 * @param economy   - the economy to copy
+	 * @param iteration - the number of months that have been simulated
+	 * @return the copy
+	 */
+	public static EconomySnapshot capture(AustralianEconomy economy, int iteration) {
+		System.out.println(new Date(System.currentTimeMillis()) + ": capturing economy state after " + iteration
+				+ " iterations.");
+		EconomySnapshot snapshot = new EconomySnapshot(groupsOf(economy));
+		snapshot.iteration = iteration;
+		snapshot.randomSeed = economy.properties.getRandomSeed();
+		Random random = economy.random != null ? economy.random : economy.properties.getRandom();
+		snapshot.randomState = RandomState.getState(random);
+		ExogeneousExpenseAgent exogeneous = AustralianEconomy.getExogeneousExpenseAgent();
+		snapshot.exogeneousIndex = exogeneous == null ? NO_LINK : exogeneous.getPaymentClearingIndex();
+		snapshot.businessTypeCount = economy.businessTypeCount == null ? new int[0]
+				: economy.businessTypeCount.clone();
+		snapshot.indexAgents();
+		snapshot.captureGroups();
+
+		// the copy mustn't keep the agents alive after the economy has finished with them
+		snapshot.otherIds.clear();
+		Arrays.fill(snapshot.groups, null);
+		return snapshot;
+	}
+
+	/**
+	 * Writes a captured economy to a file. It is written to a temporary file
+	 * first, then moved into place, so a failed write never leaves a partial
+	 * snapshot behind and the previous file survives until the new one is
+	 * complete.
+	 *
+	 * @param filename - the file to write
+	 * @throws IOException
+	 */
+	public void write(String filename) throws IOException {
+		System.out.println(new Date(System.currentTimeMillis()) + ": saving economy snapshot to " + filename);
+		Path target = Paths.get(filename).toAbsolutePath();
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		if (target.getParent() != null) {
+			Files.createDirectories(target.getParent());
+		}
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				FramedArrayWriter writer = new FramedArrayWriter(channel, FRAME_BYTES);
+				writer.writeInt(MAGIC);
+				writer.writeInt(VERSION);
+				writer.writeInt(this.iteration);
+				writer.writeLong(this.randomSeed);
+				writer.writeInt(this.randomState == null ? 0 : this.randomState.length);
+				for (int i = 0; this.randomState != null && i < this.randomState.length; i++) {
+					writer.writeLong(this.randomState[i]);
+				}
+				writer.writeInt(this.exogeneousIndex);
+				writer.writeIntArray(this.businessTypeCount);
+				this.writeGroups(writer);
+			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		System.out.println(new Date(System.currentTimeMillis()) + ": saved economy snapshot ("
+				+ Files.size(target) / 1024L / 1024L + "MB).");
+	}
+
+	/**
+	 * Loads a saved economy into an existing AustralianEconomy. If the random
+	 * seed is the same as the one the economy was saved with, the random number
+	 * generator carries on from where it was when the economy was saved, so the
+	 * run is the same as one that calibrated (or simulated) the economy itself.
+	 * Otherwise the generator is left as it is (i.e. seeded with the new seed),
+	 * so the same economy can be simulated with several seeds.
+	 *
+	 * @param economy  - the economy to load the agents into
+	 * @param filename - the file to load
+	 * @return the number of months that had been simulated when it was saved (0
+	 *         for a calibrated economy)
+	 * @throws IOException if the file can't be read or is the wrong version
+	 */
+	public static int load(AustralianEconomy economy, String filename) throws IOException {
+		return read(filename).restore(economy, true);
+	}
+
+	/**
+	 * Reads a saved economy into columns without creating any agents, so it can
+	 * be restored into one or more economies.
+	 *
+	 * @param filename - the file to read
+	 * @return the snapshot
+	 * @throws IOException if the file can't be read, is the wrong version, or
+	 *                     doesn't match the agents' fields
+	 */
+	public static EconomySnapshot read(String filename) throws IOException {
+		System.out.println(new Date(System.currentTimeMillis()) + ": loading economy snapshot from " + filename);
+		EconomySnapshot snapshot = new EconomySnapshot();
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			FramedArrayReader reader = new FramedArrayReader(channel, FRAME_BYTES);
+			int magic = reader.readInt();
+			if (magic != MAGIC) {
+				throw new IOException(filename + " is not an economy snapshot.");
+			}
+			int version = reader.readInt();
+			if (version != VERSION) {
+				throw new IOException(filename + " is version " + version + ", but only version " + VERSION
+						+ " can be loaded.");
+			}
+			snapshot.iteration = reader.readInt();
+			snapshot.randomSeed = reader.readLong();
+			snapshot.randomState = new long[reader.readInt()];
+			for (int i = 0; i < snapshot.randomState.length; i++) {
+				snapshot.randomState[i] = reader.readLong();
+			}
+			snapshot.exogeneousIndex = reader.readInt();
+			snapshot.businessTypeCount = reader.readIntArray(null);
+
+			snapshot.readGroupTable(reader);
+			snapshot.readColumns(reader);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Restores the captured state into an economy. A new set of agents is created
+	 * every time it's called, so one snapshot can be restored into several
+	 * economies (e.g. one per scenario) and the snapshot itself is never changed.
+	 * The random number generator is treated the same way as when a snapshot is
+	 * loaded.
+	 *
+	 * @param economy - the economy to restore the agents into
+	 * @return the number of months that had been simulated when the economy was
+	 *         captured
+	 */
+	public int restore(AustralianEconomy economy) {
+		return this.restore(economy, false);
+	}
+
+	/**
+	 * @param release - true to drop each group's columns once its agents have
+	 *                been restored, so a loaded file doesn't need its columns and
+	 *                all of its agents in memory at the same time
+	 */
+	private int restore(AustralianEconomy economy, boolean release) {
+		Object[][] agents = this.newAgents();
+		EconomySnapshot links = new EconomySnapshot(agents);
+		for (int g = 0; g < agents.length; g++) {
+			for (Column column : this.columns.get(g)) {
+				try {
+					links.restoreColumn(agents[g], column);
+				} catch (IllegalAccessException | IllegalArgumentException e) {
+					throw new IllegalStateException("Couldn't set " + column.field, e);
+				}
+			}
+			if (release) {
+				this.columns.set(g, null);
+			}
+			System.out.println(new Date(System.currentTimeMillis()) + ": loaded " + agents[g].length + " "
+					+ GROUP_NAMES[g] + ".");
+		}
+
+		economy.government = (AustralianGovernment) single(agents[GROUP_GOVERNMENT]);
+		economy.rba = (ReserveBankOfAustralia) single(agents[GROUP_RBA]);
+		economy.households = (Household[]) agents[GROUP_HOUSEHOLDS];
+		economy.businesses = (Business[]) agents[GROUP_BUSINESSES];
+		economy.adis = (AuthorisedDepositTakingInstitution[]) agents[GROUP_ADIS];
+		economy.countries = (ForeignCountry[]) agents[GROUP_COUNTRIES];
+		economy.individuals = (Individual[]) agents[GROUP_INDIVIDUALS];
+		economy.currencies = (Currencies) single(agents[GROUP_CURRENCIES]);
+		economy.businessTypeCount = this.businessTypeCount.clone();
+
+		// economies restored from the same snapshot share the exogeneous expense agent
+		ExogeneousExpenseAgent exogeneous = AustralianEconomy.getExogeneousExpenseAgent();
+		if (exogeneous == null || this.exogeneousIndex == NO_LINK
+				|| exogeneous.getPaymentClearingIndex() != this.exogeneousIndex) {
+			AustralianEconomy.setExogeneousExpenseAgent((ExogeneousExpenseAgent) single(agents[GROUP_EXOGENEOUS]));
+			if (this.exogeneousIndex != NO_LINK) {
+				AustralianEconomy.setExogeneousExpenseAgentPaymentClearingIndex(this.exogeneousIndex);
+			}
+		}
+
+		// only touch the random number generator once every agent has been restored
+		long randomSeed = economy.properties.getRandomSeed();
+		economy.random = economy.properties.getRandom();
+		if (this.randomSeed == randomSeed && RandomState.setState(economy.random, this.randomState)) {
+			System.out.println(new Date(System.currentTimeMillis())
+					+ ": restored the random number generator to where it was when the economy was saved.");
+		} else if (this.randomSeed != randomSeed) {
+			System.out.println(new Date(System.currentTimeMillis()) + ": the economy was saved with seed "
+					+ this.randomSeed + ", but the simulation will use seed " + randomSeed + ".");
+		}
+		System.out.println(new Date(System.currentTimeMillis()) + ": loaded economy snapshot after "
+				+ this.iteration + " iterations.");
+		return this.iteration;
+	}
+
+	/**
+	 * @return the number of months that had been simulated when the economy was
+	 *         captured
+	 */
+	public int getIteration() {
+		return this.iteration;
+	}
+
+	private static Object[][] groupsOf(AustralianEconomy economy) {
+		Object[][] groups = new Object[GROUP_NAMES.length][];
+		groups[GROUP_GOVERNMENT] = singleton(economy.government);
+		groups[GROUP_RBA] = singleton(economy.rba);
+		groups[GROUP_HOUSEHOLDS] = economy.households == null ? new Household[0] : economy.households;
+		groups[GROUP_BUSINESSES] = economy.businesses == null ? new Business[0] : economy.businesses;
+		groups[GROUP_ADIS] = economy.adis == null ? new AuthorisedDepositTakingInstitution[0] : economy.adis;
+		groups[GROUP_COUNTRIES] = economy.countries == null ? new ForeignCountry[0] : economy.countries;
+		groups[GROUP_EXOGENEOUS] = singleton(AustralianEconomy.getExogeneousExpenseAgent());
+		groups[GROUP_INDIVIDUALS] = economy.individuals == null ? new Individual[0] : economy.individuals;
+		Map<String, Currency> currencyMap = economy.currencies == null ? null : economy.currencies.getAllCurrencies();
+		groups[GROUP_CURRENCY] = currencyMap == null ? new Currency[0]
+				: currencyMap.values().toArray(new Currency[currencyMap.size()]);
+		groups[GROUP_CURRENCIES] = singleton(economy.currencies);
+		return groups;
+	}
+
+	private static Object[] singleton(Object agent) {
+		return agent == null ? new Object[0] : new Object[] { agent };
+	}
+
+	private static Object single(Object[] group) {
+		return group.length == 0 ? null : group[0];
+	}
+
+	/*
+	 * ID LOOKUP
+	 */
+
+	/**
+	 * Indexes the agents so a link can be turned into an id. Households and
+	 * businesses are found by their payment clearing index, and Individuals by
+	 * their household, so only the small groups need a map.
+	 */
+	private void indexAgents() {
+		for (int g = 0; g < this.groups.length; g++) {
+			if (g != GROUP_HOUSEHOLDS && g != GROUP_BUSINESSES && g != GROUP_INDIVIDUALS) {
+				for (int i = 0; i < this.groups[g].length; i++) {
+					this.otherIds.put(this.groups[g][i], this.groupOffsets[g] + i);
+				}
+			}
+		}
+
+		// the Individuals are normally stored household by household
+		Object[] households = this.groups[GROUP_HOUSEHOLDS];
+		Object[] individuals = this.groups[GROUP_INDIVIDUALS];
+		this.individualPtr = new int[households.length + 1];
+		boolean inHouseholdOrder = true;
+		for (int h = 0; h < households.length && inHouseholdOrder; h++) {
+			Individual[] members = ((Household) households[h]).getIndividuals();
+			int count = members == null ? 0 : members.length;
+			for (int j = 0; j < count && inHouseholdOrder; j++) {
+				int idx = this.individualPtr[h] + j;
+				inHouseholdOrder = idx < individuals.length && individuals[idx] == members[j];
+			}
+			this.individualPtr[h + 1] = this.individualPtr[h] + count;
+		}
+		if (!inHouseholdOrder || this.individualPtr[households.length] != individuals.length) {
+			System.out.println(new Date(System.currentTimeMillis())
+					+ ": individuals aren't in household order, so they will be indexed in a map.");
+			this.individualPtr = null;
+			for (int i = 0; i < individuals.length; i++) {
+				this.otherIds.put(individuals[i], this.groupOffsets[GROUP_INDIVIDUALS] + i);
+			}
+		}
+	}
+
+	private int idOf(Object agent) {
+		if (agent == null) {
+			return NO_LINK;
+		}
+		if (agent instanceof Individual && this.individualPtr != null) {
+			Household household = ((Individual) agent).getHousehold();
+			int h = this.clearableId(household, GROUP_HOUSEHOLDS);
+			if (h != NO_LINK) {
+				Individual[] members = household.getIndividuals();
+				for (int j = 0; members != null && j < members.length; j++) {
+					if (members[j] == agent) {
+						return this.groupOffsets[GROUP_INDIVIDUALS] + this.individualPtr[h] + j;
+					}
+				}
+			}
+		} else if (agent instanceof Household) {
+			int h = this.clearableId((Household) agent, GROUP_HOUSEHOLDS);
+			if (h != NO_LINK) {
+				return this.groupOffsets[GROUP_HOUSEHOLDS] + h;
+			}
+		} else if (agent instanceof Business) {
+			int b = this.clearableId((Business) agent, GROUP_BUSINESSES);
+			if (b != NO_LINK) {
+				return this.groupOffsets[GROUP_BUSINESSES] + b;
+			}
+		} else {
+			Integer id = this.otherIds.get(agent);
+			if (id != null) {
+				return id;
+			}
+		}
+		throw new IllegalStateException("Link to an agent that isn't in the economy: " + agent.getClass().getName());
+	}
+
+	/**
+	 * @return the agent's position in its group, found using its payment clearing
+	 *         index, or NO_LINK if it isn't there
+	 */
+	private int clearableId(Clearable agent, int group) {
+		if (agent == null) {
+			return NO_LINK;
+		}
+		int idx = agent.getPaymentClearingIndex() - this.groupOffsets[group];
+		if (idx >= 0 && idx < this.groups[group].length && this.groups[group][idx] == agent) {
+			return idx;
+		}
+		// payment clearing indices haven't been assigned yet, so fall back to a map
+		if (!this.mappedGroups[group]) {
+			for (int i = 0; i < this.groups[group].length; i++) {
+				this.otherIds.put(this.groups[group][i], this.groupOffsets[group] + i);
+			}
+			this.mappedGroups[group] = true;
+		}
+		Integer id = this.otherIds.get(agent);
+		return id == null ? NO_LINK : id - this.groupOffsets[group];
+	}
+
+	private Object agentAt(int id) {
+		if (id == NO_LINK) {
+			return null;
+		}
+		for (int g = 0; g < this.groups.length; g++) {
+			if (id < this.groupOffsets[g + 1]) {
+				return this.groups[g][id - this.groupOffsets[g]];
+			}
+		}
+		throw new IllegalStateException("Agent id " + id + " is out of range.");
+	}
+
+	/*
+	 * FIELDS
+	 */
+
+	/**
+	 * @param type - the class of an agent
+	 * @return the fields that are saved: every instance field of the class and its
+	 *         superclasses that isn't static, final or transient
+	 */
+	static List<Field> fieldsOf(Class<?> type) {
+		List<Field> fields = new ArrayList<Field>();
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)
+						&& !Modifier.isTransient(modifiers)) {
+					field.setAccessible(true);
+					fields.add(field);
+				}
+			}
+		}
+		return fields;
+	}
+
+	static int kindOf(Field field) {
+		Class<?> type = field.getType();
+		if (type == int.class) {
+			return KIND_INT;
+		} else if (type == float.class) {
+			return KIND_FLOAT;
+		} else if (type == char.class) {
+			return KIND_CHAR;
+		} else if (type == boolean.class) {
+			return KIND_BOOLEAN;
+		} else if (type == String.class) {
+			return KIND_STRING;
+		} else if (type == TFloatArrayList.class) {
+			return KIND_FLOAT_LIST;
+		} else if (type == TObjectFloatHashMap.class) {
+			return KIND_STRING_FLOAT_MAP;
+		} else if (type.isArray() && !type.getComponentType().isPrimitive()) {
+			return KIND_LINK_ARRAY;
+		} else if (List.class.isAssignableFrom(type)) {
+			return typeArgument(field, 0) == Float.class ? KIND_BOXED_FLOAT_LIST : KIND_LINK_LIST;
+		} else if (Map.class.isAssignableFrom(type)) {
+			if (typeArgument(field, 0) != String.class) {
+				throw new IllegalStateException("Can't save " + field + " because its keys aren't Strings.");
+			}
+			return KIND_STRING_LINK_MAP;
+		} else if (!type.isPrimitive() && !type.getName().startsWith("java.")) {
+			return KIND_LINK;
+		}
+		throw new IllegalStateException("Can't save " + field + " because its type isn't supported.");
+	}
+
+	private static Type typeArgument(Field field, int idx) {
+		Type type = field.getGenericType();
+		return type instanceof ParameterizedType ? ((ParameterizedType) type).getActualTypeArguments()[idx] : null;
+	}
+
+	/*
+	 * CAPTURING
+	 */
+
+	/**
+	 * A copy of one field of every agent in a group.
+	 */
+	private static class Column {
+		final Field field;
+		final int kind;
+		int[] ints; // ints, chars, links, or the elements of collections of links
+		float[] floats; // floats, or the elements of collections of floats
+		byte[] bytes; // booleans
+		int[] lengths; // the length of each agent's collection, or -1 for null
+		String[] strings; // Strings, or the keys of maps
+
+		Column(Field field, int kind) {
+			super();
+			this.field = field;
+			this.kind = kind;
+		}
+	}
+
+	private void captureGroups() {
+		this.classes = new ArrayList<List<Class<?>>>(this.groups.length);
+		this.classCodes = new int[this.groups.length][];
+		this.columns = new ArrayList<List<Column>>(this.groups.length);
+		for (int g = 0; g < this.groups.length; g++) {
+			Object[] agents = this.groups[g];
+			List<Class<?>> groupClasses = new ArrayList<Class<?>>();
+			Map<Class<?>, Integer> codes = new HashMap<Class<?>, Integer>();
+			this.classCodes[g] = new int[agents.length];
+			for (int i = 0; i < agents.length; i++) {
+				Integer code = codes.get(agents[i].getClass());
+				if (code == null) {
+					if (fieldsOf(agents[i].getClass()).size() != fieldsOf(GROUP_CLASSES[g]).size()) {
+						throw new IllegalStateException(agents[i].getClass().getName() + " has fields that aren't in "
+								+ GROUP_CLASSES[g].getName() + ", so it can't be saved.");
+					}
+					code = groupClasses.size();
+					groupClasses.add(agents[i].getClass());
+					codes.put(agents[i].getClass(), code);
+				}
+				this.classCodes[g][i] = code;
+			}
+			this.classes.add(groupClasses);
+
+			List<Column> groupColumns = new ArrayList<Column>();
+			for (Field field : fieldsOf(GROUP_CLASSES[g])) {
+				try {
+					groupColumns.add(this.captureColumn(agents, field, kindOf(field)));
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException("Couldn't read " + field, e);
+				}
+			}
+			this.columns.add(groupColumns);
+		}
+	}
+
+	private Column captureColumn(Object[] agents, Field field, int kind) throws IllegalAccessException {
+		int n = agents.length;
+		Column column = new Column(field, kind);
+		switch (kind) {
+		case KIND_INT:
+			column.ints = new int[n];
+			for (int i = 0; i < n; i++) {
+				column.ints[i] = field.getInt(agents[i]);
+			}
+			break;
+		case KIND_FLOAT:
+			column.floats = new float[n];
+			for (int i = 0; i < n; i++) {
+				column.floats[i] = field.getFloat(agents[i]);
+			}
+			break;
+		case KIND_CHAR:
+			column.ints = new int[n];
+			for (int i = 0; i < n; i++) {
+				column.ints[i] = field.getChar(agents[i]);
+			}
+			break;
+		case KIND_BOOLEAN:
+			column.bytes = new byte[n];
+			for (int i = 0; i < n; i++) {
+				column.bytes[i] = field.getBoolean(agents[i]) ? (byte) 1 : (byte) 0;
+			}
+			break;
+		case KIND_STRING:
+			column.strings = new String[n];
+			for (int i = 0; i < n; i++) {
+				column.strings[i] = (String) field.get(agents[i]);
+			}
+			break;
+		case KIND_LINK:
+			column.ints = new int[n];
+			for (int i = 0; i < n; i++) {
+				column.ints[i] = this.idOf(field.get(agents[i]));
+			}
+			break;
+		default:
+			this.captureCollectionColumn(column, agents, field);
+			break;
+		}
+		return column;
+	}
+
+	/**
+	 * Copies the length of each agent's collection, then all their elements (and
+	 * their keys, for a map).
+	 */
+	private void captureCollectionColumn(Column column, Object[] agents, Field field) throws IllegalAccessException {
+		int kind = column.kind;
+		column.lengths = new int[agents.length];
+		long total = 0L;
+		for (int i = 0; i < agents.length; i++) {
+			column.lengths[i] = lengthOf(field.get(agents[i]));
+			total += Math.max(0, column.lengths[i]);
+		}
+		if (total > Integer.MAX_VALUE) {
+			throw new IllegalStateException(field + " has more than " + Integer.MAX_VALUE + " elements.");
+		}
+		if (hasFloatElements(kind)) {
+			column.floats = new float[(int) total];
+		} else {
+			column.ints = new int[(int) total];
+		}
+		if (hasKeys(kind)) {
+			column.strings = new String[(int) total];
+		}
+
+		int k = 0;
+		for (Object agent : agents) {
+			Object value = field.get(agent);
+			if (value == null) {
+				continue;
+			}
+			switch (kind) {
+			case KIND_LINK_ARRAY:
+				for (int i = 0; i < Array.getLength(value); i++) {
+					column.ints[k++] = this.idOf(Array.get(value, i));
+				}
+				break;
+			case KIND_LINK_LIST:
+				for (Object element : (List<?>) value) {
+					column.ints[k++] = this.idOf(element);
+				}
+				break;
+			case KIND_FLOAT_LIST:
+				TFloatArrayList floats = (TFloatArrayList) value;
+				for (int i = 0; i < floats.size(); i++) {
+					column.floats[k++] = floats.getQuick(i);
+				}
+				break;
+			case KIND_BOXED_FLOAT_LIST:
+				for (Object element : (List<?>) value) {
+					column.floats[k++] = (Float) element;
+				}
+				break;
+			case KIND_STRING_FLOAT_MAP:
+				@SuppressWarnings("unchecked")
+				TObjectFloatHashMap<Object> floatMap = (TObjectFloatHashMap<Object>) value;
+				for (Object key : floatMap.keys()) {
+					column.strings[k] = (String) key;
+					column.floats[k++] = floatMap.get(key);
+				}
+				break;
+			case KIND_STRING_LINK_MAP:
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+					column.strings[k] = (String) entry.getKey();
+					column.ints[k++] = this.idOf(entry.getValue());
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unknown kind of field: " + kind);
+			}
+		}
+	}
+
+	private static boolean hasFloatElements(int kind) {
+		return kind == KIND_FLOAT_LIST || kind == KIND_BOXED_FLOAT_LIST || kind == KIND_STRING_FLOAT_MAP;
+	}
+
+	private static boolean hasKeys(int kind) {
+		return kind == KIND_STRING_FLOAT_MAP || kind == KIND_STRING_LINK_MAP;
+	}
+
+	private static int lengthOf(Object collection) {
+		if (collection == null) {
+			return NO_LINK;
+		} else if (collection.getClass().isArray()) {
+			return Array.getLength(collection);
+		} else if (collection instanceof TFloatArrayList) {
+			return ((TFloatArrayList) collection).size();
+		} else if (collection instanceof TObjectFloatHashMap) {
+			return ((TObjectFloatHashMap<?>) collection).size();
+		} else if (collection instanceof Map) {
+			return ((Map<?, ?>) collection).size();
+		}
+		return ((List<?>) collection).size();
+	}
+
+	/*
+	 * WRITING
+	 */
+
+	private void writeGroups(FramedArrayWriter writer) throws IOException {
+		// group table, so every agent can be created before any links are read
+		writer.writeInt(GROUP_NAMES.length);
+		for (int g = 0; g < GROUP_NAMES.length; g++) {
+			writeString(writer, GROUP_NAMES[g]);
+			writer.writeInt(this.classCodes[g].length);
+			writer.writeIntArray(this.classCodes[g]);
+			List<String> classNames = new ArrayList<String>(this.classes.get(g).size());
+			for (Class<?> type : this.classes.get(g)) {
+				classNames.add(type.getName());
+			}
+			writeStrings(writer, classNames);
+		}
+
+		// columns
+		for (int g = 0; g < GROUP_NAMES.length; g++) {
+			List<Column> groupColumns = this.columns.get(g);
+			writer.writeInt(groupColumns.size());
+			for (Column column : groupColumns) {
+				writeString(writer, column.field.getName());
+				writer.writeInt(column.kind);
+				writeColumn(writer, column);
+			}
+			System.out.println(new Date(System.currentTimeMillis()) + ": saved " + this.classCodes[g].length + " "
+					+ GROUP_NAMES[g] + ".");
+		}
+	}
+
+	private static void writeColumn(FramedArrayWriter writer, Column column) throws IOException {
+		if (column.lengths != null) {
+			writer.writeIntArray(column.lengths);
+		}
+		if (column.strings != null) {
+			writeStringColumn(writer, column.strings);
+		}
+		if (column.ints != null) {
+			writer.writeIntArray(column.ints);
+		} else if (column.floats != null) {
+			writer.writeFloatArray(column.floats);
+		} else if (column.bytes != null) {
+			writer.writeByteArray(column.bytes, 0, column.bytes.length);
+		}
+	}
+
+	/**
+	 * Writes a column of Strings as a dictionary of the distinct values and a code
+	 * for each value (or -1 for null).
+	 */
+	private static void writeStringColumn(FramedArrayWriter writer, String[] values) throws IOException {
+		List<String> dictionary = new ArrayList<String>();
+		Map<String, Integer> codes = new HashMap<String, Integer>();
+		int[] column = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			String value = values[i];
+			if (value == null) {
+				column[i] = NO_LINK;
+			} else {
+				Integer code = codes.get(value);
+				if (code == null) {
+					code = dictionary.size();
+					dictionary.add(value);
+					codes.put(value, code);
+				}
+				column[i] = code;
+			}
+		}
+		writeStrings(writer, dictionary);
+		writer.writeIntArray(column);
+	}
+
+	private static void writeStrings(FramedArrayWriter writer, List<String> strings) throws IOException {
+		int[] lengths = new int[strings.size()];
+		byte[][] bytes = new byte[strings.size()][];
+		int total = 0;
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+			lengths[i] = bytes[i].length;
+			total += lengths[i];
+		}
+		writer.writeIntArray(lengths);
+		writer.beginArray(total);
+		for (byte[] string : bytes) {
+			writer.putBytes(string, 0, string.length);
+		}
+		writer.endArray();
+	}
+
+	private static void writeString(FramedArrayWriter writer, String value) throws IOException {
+		List<String> strings = new ArrayList<String>(1);
+		strings.add(value);
+		writeStrings(writer, strings);
+	}
+
+	/*
+	 * RESTORING
+	 */
+
+	/**
+	 * @return a new, empty agent for every agent that was captured
+	 */
+	private Object[][] newAgents() {
+		Object[][] agents = new Object[GROUP_NAMES.length][];
+		for (int g = 0; g < agents.length; g++) {
+			List<Class<?>> groupClasses = this.classes.get(g);
+			int[] codes = this.classCodes[g];
+			try {
+				Constructor<?>[] constructors = new Constructor<?>[groupClasses.size()];
+				for (int c = 0; c < constructors.length; c++) {
+					constructors[c] = groupClasses.get(c).getDeclaredConstructor();
+				}
+				agents[g] = (Object[]) Array.newInstance(GROUP_CLASSES[g], codes.length);
+				for (int i = 0; i < codes.length; i++) {
+					agents[g][i] = constructors[codes[i]].newInstance();
+				}
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Couldn't create the " + GROUP_NAMES[g] + ".", e);
+			}
+		}
+		return agents;
+	}
+
+	private void restoreColumn(Object[] agents, Column column) throws IllegalAccessException {
+		Field field = column.field;
+		switch (column.kind) {
+		case KIND_INT:
+			for (int i = 0; i < agents.length; i++) {
+				field.setInt(agents[i], column.ints[i]);
+			}
+			break;
+		case KIND_FLOAT:
+			for (int i = 0; i < agents.length; i++) {
+				field.setFloat(agents[i], column.floats[i]);
+			}
+			break;
+		case KIND_CHAR:
+			for (int i = 0; i < agents.length; i++) {
+				field.setChar(agents[i], (char) column.ints[i]);
+			}
+			break;
+		case KIND_BOOLEAN:
+			for (int i = 0; i < agents.length; i++) {
+				field.setBoolean(agents[i], column.bytes[i] != 0);
+			}
+			break;
+		case KIND_STRING:
+			for (int i = 0; i < agents.length; i++) {
+				field.set(agents[i], column.strings[i]);
+			}
+			break;
+		case KIND_LINK:
+			for (int i = 0; i < agents.length; i++) {
+				field.set(agents[i], this.agentAt(column.ints[i]));
+			}
+			break;
+		default:
+			this.restoreCollectionColumn(agents, column);
+			break;
+		}
+	}
+
+	private void restoreCollectionColumn(Object[] agents, Column column) throws IllegalAccessException {
+		Field field = column.field;
+		int k = 0;
+		for (int i = 0; i < agents.length; i++) {
+			int length = column.lengths[i];
+			if (length == NO_LINK) {
+				field.set(agents[i], null);
+				continue;
+			}
+			switch (column.kind) {
+			case KIND_LINK_ARRAY:
+				Object array = Array.newInstance(field.getType().getComponentType(), length);
+				for (int j = 0; j < length; j++) {
+					Array.set(array, j, this.agentAt(column.ints[k++]));
+				}
+				field.set(agents[i], array);
+				break;
+			case KIND_LINK_LIST:
+				ArrayList<Object> links = new ArrayList<Object>(length);
+				for (int j = 0; j < length; j++) {
+					links.add(this.agentAt(column.ints[k++]));
+				}
+				field.set(agents[i], links);
+				break;
+			case KIND_FLOAT_LIST:
+				TFloatArrayList floats = new TFloatArrayList(Math.max(length, 1));
+				for (int j = 0; j < length; j++) {
+					floats.add(column.floats[k++]);
+				}
+				field.set(agents[i], floats);
+				break;
+			case KIND_BOXED_FLOAT_LIST:
+				ArrayList<Float> boxed = new ArrayList<Float>(length);
+				for (int j = 0; j < length; j++) {
+					boxed.add(column.floats[k++]);
+				}
+				field.set(agents[i], boxed);
+				break;
+			case KIND_STRING_FLOAT_MAP:
+				TObjectFloatHashMap<String> floatMap = new TObjectFloatHashMap<String>(Math.max(length, 1));
+				for (int j = 0; j < length; j++, k++) {
+					floatMap.put(column.strings[k], column.floats[k]);
+				}
+				field.set(agents[i], floatMap);
+				break;
+			case KIND_STRING_LINK_MAP:
+				// inserted in the order they were saved, so a HashMap iterates in the same order
+				HashMap<String, Object> linkMap = new HashMap<String, Object>();
+				for (int j = 0; j < length; j++, k++) {
+					linkMap.put(column.strings[k], this.agentAt(column.ints[k]));
+				}
+				field.set(agents[i], linkMap);
+				break;
+			default:
+				throw new IllegalStateException("Unknown kind of field: " + column.kind);
+			}
+		}
+	}
+
+	/*
+	 * READING
+	 */
+
+	private void readGroupTable(FramedArrayReader reader) throws IOException {
+		int groupCount = reader.readInt();
+		if (groupCount != GROUP_NAMES.length) {
+			throw new IOException("Expected " + GROUP_NAMES.length + " groups of agents but found " + groupCount + ".");
+		}
+		this.classes = new ArrayList<List<Class<?>>>(groupCount);
+		this.classCodes = new int[groupCount][];
+		for (int g = 0; g < groupCount; g++) {
+			String name = readString(reader);
+			if (!GROUP_NAMES[g].equals(name)) {
+				throw new IOException("Expected the " + GROUP_NAMES[g] + " group but found " + name + ".");
+			}
+			int count = reader.readInt();
+			this.classCodes[g] = reader.readIntArray(null);
+			if (this.classCodes[g].length != count) {
+				throw new IOException("Expected " + count + " " + name + " but found " + this.classCodes[g].length
+						+ ".");
+			}
+			List<Class<?>> groupClasses = new ArrayList<Class<?>>();
+			try {
+				for (String className : readStrings(reader)) {
+					Class<?> type = Class.forName(className).asSubclass(GROUP_CLASSES[g]);
+					type.getDeclaredConstructor(); // fail now rather than when the agents are created
+					groupClasses.add(type);
+				}
+			} catch (ReflectiveOperationException | ClassCastException e) {
+				throw new IOException("Couldn't create the " + name + ".", e);
+			}
+			this.classes.add(groupClasses);
+		}
+	}
+
+	private void readColumns(FramedArrayReader reader) throws IOException {
+		this.columns = new ArrayList<List<Column>>(this.classCodes.length);
+		for (int g = 0; g < this.classCodes.length; g++) {
+			Map<String, Field> fields = new HashMap<String, Field>();
+			for (Field field : fieldsOf(GROUP_CLASSES[g])) {
+				fields.put(field.getName(), field);
+			}
+			int fieldCount = reader.readInt();
+			List<Column> groupColumns = new ArrayList<Column>(fieldCount);
+			for (int f = 0; f < fieldCount; f++) {
+				String name = readString(reader);
+				int kind = reader.readInt();
+				Field field = fields.remove(name);
+				if (field == null || kindOf(field) != kind) {
+					throw new IOException(GROUP_CLASSES[g].getSimpleName() + "." + name
+							+ " has been removed or changed type since the snapshot was saved.");
+				}
+				groupColumns.add(readColumn(reader, this.classCodes[g].length, field, kind));
+			}
+			for (String name : fields.keySet()) {
+				System.out.println(new Date(System.currentTimeMillis()) + ": WARNING: "
+						+ GROUP_CLASSES[g].getSimpleName() + "." + name + " isn't in the snapshot.");
+			}
+			this.columns.add(groupColumns);
+		}
+	}
+
+	private static Column readColumn(FramedArrayReader reader, int n, Field field, int kind) throws IOException {
+		Column column = new Column(field, kind);
+		switch (kind) {
+		case KIND_INT:
+		case KIND_CHAR:
+		case KIND_LINK:
+			column.ints = reader.readIntArray(null);
+			checkRows(column.ints.length, n, field);
+			break;
+		case KIND_FLOAT:
+			column.floats = reader.readFloatArray(null);
+			checkRows(column.floats.length, n, field);
+			break;
+		case KIND_BOOLEAN:
+			column.bytes = new byte[reader.checkedLength(reader.beginArray())];
+			checkRows(column.bytes.length, n, field);
+			reader.getBytes(column.bytes, 0, column.bytes.length);
+			reader.endArray();
+			break;
+		case KIND_STRING:
+			column.strings = readStringColumn(reader);
+			checkRows(column.strings.length, n, field);
+			break;
+		default:
+			column.lengths = reader.readIntArray(null);
+			checkRows(column.lengths.length, n, field);
+			long total = 0L;
+			for (int length : column.lengths) {
+				total += Math.max(0, length);
+			}
+			if (hasKeys(kind)) {
+				column.strings = readStringColumn(reader);
+				checkRows(column.strings.length, total, field);
+			}
+			if (hasFloatElements(kind)) {
+				column.floats = reader.readFloatArray(null);
+				checkRows(column.floats.length, total, field);
+			} else {
+				column.ints = reader.readIntArray(null);
+				checkRows(column.ints.length, total, field);
+			}
+			break;
+		}
+		return column;
+	}
+
+	private static void checkRows(long length, long expected, Field field) throws IOException {
+		if (length != expected) {
+			throw new IOException(field + " has " + length + " rows, not " + expected + ".");
+		}
+	}
+
+	private static String[] readStringColumn(FramedArrayReader reader) throws IOException {
+		List<String> dictionary = readStrings(reader);
+		int[] codes = reader.readIntArray(null);
+		String[] values = new String[codes.length];
+		for (int i = 0; i < codes.length; i++) {
+			values[i] = codes[i] == NO_LINK ? null : dictionary.get(codes[i]);
+		}
+		return values;
+	}
+
+	private static List<String> readStrings(FramedArrayReader reader) throws IOException {
+		int[] lengths = reader.readIntArray(null);
+		byte[] bytes = new byte[reader.checkedLength(reader.beginArray())];
+		reader.getBytes(bytes, 0, bytes.length);
+		reader.endArray();
+		List<String> strings = new ArrayList<String>(lengths.length);
+		int offset = 0;
+		for (int length : lengths) {
+			strings.add(new String(bytes, offset, length, StandardCharsets.UTF_8));
+			offset += length;
+		}
+		return strings;
+	}
+
+	private static String readString(FramedArrayReader reader) throws IOException {
+		List<String> strings = readStrings(reader);
+		if (strings.size() != 1) {
+			throw new IOException("Expected one string but found " + strings.size() + ".");
+		}
+		return strings.get(0);
+	}
+
+}
@@ -0,0 +1,210 @@
+/**
+ * 
+ */
+package xyz.struthers.rhul.ham.process;
+
+/**
+ * Builds the liabilities graph in CSR form as each agent emits its
+ * liabilities. The arrays are kept between iterations, so once they have grown
+ * to the size of the network no more memory is allocated for the links.
+ * 
+ * Rows must be started in ascending order of CPV index. Any rows that are
+ * skipped have no liabilities.
+ * 
+ * A builder can also hold a segment of the graph (i.e. a contiguous range of
+ * rows), so different ranges of agents can be emitted on different threads.
+ * The segments are then appended to the whole graph in order, which gives
+ * exactly the same arrays as emitting every agent on one thread.
+ * 
+ * N.B. The graph returned by build wraps the builder's arrays, so it is only
+ * valid until the builder is reset for the next iteration.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class LiabilityCsrBuilder implements LiabilitySink {
+
+	public static final int LINK_CAPACITY_HEADROOM_SHIFT = 4; // grow by an extra 1/16th
+
+	private int firstNode; // the CPV index of the first row, which is only non-zero for a segment
+	private int nodeCount; // the number of rows
+	private int[] rowPtr;
+	private int[] col;
+	private float[] amount;
+	private int currentRow; // the row that liabilities are being added to
+	private int links; // the number of links added so far
+
+	public LiabilityCsrBuilder() {
+		super();
+		this.firstNode = 0;
+		this.nodeCount = 0;
+		this.rowPtr = null;
+		this.col = null;
+		this.amount = null;
+		this.currentRow = -1;
+		this.links = 0;
+	}
+
+	/**
+	 * Starts a new graph, reusing the arrays from the last one if they're big
+	 * enough.
+	 * 
+	 * @param nodeCount     - the number of nodes in the graph
+	 * @param expectedLinks - the expected number of links (e.g. last iteration's),
+	 *                      which the arrays will grow beyond if necessary
+	 */
+	public void reset(int nodeCount, int expectedLinks) {
+		this.resetSegment(0, nodeCount, expectedLinks);
+	}
+
+	/**
+	 * Starts a new segment of a graph, reusing the arrays from the last one if
+	 * they're big enough.
+	 * 
+	 * @param firstNode     - the CPV index of the first row in the segment
+	 * @param endNode       - the CPV index after the last row in the segment
+	 * @param expectedLinks - the expected number of links (e.g. last iteration's),
+	 *                      which the arrays will grow beyond if necessary
+	 */
+	public void resetSegment(int firstNode, int endNode, int expectedLinks) {
+		int nodeCount = endNode - firstNode;
+		this.firstNode = firstNode;
+		this.nodeCount = nodeCount;
+		if (this.rowPtr == null || this.rowPtr.length < nodeCount + 1) {
+			this.rowPtr = new int[nodeCount + 1];
+		}
+		if (this.col == null || this.col.length < expectedLinks) {
+			int capacity = expectedLinks + (expectedLinks >> LINK_CAPACITY_HEADROOM_SHIFT);
+			this.col = new int[capacity];
+			this.amount = new float[capacity];
+		}
+		this.rowPtr[0] = 0;
+		this.currentRow = -1;
+		this.links = 0;
+	}
+
+	/**
+	 * Starts the row for a node, so the following liabilities are owed by it.
+	 * 
+	 * @param node - the CPV index of the node
+	 */
+	public void beginRow(int node) {
+		int row = node - this.firstNode;
+		if (row <= this.currentRow || row >= this.nodeCount) {
+			throw new IllegalStateException("Row " + node + " is out of order after row "
+					+ (this.firstNode + this.currentRow) + ".");
+		}
+		this.finishRows(row);
+		this.currentRow = row;
+	}
+
+	@Override
+	public void addLiability(int recipientIndex, float liabilityAmount) {
+		if (this.links == this.col.length) {
+			this.growLinks(Math.max(16, this.links + (this.links >> 1)));
+		}
+		this.col[this.links] = recipientIndex;
+		this.amount[this.links] = liabilityAmount;
+		this.links++;
+	}
+
+	/**
+	 * Finishes the graph, giving any rows that weren't started no liabilities.
+	 * 
+	 * @return the graph, wrapping the builder's arrays
+	 */
+	public LiabilityGraph build() {
+		this.finishRows(this.nodeCount);
+		this.currentRow = this.nodeCount;
+		return new LiabilityGraph(this.nodeCount, this.rowPtr, this.col, this.amount);
+	}
+
+	/**
+	 * Makes room for segments that follow the rows already in this builder, and
+	 * works out where each segment's links go using a prefix sum of their link
+	 * counts. The segments must be contiguous and in ascending order. Once this
+	 * returns, the segments can be copied in with copySegment in any order (or
+	 * on different threads).
+	 * 
+	 * @param segments - the segments to append, which must not be reset until
+	 *                 they have been copied
+	 * @return the link offset of each segment
+	 */
+	public int[] appendSegments(LiabilityCsrBuilder[] segments) {
+		int[] linkOffsets = new int[segments.length];
+		int nextRow = this.currentRow + 1;
+		int totalLinks = this.links;
+		for (int i = 0; i < segments.length; i++) {
+			LiabilityCsrBuilder segment = segments[i];
+			if (segment.firstNode != this.firstNode + nextRow) {
+				throw new IllegalStateException("Segment starting at row " + segment.firstNode
+						+ " does not follow row " + (this.firstNode + nextRow - 1) + ".");
+			}
+			segment.finishRows(segment.nodeCount);
+			segment.currentRow = segment.nodeCount;
+			linkOffsets[i] = totalLinks;
+			totalLinks += segment.links;
+			nextRow += segment.nodeCount;
+		}
+		if (nextRow > this.nodeCount) {
+			throw new IllegalStateException("Segments end at row " + (this.firstNode + nextRow - 1)
+					+ ", which is beyond the last row " + (this.firstNode + this.nodeCount - 1) + ".");
+		}
+		if (totalLinks > this.col.length) {
+			this.growLinks(totalLinks + (totalLinks >> LINK_CAPACITY_HEADROOM_SHIFT));
+		}
+		this.currentRow = nextRow - 1;
+		this.links = totalLinks;
+		return linkOffsets;
+	}
+
+	/**
+	 * Copies a segment into the space made for it by appendSegments. Each segment
+	 * only writes to its own rows and links, so they can be copied concurrently.
+	 * 
+	 * @param segment    - the segment to copy
+	 * @param linkOffset - the segment's link offset, from appendSegments
+	 */
+	public void copySegment(LiabilityCsrBuilder segment, int linkOffset) {
+		int row = segment.firstNode - this.firstNode;
+		for (int i = 0; i < segment.nodeCount; i++) {
+			this.rowPtr[row + i] = linkOffset + segment.rowPtr[i];
+		}
+		System.arraycopy(segment.col, 0, this.col, linkOffset, segment.links);
+		System.arraycopy(segment.amount, 0, this.amount, linkOffset, segment.links);
+	}
+
+	/**
+	 * Points the rows after the current row, up to and including the given row,
+	 * at the end of the links added so far (i.e. gives them no liabilities).
+	 * 
+	 * @param lastRow - the last row to point at the end of the links
+	 */
+	private void finishRows(int lastRow) {
+		for (int row = this.currentRow + 1; row <= lastRow; row++) {
+			this.rowPtr[row] = this.links;
+		}
+	}
+
+	/**
+	 * Replaces the link arrays with bigger ones, keeping the links added so far.
+	 * 
+	 * @param capacity - the new capacity
+	 */
+	private void growLinks(int capacity) {
+		int[] biggerCol = new int[capacity];
+		float[] biggerAmount = new float[capacity];
+		System.arraycopy(this.col, 0, biggerCol, 0, this.links);
+		System.arraycopy(this.amount, 0, biggerAmount, 0, this.links);
+		this.col = biggerCol;
+		this.amount = biggerAmount;
+	}
+
+	/**
+	 * @return the number of links added since the last reset
+	 */
+	public int getLinkCount() {
+		return this.links;
+	}
+
+}
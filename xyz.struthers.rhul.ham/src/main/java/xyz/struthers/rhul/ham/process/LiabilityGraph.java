@@ -0,0 +1,278 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham.process;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * The liabilities network that is fed into the Clearing Payments Vector,
+ * stored in Compressed Sparse Row (CSR) form. Rather than holding a list of
+ * lists for each node, all the links are held in a few flat primitive arrays:
+ * <ul>
+ * <li>rowPtr - the liabilities of node i are stored in the elements from
+ * rowPtr[i] (inclusive) to rowPtr[i+1] (exclusive) of the link arrays.</li>
+ * <li>col - the index of the node that the liability is owed to.</li>
+ * <li>amount - the amount owed.</li>
+ * </ul>
+ *
+ * The transposed view (i.e. Compressed Sparse Column form) is used to look up
+ * which nodes owe money to a given node. The receivables of node i are stored
+ * in the elements from receivablePtr[i] (inclusive) to receivablePtr[i+1]
+ * (exclusive) of the receivable arrays, and are sorted by the index of the
+ * node that owes the money. This is the same order that the old
+ * ArrayList&lt;ArrayList&lt;NodeLink&gt;&gt; receivables index was built in,
+ * so floating point sums come out exactly the same.
+ *
+ * With 27 million agents and 20 links per node this uses 16 bytes per link
+ * and 8 bytes per node, which is approximately 8.9GB of RAM and no per-node
+ * objects at all.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class LiabilityGraph implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private int nodeCount;
+	private int[] rowPtr; // liabilities of node i are in [rowPtr[i], rowPtr[i+1])
+	private int[] col; // index of the node that is owed the money
+	private float[] amount; // amount owed
+
+	// transposed view (receivables)
+	private int[] receivablePtr; // receivables of node i are in [receivablePtr[i], receivablePtr[i+1])
+	private int[] receivableFrom; // index of the node that owes the money
+	private int[] receivableEdge; // link index into the col and amount arrays
+
+	/**
+	 * Wraps existing CSR arrays without copying them. The receivables index is
+	 * built the first time it is needed.
+	 *
+	 * @param rowPtr - row pointers, with length equal to the number of nodes + 1
+	 * @param col    - index of the creditor for each link
+	 * @param amount - amount owed for each link
+	 */
+	public LiabilityGraph(int[] rowPtr, int[] col, float[] amount) {
+		this(rowPtr.length - 1, rowPtr, col, amount);
+	}
+
+	/**
+	 * Wraps existing CSR arrays without copying them. The arrays may be bigger
+	 * than necessary, so buffers can be reused from one iteration to the next.
+	 *
+	 * @param nodeCount - the number of nodes in the graph
+	 * @param rowPtr    - row pointers, with at least nodeCount + 1 elements
+	 * @param col       - index of the creditor for each link
+	 * @param amount    - amount owed for each link
+	 */
+	public LiabilityGraph(int nodeCount, int[] rowPtr, int[] col, float[] amount) {
+		super();
+		this.nodeCount = nodeCount;
+		this.rowPtr = rowPtr;
+		this.col = col;
+		this.amount = amount;
+		this.receivablePtr = null;
+		this.receivableFrom = null;
+		this.receivableEdge = null;
+	}
+
+	/**
+	 * Converts the nested Trove lists that the CPV used to take into CSR form.
+	 *
+	 * @param liabilitiesAmounts - amounts owed by every node to the other nodes
+	 *                           they're connected to
+	 * @param liabilitiesIndices - indices of the sub-list to designate which node
+	 *                           they relate to
+	 * @return a new liabilities graph
+	 */
+	public static LiabilityGraph fromLists(List<TFloatArrayList> liabilitiesAmounts,
+			List<TIntArrayList> liabilitiesIndices) {
+		int nodes = liabilitiesAmounts.size();
+		int[] rowPtr = new int[nodes + 1];
+		for (int i = 0; i < nodes; i++) {
+			rowPtr[i + 1] = rowPtr[i] + liabilitiesAmounts.get(i).size();
+		}
+		int[] col = new int[rowPtr[nodes]];
+		float[] amount = new float[rowPtr[nodes]];
+		for (int i = 0; i < nodes; i++) {
+			TFloatArrayList amounts = liabilitiesAmounts.get(i);
+			TIntArrayList indices = liabilitiesIndices.get(i);
+			for (int j = 0, link = rowPtr[i]; j < amounts.size(); j++, link++) {
+				col[link] = indices.get(j);
+				amount[link] = amounts.get(j);
+			}
+		}
+		return new LiabilityGraph(rowPtr, col, amount);
+	}
+
+	/**
+	 * Converts jagged primitive arrays into CSR form.
+	 *
+	 * @param liabilitiesAmounts - amounts owed by every node
+	 * @param liabilitiesIndices - index of the node each amount is owed to
+	 * @return a new liabilities graph
+	 */
+	public static LiabilityGraph fromArrays(float[][] liabilitiesAmounts, int[][] liabilitiesIndices) {
+		int nodes = liabilitiesAmounts.length;
+		int[] rowPtr = new int[nodes + 1];
+		for (int i = 0; i < nodes; i++) {
+			rowPtr[i + 1] = rowPtr[i] + liabilitiesAmounts[i].length;
+		}
+		int[] col = new int[rowPtr[nodes]];
+		float[] amount = new float[rowPtr[nodes]];
+		for (int i = 0; i < nodes; i++) {
+			System.arraycopy(liabilitiesIndices[i], 0, col, rowPtr[i], liabilitiesIndices[i].length);
+			System.arraycopy(liabilitiesAmounts[i], 0, amount, rowPtr[i], liabilitiesAmounts[i].length);
+		}
+		return new LiabilityGraph(rowPtr, col, amount);
+	}
+
+	/**
+	 * Builds the transposed (receivables) view using a counting sort, so it runs
+	 * in O(nodes + links) time and only allocates three int arrays.
+	 */
+	public void buildReceivablesIndex() {
+		this.buildReceivablesIndex(null, null, null);
+	}
+
+	/**
+	 * Builds the transposed (receivables) view into the arrays supplied by the
+	 * caller, so a workspace can be reused from one iteration to the next. Any
+	 * array that is null or too small is replaced with a new one, and the arrays
+	 * actually used are available from the getters afterwards.
+	 * 
+	 * @param receivablePtr  - at least nodes + 1 elements, or null
+	 * @param receivableFrom - at least links elements, or null
+	 * @param receivableEdge - at least links elements, or null
+	 */
+	public void buildReceivablesIndex(int[] receivablePtr, int[] receivableFrom, int[] receivableEdge) {
+		int links = this.getLinkCount();
+		this.receivablePtr = (receivablePtr != null && receivablePtr.length > this.nodeCount) ? receivablePtr
+				: new int[this.nodeCount + 1];
+		this.receivableFrom = (receivableFrom != null && receivableFrom.length >= links) ? receivableFrom
+				: new int[links];
+		this.receivableEdge = (receivableEdge != null && receivableEdge.length >= links) ? receivableEdge
+				: new int[links];
+
+		// count the receivables of each node, then convert the counts to offsets
+		Arrays.fill(this.receivablePtr, 0, this.nodeCount + 1, 0);
+		for (int link = 0; link < links; link++) {
+			this.receivablePtr[this.col[link] + 1]++;
+		}
+		for (int i = 0; i < this.nodeCount; i++) {
+			this.receivablePtr[i + 1] += this.receivablePtr[i];
+		}
+
+		// use receivablePtr[i] as the insertion point for node i ...
+		for (int fromIdx = 0; fromIdx < this.nodeCount; fromIdx++) {
+			for (int link = this.rowPtr[fromIdx]; link < this.rowPtr[fromIdx + 1]; link++) {
+				int pos = this.receivablePtr[this.col[link]]++;
+				this.receivableFrom[pos] = fromIdx;
+				this.receivableEdge[pos] = link;
+			}
+		}
+
+		// ... which leaves it pointing at the start of node i + 1, so shift it back
+		for (int i = this.nodeCount; i > 0; i--) {
+			this.receivablePtr[i] = this.receivablePtr[i - 1];
+		}
+		this.receivablePtr[0] = 0;
+	}
+
+	/**
+	 * A graph that keeps its receivables index can be reused in later months
+	 * (with new amounts) without building the index again, as long as rowPtr and
+	 * col haven't changed. If the index was built into arrays that belong to
+	 * someone else (e.g. a CPV workspace), they must not have been reused since.
+	 * 
+	 * @return true if the receivables index has already been built
+	 */
+	public boolean hasReceivablesIndex() {
+		return this.receivablePtr != null;
+	}
+
+	/**
+	 * Releases the arrays so they can be garbage collected.
+	 */
+	public void clear() {
+		this.nodeCount = 0;
+		this.rowPtr = null;
+		this.col = null;
+		this.amount = null;
+		this.receivablePtr = null;
+		this.receivableFrom = null;
+		this.receivableEdge = null;
+	}
+
+	/**
+	 * @return the number of nodes in the graph
+	 */
+	public int getNodeCount() {
+		return this.nodeCount;
+	}
+
+	/**
+	 * @return the number of links (i.e. non-zero liabilities) in the graph
+	 */
+	public int getLinkCount() {
+		return this.rowPtr[this.nodeCount];
+	}
+
+	/**
+	 * @return the rowPtr
+	 */
+	public int[] getRowPtr() {
+		return rowPtr;
+	}
+
+	/**
+	 * @return the col
+	 */
+	public int[] getCol() {
+		return col;
+	}
+
+	/**
+	 * @return the amount
+	 */
+	public float[] getAmount() {
+		return amount;
+	}
+
+	/**
+	 * @return the receivablePtr, building the receivables index if necessary
+	 */
+	public int[] getReceivablePtr() {
+		if (this.receivablePtr == null) {
+			this.buildReceivablesIndex();
+		}
+		return receivablePtr;
+	}
+
+	/**
+	 * @return the receivableFrom, building the receivables index if necessary
+	 */
+	public int[] getReceivableFrom() {
+		if (this.receivablePtr == null) {
+			this.buildReceivablesIndex();
+		}
+		return receivableFrom;
+	}
+
+	/**
+	 * @return the receivableEdge, building the receivables index if necessary
+	 */
+	public int[] getReceivableEdge() {
+		if (this.receivablePtr == null) {
+			this.buildReceivablesIndex();
+		}
+		return receivableEdge;
+	}
+
+}
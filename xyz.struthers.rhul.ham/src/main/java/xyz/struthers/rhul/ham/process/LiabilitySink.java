@@ -0,0 +1,23 @@
+/**
+ * 
+ */
+package xyz.struthers.rhul.ham.process;
+
+/**
+ * Receives an agent's liabilities one at a time, so they can be written
+ * straight into the CPV inputs without creating a NodePayment for each one.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public interface LiabilitySink {
+
+	/**
+	 * Adds a liability of the current agent.
+	 * 
+	 * @param recipientIndex  - the CPV index of the node that is owed the money
+	 * @param liabilityAmount - the amount owed
+	 */
+	public void addLiability(int recipientIndex, float liabilityAmount);
+
+}
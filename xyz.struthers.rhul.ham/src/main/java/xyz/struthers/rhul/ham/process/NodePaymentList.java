@@ -0,0 +1,28 @@
+/**
+ * 
+ */
+package xyz.struthers.rhul.ham.process;
+
+import java.util.ArrayList;
+
+/**
+ * Collects an agent's liabilities as NodePayments, for callers that still need
+ * them as a list.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class NodePaymentList extends ArrayList<NodePayment> implements LiabilitySink {
+
+	private static final long serialVersionUID = 1L;
+
+	public NodePaymentList() {
+		super();
+	}
+
+	@Override
+	public void addLiability(int recipientIndex, float liabilityAmount) {
+		this.add(new NodePayment(recipientIndex, liabilityAmount));
+	}
+
+}
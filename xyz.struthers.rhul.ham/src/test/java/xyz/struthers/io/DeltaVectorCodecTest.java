@@ -0,0 +1,161 @@
+/**
+ * 
+ */
+package xyz.struthers.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Round trips vectors through DeltaVectorCodec, with and without a previous
+ * vector to XOR against.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class DeltaVectorCodecTest {
+
+	private static final int FRAME_BYTES = 1 << 16;
+
+	@Test
+	public void floatsWithoutPrevious() throws IOException {
+		float[] values = randomFloats(new Random(1L), 5000);
+		float[] decoded = roundTripFloats(values);
+		assertArrayEquals(values, decoded, 0f);
+	}
+
+	@Test
+	public void floatsUpdatedInPlace() throws IOException {
+		float[] previous = randomFloats(new Random(2L), 5000);
+		float[] values = new float[previous.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = previous[i] * 1.0025f; // a month of inflation
+		}
+		values[17] = Float.NaN;
+		values[18] = -0f;
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DeltaVectorCodec codec = new DeltaVectorCodec();
+		codec.writeFloats(writer(bytes), values, values.length, previous, previous.length);
+		codec.close();
+
+		// the receiver overwrites its copy of the previous vector
+		float[] receiver = previous.clone();
+		FramedArrayReader reader = reader(bytes.toByteArray());
+		DeltaVectorCodec decoder = new DeltaVectorCodec();
+		int length = decoder.readLength(reader);
+		decoder.readFloats(reader, receiver, length, receiver, receiver.length);
+		decoder.close();
+		for (int i = 0; i < values.length; i++) {
+			assertEquals(Float.floatToRawIntBits(values[i]), Float.floatToRawIntBits(receiver[i]));
+		}
+	}
+
+	@Test
+	public void deltaIsSmallerThanPlainCompression() throws IOException {
+		float[] previous = randomFloats(new Random(3L), 20000);
+		float[] values = new float[previous.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i % 10 == 0 ? previous[i] * 1.01f : previous[i];
+		}
+		ByteArrayOutputStream plain = new ByteArrayOutputStream();
+		new DeltaVectorCodec().writeFloats(writer(plain), values, values.length, null, 0);
+		ByteArrayOutputStream delta = new ByteArrayOutputStream();
+		new DeltaVectorCodec().writeFloats(writer(delta), values, values.length, previous, previous.length);
+		assertTrue(delta.size() * 2 < plain.size());
+	}
+
+	@Test
+	public void intsLongerAndShorterThanPrevious() throws IOException {
+		Random random = new Random(4L);
+		int[] previous = new int[3000];
+		for (int i = 0; i < previous.length; i++) {
+			previous[i] = random.nextInt(1000000);
+		}
+		for (int length : new int[] { 0, 1000, 3000, 4500 }) {
+			int[] values = new int[length];
+			for (int i = 0; i < length; i++) {
+				values[i] = i < previous.length ? previous[i] + random.nextInt(3) : random.nextInt();
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			new DeltaVectorCodec().writeInts(writer(bytes), values, length, previous, previous.length);
+
+			FramedArrayReader reader = reader(bytes.toByteArray());
+			DeltaVectorCodec decoder = new DeltaVectorCodec();
+			int[] decoded = new int[decoder.readLength(reader)];
+			decoder.readInts(reader, decoded, decoded.length, previous, previous.length);
+			assertArrayEquals(values, decoded);
+		}
+	}
+
+	@Test
+	public void vectorsSpanningSeveralBlocks() throws IOException {
+		int length = DeltaVectorCodec.BLOCK_ELEMENTS * 2 + 5;
+		int[] values = new int[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = i * 31;
+		}
+		int[] previous = Arrays.copyOf(values, length - 3);
+		previous[5] = -1;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new DeltaVectorCodec().writeInts(writer(bytes), values, length, previous, previous.length);
+
+		FramedArrayReader reader = reader(bytes.toByteArray());
+		DeltaVectorCodec decoder = new DeltaVectorCodec();
+		int[] decoded = new int[decoder.readLength(reader)];
+		decoder.readInts(reader, decoded, decoded.length, previous, previous.length);
+		assertArrayEquals(values, decoded);
+	}
+
+	@Test(expected = IOException.class)
+	public void mismatchedPreviousIsRejected() throws IOException {
+		int[] previous = new int[100];
+		int[] values = new int[100];
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new DeltaVectorCodec().writeInts(writer(bytes), values, values.length, previous, previous.length);
+
+		FramedArrayReader reader = reader(bytes.toByteArray());
+		DeltaVectorCodec decoder = new DeltaVectorCodec();
+		int length = decoder.readLength(reader);
+		decoder.readInts(reader, new int[length], length, new int[50], 50);
+	}
+
+	private static float[] roundTripFloats(float[] values) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new DeltaVectorCodec().writeFloats(writer(bytes), values, values.length, null, 0);
+
+		FramedArrayReader reader = reader(bytes.toByteArray());
+		DeltaVectorCodec decoder = new DeltaVectorCodec();
+		float[] decoded = new float[decoder.readLength(reader)];
+		decoder.readFloats(reader, decoded, decoded.length, null, 0);
+		return decoded;
+	}
+
+	private static float[] randomFloats(Random random, int length) {
+		float[] values = new float[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = random.nextFloat() * 100000f;
+		}
+		return values;
+	}
+
+	private static FramedArrayWriter writer(ByteArrayOutputStream bytes) {
+		return new FramedArrayWriter(new DataOutputStream(bytes), FRAME_BYTES);
+	}
+
+	private static FramedArrayReader reader(byte[] bytes) {
+		return new FramedArrayReader(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+}
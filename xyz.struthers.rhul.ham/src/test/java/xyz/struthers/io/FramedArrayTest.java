@@ -0,0 +1,159 @@
+/**
+ * 
+ */
+package xyz.struthers.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Round trips primitive arrays through FramedArrayWriter and FramedArrayReader,
+ * in both stream and channel mode.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class FramedArrayTest {
+
+	private static final int FRAME_BYTES = FramedArrayWriter.MIN_FRAME_BYTES;
+
+	@Test
+	public void arraysSpanningManyFrames() throws IOException {
+		Random random = new Random(7L);
+		int[] ints = new int[10000];
+		float[] floats = new float[2501];
+		for (int i = 0; i < ints.length; i++) {
+			ints[i] = random.nextInt();
+		}
+		for (int i = 0; i < floats.length; i++) {
+			floats[i] = random.nextFloat() * 1e6f - 5e5f;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		FramedArrayWriter writer = new FramedArrayWriter(new DataOutputStream(bytes), FRAME_BYTES);
+		writer.writeInt(42);
+		writer.writeLong(Long.MIN_VALUE);
+		writer.writeIntArray(ints);
+		writer.writeFloatArray(floats);
+		writer.writeIntArray(new int[0]);
+
+		FramedArrayReader reader = reader(bytes.toByteArray());
+		assertEquals(42, reader.readInt());
+		assertEquals(Long.MIN_VALUE, reader.readLong());
+		assertArrayEquals(ints, reader.readIntArray(null));
+		assertArrayEquals(floats, reader.readFloatArray(null), 0f);
+		assertArrayEquals(new int[0], reader.readIntArray(null));
+	}
+
+	@Test
+	public void singleElementsAndPartialReads() throws IOException {
+		int length = 700; // more than one frame
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		FramedArrayWriter writer = new FramedArrayWriter(new DataOutputStream(bytes), FRAME_BYTES);
+		writer.beginArray(length);
+		for (int i = 0; i < length; i++) {
+			writer.putFloat(i * 0.5f);
+		}
+		writer.endArray();
+
+		FramedArrayReader reader = reader(bytes.toByteArray());
+		assertEquals(length, reader.beginArray());
+		float[] values = new float[length];
+		values[0] = reader.getFloat();
+		reader.getFloats(values, 1, 300);
+		for (int i = 301; i < length; i++) {
+			values[i] = reader.getFloat();
+		}
+		reader.endArray();
+		for (int i = 0; i < length; i++) {
+			assertEquals(i * 0.5f, values[i], 0f);
+		}
+	}
+
+	@Test
+	public void destinationIsReusedWhenTheLengthMatches() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		FramedArrayWriter writer = new FramedArrayWriter(new DataOutputStream(bytes), FRAME_BYTES);
+		writer.writeIntArray(new int[] { 1, 2, 3 });
+
+		int[] destination = new int[3];
+		int[] result = reader(bytes.toByteArray()).readIntArray(destination);
+		assertEquals(destination, result);
+		assertArrayEquals(new int[] { 1, 2, 3 }, result);
+	}
+
+	@Test(expected = IOException.class)
+	public void frameEndingPartWayThroughAnElementIsRejected() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(bytes);
+		dos.writeInt(Serialization.MSG_TYPE_HDR);
+		dos.writeLong(2L);
+		dos.writeInt(Serialization.MSG_TYPE_BODY);
+		dos.writeInt(6); // one and a half ints
+		dos.write(new byte[6]);
+		dos.writeInt(Serialization.MSG_TYPE_END);
+		dos.flush();
+
+		reader(bytes.toByteArray()).readIntArray(null);
+	}
+
+	@Test(expected = IOException.class)
+	public void shortArrayIsRejected() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		FramedArrayWriter writer = new FramedArrayWriter(new DataOutputStream(bytes), FRAME_BYTES);
+		writer.writeIntArray(new int[] { 1, 2, 3 });
+
+		FramedArrayReader reader = reader(bytes.toByteArray());
+		reader.beginArray();
+		reader.getInt();
+		reader.endArray();
+	}
+
+	@Test
+	public void channelModeWritesTheSameBytes() throws IOException {
+		Random random = new Random(11L);
+		int[] ints = new int[3000];
+		float[] floats = new float[1999];
+		for (int i = 0; i < ints.length; i++) {
+			ints[i] = random.nextInt();
+		}
+		for (int i = 0; i < floats.length; i++) {
+			floats[i] = random.nextFloat();
+		}
+
+		ByteArrayOutputStream streamBytes = new ByteArrayOutputStream();
+		write(new FramedArrayWriter(new DataOutputStream(streamBytes), FRAME_BYTES), ints, floats);
+		ByteArrayOutputStream channelBytes = new ByteArrayOutputStream();
+		write(new FramedArrayWriter(Channels.newChannel(channelBytes), FRAME_BYTES), ints, floats);
+		assertArrayEquals(streamBytes.toByteArray(), channelBytes.toByteArray());
+
+		// a channel reader with a smaller frame than the sender's grows to fit
+		FramedArrayReader reader = new FramedArrayReader(
+				Channels.newChannel(new ByteArrayInputStream(channelBytes.toByteArray())), 16);
+		assertEquals(7, reader.readInt());
+		assertArrayEquals(ints, reader.readIntArray(null));
+		assertArrayEquals(floats, reader.readFloatArray(null), 0f);
+	}
+
+	private static void write(FramedArrayWriter writer, int[] ints, float[] floats) throws IOException {
+		writer.writeInt(7);
+		writer.writeIntArray(ints);
+		writer.writeFloatArray(floats);
+		writer.flush();
+	}
+
+	private static FramedArrayReader reader(byte[] bytes) {
+		return new FramedArrayReader(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+}
@@ -0,0 +1,94 @@
+/**
+ * 
+ */
+package xyz.struthers.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gnu.trove.list.array.TFloatArrayList;
+
+/**
+ * Checks that AliasSampler draws each index in proportion to its weight, with a
+ * chi-squared test against the weights.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class AliasSamplerTest {
+
+	private static final int DRAWS = 200000;
+
+	@Test
+	public void matchesUnevenWeights() {
+		double[] weights = { 0.5d, 12d, 0d, 3d, 7.25d, 0.01d, 40d, 1d };
+		assertMatches(weights, new AliasSampler(weights), new Random(1L));
+	}
+
+	@Test
+	public void matchesEqualWeights() {
+		double[] weights = new double[50];
+		Arrays.fill(weights, 2d);
+		assertMatches(weights, new AliasSampler(weights), new Random(2L));
+	}
+
+	@Test
+	public void matchesFloatAndTroveWeights() {
+		float[] weights = { 3f, 0f, 1f, 6f };
+		double[] expected = { 3d, 0d, 1d, 6d };
+		assertMatches(expected, new AliasSampler(weights), new Random(3L));
+		assertMatches(expected, new AliasSampler(new TFloatArrayList(weights)), new Random(3L));
+	}
+
+	@Test
+	public void singleWeightAlwaysDrawn() {
+		AliasSampler sampler = new AliasSampler(new double[] { 0d, 0d, 5d });
+		Random random = new Random(4L);
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(2, sampler.next(random));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeWeightThrows() {
+		new AliasSampler(new double[] { 1d, -1d });
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void zeroWeightsThrow() {
+		new AliasSampler(new double[] { 0d, 0d });
+	}
+
+	private static void assertMatches(double[] weights, AliasSampler sampler, Random random) {
+		assertEquals(weights.length, sampler.size());
+		int[] counts = new int[weights.length];
+		for (int i = 0; i < DRAWS; i++) {
+			counts[sampler.next(random)]++;
+		}
+		double total = 0d;
+		for (double weight : weights) {
+			total += weight;
+		}
+		double chiSquared = 0d;
+		int degreesOfFreedom = -1;
+		for (int i = 0; i < weights.length; i++) {
+			double expected = DRAWS * weights[i] / total;
+			if (expected == 0d) {
+				assertEquals("index " + i + " has no weight", 0, counts[i]);
+			} else {
+				chiSquared += (counts[i] - expected) * (counts[i] - expected) / expected;
+				degreesOfFreedom++;
+			}
+		}
+		// about the 99.9th percentile of the chi-squared distribution
+		double critical = degreesOfFreedom + 4.5d * Math.sqrt(2d * degreesOfFreedom) + 5d;
+		assertTrue("chi-squared " + chiSquared + " with " + degreesOfFreedom + " degrees of freedom",
+				chiSquared < critical);
+	}
+
+}
@@ -0,0 +1,199 @@
+/**
+ * 
+ */
+package xyz.struthers.lang;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.opencsv.CSVReader;
+
+/**
+ * Reads the same text with CsvTokenizer and opencsv's CSVReader, and checks
+ * that they split it into the same fields and that the numbers parse the same
+ * as Float.valueOf and Integer.valueOf.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class CsvTokenizerTest {
+
+	private static final float NOT_A_FLOAT = -12345.5f;
+	private static final int NOT_AN_INT = -777;
+
+	@Test
+	public void plainFields() throws IOException {
+		assertSameAsOpenCsv("a,b,c\n1,2,3\n,,\n\nlast");
+	}
+
+	@Test
+	public void lineEndings() throws IOException {
+		assertSameAsOpenCsv("a,b\r\nc,d\re,f\n\r\ng,h\r\n");
+	}
+
+	@Test
+	public void quotedFields() throws IOException {
+		assertSameAsOpenCsv("\"Region, State\",\"x\"\n\"a \"\"quoted\"\" word\",\"\"\n\"multi\nline\r\nfield\",2\n"
+				+ "  \"spaces first\",x\nmid\"quote\"s,ab\"c\nescaped \\\"quote\\\\,\"in \\\"quotes\\\"\"\n");
+	}
+
+	@Test
+	public void numbers() throws IOException {
+		assertSameAsOpenCsv("1,-2,+3,0,007,2147483647,2147483648,-2147483648,99999999999\n"
+				+ "1.5,-0.25,.5,5.,\"1,234.5\",1e3,NaN,-Infinity,0x10,1.2.3,-,+,.\n"
+				+ " 12 ,\t3.5\t,16777216,16777217,0.1234567891,123456.789,-0\n");
+	}
+
+	@Test
+	public void matchesOpenCsvOnRandomText() throws IOException {
+		char[] alphabet = { 'a', '1', '2', '.', '-', ',', ',', '"', '"', '\\', ' ', '\n', '\r', 'e' };
+		Random random = new Random(1L);
+		for (int trial = 0; trial < 2000; trial++) {
+			StringBuilder csv = new StringBuilder();
+			int length = random.nextInt(60);
+			for (int i = 0; i < length; i++) {
+				csv.append(alphabet[random.nextInt(alphabet.length)]);
+			}
+			assertSameAsOpenCsv(csv.toString());
+		}
+	}
+
+	@Test
+	public void longRecordsGrowTheBuffers() throws IOException {
+		StringBuilder csv = new StringBuilder();
+		for (int row = 0; row < 3; row++) {
+			for (int i = 0; i < 3000; i++) {
+				csv.append(i == 0 ? "" : ",").append(row * 1000 + i).append(".25");
+			}
+			csv.append('\n');
+		}
+		assertSameAsOpenCsv(csv.toString());
+	}
+
+	@Test
+	public void fieldPredicates() throws IOException {
+		try (CsvTokenizer tokenizer = new CsvTokenizer(bytes("Data Source: ABS,, ,x\n"))) {
+			assertTrue(tokenizer.next());
+			assertEquals(4, tokenizer.size());
+			assertTrue(tokenizer.startsWith(0, "Data Source"));
+			assertFalse(tokenizer.startsWith(3, "Data Source"));
+			assertTrue(tokenizer.isEmpty(1));
+			assertFalse(tokenizer.isEmpty(2));
+			assertTrue(tokenizer.isBlank(2));
+			assertFalse(tokenizer.isBlank(3));
+			assertFalse(tokenizer.next());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void unterminatedQuoteThrows() throws IOException {
+		try (CsvTokenizer tokenizer = new CsvTokenizer(bytes("a,\"b\nc\n"))) {
+			tokenizer.next();
+		}
+	}
+
+	private static void assertSameAsOpenCsv(String csv) throws IOException {
+		String[][] expected = readWithOpenCsv(csv);
+		byte[] encoded = csv.getBytes(Charset.defaultCharset());
+		try (CsvTokenizer mapped = new CsvTokenizer(ByteBuffer.wrap(encoded))) {
+			assertSameRecords(csv, expected, mapped);
+		}
+		// a channel that returns a few bytes at a time, so records span buffer refills
+		try (CsvTokenizer streamed = new CsvTokenizer(Channels.newChannel(new TrickleInputStream(encoded)))) {
+			assertSameRecords(csv, expected, streamed);
+		}
+	}
+
+	private static void assertSameRecords(String csv, String[][] expected, CsvTokenizer tokenizer)
+			throws IOException {
+		if (expected == null) {
+			// opencsv rejected it, so the tokenizer must too
+			try {
+				while (tokenizer.next()) {
+					// keep reading
+				}
+			} catch (IOException e) {
+				return;
+			}
+			throw new AssertionError("opencsv threw but the tokenizer didn't: " + csv);
+		}
+		for (int row = 0; row < expected.length; row++) {
+			String message = "row " + row + " of " + csv;
+			assertTrue(message, tokenizer.next());
+			assertArrayEquals(message, expected[row], tokenizer.toArray());
+			for (int i = 0; i < expected[row].length; i++) {
+				String field = expected[row][i];
+				assertEquals(message + " float " + field, Float.floatToRawIntBits(parseFloat(field)),
+						Float.floatToRawIntBits(tokenizer.getFloat(i, NOT_A_FLOAT)));
+				assertEquals(message + " int " + field, parseInt(field), tokenizer.getInt(i, NOT_AN_INT));
+				assertEquals(message, field.isEmpty(), tokenizer.isEmpty(i));
+				assertEquals(message, field.trim().isEmpty(), tokenizer.isBlank(i));
+			}
+		}
+		assertFalse("extra row in " + csv, tokenizer.next());
+	}
+
+	private static String[][] readWithOpenCsv(String csv) {
+		try (CSVReader reader = new CSVReader(new StringReader(csv))) {
+			List<String[]> records = new ArrayList<String[]>();
+			String[] line;
+			while ((line = reader.readNext()) != null) {
+				records.add(line);
+			}
+			return records.toArray(new String[records.size()][]);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static float parseFloat(String field) {
+		try {
+			return Float.valueOf(field.replace(",", ""));
+		} catch (NumberFormatException e) {
+			return NOT_A_FLOAT;
+		}
+	}
+
+	private static int parseInt(String field) {
+		try {
+			return Integer.valueOf(field);
+		} catch (NumberFormatException e) {
+			return NOT_AN_INT;
+		}
+	}
+
+	private static ByteBuffer bytes(String csv) {
+		return ByteBuffer.wrap(csv.getBytes(Charset.defaultCharset()));
+	}
+
+	/**
+	 * Returns at most three bytes from each read.
+	 */
+	private static class TrickleInputStream extends ByteArrayInputStream {
+
+		TrickleInputStream(byte[] buf) {
+			super(buf);
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) {
+			return super.read(b, off, Math.min(len, 3));
+		}
+
+	}
+
+}
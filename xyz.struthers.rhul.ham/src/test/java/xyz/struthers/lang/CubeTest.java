@@ -0,0 +1,225 @@
+/**
+ * 
+ */
+package xyz.struthers.lang;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks Cube's offsets, slices, marginal sums and presence bitmap against the
+ * same values kept in a plain three-dimensional array.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class CubeTest {
+
+	private static final String[][] KEYS = { { "NSW", "VIC", "QLD" }, { "A", "B", "C", "D" },
+			{ "0-4", "5-9", "10-14", "15-19", "20-24" } };
+
+	private float[][][] values;
+	private boolean[][][] present;
+	private Cube cube;
+
+	@Before
+	public void setUp() {
+		Random random = new Random(1L);
+		int cells = KEYS[0].length * KEYS[1].length * KEYS[2].length;
+		float[] flat = new float[cells];
+		long[] bitmap = new long[(cells + 63) / 64];
+		this.values = new float[KEYS[0].length][KEYS[1].length][KEYS[2].length];
+		this.present = new boolean[KEYS[0].length][KEYS[1].length][KEYS[2].length];
+		int cell = 0;
+		for (int i = 0; i < KEYS[0].length; i++) {
+			for (int j = 0; j < KEYS[1].length; j++) {
+				for (int k = 0; k < KEYS[2].length; k++) {
+					// leave VIC/B out entirely, and a few other cells at random
+					if (!(i == 1 && j == 1) && random.nextInt(5) > 0) {
+						this.values[i][j][k] = random.nextInt(1000) / 4f;
+						this.present[i][j][k] = true;
+						flat[cell] = this.values[i][j][k];
+						bitmap[cell >>> 6] |= 1L << cell;
+					}
+					cell++;
+				}
+			}
+		}
+		this.cube = Cube.ofFloats(KEYS, flat, bitmap);
+	}
+
+	@Test
+	public void offsetsAreRowMajor() {
+		assertEquals(3, this.cube.rank());
+		assertEquals(60, this.cube.cells());
+		assertEquals(20, this.cube.stride(0));
+		assertEquals(5, this.cube.stride(1));
+		assertEquals(1, this.cube.stride(2));
+		for (int i = 0; i < KEYS[0].length; i++) {
+			for (int j = 0; j < KEYS[1].length; j++) {
+				for (int k = 0; k < KEYS[2].length; k++) {
+					int offset = this.cube.offset(i, j, k);
+					assertEquals(i * 20 + j * 5 + k, offset);
+					assertEquals(this.values[i][j][k], this.cube.getFloat(i, j, k), 0f);
+					assertEquals(this.values[i][j][k], this.cube.floatAt(offset), 0f);
+					assertEquals(this.present[i][j][k], this.cube.isPresent(i, j, k));
+					assertEquals(this.present[i][j][k], this.cube.isPresentAt(offset));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void keysAndCodes() {
+		for (int d = 0; d < KEYS.length; d++) {
+			assertEquals(Arrays.asList(KEYS[d]), this.cube.keys(d));
+			for (int k = 0; k < KEYS[d].length; k++) {
+				assertEquals(k, this.cube.index(d, KEYS[d][k]));
+				assertEquals(KEYS[d][k], this.cube.key(d, k));
+			}
+		}
+		assertEquals(-1, this.cube.index(0, "WA"));
+		assertArrayEquals(new int[] { 2, -1, 0 }, this.cube.indices(1, "C", "Z", "A"));
+		assertFalse(this.cube.isPresent(this.cube.index(0, "WA"), 0, 0));
+		assertFalse(this.cube.isPresent(0, 0));
+	}
+
+	@Test
+	public void badCoordinatesThrow() {
+		try {
+			this.cube.offset(0, 4, 0);
+			fail("accepted a coordinate past the end of a dimension");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+		try {
+			this.cube.offset(0, 0);
+			fail("accepted too few coordinates");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			this.cube.intAt(0);
+			fail("read an int from a float cube");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void slicesAreViews() {
+		for (int d = 0; d < 3; d++) {
+			for (int index = 0; index < KEYS[d].length; index++) {
+				Cube slice = this.cube.slice(d, index);
+				assertEquals(2, slice.rank());
+				for (int a = 0; a < slice.size(0); a++) {
+					for (int b = 0; b < slice.size(1); b++) {
+						int[] c = coordinates(d, index, a, b);
+						assertEquals(this.values[c[0]][c[1]][c[2]], slice.getFloat(a, b), 0f);
+						assertEquals(this.present[c[0]][c[1]][c[2]], slice.isPresent(a, b));
+						// a slice's offsets point into the same backing array
+						assertEquals(this.cube.offset(c), slice.offset(a, b));
+					}
+				}
+			}
+		}
+		// slicing a slice
+		Cube column = this.cube.slice(1, 2).slice(0, 1);
+		assertEquals(1, column.rank());
+		for (int k = 0; k < KEYS[2].length; k++) {
+			assertEquals(this.values[1][2][k], column.getFloat(k), 0f);
+		}
+	}
+
+	@Test
+	public void sumsMatchTheArray() {
+		for (int d = 0; d < 3; d++) {
+			Cube marginal = this.cube.sum(d);
+			assertEquals(2, marginal.rank());
+			for (int a = 0; a < marginal.size(0); a++) {
+				for (int b = 0; b < marginal.size(1); b++) {
+					float expected = 0f;
+					boolean anyPresent = false;
+					for (int index = 0; index < KEYS[d].length; index++) {
+						int[] c = coordinates(d, index, a, b);
+						expected += this.values[c[0]][c[1]][c[2]];
+						anyPresent |= this.present[c[0]][c[1]][c[2]];
+					}
+					assertEquals(expected, marginal.getFloat(a, b), 0f);
+					assertEquals(anyPresent, marginal.isPresent(a, b));
+				}
+			}
+		}
+		// summing a slice, whose cells aren't contiguous
+		Cube byState = this.cube.slice(2, 3).sum(1);
+		for (int i = 0; i < KEYS[0].length; i++) {
+			float expected = 0f;
+			for (int j = 0; j < KEYS[1].length; j++) {
+				expected += this.values[i][j][3];
+			}
+			assertEquals(expected, byState.getFloat(i), 0f);
+		}
+	}
+
+	@Test
+	public void totalAndPresentKeys() {
+		double expected = 0d;
+		for (float[][] plane : this.values) {
+			for (float[] row : plane) {
+				for (float value : row) {
+					expected += value;
+				}
+			}
+		}
+		assertEquals(expected, this.cube.total(), 1e-3d);
+		assertEquals(Arrays.asList(KEYS[1]), this.cube.presentKeys(1));
+		assertEquals(Arrays.asList("A", "C", "D"), this.cube.slice(0, 1).presentKeys(0));
+	}
+
+	@Test
+	public void intCube() {
+		String[][] keys = { { "x", "y" }, { "p", "q", "r" } };
+		Cube ints = Cube.ofInts(keys, new int[] { 1, 2, 3, 4, 5, 6 }, null);
+		assertFalse(ints.isFloat());
+		assertEquals(6, ints.getInt(1, 2));
+		assertEquals(5f, ints.floatAt(ints.offset(1, 1)), 0f);
+		assertTrue(ints.isPresent(0, 0));
+		assertEquals(21d, ints.total(), 0d);
+		Cube columns = ints.sum(0);
+		assertFalse(columns.isFloat());
+		assertEquals(5, columns.getInt(0));
+		assertEquals(7, columns.getInt(1));
+		assertEquals(9, columns.getInt(2));
+		assertEquals(15, ints.sum(1).getInt(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongNumberOfValuesThrows() {
+		Cube.ofInts(new String[][] { { "x", "y" }, { "p" } }, new int[3], null);
+	}
+
+	/**
+	 * @return the coordinates in the full cube of cell (a, b) of the slice or sum
+	 *         that removes dimension d, with index along d
+	 */
+	private static int[] coordinates(int d, int index, int a, int b) {
+		switch (d) {
+		case 0:
+			return new int[] { index, a, b };
+		case 1:
+			return new int[] { a, index, b };
+		default:
+			return new int[] { a, b, index };
+		}
+	}
+
+}
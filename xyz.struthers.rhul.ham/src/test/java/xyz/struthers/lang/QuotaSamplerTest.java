@@ -0,0 +1,93 @@
+/**
+ * 
+ */
+package xyz.struthers.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that QuotaSampler draws each item exactly its quota in every pass, and
+ * in a random order.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class QuotaSamplerTest {
+
+	@Test
+	public void eachPassDrawsEveryQuota() {
+		int[] quotas = { 3, 1, 0, 7, 2, 5, 1, 4, 6, 9, 2 }; // more than the initial capacity
+		QuotaSampler sampler = new QuotaSampler(4);
+		for (int i = 0; i < quotas.length; i++) {
+			sampler.add(100 + i, quotas[i]);
+		}
+		assertEquals(quotas.length - 1, sampler.size()); // a zero quota is skipped
+		assertEquals(40, sampler.getTotal());
+
+		Random random = new Random(1L);
+		for (int pass = 0; pass < 5; pass++) {
+			int[] drawn = new int[quotas.length];
+			for (int draw = 0; draw < sampler.getTotal(); draw++) {
+				drawn[sampler.next(random) - 100]++;
+			}
+			for (int i = 0; i < quotas.length; i++) {
+				assertEquals("item " + i + " in pass " + pass, quotas[i], drawn[i]);
+			}
+		}
+	}
+
+	@Test
+	public void firstDrawIsProportionalToQuota() {
+		int[] quotas = { 1, 2, 3, 4 };
+		int trials = 40000;
+		int[] first = new int[quotas.length];
+		Random random = new Random(2L);
+		for (int trial = 0; trial < trials; trial++) {
+			QuotaSampler sampler = new QuotaSampler(quotas.length);
+			for (int i = 0; i < quotas.length; i++) {
+				sampler.add(i, quotas[i]);
+			}
+			first[sampler.next(random)]++;
+		}
+		for (int i = 0; i < quotas.length; i++) {
+			double expected = trials * quotas[i] / 10d;
+			assertEquals("item " + i, expected, first[i], 4d * Math.sqrt(expected));
+		}
+	}
+
+	@Test
+	public void weightedQuotasRoundUp() {
+		QuotaSampler sampler = new QuotaSampler(3);
+		sampler.add(0, 1f, 10f, 25); // 2.5 draws
+		sampler.add(1, 9f, 10f, 25); // 22.5 draws
+		sampler.add(2, 0f, 10f, 25); // skipped
+		assertEquals(2, sampler.size());
+		assertEquals(3 + 23, sampler.getTotal());
+		assertTrue(sampler.getTotal() >= 25);
+	}
+
+	@Test
+	public void cannotAddAfterDrawing() {
+		QuotaSampler sampler = new QuotaSampler(2);
+		sampler.add(0, 1);
+		sampler.next(new Random(3L));
+		try {
+			sampler.add(1, 1);
+			fail("added an item after sampling started");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void emptySamplerThrows() {
+		new QuotaSampler(1).next(new Random(4L));
+	}
+
+}
@@ -0,0 +1,220 @@
+/**
+ *
+ */
+package xyz.struthers.rhul.ham;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import gnu.trove.list.array.TFloatArrayList;
+import xyz.struthers.rhul.ham.agent.AustralianGovernment;
+import xyz.struthers.rhul.ham.agent.AuthorisedDepositTakingInstitution;
+import xyz.struthers.rhul.ham.agent.Business;
+import xyz.struthers.rhul.ham.agent.ForeignCountry;
+import xyz.struthers.rhul.ham.agent.Household;
+import xyz.struthers.rhul.ham.agent.Individual;
+import xyz.struthers.rhul.ham.agent.MajorBank;
+import xyz.struthers.rhul.ham.agent.ReserveBankOfAustralia;
+import xyz.struthers.rhul.ham.analysis.ReplicaMetrics;
+import xyz.struthers.rhul.ham.analysis.RunningStatistics;
+import xyz.struthers.rhul.ham.config.PropertiesXml;
+import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
+import xyz.struthers.rhul.ham.data.Currencies;
+import xyz.struthers.rhul.ham.data.Currency;
+import xyz.struthers.rhul.ham.process.AustralianEconomy;
+import xyz.struthers.rhul.ham.process.EconomySnapshot;
+
+/**
+ * Sweeps a small economy whose calibration depends on the random seed, and
+ * checks that each replica starts from the economy calibrated with its own
+ * seed, so the replicas differ.
+ *
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class SeedSweepTest {
+
+	private static final String PROPERTIES_FILE = "src/main/resources/config/4.1_baseline.xml";
+	private static final int ITERATIONS = 2;
+
+	static {
+		// the agents read the global properties when their classes are loaded
+		if (PropertiesXmlFactory.propertiesXmlFilename == null) {
+			PropertiesXmlFactory.propertiesXmlFilename = PROPERTIES_FILE;
+		}
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void replicasStartFromTheirOwnSeedsEconomy() throws Exception {
+		String globalFilename = PropertiesXmlFactory.propertiesXmlFilename;
+		File directory = Files.createTempDirectory("seed-sweep-").toFile();
+		try {
+			TinySweep sweep = new TinySweep();
+			PropertiesXml base = sweep.getCalibrationProperties();
+			base.setScenarioName("tiny");
+			base.setOutputDirectory(directory.getPath() + File.separator);
+			base.setNumberOfIterations(ITERATIONS);
+			base.setCpvPersistentSession(false); // solve the CPV in this JVM
+			base.setEconomySnapshotFile("");
+			base.setCheckpointInterval(0);
+			base.setScenarioThreadCount(2);
+			sweep.calibrate();
+
+			long[] seeds = SeedSweep.parseSeeds("3", base.getRandomSeed());
+			sweep.sweep(seeds, null);
+
+			// one economy per seed, each calibrated with the global properties set to that seed
+			assertArrayEquals(seeds, sweep.calibratedSeeds());
+			assertEquals(globalFilename, PropertiesXmlFactory.propertiesXmlFilename);
+
+			int netWorth = Arrays.asList(ReplicaMetrics.NAMES).indexOf("HouseholdMeanNetWorth");
+			RunningStatistics statistics = sweep.getStatistics().getStatistics(ITERATIONS - 1, netWorth);
+			assertEquals(seeds.length, statistics.getCount());
+			assertTrue("the replicas are all the same", statistics.getMax() > statistics.getMin());
+		} finally {
+			PropertiesXmlFactory.propertiesXmlFilename = globalFilename;
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void seedSnapshotFileKeepsTheExtension() {
+		assertEquals("D:\\snapshots\\4.1_baseline_seed-7.economy",
+				SeedSweep.seedSnapshotFile("D:\\snapshots\\4.1_baseline.economy", 7L));
+		assertEquals("/tmp/v1.0/economy_seed-7", SeedSweep.seedSnapshotFile("/tmp/v1.0/economy", 7L));
+		assertEquals("", SeedSweep.seedSnapshotFile("", 7L));
+	}
+
+	/**
+	 * Calibrates a small economy instead of the whole of Australia. Its balances
+	 * are drawn from the global properties' random number generator, like the
+	 * real calibration.
+	 */
+	private static class TinySweep extends SeedSweep {
+
+		private final ArrayList<Long> calibratedSeeds = new ArrayList<Long>();
+
+		TinySweep() {
+			super(PROPERTIES_FILE);
+		}
+
+		@Override
+		protected EconomySnapshot calibrate(PropertiesXml props) {
+			PropertiesXml global = PropertiesXmlFactory.getProperties();
+			assertEquals(props.getRandomSeed(), global.getRandomSeed());
+			this.calibratedSeeds.add(global.getRandomSeed());
+			return EconomySnapshot.capture(newEconomy(props, global.getRandom()), 0);
+		}
+
+		long[] calibratedSeeds() {
+			long[] seeds = new long[this.calibratedSeeds.size()];
+			for (int i = 0; i < seeds.length; i++) {
+				seeds[i] = this.calibratedSeeds.get(i);
+			}
+			Arrays.sort(seeds);
+			return seeds;
+		}
+	}
+
+	private static AustralianEconomy newEconomy(PropertiesXml props, Random random) {
+		AustralianEconomy economy = new AustralianEconomy(props);
+		AustralianGovernment government = new AustralianGovernment();
+		ReserveBankOfAustralia rba = new ReserveBankOfAustralia();
+		AuthorisedDepositTakingInstitution adi = new MajorBank();
+		Business[] businesses = { new Business(), new Business() };
+		Individual[] individuals = { new Individual(), new Individual(), new Individual() };
+		Household[] households = { new Household(), new Household() };
+
+		ArrayList<Business> suppliers = new ArrayList<Business>();
+		suppliers.add(businesses[1]);
+		for (int i = 0; i < individuals.length; i++) {
+			individuals[i].setHousehold(households[i < 2 ? 0 : 1]);
+		}
+		individuals[0].setEmployer(businesses[0]);
+		households[0].setIndividuals(new Individual[] { individuals[0], individuals[1] });
+		households[1].setIndividuals(new Individual[] { individuals[2] });
+		for (Household household : households) {
+			household.setGovt(government);
+			household.setLoanAdi(adi);
+			household.setSuppliers(new ArrayList<Business>(suppliers));
+			household.setSupplierRatios(new TFloatArrayList(new float[] { 1f }));
+			household.setBsBankDeposits(1000f + random.nextInt(1000));
+		}
+
+		for (Business business : businesses) {
+			business.setAdi(adi);
+			business.setGovt(government);
+			business.setDomesticSuppliers(new ArrayList<Business>(suppliers));
+			business.setSupplierRatios(new TFloatArrayList(new float[] { 1f }));
+			business.setForeignSuppliers(new ArrayList<ForeignCountry>());
+			business.setForeignSupplierRatios(new TFloatArrayList());
+			business.setDestinationCountries(new ArrayList<ForeignCountry>());
+			business.setDestinationCountryInitialRatios(new TFloatArrayList());
+			business.setEmployees(new ArrayList<Individual>());
+			business.setBankDeposits(1000f + random.nextInt(1000));
+		}
+		businesses[0].addEmployee(individuals[0]);
+
+		ArrayList<AuthorisedDepositTakingInstitution> investors = new ArrayList<AuthorisedDepositTakingInstitution>();
+		investors.add(adi);
+		government.setBondInvestors(investors);
+		government.setBondInvestorAmounts(new TFloatArrayList(new float[] { 100f }));
+		ArrayList<Household> welfare = new ArrayList<Household>();
+		welfare.add(households[1]);
+		government.setWelfareRecipients(welfare);
+		government.setGovernmentSuppliers(new ArrayList<Business>(suppliers));
+
+		adi.setDomesticSuppliers(new ArrayList<Business>(suppliers));
+		adi.setDomesticSupplierRatios(new TFloatArrayList(new float[] { 1f }));
+		adi.setRetailDepositors(new ArrayList<Household>(Arrays.asList(households)));
+		adi.setCommercialDepositors(new ArrayList<Business>(Arrays.asList(businesses)));
+		adi.setAdiInvestors(new ArrayList<AuthorisedDepositTakingInstitution>());
+		adi.setAdiInvestorAmounts(new TFloatArrayList());
+		adi.setGovt(government);
+		adi.setEmployees(new ArrayList<Individual>());
+		adi.setBsCash(1e6f);
+		adi.setBsLoansBusiness(1000f);
+		adi.setBsLoansHome(1000f);
+		rba.setAdiDepositors(new ArrayList<AuthorisedDepositTakingInstitution>(investors));
+		rba.setGovt(government);
+
+		economy.setGovernment(government);
+		economy.setRba(rba);
+		economy.setAdis(new ArrayList<AuthorisedDepositTakingInstitution>(investors));
+		economy.setBusinesses(Arrays.asList(businesses));
+		economy.setIndividuals(Arrays.asList(individuals));
+		economy.setHouseholds(Arrays.asList(households));
+		economy.setCountries(new ArrayList<ForeignCountry>());
+		Currencies currencies = new Currencies();
+		currencies.setCurrency(new Currency("USD", "US Dollar", 0.7f, 0.7f, 0.01f, 0.02f));
+		economy.setCurrencies(currencies);
+		economy.setBusinessTypeCount(new int[] { 2 });
+
+		int index = 0;
+		government.setPaymentClearingIndex(index++);
+		rba.setPaymentClearingIndex(index++);
+		for (Household household : households) {
+			household.setPaymentClearingIndex(index++);
+		}
+		for (Business business : businesses) {
+			business.setPaymentClearingIndex(index++);
+		}
+		adi.setPaymentClearingIndex(index++);
+		AustralianEconomy.setExogeneousExpenseAgentPaymentClearingIndex(index++);
+		return economy;
+	}
+
+}
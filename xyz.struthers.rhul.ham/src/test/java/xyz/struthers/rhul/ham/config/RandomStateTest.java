@@ -0,0 +1,64 @@
+/**
+ * 
+ */
+package xyz.struthers.rhul.ham.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+/**
+ * Checks that a generator restored from RandomState carries on with the same
+ * random numbers.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class RandomStateTest {
+
+	@Test
+	public void restoredGeneratorRepeatsTheSameNumbers() {
+		XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(20180630L);
+		for (int i = 0; i < 10; i++) {
+			random.nextLong();
+		}
+		long[] state = RandomState.getState(random);
+		assertNotNull(state);
+		long[] expected = new long[100];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = random.nextLong();
+		}
+
+		XoRoShiRo128PlusRandom restored = new XoRoShiRo128PlusRandom(1L);
+		assertTrue(RandomState.setState(restored, state));
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], restored.nextLong());
+		}
+	}
+
+	@Test
+	public void otherGeneratorsAreLeftAlone() {
+		Random random = new Random(42L);
+		assertNull(RandomState.getState(random));
+		assertFalse(RandomState.setState(random, new long[] { 1L, 2L }));
+		assertEquals(new Random(42L).nextLong(), random.nextLong());
+	}
+
+	@Test
+	public void wrongSizedStateIsRejected() {
+		XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(7L);
+		long expected = new XoRoShiRo128PlusRandom(7L).nextLong();
+		assertFalse(RandomState.setState(random, new long[] { 1L }));
+		assertFalse(RandomState.setState(random, null));
+		assertEquals(expected, random.nextLong());
+	}
+
+}
@@ -0,0 +1,117 @@
+/**
+ * 
+ */
+package xyz.struthers.rhul.ham.process;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that each CPV solver finds the Eisenberg-Noe clearing payments for
+ * small networks where the answer can be worked out by hand, and that they all
+ * agree on a bigger random network.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class ClearingPaymentSolverTest {
+
+	private static final float EPSILON = 1e-3f;
+
+	@Test
+	public void chainDefaultsPropagate() {
+		// 0 owes 10 to 1, and 1 owes 10 to 2, but 0 only has 5
+		for (ClearingPaymentSolver solver : solvers()) {
+			LiabilityCsrBuilder builder = new LiabilityCsrBuilder();
+			builder.reset(3, 2);
+			builder.beginRow(0);
+			builder.addLiability(1, 10f);
+			builder.beginRow(1);
+			builder.addLiability(2, 10f);
+			ClearingPaymentOutputs outputs = solver.calculate(builder.build(), new float[] { 5f, 0f, 0f },
+					new float[] { 0f, 0f, 0f });
+
+			String name = solver.getMetrics().getSolverName();
+			assertArrayEquals(name, new float[] { 0f, 0f, 5f }, outputs.getEquityOfNodeArray(), EPSILON);
+			int[] defaultOrder = outputs.getDefaultOrderOfNodeArray();
+			assertTrue(name, defaultOrder[0] > 0);
+			assertTrue(name, defaultOrder[1] > 0);
+			assertEquals(name, 0, defaultOrder[2]);
+			assertEquals(name, 2, solver.getMetrics().getDefaultCount());
+			assertEquals(name, 0f, solver.getMetrics().getResidualNorm(), EPSILON);
+			solver.releaseWorkspace();
+		}
+	}
+
+	@Test
+	public void cycleClearsInFull() {
+		// 0 and 1 owe each other 10 and have no cash, so the greatest clearing
+		// vector pays everything in full
+		for (ClearingPaymentSolver solver : solvers()) {
+			LiabilityCsrBuilder builder = new LiabilityCsrBuilder();
+			builder.reset(2, 2);
+			builder.beginRow(0);
+			builder.addLiability(1, 10f);
+			builder.beginRow(1);
+			builder.addLiability(0, 10f);
+			ClearingPaymentOutputs outputs = solver.calculate(builder.build(), new float[] { 0f, 0f },
+					new float[] { 0f, 0f });
+
+			String name = solver.getMetrics().getSolverName();
+			assertArrayEquals(name, new float[] { 0f, 0f }, outputs.getEquityOfNodeArray(), EPSILON);
+			assertEquals(name, 0, solver.getMetrics().getDefaultCount());
+			solver.releaseWorkspace();
+		}
+	}
+
+	@Test
+	public void solversAgreeOnRandomNetwork() {
+		int nodeCount = 500;
+		Random random = new Random(42L);
+		LiabilityCsrBuilder builder = new LiabilityCsrBuilder();
+		builder.reset(nodeCount, nodeCount * 4);
+		float[] operatingCashFlow = new float[nodeCount];
+		float[] liquidAssets = new float[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			builder.beginRow(i);
+			int links = random.nextInt(8);
+			for (int j = 0; j < links; j++) {
+				builder.addLiability(random.nextInt(nodeCount), 1f + random.nextInt(100));
+			}
+			operatingCashFlow[i] = random.nextInt(200);
+			liquidAssets[i] = random.nextInt(50);
+		}
+		LiabilityGraph graph = builder.build();
+
+		ClearingPaymentSolver[] solvers = solvers();
+		float[] expectedEquity = null;
+		int expectedDefaults = 0;
+		for (ClearingPaymentSolver solver : solvers) {
+			ClearingPaymentOutputs outputs = solver.calculate(graph, operatingCashFlow, liquidAssets);
+			String name = solver.getMetrics().getSolverName();
+			float[] equity = outputs.getEquityOfNodeArray().clone();
+			if (expectedEquity == null) {
+				expectedEquity = equity;
+				expectedDefaults = solver.getMetrics().getDefaultCount();
+				assertTrue("network should have some defaults", expectedDefaults > 0);
+			} else {
+				assertArrayEquals(name, expectedEquity, equity, 0.05f);
+				assertEquals(name, expectedDefaults, solver.getMetrics().getDefaultCount());
+			}
+			solver.releaseWorkspace();
+		}
+	}
+
+	private static ClearingPaymentSolver[] solvers() {
+		ClearingPaymentVector fullSweep = new ClearingPaymentVector();
+		fullSweep.setDirtyFrontier(false);
+		return new ClearingPaymentSolver[] { new ClearingPaymentVector(), fullSweep,
+				new GaussSeidelClearingPaymentVector(1, 1e-7f) };
+	}
+
+}
@@ -0,0 +1,193 @@
+/**
+ * 
+ */
+package xyz.struthers.rhul.ham.process;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import gnu.trove.list.array.TFloatArrayList;
+import xyz.struthers.rhul.ham.agent.AustralianGovernment;
+import xyz.struthers.rhul.ham.agent.AuthorisedDepositTakingInstitution;
+import xyz.struthers.rhul.ham.agent.Business;
+import xyz.struthers.rhul.ham.agent.Household;
+import xyz.struthers.rhul.ham.agent.Individual;
+import xyz.struthers.rhul.ham.agent.MajorBank;
+import xyz.struthers.rhul.ham.agent.ReserveBankOfAustralia;
+import xyz.struthers.rhul.ham.config.PropertiesXml;
+import xyz.struthers.rhul.ham.config.PropertiesXmlFactory;
+
+/**
+ * Saves a small linked economy to a snapshot, loads it into a new economy and
+ * checks that the fields, the links between agents and the random number
+ * generator all come back.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class EconomySnapshotTest {
+
+	private static final long SEED = 20180630L;
+
+	static {
+		// the agents read the global properties when their classes are loaded
+		if (PropertiesXmlFactory.propertiesXmlFilename == null) {
+			PropertiesXmlFactory.propertiesXmlFilename = "src/main/resources/config/4.1_baseline.xml";
+		}
+	}
+
+	@Test
+	public void savedEconomyLoadsWithTheSameAgentsAndLinks() throws IOException {
+		AustralianEconomy economy = newEconomy();
+		File file = File.createTempFile("economy-", ".snapshot");
+		try {
+			EconomySnapshot.save(economy, file.getPath());
+			long expectedNext = economy.random.nextLong(); // the saved economy's next random number
+
+			AustralianEconomy loaded = new AustralianEconomy(properties());
+			assertEquals(0, EconomySnapshot.load(loaded, file.getPath()));
+			assertEquals(expectedNext, loaded.random.nextLong());
+
+			assertEquals(2, loaded.households.length);
+			assertEquals(3, loaded.individuals.length);
+			assertEquals(2, loaded.businesses.length);
+			assertEquals(1, loaded.adis.length);
+			assertEquals(MajorBank.class, loaded.adis[0].getClass());
+			assertArrayEquals(new int[] { 2, 0 }, loaded.businessTypeCount);
+
+			Household household = loaded.households[0];
+			assertEquals("10050", household.getLgaCode());
+			assertEquals("NSW", household.getState());
+			assertEquals(1234.5f, household.getPnlWagesSalaries(), 0f);
+			assertEquals(10, household.getPaymentClearingIndex());
+			assertEquals(2, household.getIndividuals().length);
+			assertSame(loaded.individuals[0], household.getIndividuals()[0]);
+			assertSame(loaded.individuals[1], household.getIndividuals()[1]);
+			assertSame(household, loaded.individuals[1].getHousehold());
+			assertSame(loaded.adis[0], household.getLoanAdi());
+			assertSame(loaded.households[1], household.getLandlord());
+			assertSame(loaded.government, household.getGovt());
+			assertEquals(2, household.getSuppliers().size());
+			assertSame(loaded.businesses[1], household.getSuppliers().get(0));
+			assertSame(loaded.businesses[0], household.getSuppliers().get(1));
+			assertEquals(0.25f, household.getSupplierRatios().get(0), 0f);
+			assertEquals(0.75f, household.getSupplierRatios().get(1), 0f);
+			assertNull(loaded.households[1].getLandlord());
+
+			Individual individual = loaded.individuals[0];
+			assertEquals(42, individual.getAge());
+			assertEquals("F", individual.getSex());
+			assertEquals('C', individual.getEmploymentIndustry());
+			assertSame(loaded.businesses[0], individual.getEmployer());
+			assertSame(loaded.adis[0], loaded.businesses[0].getAdi());
+			assertSame(loaded.businesses[1], loaded.businesses[0].getLandlord());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void differentSeedKeepsItsOwnRandomNumbers() throws IOException {
+		AustralianEconomy economy = newEconomy();
+		File file = File.createTempFile("economy-", ".snapshot");
+		try {
+			EconomySnapshot.save(economy, file.getPath());
+
+			PropertiesXml otherSeed = properties();
+			otherSeed.setRandomSeed(SEED + 1L);
+			long expectedNext = properties(SEED + 1L).getRandom().nextLong();
+			AustralianEconomy loaded = new AustralianEconomy(otherSeed);
+			EconomySnapshot.load(loaded, file.getPath());
+			assertEquals(expectedNext, loaded.random.nextLong());
+			assertEquals(2, loaded.households.length);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void capturedSnapshotRestoresIndependentCopies() {
+		AustralianEconomy economy = newEconomy();
+		EconomySnapshot snapshot = EconomySnapshot.capture(economy, 7);
+		economy.households[0].setPnlWagesSalaries(1f); // changes after the capture aren't in the copy
+
+		AustralianEconomy first = new AustralianEconomy(properties());
+		AustralianEconomy second = new AustralianEconomy(properties());
+		assertEquals(7, snapshot.restore(first));
+		assertEquals(7, snapshot.restore(second));
+		assertEquals(1234.5f, first.households[0].getPnlWagesSalaries(), 0f);
+		first.households[0].setPnlWagesSalaries(2f);
+		assertEquals(1234.5f, second.households[0].getPnlWagesSalaries(), 0f);
+	}
+
+	private static AustralianEconomy newEconomy() {
+		AustralianEconomy economy = new AustralianEconomy(properties());
+		economy.random = economy.properties.getRandom();
+		for (int i = 0; i < 5; i++) {
+			economy.random.nextLong(); // so the generator isn't in its seeded state
+		}
+
+		AustralianGovernment government = new AustralianGovernment();
+		ReserveBankOfAustralia rba = new ReserveBankOfAustralia();
+		AuthorisedDepositTakingInstitution adi = new MajorBank();
+		Business[] businesses = { new Business(), new Business() };
+		Individual[] individuals = { new Individual(), new Individual(), new Individual() };
+		Household[] households = { new Household(), new Household() };
+
+		individuals[0].setAge(42);
+		individuals[0].setSex("F");
+		individuals[0].setEmploymentIndustry('C');
+		individuals[0].setEmployer(businesses[0]);
+		individuals[1].setAge(12);
+		individuals[1].setSex("M");
+		for (int i = 0; i < individuals.length; i++) {
+			individuals[i].setHousehold(households[i < 2 ? 0 : 1]);
+		}
+		businesses[0].setAdi(adi);
+		businesses[0].setLandlord(businesses[1]);
+		businesses[0].addEmployee(individuals[0]);
+
+		households[0].setIndividuals(new Individual[] { individuals[0], individuals[1] });
+		households[1].setIndividuals(new Individual[] { individuals[2] });
+		households[0].setLgaCode("10050");
+		households[0].setState("NSW");
+		households[0].setPnlWagesSalaries(1234.5f);
+		households[0].setPaymentClearingIndex(10);
+		households[0].setLoanAdi(adi);
+		households[0].setLandlord(households[1]);
+		households[0].setGovt(government);
+		ArrayList<Business> suppliers = new ArrayList<Business>();
+		suppliers.add(businesses[1]);
+		suppliers.add(businesses[0]);
+		households[0].setSuppliers(suppliers);
+		households[0].setSupplierRatios(new TFloatArrayList(new float[] { 0.25f, 0.75f }));
+
+		economy.government = government;
+		economy.rba = rba;
+		economy.adis = new AuthorisedDepositTakingInstitution[] { adi };
+		economy.businesses = businesses;
+		economy.individuals = individuals;
+		economy.households = households;
+		economy.businessTypeCount = new int[] { 2, 0 };
+		return economy;
+	}
+
+	private static PropertiesXml properties() {
+		return properties(SEED);
+	}
+
+	private static PropertiesXml properties(long seed) {
+		PropertiesXml properties = new PropertiesXml();
+		properties.setRandomSeed(seed);
+		return properties;
+	}
+
+}
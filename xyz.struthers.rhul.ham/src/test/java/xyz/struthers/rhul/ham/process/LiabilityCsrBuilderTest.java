@@ -0,0 +1,148 @@
+/**
+ * 
+ */
+package xyz.struthers.rhul.ham.process;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that the CSR arrays emitted through the LiabilitySink match the ones
+ * built from jagged arrays, including when the graph is emitted in segments.
+ * 
+ * @author Adam Struthers
+ * @since 2026-10-17
+ */
+public class LiabilityCsrBuilderTest {
+
+	@Test
+	public void skippedRowsHaveNoLiabilities() {
+		LiabilityCsrBuilder builder = new LiabilityCsrBuilder();
+		builder.reset(5, 0); // forces the link arrays to grow
+		builder.beginRow(1);
+		builder.addLiability(3, 1.5f);
+		builder.addLiability(0, 2.5f);
+		builder.beginRow(3);
+		builder.addLiability(4, 7f);
+		LiabilityGraph graph = builder.build();
+
+		assertEquals(5, graph.getNodeCount());
+		assertEquals(3, graph.getLinkCount());
+		assertArrayEquals(new int[] { 0, 0, 2, 2, 3, 3 }, Arrays.copyOf(graph.getRowPtr(), 6));
+		assertArrayEquals(new int[] { 3, 0, 4 }, Arrays.copyOf(graph.getCol(), 3));
+		assertArrayEquals(new float[] { 1.5f, 2.5f, 7f }, Arrays.copyOf(graph.getAmount(), 3), 0f);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rowsOutOfOrderAreRejected() {
+		LiabilityCsrBuilder builder = new LiabilityCsrBuilder();
+		builder.reset(3, 4);
+		builder.beginRow(2);
+		builder.beginRow(1);
+	}
+
+	@Test
+	public void resetReusesArrays() {
+		float[][] amounts = randomAmounts(new Random(1L), 100);
+		int[][] indices = randomIndices(new Random(2L), amounts);
+		LiabilityCsrBuilder builder = new LiabilityCsrBuilder();
+		emit(builder, amounts, indices);
+		int[] col = builder.build().getCol();
+
+		// a second iteration with the same number of links keeps the same arrays
+		emit(builder, amounts, indices);
+		LiabilityGraph graph = builder.build();
+		assertEquals(col, graph.getCol());
+		assertGraphEquals(LiabilityGraph.fromArrays(amounts, indices), graph);
+	}
+
+	@Test
+	public void segmentsMatchSingleThread() {
+		int nodeCount = 1000;
+		float[][] amounts = randomAmounts(new Random(3L), nodeCount);
+		int[][] indices = randomIndices(new Random(4L), amounts);
+
+		// split into uneven segments, and copy them in reverse order
+		int[] bounds = { 0, 1, 250, 251, 700, nodeCount };
+		LiabilityCsrBuilder[] segments = new LiabilityCsrBuilder[bounds.length - 1];
+		for (int s = 0; s < segments.length; s++) {
+			segments[s] = new LiabilityCsrBuilder();
+			segments[s].resetSegment(bounds[s], bounds[s + 1], 0);
+			for (int i = bounds[s]; i < bounds[s + 1]; i++) {
+				if (amounts[i].length > 0) {
+					segments[s].beginRow(i);
+					for (int j = 0; j < amounts[i].length; j++) {
+						segments[s].addLiability(indices[i][j], amounts[i][j]);
+					}
+				}
+			}
+		}
+		LiabilityCsrBuilder whole = new LiabilityCsrBuilder();
+		whole.reset(nodeCount, 0);
+		int[] linkOffsets = whole.appendSegments(segments);
+		for (int s = segments.length - 1; s >= 0; s--) {
+			whole.copySegment(segments[s], linkOffsets[s]);
+		}
+
+		assertGraphEquals(LiabilityGraph.fromArrays(amounts, indices), whole.build());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void segmentsMustBeContiguous() {
+		LiabilityCsrBuilder first = new LiabilityCsrBuilder();
+		first.resetSegment(0, 10, 4);
+		LiabilityCsrBuilder gap = new LiabilityCsrBuilder();
+		gap.resetSegment(11, 20, 4);
+		LiabilityCsrBuilder whole = new LiabilityCsrBuilder();
+		whole.reset(20, 4);
+		whole.appendSegments(new LiabilityCsrBuilder[] { first, gap });
+	}
+
+	private static void emit(LiabilityCsrBuilder builder, float[][] amounts, int[][] indices) {
+		builder.reset(amounts.length, builder.getLinkCount());
+		for (int i = 0; i < amounts.length; i++) {
+			builder.beginRow(i);
+			for (int j = 0; j < amounts[i].length; j++) {
+				builder.addLiability(indices[i][j], amounts[i][j]);
+			}
+		}
+	}
+
+	private static float[][] randomAmounts(Random random, int nodeCount) {
+		float[][] amounts = new float[nodeCount][];
+		for (int i = 0; i < nodeCount; i++) {
+			amounts[i] = new float[random.nextInt(4) == 0 ? 0 : random.nextInt(20)];
+			for (int j = 0; j < amounts[i].length; j++) {
+				amounts[i][j] = random.nextFloat() * 1000f;
+			}
+		}
+		return amounts;
+	}
+
+	private static int[][] randomIndices(Random random, float[][] amounts) {
+		int[][] indices = new int[amounts.length][];
+		for (int i = 0; i < amounts.length; i++) {
+			indices[i] = new int[amounts[i].length];
+			for (int j = 0; j < indices[i].length; j++) {
+				indices[i][j] = random.nextInt(amounts.length);
+			}
+		}
+		return indices;
+	}
+
+	private static void assertGraphEquals(LiabilityGraph expected, LiabilityGraph actual) {
+		int nodes = expected.getNodeCount();
+		int links = expected.getLinkCount();
+		assertEquals(nodes, actual.getNodeCount());
+		assertEquals(links, actual.getLinkCount());
+		assertArrayEquals(expected.getRowPtr(), Arrays.copyOf(actual.getRowPtr(), nodes + 1));
+		assertArrayEquals(expected.getCol(), Arrays.copyOf(actual.getCol(), links));
+		assertArrayEquals(expected.getAmount(), Arrays.copyOf(actual.getAmount(), links), 0f);
+	}
+
+}